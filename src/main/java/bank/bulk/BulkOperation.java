@@ -0,0 +1,171 @@
+package bank.bulk;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import bank.data.Account;
+
+/**
+ * A change of the balance applied to all the accounts of a tenant, like the interest or a fee, and its progress.
+ * The accounts are divided in partitions, the progress is the number of partitions completed.
+ * 
+ */
+public class BulkOperation {
+	/**
+	 * The kind of change
+	 */
+	public enum Type {
+		/**
+		 * Adds to the balance the interest, the amount is the rate in basis points (1/100 of 1%).
+		 * The interest is rounded down.
+		 */
+		INTEREST {
+			@Override
+			long adjustment(Account account, long amount) {
+				return Math.multiplyExact(account.getBalance(), amount) / 10000;
+			}
+		},
+		/**
+		 * Takes a fixed amount from the balance. If the available balance is smaller, only the available 
+		 * balance is taken.
+		 */
+		FEE {
+			@Override
+			long adjustment(Account account, long amount) {
+				return -Math.min(amount, Math.max(0, account.getAvailableBalance()));
+			}
+		};
+
+		/**
+		 * @param account The account
+		 * @param amount The amount of the operation
+		 * @return Returns the change of the balance of the account
+		 * @throws ArithmeticException If the change overflows
+		 */
+		abstract long adjustment(Account account, long amount);
+	}
+
+	public enum State {
+		RUNNING, COMPLETED, CANCELLED, FAILED
+	}
+
+	private final long id;
+	private final String tenant;
+	private final Type type;
+	private final long amount;
+	private final int partitions;
+	private final Set<Integer> completedPartitions = ConcurrentHashMap.newKeySet();
+	private final LongAdder accountsProcessed = new LongAdder();
+	private final LongAdder accountsAdjusted = new LongAdder();
+	private final LongAdder accountsFailed = new LongAdder();
+	private final LongAdder totalAdjustment = new LongAdder();
+	private final long startTime;
+	private volatile long endTime;
+	private volatile State state = State.RUNNING;
+	private volatile boolean cancelled;
+
+	public BulkOperation(long id, String tenant, Type type, long amount, int partitions) {
+		this.id = id;
+		this.tenant = tenant;
+		this.type = type;
+		this.amount = amount;
+		this.partitions = partitions;
+		this.startTime = System.currentTimeMillis();
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * @return Returns the tenant of the accounts
+	 */
+	public String getTenant() {
+		return tenant;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public long getAmount() {
+		return amount;
+	}
+
+	public int getPartitions() {
+		return partitions;
+	}
+
+	public int getCompletedPartitions() {
+		return completedPartitions.size();
+	}
+
+	public long getAccountsProcessed() {
+		return accountsProcessed.sum();
+	}
+
+	public long getAccountsAdjusted() {
+		return accountsAdjusted.sum();
+	}
+
+	/**
+	 * @return Returns the number of accounts whose change overflows, they are not changed
+	 */
+	public long getAccountsFailed() {
+		return accountsFailed.sum();
+	}
+
+	/**
+	 * @return Returns the sum of the changes of the balances. It doesn't include the changes done before a restart.
+	 */
+	public long getTotalAdjustment() {
+		return totalAdjustment.sum();
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public long getEndTime() {
+		return endTime;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	boolean isCompleted(int partition) {
+		return completedPartitions.contains(partition);
+	}
+
+	void completed(int partition) {
+		completedPartitions.add(partition);
+	}
+
+	void processed() {
+		accountsProcessed.increment();
+	}
+
+	void adjusted(long adjustment) {
+		accountsAdjusted.increment();
+		totalAdjustment.add(adjustment);
+	}
+
+	void failed() {
+		accountsFailed.increment();
+	}
+
+	boolean isCancelled() {
+		return cancelled;
+	}
+
+	void cancel() {
+		cancelled = true;
+	}
+
+	void finished(State state) {
+		this.state = state;
+		this.endTime = System.currentTimeMillis();
+	}
+}
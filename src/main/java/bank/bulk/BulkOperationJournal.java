@@ -0,0 +1,118 @@
+package bank.bulk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import bank.dao.AccountDAO;
+
+/**
+ * Append only file with the progress of the last {@link BulkOperation}. Allows an operation interrupted by a 
+ * restart of the application to continue with the partitions that were not completed.
+ * 
+ * There are three kinds of records: the start of an operation with its tenant, the completion of a partition and 
+ * the end of the operation. The file is truncated when a new operation starts, so it only has the records of one 
+ * operation. An operation of a file written before the operations had a tenant is of the default tenant.
+ * 
+ * The class is thread safe.
+ * 
+ */
+class BulkOperationJournal implements Closeable {
+	/**
+	 * The operations of the default tenant written before the operations had a tenant
+	 */
+	private static final byte STARTED_DEFAULT = 'S';
+	private static final byte STARTED = 'T';
+	private static final byte PARTITION = 'P';
+	private static final byte FINISHED = 'F';
+
+	private final File file;
+	private DataOutputStream out;
+
+	BulkOperationJournal(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Reads the last operation if it didn't finish. Must be called before any write.
+	 * A truncated last record, because the application stopped in the middle of a write, is ignored.
+	 * 
+	 * @return Returns the operation with the partitions completed, or null if the last operation finished
+	 * @throws IOException If the file could not be read or written
+	 */
+	synchronized BulkOperation load() throws IOException {
+		BulkOperation operation = null;
+		if (file.exists()) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+				while (true) {
+					byte type = in.readByte();
+					long id = in.readLong();
+					if (type == STARTED || type == STARTED_DEFAULT) {
+						String tenant = type == STARTED ? in.readUTF() : AccountDAO.DEFAULT_TENANT;
+						operation = new BulkOperation(id, tenant, BulkOperation.Type.valueOf(in.readUTF()), 
+								in.readLong(), in.readInt());
+					} else if (type == PARTITION) {
+						int partition = in.readInt();
+						if (operation != null && operation.getId() == id) {
+							operation.completed(partition);
+						}
+					} else {
+						operation = null;
+					}
+				}
+			} catch (EOFException e) {
+				// End of the journal
+			}
+		}
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+		return operation;
+	}
+
+	/**
+	 * Records a new operation. The records of the previous operation are discarded.
+	 */
+	synchronized void started(BulkOperation operation) throws IOException {
+		out.close();
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, false)));
+		out.writeByte(STARTED);
+		out.writeLong(operation.getId());
+		out.writeUTF(operation.getTenant());
+		out.writeUTF(operation.getType().name());
+		out.writeLong(operation.getAmount());
+		out.writeInt(operation.getPartitions());
+		out.flush();
+	}
+
+	/**
+	 * Records all the accounts of a partition were processed.
+	 */
+	synchronized void completed(long id, int partition) throws IOException {
+		out.writeByte(PARTITION);
+		out.writeLong(id);
+		out.writeInt(partition);
+		out.flush();
+	}
+
+	/**
+	 * Records the operation finished, completed or cancelled, and it must not continue after a restart.
+	 */
+	synchronized void finished(long id) throws IOException {
+		out.writeByte(FINISHED);
+		out.writeLong(id);
+		out.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (out != null) {
+			out.close();
+		}
+	}
+}
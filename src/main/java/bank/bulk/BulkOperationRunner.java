@@ -0,0 +1,370 @@
+package bank.bulk;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import bank.dao.AccountDAO;
+import bank.data.Account;
+import bank.data.BulkStatus;
+import bank.data.OperationError;
+import bank.data.OperationStatus;
+
+/**
+ * This class applies a {@link BulkOperation} to all the accounts of a tenant, like the interest or a fee, while the
+ * transfers go on.
+ * 
+ * The accounts are divided in partitions by {@link AccountDAO#getAccountNames(int, int)} and the partitions are 
+ * processed in parallel by a {@link ForkJoinPool}. Each account is committed alone with 
+ * {@link AccountDAO#adjustAccount(Account)}, the same sequence check of the transfers, and retried if it is out of
+ * sequence. The lock of the commits is held for one account at a time, so the transfers are not blocked by the 
+ * operation. The accounts per second are limited by a {@link Throttle}, to keep the latency of the transfers.
+ * 
+ * The accounts keep the id of the last bulk operation applied, so an account is never changed twice by the same
+ * operation. If the property {@code bank.bulk.journal} has the path of a file, the completed partitions are 
+ * written to it and an operation interrupted by a restart continues with the rest of the partitions when the 
+ * application starts.
+ * 
+ * The properties are:
+ * 	{@code bank.bulk.parallelism} The number of threads, by default the number of processors.
+ * 	{@code bank.bulk.partitions} The number of partitions, by default 1024.
+ * 	{@code bank.bulk.max-rate} The maximum number of accounts per second, by default 10000. Zero means no limit.
+ * 
+ * Only one operation runs at a time, of any tenant. The operations of a tenant are only listed and cancelled 
+ * through that tenant.
+ * 
+ * On a handover (see {@link bank.handover.HandoverServer}) the journal is shared by both processes and it has one
+ * owner at a time: the running process suspends its operation before it hands over the accounts, and the process
+ * that takes over (property {@code bank.handover.from}) continues it when it took over them.
+ * 
+ */
+@Component
+public class BulkOperationRunner {
+	private final int parallelism;
+	private final int partitions;
+	private final Throttle throttle;
+	private final String journalPath;
+	private final boolean takesOver;
+	private final Map<Long, BulkOperation> operations = new LinkedHashMap<>();
+	private BulkOperation current;
+	private Thread coordinator;
+	private BulkOperationJournal journal;
+	private ForkJoinPool pool;
+	private volatile boolean stopping;
+	private boolean suspended;
+
+	public BulkOperationRunner(@Value("${bank.bulk.parallelism:0}") int parallelism,
+			@Value("${bank.bulk.partitions:1024}") int partitions,
+			@Value("${bank.bulk.max-rate:10000}") long maxRate,
+			@Value("${bank.bulk.journal:}") String journalPath,
+			@Value("${bank.handover.from:}") String handoverFrom) {
+		this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		this.partitions = partitions;
+		this.throttle = new Throttle(maxRate);
+		this.journalPath = journalPath;
+		this.takesOver = !handoverFrom.isEmpty();
+	}
+
+	/**
+	 * Starts the runner, unless the process takes over from other one: the journal belongs to the running process
+	 * until the handover, and the {@link bank.handover.HandoverClient} starts the runner after it.
+	 * 
+	 * @throws IOException If the journal could not be read
+	 */
+	@PostConstruct
+	public void init() throws IOException {
+		if (!takesOver) {
+			start();
+		}
+	}
+
+	/**
+	 * Continues the operation interrupted by the last stop of the application, if any.
+	 * 
+	 * @throws IOException If the journal could not be read
+	 */
+	public synchronized void start() throws IOException {
+		stopping = false;
+		pool = new ForkJoinPool(parallelism);
+		if (!journalPath.isEmpty()) {
+			journal = new BulkOperationJournal(new File(journalPath));
+			BulkOperation operation = journal.load();
+			if (operation != null) {
+				operations.put(operation.getId(), operation);
+				run(operation);
+			}
+		}
+	}
+
+	/**
+	 * Stops the running operation without finishing it, so it continues in the next start.
+	 * 
+	 * @throws IOException If the journal could not be closed
+	 * @throws InterruptedException If the thread was interrupted while waiting the threads to stop
+	 */
+	@PreDestroy
+	public void stop() throws IOException, InterruptedException {
+		stopping = true;
+		ForkJoinPool stopped;
+		synchronized (this) {
+			stopped = pool;
+		}
+		if (stopped != null) {
+			stopped.shutdownNow();
+			stopped.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		synchronized (this) {
+			if (journal != null) {
+				journal.close();
+			}
+		}
+	}
+
+	/**
+	 * Stops the running operation without finishing it and closes the journal, so other process could continue 
+	 * it. The partitions being processed end first.
+	 * 
+	 * @throws IOException If the journal could not be closed
+	 * @throws InterruptedException If the thread was interrupted while waiting the threads to stop
+	 */
+	public void suspend() throws IOException, InterruptedException {
+		ForkJoinPool stopped;
+		Thread running;
+		synchronized (this) {
+			if (pool == null || suspended) {
+				return;
+			}
+			suspended = true;
+			stopping = true;
+			stopped = pool;
+			running = coordinator;
+		}
+		stopped.shutdownNow();
+		stopped.awaitTermination(10, TimeUnit.SECONDS);
+		if (running != null) {
+			// It must see the stop before the operation is started again
+			running.join(TimeUnit.SECONDS.toMillis(10));
+		}
+		synchronized (this) {
+			if (journal != null) {
+				journal.close();
+			}
+		}
+	}
+
+	/**
+	 * Continues the operation suspended by {@link #suspend()}, from the journal, when the handover failed.
+	 * 
+	 * @throws IOException If the journal could not be read
+	 */
+	public synchronized void resume() throws IOException {
+		if (!suspended) {
+			return;
+		}
+		suspended = false;
+		if (journal != null) {
+			journal.close();
+		}
+		start();
+		if (journal == null && current != null && current.getState() == BulkOperation.State.RUNNING) {
+			// Without journal the operation continues from the partitions completed in memory
+			run(current);
+		}
+	}
+
+	/**
+	 * Starts an operation on all the accounts of a tenant.
+	 * 
+	 * @param tenant The tenant of the accounts, null for the default one
+	 * @param type The kind of operation
+	 * @param amount The positive greater than zero amount of the operation, see {@link BulkOperation.Type}
+	 * @return Returns a {@link BulkStatus} with the id of the operation or the error 
+	 * {@link OperationError#BULK_OPERATION_RUNNING} if other operation didn't finish
+	 */
+	public synchronized BulkStatus submit(String tenant, BulkOperation.Type type, long amount) {
+		String operationTenant = tenant == null ? AccountDAO.DEFAULT_TENANT : tenant;
+		if (!AccountDAO.isTenant(operationTenant)) {
+			return new BulkStatus(OperationError.TENANT_DOESNT_EXIST);
+		}
+		if (amount <= 0) {
+			return new BulkStatus(OperationError.INVALID_VALUE);
+		}
+		if (current != null && current.getState() == BulkOperation.State.RUNNING) {
+			return new BulkStatus(OperationError.BULK_OPERATION_RUNNING);
+		}
+		
+		// The ids are increasing, also between restarts, so an account never has the id of a new operation
+		long id = System.currentTimeMillis();
+		for (long previous : operations.keySet()) {
+			id = Math.max(id, previous + 1);
+		}
+		BulkOperation operation = new BulkOperation(id, operationTenant, type, amount, partitions);
+		if (journal != null) {
+			try {
+				journal.started(operation);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		operations.put(id, operation);
+		run(operation);
+		return new BulkStatus(id);
+	}
+
+	/**
+	 * Cancels the running operation. The accounts already changed keep the change.
+	 * 
+	 * @param tenant The tenant of the operation, null for the default one
+	 * @param id The id of the operation
+	 * @return Returns an {@link OperationStatus}. The error is {@link OperationError#BULK_OPERATION_DOESNT_EXIST} if 
+	 * the operation is not running or it is of other tenant.
+	 */
+	public synchronized OperationStatus cancel(String tenant, long id) {
+		BulkOperation operation = operations.get(id);
+		if (operation == null || operation.getState() != BulkOperation.State.RUNNING 
+				|| !operation.getTenant().equals(tenant == null ? AccountDAO.DEFAULT_TENANT : tenant)) {
+			return new OperationStatus(false, OperationError.BULK_OPERATION_DOESNT_EXIST);
+		}
+		operation.cancel();
+		return new OperationStatus(true);
+	}
+
+	/**
+	 * @param tenant The tenant of the operations, null for the default one
+	 * @return Returns the operations of the tenant since the application started, with their progress
+	 */
+	public synchronized List<BulkOperation> list(String tenant) {
+		String operationTenant = tenant == null ? AccountDAO.DEFAULT_TENANT : tenant;
+		List<BulkOperation> list = new ArrayList<>();
+		for (BulkOperation operation : operations.values()) {
+			if (operation.getTenant().equals(operationTenant)) {
+				list.add(operation);
+			}
+		}
+		return list;
+	}
+
+	private void run(BulkOperation operation) {
+		current = operation;
+		coordinator = new Thread(() -> {
+			try {
+				pool.invoke(new PartitionTask(operation, 0, operation.getPartitions()));
+				if (stopping) {
+					return;
+				}
+				if (journal != null) {
+					try {
+						journal.finished(operation.getId());
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				operation.finished(operation.isCancelled() ? BulkOperation.State.CANCELLED 
+						: BulkOperation.State.COMPLETED);
+			} catch (RuntimeException e) {
+				// The operation continues in the next start
+				if (!stopping) {
+					operation.finished(BulkOperation.State.FAILED);
+				}
+			}
+		}, "bulk-operation-" + operation.getId());
+		coordinator.setDaemon(true);
+		coordinator.start();
+	}
+
+	/**
+	 * Splits the range of partitions in halves until there is one partition to process
+	 */
+	private class PartitionTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final BulkOperation operation;
+		private final int from;
+		private final int to;
+
+		PartitionTask(BulkOperation operation, int from, int to) {
+			this.operation = operation;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new PartitionTask(operation, from, middle), new PartitionTask(operation, middle, to));
+			} else if (!operation.isCompleted(from)) {
+				try {
+					process(operation, from);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+
+	private void process(BulkOperation operation, int partition) throws IOException, InterruptedException {
+		AccountDAO dao = new AccountDAO(operation.getTenant());
+		for (String name : dao.getAccountNames(partition, operation.getPartitions())) {
+			if (operation.isCancelled() || stopping) {
+				return;
+			}
+			throttle.acquire();
+			while (!dao.execute(Collections.singletonList(name), () -> apply(dao, operation, name))) {
+				// Out of sequence, the account changed in between
+				Thread.yield();
+			}
+			operation.processed();
+		}
+		operation.completed(partition);
+		if (journal != null) {
+			journal.completed(operation.getId(), partition);
+		}
+	}
+
+	/**
+	 * Applies the operation to an account.
+	 * 
+	 * @return Returns false if the account is out of sequence
+	 */
+	private static boolean apply(AccountDAO dao, BulkOperation operation, String name) {
+		Account account = dao.getAccount(name);
+		if (account.getLastBulkOperation() == operation.getId()) {
+			// Changed before a restart
+			return true;
+		}
+		
+		long adjustment;
+		try {
+			adjustment = operation.getType().adjustment(account, operation.getAmount());
+		} catch (ArithmeticException e) {
+			operation.failed();
+			return true;
+		}
+		if (adjustment == 0) {
+			return true;
+		}
+		account.deposit(adjustment);
+		account.setLastBulkOperation(operation.getId());
+		if (!dao.adjustAccount(account)) {
+			return false;
+		}
+		operation.adjusted(adjustment);
+		return true;
+	}
+}
@@ -0,0 +1,43 @@
+package bank.bulk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the rate of an activity shared by several threads. Each permit reserves the next free slot of time and 
+ * the thread sleeps until its slot, so the permits are evenly spaced. The slots not used are not accumulated, so 
+ * there are no bursts after a pause.
+ * 
+ */
+class Throttle {
+	private final long intervalNanos;
+	private final AtomicLong next = new AtomicLong(System.nanoTime());
+
+	/**
+	 * @param permitsPerSecond The maximum rate. Zero or negative means no limit.
+	 */
+	Throttle(long permitsPerSecond) {
+		this.intervalNanos = permitsPerSecond <= 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+	}
+
+	/**
+	 * Waits until the next permit.
+	 * 
+	 * @throws InterruptedException If the thread was interrupted while waiting
+	 */
+	void acquire() throws InterruptedException {
+		if (intervalNanos == 0) {
+			return;
+		}
+		long now = System.nanoTime();
+		long slot;
+		while (true) {
+			long current = next.get();
+			slot = Math.max(current, now);
+			if (next.compareAndSet(current, slot + intervalNanos)) {
+				break;
+			}
+		}
+		TimeUnit.NANOSECONDS.sleep(slot - now);
+	}
+}
@@ -0,0 +1,258 @@
+package bank.capture;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import bank.data.Account;
+import bank.data.OperationError;
+import bank.priority.RequestClass;
+
+/**
+ * The binary format of the files of the {@link TrafficCapture}.
+ * 
+ * The file starts with a header: the magic number, the version, the time the capture started and the accounts of
+ * each tenant at that time (name and balance), so the traffic could be replayed on an instance without accounts.
+ * Then there is a record for each {@link CapturedRequest}, in the order the requests ended.
+ * 
+ * The numbers are variable length (7 bits per byte), the signed ones in zigzag, and the times are in microseconds.
+ * The start of a record is the difference with the start of the previous record. The strings are written once: 
+ * the first time a string is written it gets the next id and its id is followed by its characters, after that 
+ * only its id is written. The id 0 is null. So a record of a transfer between two known accounts takes about 12
+ * bytes.
+ * 
+ * A record written partially, because the application stopped, is ignored by the {@link Reader}.
+ * 
+ */
+public final class CaptureFile {
+	private static final int MAGIC = 0x42434150;
+	private static final int VERSION = 1;
+
+	private CaptureFile() {
+	}
+
+	/**
+	 * Writes a capture file. It is not thread safe.
+	 */
+	public static class Writer implements Closeable {
+		private final DataOutputStream out;
+		private final Map<String, Integer> strings = new HashMap<>();
+		private long lastStartMicros;
+
+		/**
+		 * Creates the file and writes its header.
+		 * 
+		 * @param file The file, it is replaced if it exists
+		 * @param startTime The time the capture started, in milliseconds since the epoch
+		 * @param accounts The accounts of each tenant
+		 * @throws IOException If the file could not be written
+		 */
+		public Writer(Path file, long startTime, Map<String, List<Account>> accounts) throws IOException {
+			out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeLong(startTime);
+			writeNumber(accounts.size());
+			for (Map.Entry<String, List<Account>> tenant : accounts.entrySet()) {
+				writeString(tenant.getKey());
+				writeNumber(tenant.getValue().size());
+				for (Account account : tenant.getValue()) {
+					writeString(account.getName());
+					writeSigned(account.getBalance());
+				}
+			}
+		}
+
+		public void write(CapturedRequest request) throws IOException {
+			out.writeByte(request.getOperation().ordinal());
+			int flags = "SOAP".equals(request.getChannel()) ? 1 : 0;
+			if (request.getRequestClass() != null) {
+				flags |= (request.getRequestClass().ordinal() + 1) << 1;
+			}
+			out.writeByte(flags);
+			long startMicros = TimeUnit.NANOSECONDS.toMicros(request.getStartNanos());
+			writeSigned(startMicros - lastStartMicros);
+			lastStartMicros = startMicros;
+			writeNumber(TimeUnit.NANOSECONDS.toMicros(request.getLatencyNanos()));
+			writeString(request.getTenant());
+			writeString(request.getAccount());
+			writeString(request.getTo());
+			writeSigned(request.getAmount());
+			writeSigned(request.getArgument());
+			writeNumber(request.getOutcome() == null ? 0 : request.getOutcome().getCode() + 1);
+			writeSigned(request.getResult());
+		}
+
+		/**
+		 * @return Returns the bytes written so far
+		 */
+		public long size() {
+			return out.size();
+		}
+
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+
+		private void writeString(String value) throws IOException {
+			if (value == null) {
+				writeNumber(0);
+				return;
+			}
+			Integer id = strings.get(value);
+			if (id != null) {
+				writeNumber(id);
+				return;
+			}
+			id = strings.size() + 1;
+			strings.put(value, id);
+			writeNumber(id);
+			out.writeUTF(value);
+		}
+
+		private void writeSigned(long value) throws IOException {
+			writeNumber((value << 1) ^ (value >> 63));
+		}
+
+		private void writeNumber(long value) throws IOException {
+			while ((value & ~0x7fL) != 0) {
+				out.writeByte((int) (value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			out.writeByte((int) value);
+		}
+	}
+
+	/**
+	 * Reads a capture file. It is not thread safe.
+	 */
+	public static class Reader implements Closeable {
+		private final DataInputStream in;
+		private final List<String> strings = new ArrayList<>();
+		private final long startTime;
+		private final Map<String, List<Account>> accounts = new LinkedHashMap<>();
+		private long lastStartMicros;
+
+		/**
+		 * Opens the file and reads its header.
+		 * 
+		 * @throws IOException If the file could not be read or it is not a capture file
+		 */
+		public Reader(Path file) throws IOException {
+			in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024));
+			if (in.readInt() != MAGIC) {
+				in.close();
+				throw new IOException(file + " is not a capture file");
+			}
+			int version = in.readUnsignedByte();
+			if (version != VERSION) {
+				in.close();
+				throw new IOException("Unknown version " + version + " of the capture file " + file);
+			}
+			startTime = in.readLong();
+			for (long tenants = readNumber(); tenants > 0; tenants--) {
+				String tenant = readString();
+				List<Account> tenantAccounts = new ArrayList<>();
+				for (long count = readNumber(); count > 0; count--) {
+					tenantAccounts.add(new Account(readString(), readSigned()));
+				}
+				accounts.put(tenant, tenantAccounts);
+			}
+		}
+
+		/**
+		 * @return Returns the time the capture started, in milliseconds since the epoch
+		 */
+		public long getStartTime() {
+			return startTime;
+		}
+
+		/**
+		 * @return Returns the accounts of each tenant when the capture started
+		 */
+		public Map<String, List<Account>> getAccounts() {
+			return accounts;
+		}
+
+		/**
+		 * Reads the next record.
+		 * 
+		 * @return Returns the request or null at the end of the file
+		 * @throws IOException If the file could not be read
+		 */
+		public CapturedRequest next() throws IOException {
+			try {
+				int operation = in.read();
+				if (operation < 0) {
+					return null;
+				}
+				int flags = in.readUnsignedByte();
+				long startMicros = lastStartMicros + readSigned();
+				long latencyMicros = readNumber();
+				CapturedRequest request = new CapturedRequest(CapturedRequest.Operation.values()[operation], 
+						readString(), readString(), readString(), readSigned(), readSigned());
+				int outcome = (int) readNumber();
+				request.setResult(readSigned());
+				request.setChannel((flags & 1) != 0 ? "SOAP" : "REST");
+				request.setRequestClass((flags >> 1) == 0 ? null : RequestClass.values()[(flags >> 1) - 1]);
+				request.setStartNanos(TimeUnit.MICROSECONDS.toNanos(startMicros));
+				request.setLatencyNanos(TimeUnit.MICROSECONDS.toNanos(latencyMicros));
+				request.setOutcome(outcome == 0 ? null : OperationError.fromCode(outcome - 1));
+				lastStartMicros = startMicros;
+				return request;
+			} catch (EOFException e) {
+				// The last record was written partially
+				return null;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+
+		private String readString() throws IOException {
+			int id = (int) readNumber();
+			if (id == 0) {
+				return null;
+			}
+			if (id > strings.size()) {
+				strings.add(in.readUTF());
+			}
+			return strings.get(id - 1);
+		}
+
+		private long readSigned() throws IOException {
+			long value = readNumber();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private long readNumber() throws IOException {
+			long value = 0;
+			for (int shift = 0; ; shift += 7) {
+				int b = in.readUnsignedByte();
+				value |= (long) (b & 0x7f) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+		}
+	}
+}
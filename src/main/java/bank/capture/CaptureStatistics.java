@@ -0,0 +1,65 @@
+package bank.capture;
+
+/**
+ * Plain data object with the state of the current or the last capture of the {@link TrafficCapture}.
+ * 
+ */
+public class CaptureStatistics {
+	private final boolean active;
+	private final String file;
+	private final long startTime;
+	private final long requests;
+	private final long dropped;
+	private final long bytes;
+
+	public CaptureStatistics(boolean active, String file, long startTime, long requests, long dropped, long bytes) {
+		this.active = active;
+		this.file = file;
+		this.startTime = startTime;
+		this.requests = requests;
+		this.dropped = dropped;
+		this.bytes = bytes;
+	}
+
+	/**
+	 * @return Returns true if the capture is running
+	 */
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * @return Returns the path of the capture file in the server, null if there was no capture
+	 */
+	public String getFile() {
+		return file;
+	}
+
+	/**
+	 * @return Returns the time the capture started, in milliseconds since the epoch
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * @return Returns the number of requests written to the file
+	 */
+	public long getRequests() {
+		return requests;
+	}
+
+	/**
+	 * @return Returns the number of requests not captured because the writer could not keep up
+	 */
+	public long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * @return Returns the size of the file
+	 */
+	public long getBytes() {
+		return bytes;
+	}
+}
@@ -0,0 +1,141 @@
+package bank.capture;
+
+import bank.data.OperationError;
+import bank.priority.RequestClass;
+
+/**
+ * Plain data object with an operation of the accounts received by the RESTful or the Web Service interfaces, 
+ * captured by the {@link TrafficCapture}: the arguments, when it started, how long it took and its outcome.
+ * 
+ * The meaning of the arguments depends on the operation:
+ * <pre>
+ *  Operation       account  to      amount    argument  result
+ *  CREATE_ACCOUNT  name             balance
+ *  TRANSFER        from     to      value
+ *  BALANCE         name                                 balance
+ *  AUTHORIZE       name             amount    ttl       hold id
+ *  CAPTURE                  to      amount    hold id
+ *  RELEASE                                    hold id
+ * </pre>
+ * 
+ */
+public class CapturedRequest {
+	/**
+	 * The operations captured. The order is the one of the capture file, new operations must be added at the end.
+	 */
+	public enum Operation {
+		CREATE_ACCOUNT, TRANSFER, BALANCE, AUTHORIZE, CAPTURE, RELEASE
+	}
+
+	private final Operation operation;
+	private final String tenant;
+	private final String account;
+	private final String to;
+	private final long amount;
+	private final long argument;
+	private String channel;
+	private RequestClass requestClass;
+	private long startNanos;
+	private long latencyNanos;
+	private OperationError outcome;
+	private long result;
+
+	public CapturedRequest(Operation operation, String tenant, String account, String to, long amount, long argument) {
+		this.operation = operation;
+		this.tenant = tenant;
+		this.account = account;
+		this.to = to;
+		this.amount = amount;
+		this.argument = argument;
+	}
+
+	public Operation getOperation() {
+		return operation;
+	}
+
+	/**
+	 * @return Returns the tenant of the accounts, null for the default tenant
+	 */
+	public String getTenant() {
+		return tenant;
+	}
+
+	public String getAccount() {
+		return account;
+	}
+
+	public String getTo() {
+		return to;
+	}
+
+	public long getAmount() {
+		return amount;
+	}
+
+	public long getArgument() {
+		return argument;
+	}
+
+	/**
+	 * @return Returns the interface of the request: REST or SOAP
+	 */
+	public String getChannel() {
+		return channel;
+	}
+
+	/**
+	 * @return Returns the class of the request, null if the request was not scheduled
+	 */
+	public RequestClass getRequestClass() {
+		return requestClass;
+	}
+
+	/**
+	 * @return Returns the time the request started, in nanoseconds since the capture started
+	 */
+	public long getStartNanos() {
+		return startNanos;
+	}
+
+	/**
+	 * @return Returns the time of the request in nanoseconds, from its start to the end of its response
+	 */
+	public long getLatencyNanos() {
+		return latencyNanos;
+	}
+
+	/**
+	 * @return Returns the outcome of the operation, null if the service failed with an exception
+	 */
+	public OperationError getOutcome() {
+		return outcome;
+	}
+
+	public long getResult() {
+		return result;
+	}
+
+	void setChannel(String channel) {
+		this.channel = channel;
+	}
+
+	void setRequestClass(RequestClass requestClass) {
+		this.requestClass = requestClass;
+	}
+
+	void setStartNanos(long startNanos) {
+		this.startNanos = startNanos;
+	}
+
+	void setLatencyNanos(long latencyNanos) {
+		this.latencyNanos = latencyNanos;
+	}
+
+	void setOutcome(OperationError outcome) {
+		this.outcome = outcome;
+	}
+
+	void setResult(long result) {
+		this.result = result;
+	}
+}
@@ -0,0 +1,298 @@
+package bank.capture;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import bank.dao.AccountDAO;
+import bank.dao.AccountSnapshot;
+import bank.data.Account;
+import bank.data.BalanceStatus;
+import bank.data.HoldStatus;
+import bank.data.OperationStatus;
+import bank.priority.RequestClass;
+
+/**
+ * Captures the operations of the accounts received by the RESTful and Web Service interfaces into a 
+ * {@link CaptureFile}, with their arguments, timing and outcome, so the real traffic could be replayed later
+ * against another instance by {@link bank.tools.replay.TrafficReplayer}.
+ * 
+ * The capture is started and stopped on demand. While it is running the requests are kept by the thread of the 
+ * request, like the {@link bank.trace.TransferTrace}: the {@link bank.trace.TraceFilter} calls {@link #begin(String)}
+ * and {@link #end()}, the interfaces call {@link #request} with the arguments and the 
+ * {@link bank.priority.RequestScheduler} calls {@link #outcome(RequestClass, Object)} with the result. At the end 
+ * of the request the records are put in a bounded queue and written by a background thread, so the requests 
+ * never wait for the disk; if the queue is full the record is dropped and counted. When no capture is running 
+ * the cost is one volatile read per request.
+ * 
+ * The file starts with the accounts of each tenant read from an {@link AccountSnapshot}. The requests running 
+ * when the capture starts are not captured, so the replay is close to but not exactly the original traffic.
+ * 
+ * The properties are:
+ * 	{@code bank.capture.directory} The directory of the capture files, by default the temporary directory.
+ * 	{@code bank.capture.max-size} The megabytes of a capture file, the capture stops at that size. By default 1024.
+ * 	{@code bank.capture.queue} The requests waiting to be written. By default 65536.
+ * 
+ */
+@Component
+public class TrafficCapture {
+	private static final Logger LOG = LoggerFactory.getLogger(TrafficCapture.class);
+	private static final ThreadLocal<Context> CURRENT = new ThreadLocal<>();
+
+	private final Path directory;
+	private final long maxSize;
+	private final int queueCapacity;
+	private volatile Session session;
+	private Session last;
+
+	/**
+	 * The requests of the thread of a request.
+	 */
+	private static class Context {
+		final Session session;
+		final String channel;
+		final long start = System.nanoTime();
+		final List<CapturedRequest> requests = new ArrayList<>(1);
+
+		Context(Session session, String channel) {
+			this.session = session;
+			this.channel = channel;
+		}
+	}
+
+	public TrafficCapture(@Value("${bank.capture.directory:${java.io.tmpdir}}") String directory,
+			@Value("${bank.capture.max-size:1024}") long maxSize,
+			@Value("${bank.capture.queue:65536}") int queueCapacity) {
+		this.directory = Paths.get(directory);
+		this.maxSize = maxSize * 1024 * 1024;
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * Starts a capture in a new file. Does nothing if a capture is running.
+	 * 
+	 * @param duration The seconds of the capture, 0 to capture until {@link #stop()}
+	 * @return Returns the state of the capture
+	 * @throws IOException If the file could not be created
+	 */
+	public synchronized CaptureStatistics start(long duration) throws IOException {
+		if (session == null) {
+			long startTime = System.currentTimeMillis();
+			Map<String, List<Account>> accounts = new LinkedHashMap<>();
+			for (String tenant : AccountDAO.getTenants()) {
+				accounts.put(tenant, accounts(new AccountDAO(tenant)));
+			}
+			Files.createDirectories(directory);
+			Path file = directory.resolve("traffic-" + startTime + ".cap");
+			session = new Session(file, new CaptureFile.Writer(file, startTime, accounts), startTime, duration);
+			LOG.info("Capturing the traffic to {}", file);
+		}
+		return session.getStatistics();
+	}
+
+	/**
+	 * Stops the capture and waits until all its requests are written.
+	 * 
+	 * @return Returns the state of the last capture
+	 */
+	@PreDestroy
+	public CaptureStatistics stop() {
+		// The writer ends the session holding the lock, so it is not held while waiting for the writer
+		Session current = session;
+		if (current != null) {
+			current.finish();
+		}
+		return getStatistics();
+	}
+
+	/**
+	 * @return Returns the state of the current capture or the last one, with a null file if there was none
+	 */
+	public synchronized CaptureStatistics getStatistics() {
+		Session current = session != null ? session : last;
+		return current == null ? new CaptureStatistics(false, null, 0, 0, 0, 0) : current.getStatistics();
+	}
+
+	/**
+	 * Starts the request of the current thread, if a capture is running.
+	 * 
+	 * @param channel The interface of the request: REST or SOAP
+	 */
+	public void begin(String channel) {
+		Session current = session;
+		if (current != null) {
+			CURRENT.set(new Context(current, channel));
+		}
+	}
+
+	/**
+	 * Ends the request of the current thread and queues its operations to be written.
+	 */
+	public void end() {
+		Context context = CURRENT.get();
+		if (context == null) {
+			return;
+		}
+		CURRENT.remove();
+		long end = System.nanoTime();
+		for (CapturedRequest request : context.requests) {
+			request.setChannel(context.channel);
+			request.setStartNanos(context.start - context.session.startNanos);
+			request.setLatencyNanos(end - context.start);
+			context.session.offer(request);
+		}
+	}
+
+	/**
+	 * Records an operation of the request of the current thread. A request could do several operations. 
+	 * It does nothing if the request is not captured. The arguments are described in {@link CapturedRequest}.
+	 */
+	public static void request(CapturedRequest.Operation operation, String tenant, String account, String to, 
+			long amount, long argument) {
+		Context context = CURRENT.get();
+		if (context != null) {
+			context.requests.add(new CapturedRequest(operation, tenant, account, to, amount, argument));
+		}
+	}
+
+	/**
+	 * Records the class and the result of the last operation of the request of the current thread.
+	 * 
+	 * @param requestClass The class of the request
+	 * @param result The result returned by the service or built for a rejected request
+	 */
+	public static void outcome(RequestClass requestClass, Object result) {
+		Context context = CURRENT.get();
+		if (context == null || context.requests.isEmpty()) {
+			return;
+		}
+		CapturedRequest request = context.requests.get(context.requests.size() - 1);
+		request.setRequestClass(requestClass);
+		if (result instanceof OperationStatus) {
+			request.setOutcome(((OperationStatus) result).getErrorCode());
+		}
+		if (result instanceof BalanceStatus) {
+			request.setResult(((BalanceStatus) result).getBalance());
+		} else if (result instanceof HoldStatus) {
+			request.setResult(((HoldStatus) result).getHoldId());
+		}
+	}
+
+	private static List<Account> accounts(AccountDAO dao) {
+		List<Account> accounts = new ArrayList<>();
+		try (AccountSnapshot snapshot = dao.openSnapshot()) {
+			for (String name : dao.getAccountNames(0, 1)) {
+				Account account = snapshot.getAccount(name);
+				if (account != null) {
+					accounts.add(account);
+				}
+			}
+		}
+		return accounts;
+	}
+
+	private synchronized void finished(Session finished) {
+		if (session == finished) {
+			session = null;
+			last = finished;
+		}
+	}
+
+	/**
+	 * A running capture: the queue of the requests and the thread that writes them.
+	 */
+	private class Session {
+		final Path file;
+		final CaptureFile.Writer writer;
+		final long startTime;
+		final long startNanos = System.nanoTime();
+		final long deadline;
+		final BlockingQueue<CapturedRequest> queue = new ArrayBlockingQueue<>(queueCapacity);
+		final LongAdder dropped = new LongAdder();
+		final Thread thread;
+		volatile boolean stopping;
+		volatile long written;
+		volatile long bytes;
+
+		Session(Path file, CaptureFile.Writer writer, long startTime, long duration) {
+			this.file = file;
+			this.writer = writer;
+			this.startTime = startTime;
+			this.deadline = duration > 0 ? startNanos + TimeUnit.SECONDS.toNanos(duration) : 0;
+			this.thread = new Thread(this::write, "traffic-capture");
+			thread.setDaemon(true);
+			thread.start();
+		}
+
+		void offer(CapturedRequest request) {
+			if (!queue.offer(request)) {
+				dropped.increment();
+			}
+		}
+
+		void finish() {
+			stopping = true;
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		CaptureStatistics getStatistics() {
+			return new CaptureStatistics(session == this, file.toString(), startTime, written, dropped.sum(), bytes);
+		}
+
+		private void write() {
+			try {
+				while (true) {
+					CapturedRequest request = queue.poll(100, TimeUnit.MILLISECONDS);
+					if (request != null) {
+						writer.write(request);
+						written++;
+						bytes = writer.size();
+					} else {
+						writer.flush();
+						if (stopping) {
+							break;
+						}
+					}
+					if (!stopping && (writer.size() >= maxSize || deadline != 0 && System.nanoTime() >= deadline)) {
+						// The requests already queued are written, the new ones are not captured
+						finished(this);
+						stopping = true;
+					}
+				}
+			} catch (IOException e) {
+				LOG.error("The capture " + file + " failed", e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				finished(this);
+				try {
+					writer.close();
+				} catch (IOException e) {
+					LOG.error("The capture " + file + " could not be closed", e);
+				}
+				bytes = writer.size();
+				LOG.info("The capture {} ended with {} requests, {} dropped", file, written, dropped.sum());
+			}
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package bank.client;
+
+/**
+ * Thrown, as the cause of the failure of the futures of a {@link BankServiceClient}, when the service could not
+ * be reached or didn't answer in time, or when the answer could not be understood. The errors of the operations
+ * themselves are not exceptions, they are the {@link bank.data.OperationError} of the status returned.
+ * 
+ */
+public class BankClientException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public BankClientException(String message) {
+		super(message);
+	}
+
+	public BankClientException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,115 @@
+package bank.client;
+
+import bank.priority.RequestClass;
+
+/**
+ * Options of the {@link BankServiceClient}s. The setters return the options, so they could be chained:
+ * <pre>
+ *  new RestBankServiceClient(new BankClientOptions().setUrl("http://bank:8080/bank").setTenant("retail"));
+ * </pre>
+ * 
+ */
+public class BankClientOptions {
+	private String url = "http://localhost:8080/bank";
+	private String tenant;
+	private RequestClass requestClass;
+	private int connections = 16;
+	private int connectTimeout = 1000;
+	private int requestTimeout = 5000;
+	private int maxBatch = 100;
+
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * @param url The base URL of the service, without {@code /rest} or {@code /ws}. By default 
+	 * {@code http://localhost:8080/bank}.
+	 */
+	public BankClientOptions setUrl(String url) {
+		this.url = url;
+		return this;
+	}
+
+	public String getTenant() {
+		return tenant;
+	}
+
+	/**
+	 * @param tenant The tenant of the accounts, null for the default tenant
+	 */
+	public BankClientOptions setTenant(String tenant) {
+		this.tenant = tenant;
+		return this;
+	}
+
+	public RequestClass getRequestClass() {
+		return requestClass;
+	}
+
+	/**
+	 * @param requestClass The class of the requests, sent in the header {@code X-Request-Class} of the RESTful 
+	 * requests. Null to use the one of the service, INTERACTIVE.
+	 */
+	public BankClientOptions setRequestClass(RequestClass requestClass) {
+		this.requestClass = requestClass;
+		return this;
+	}
+
+	public int getConnections() {
+		return connections;
+	}
+
+	/**
+	 * @param connections The maximum number of persistent connections, which is also the maximum number of 
+	 * requests in flight. By default 16.
+	 */
+	public BankClientOptions setConnections(int connections) {
+		if (connections < 1) {
+			throw new IllegalArgumentException("At least one connection is needed: " + connections);
+		}
+		this.connections = connections;
+		return this;
+	}
+
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	/**
+	 * @param connectTimeout The time in milliseconds to open a connection. By default 1000.
+	 */
+	public BankClientOptions setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+		return this;
+	}
+
+	public int getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	/**
+	 * @param requestTimeout The time in milliseconds to wait for a free connection and, once sent, for the 
+	 * response. By default 5000.
+	 */
+	public BankClientOptions setRequestTimeout(int requestTimeout) {
+		this.requestTimeout = requestTimeout;
+		return this;
+	}
+
+	public int getMaxBatch() {
+		return maxBatch;
+	}
+
+	/**
+	 * @param maxBatch The maximum number of calls coalesced in one request, 1 to send every call on its own. 
+	 * By default 100.
+	 */
+	public BankClientOptions setMaxBatch(int maxBatch) {
+		if (maxBatch < 1) {
+			throw new IllegalArgumentException("The batch must have at least one call: " + maxBatch);
+		}
+		this.maxBatch = maxBatch;
+		return this;
+	}
+}
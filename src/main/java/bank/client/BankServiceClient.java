@@ -0,0 +1,78 @@
+package bank.client;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+import bank.data.BalanceStatus;
+import bank.data.HoldStatus;
+import bank.data.OperationStatus;
+
+/**
+ * Client of the bank services for the Java applications. There is one implementation for each interface of the 
+ * service: {@link RestBankServiceClient} and {@link SoapBankServiceClient}.
+ * 
+ * The calls don't block: they return a future that is completed with the status of the operation, with the 
+ * {@link bank.data.OperationError} decoded, or completed exceptionally with a {@link BankClientException} if the
+ * service could not be reached. The requests are sent by a pool of threads through a pool of persistent 
+ * connections, so many calls could be in flight at the same time.
+ * 
+ * The implementations are thread safe and are meant to be shared by all the threads of the application. They 
+ * must be closed to release the connections and the threads.
+ * 
+ */
+public interface BankServiceClient extends Closeable {
+	/**
+	 * Creates a new account.
+	 * @param name A name for the new account
+	 * @param balance The positive value to be set as balance for the account
+	 * @return Returns the {@link OperationStatus} of the operation
+	 */
+	CompletableFuture<OperationStatus> createAccount(String name, long balance);
+
+	/**
+	 * Transfers money from one existing account to another existing account.
+	 * @param fromAccountName The name of the source account to transfer money
+	 * @param toAccountName The name of the target account to transfer money
+	 * @param transferValue The positive greater than zero value to transfer between the accounts
+	 * @return Returns the {@link OperationStatus} of the operation
+	 */
+	CompletableFuture<OperationStatus> transfer(String fromAccountName, String toAccountName, long transferValue);
+
+	/**
+	 * Obtains the balance of an existing account.
+	 * @param name The name of the account
+	 * @return Returns the {@link BalanceStatus} with the balance of the account
+	 */
+	CompletableFuture<BalanceStatus> getBalance(String name);
+
+	/**
+	 * Reserves an amount of an account until it is captured, released or expired.
+	 * @param name The name of the account
+	 * @param amount The positive amount to reserve
+	 * @param ttl The time in milliseconds until the hold expires
+	 * @return Returns the {@link HoldStatus} with the id of the hold
+	 */
+	CompletableFuture<HoldStatus> authorize(String name, long amount, long ttl);
+
+	/**
+	 * Transfers part or all of the amount of a hold to another account and ends the hold.
+	 * @param holdId The id of the hold
+	 * @param toAccountName The name of the target account
+	 * @param amount The amount to transfer, not greater than the amount of the hold
+	 * @return Returns the {@link OperationStatus} of the operation
+	 */
+	CompletableFuture<OperationStatus> capture(long holdId, String toAccountName, long amount);
+
+	/**
+	 * Ends a hold without moving money.
+	 * @param holdId The id of the hold
+	 * @return Returns the {@link OperationStatus} of the operation
+	 */
+	CompletableFuture<OperationStatus> release(long holdId);
+
+	/**
+	 * Closes the connections and stops the threads. The calls not answered yet fail.
+	 */
+	@Override
+	void close();
+}
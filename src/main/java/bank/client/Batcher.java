@@ -0,0 +1,135 @@
+package bank.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import bank.data.OperationStatus;
+
+/**
+ * Coalesces the calls of one operation in fewer requests when the client is loaded.
+ * 
+ * The calls are queued and sent by up to {@code senders} tasks, one for each connection. A call that finds a free
+ * sender is sent at once, alone, so the batching doesn't add latency when the client is idle. While all the 
+ * senders wait for their responses the calls accumulate in the queue, and the next sender free takes all of them, 
+ * up to {@code maxBatch}, in one request: the more loaded the client, the bigger the batches, without any timer.
+ * 
+ */
+class Batcher<T> {
+	private final Executor executor;
+	private final int maxSenders;
+	private final int maxBatch;
+	private final Sender<T> sender;
+	private final ConcurrentLinkedQueue<Pending<T>> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger senders = new AtomicInteger();
+
+	/**
+	 * Sends a batch of calls.
+	 */
+	@FunctionalInterface
+	interface Sender<T> {
+		/**
+		 * @param calls The calls, at least one
+		 * @return Returns the status of each call, in the same order
+		 * @throws Exception If the request fails, then all the calls fail
+		 */
+		List<OperationStatus> send(List<T> calls) throws Exception;
+	}
+
+	private static class Pending<T> {
+		final T call;
+		final CompletableFuture<OperationStatus> future = new CompletableFuture<>();
+
+		Pending(T call) {
+			this.call = call;
+		}
+	}
+
+	Batcher(Executor executor, int maxSenders, int maxBatch, Sender<T> sender) {
+		this.executor = executor;
+		this.maxSenders = maxSenders;
+		this.maxBatch = maxBatch;
+		this.sender = sender;
+	}
+
+	/**
+	 * Queues a call.
+	 * 
+	 * @return Returns the future of the status of the call
+	 */
+	CompletableFuture<OperationStatus> add(T call) {
+		Pending<T> pending = new Pending<>(call);
+		queue.add(pending);
+		if (acquire()) {
+			try {
+				executor.execute(this::drain);
+			} catch (RejectedExecutionException e) {
+				senders.decrementAndGet();
+				fail(new BankClientException("The client is closed", e));
+			}
+		}
+		return pending.future;
+	}
+
+	/**
+	 * Fails the calls not sent yet.
+	 */
+	void fail(BankClientException e) {
+		for (Pending<T> pending = queue.poll(); pending != null; pending = queue.poll()) {
+			pending.future.completeExceptionally(e);
+		}
+	}
+
+	private boolean acquire() {
+		for (int active = senders.get(); active < maxSenders; active = senders.get()) {
+			if (senders.compareAndSet(active, active + 1)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void drain() {
+		while (true) {
+			List<Pending<T>> batch = new ArrayList<>();
+			Pending<T> pending;
+			while (batch.size() < maxBatch && (pending = queue.poll()) != null) {
+				batch.add(pending);
+			}
+			if (batch.isEmpty()) {
+				senders.decrementAndGet();
+				// A call queued after the poll could have found all the senders busy
+				if (queue.isEmpty() || !acquire()) {
+					return;
+				}
+				continue;
+			}
+			send(batch);
+		}
+	}
+
+	private void send(List<Pending<T>> batch) {
+		List<T> calls = new ArrayList<>(batch.size());
+		for (Pending<T> pending : batch) {
+			calls.add(pending.call);
+		}
+		try {
+			List<OperationStatus> statuses = sender.send(calls);
+			if (statuses.size() != batch.size()) {
+				throw new BankClientException("Expected " + batch.size() + " statuses but received " + statuses.size());
+			}
+			for (int i = 0; i < batch.size(); i++) {
+				batch.get(i).future.complete(statuses.get(i));
+			}
+		} catch (Exception e) {
+			BankClientException failure = PooledBankServiceClient.failure(e);
+			for (Pending<T> pending : batch) {
+				pending.future.completeExceptionally(failure);
+			}
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package bank.client;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import bank.data.BalanceStatus;
+import bank.data.HoldStatus;
+import bank.data.OperationError;
+import bank.data.OperationStatus;
+
+/**
+ * Base of the {@link BankServiceClient}s: the pool of persistent connections, the threads that send the requests
+ * and the decoding of the statuses.
+ * 
+ * There is one thread for each connection, so a request sent by a thread always finds a free connection and the 
+ * calls beyond the connections wait in the queue of the threads, without holding a connection. The connections 
+ * are kept alive between the requests, so only the first requests pay the connection setup.
+ * 
+ */
+abstract class PooledBankServiceClient implements BankServiceClient {
+	protected final BankClientOptions options;
+	private final PoolingHttpClientConnectionManager connections;
+	private final ExecutorService executor;
+
+	/**
+	 * A call waiting for a thread, so it could be failed if the client is closed before it is sent.
+	 */
+	private static class Call<T> implements Runnable {
+		final Callable<T> call;
+		final CompletableFuture<T> future = new CompletableFuture<>();
+
+		Call(Callable<T> call) {
+			this.call = call;
+		}
+
+		@Override
+		public void run() {
+			try {
+				future.complete(call.call());
+			} catch (Exception e) {
+				future.completeExceptionally(failure(e));
+			}
+		}
+	}
+
+	protected PooledBankServiceClient(BankClientOptions options) {
+		this.options = options;
+		this.connections = new PoolingHttpClientConnectionManager();
+		connections.setMaxTotal(options.getConnections());
+		connections.setDefaultMaxPerRoute(options.getConnections());
+		AtomicInteger threads = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(options.getConnections(), runnable -> {
+			Thread thread = new Thread(runnable, "bank-client-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @return Returns a builder of an HTTP client with the pool of connections and the timeouts of the options
+	 */
+	protected HttpClientBuilder httpClient() {
+		RequestConfig config = RequestConfig.custom()
+				.setConnectTimeout(options.getConnectTimeout())
+				.setConnectionRequestTimeout(options.getRequestTimeout())
+				.setSocketTimeout(options.getRequestTimeout())
+				.build();
+		return HttpClients.custom()
+				.setConnectionManager(connections)
+				.setConnectionManagerShared(true)
+				.setDefaultRequestConfig(config);
+	}
+
+	/**
+	 * Sends a call in one of the threads.
+	 * 
+	 * @param call Sends the request and decodes the response
+	 * @return Returns the future of the response, completed exceptionally with a {@link BankClientException} if the
+	 * call fails
+	 */
+	protected <T> CompletableFuture<T> call(Callable<T> call) {
+		Call<T> pending = new Call<>(call);
+		try {
+			executor.execute(pending);
+		} catch (RejectedExecutionException e) {
+			pending.future.completeExceptionally(new BankClientException("The client is closed", e));
+		}
+		return pending.future;
+	}
+
+	/**
+	 * Creates a {@link Batcher} that sends the calls in the threads of the client.
+	 */
+	protected <T> Batcher<T> batcher(Batcher.Sender<T> sender) {
+		return new Batcher<>(executor, options.getConnections(), options.getMaxBatch(), sender);
+	}
+
+	@Override
+	public void close() {
+		List<Runnable> pending = executor.shutdownNow();
+		for (Runnable runnable : pending) {
+			if (runnable instanceof Call) {
+				((Call<?>) runnable).future.completeExceptionally(new BankClientException("The client is closed"));
+			}
+		}
+		connections.shutdown();
+	}
+
+	/**
+	 * @return Returns the exception that fails the future of a call
+	 */
+	static BankClientException failure(Throwable e) {
+		if (e instanceof BankClientException) {
+			return (BankClientException) e;
+		}
+		return new BankClientException("The request failed: " + e.getMessage(), e);
+	}
+
+	/**
+	 * Decodes the numeric value of an {@link OperationError}.
+	 * 
+	 * @throws BankClientException If the value is unknown, the service is newer than the client
+	 */
+	static OperationError error(int code) {
+		OperationError error = OperationError.fromCode(code);
+		if (error == null) {
+			throw new BankClientException("Unknown error code " + code);
+		}
+		return error;
+	}
+
+	static OperationStatus status(boolean success, int code) {
+		return new OperationStatus(success, error(code));
+	}
+
+	static BalanceStatus balanceStatus(boolean success, int code, long balance) {
+		return success ? new BalanceStatus(balance) : new BalanceStatus(error(code));
+	}
+
+	static HoldStatus holdStatus(boolean success, int code, long holdId) {
+		return success ? new HoldStatus(holdId) : new HoldStatus(error(code));
+	}
+}
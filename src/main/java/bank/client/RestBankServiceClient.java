@@ -0,0 +1,194 @@
+package bank.client;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+import bank.data.BalanceStatus;
+import bank.data.HoldStatus;
+import bank.data.OperationStatus;
+import bank.priority.RequestClass;
+
+/**
+ * {@link BankServiceClient} that uses the RESTful interface {@link bank.interfaces.rest.BankRestService}.
+ * 
+ * The transfers and the new accounts are coalesced by a {@link Batcher}: when all the connections are busy, the
+ * calls queued meanwhile are sent in one request to {@code /transfers} or {@code /createAccounts}, where each one
+ * is done on its own. The responses are read as maps because {@link OperationStatus} is not a JSON bean that 
+ * could be deserialized.
+ * 
+ */
+public class RestBankServiceClient extends PooledBankServiceClient {
+	private final CloseableHttpClient httpClient;
+	private final RestTemplate restTemplate;
+	private final String baseUrl;
+	private final HttpHeaders headers = new HttpHeaders();
+	private final Batcher<Transfer> transfers;
+	private final Batcher<NewAccount> newAccounts;
+
+	private static class Transfer {
+		final String from;
+		final String to;
+		final long value;
+
+		Transfer(String from, String to, long value) {
+			this.from = from;
+			this.to = to;
+			this.value = value;
+		}
+	}
+
+	private static class NewAccount {
+		final String name;
+		final long balance;
+
+		NewAccount(String name, long balance) {
+			this.name = name;
+			this.balance = balance;
+		}
+	}
+
+	public RestBankServiceClient(BankClientOptions options) {
+		super(options);
+		this.httpClient = httpClient().build();
+		this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+		this.baseUrl = options.getUrl() + "/rest" + (options.getTenant() == null ? "" : "/tenants/" + options.getTenant());
+		if (options.getRequestClass() != null) {
+			headers.set(RequestClass.HEADER, options.getRequestClass().name());
+		}
+		this.transfers = batcher(this::sendTransfers);
+		this.newAccounts = batcher(this::sendNewAccounts);
+	}
+
+	@Override
+	public CompletableFuture<OperationStatus> createAccount(String name, long balance) {
+		return newAccounts.add(new NewAccount(name, balance));
+	}
+
+	@Override
+	public CompletableFuture<OperationStatus> transfer(String fromAccountName, String toAccountName, long transferValue) {
+		return transfers.add(new Transfer(fromAccountName, toAccountName, transferValue));
+	}
+
+	@Override
+	public CompletableFuture<BalanceStatus> getBalance(String name) {
+		return call(() -> {
+			Map<?, ?> response = get("/balance?name={name}", name);
+			return balanceStatus(success(response), errorCode(response), number(response, "balance"));
+		});
+	}
+
+	@Override
+	public CompletableFuture<HoldStatus> authorize(String name, long amount, long ttl) {
+		return call(() -> {
+			Map<?, ?> response = get("/authorize?account={account}&amount={amount}&ttl={ttl}", name, amount, ttl);
+			return holdStatus(success(response), errorCode(response), number(response, "holdId"));
+		});
+	}
+
+	@Override
+	public CompletableFuture<OperationStatus> capture(long holdId, String toAccountName, long amount) {
+		return call(() -> status(get("/capture?hold={hold}&to={to}&amount={amount}", holdId, toAccountName, amount)));
+	}
+
+	@Override
+	public CompletableFuture<OperationStatus> release(long holdId) {
+		return call(() -> status(get("/release?hold={hold}", holdId)));
+	}
+
+	@Override
+	public void close() {
+		BankClientException closed = new BankClientException("The client is closed");
+		transfers.fail(closed);
+		newAccounts.fail(closed);
+		super.close();
+		try {
+			httpClient.close();
+		} catch (IOException e) {
+			// The connections are already closed by the pool
+		}
+	}
+
+	private List<OperationStatus> sendTransfers(List<Transfer> calls) {
+		if (calls.size() == 1) {
+			Transfer transfer = calls.get(0);
+			return single(get("/transfer?from={from}&to={to}&value={value}", transfer.from, transfer.to, transfer.value));
+		}
+		MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+		for (Transfer transfer : calls) {
+			form.add("from", transfer.from);
+			form.add("to", transfer.to);
+			form.add("value", Long.toString(transfer.value));
+		}
+		return post("/transfers", form);
+	}
+
+	private List<OperationStatus> sendNewAccounts(List<NewAccount> calls) {
+		if (calls.size() == 1) {
+			NewAccount account = calls.get(0);
+			return single(get("/createAccount?name={name}&balance={balance}", account.name, account.balance));
+		}
+		MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+		for (NewAccount account : calls) {
+			form.add("name", account.name);
+			form.add("balance", Long.toString(account.balance));
+		}
+		return post("/createAccounts", form);
+	}
+
+	private Map<?, ?> get(String path, Object... variables) {
+		return restTemplate.exchange(baseUrl + path, HttpMethod.GET, new HttpEntity<>(headers), Map.class, variables)
+				.getBody();
+	}
+
+	private List<OperationStatus> post(String path, MultiValueMap<String, String> form) {
+		HttpHeaders formHeaders = new HttpHeaders();
+		formHeaders.putAll(headers);
+		formHeaders.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+		List<?> response = restTemplate.exchange(baseUrl + path, HttpMethod.POST, new HttpEntity<>(form, formHeaders), 
+				List.class).getBody();
+		List<OperationStatus> statuses = new ArrayList<>(response.size());
+		for (Object status : response) {
+			statuses.add(status((Map<?, ?>) status));
+		}
+		return statuses;
+	}
+
+	private static List<OperationStatus> single(Map<?, ?> response) {
+		List<OperationStatus> statuses = new ArrayList<>(1);
+		statuses.add(status(response));
+		return statuses;
+	}
+
+	private static OperationStatus status(Map<?, ?> response) {
+		return status(success(response), errorCode(response));
+	}
+
+	private static boolean success(Map<?, ?> response) {
+		return Boolean.TRUE.equals(response.get("success"));
+	}
+
+	private static int errorCode(Map<?, ?> response) {
+		return (int) number(response, "errorCode");
+	}
+
+	private static long number(Map<?, ?> response, String field) {
+		Object value = response.get(field);
+		if (!(value instanceof Number)) {
+			throw new BankClientException("The response has no " + field + ": " + response);
+		}
+		return ((Number) value).longValue();
+	}
+}
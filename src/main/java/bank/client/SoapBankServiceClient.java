@@ -0,0 +1,152 @@
+package bank.client;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import javax.xml.namespace.QName;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.util.ClassUtils;
+import org.springframework.ws.client.core.WebServiceMessageCallback;
+import org.springframework.ws.client.core.WebServiceTemplate;
+import org.springframework.ws.soap.SoapMessage;
+import org.springframework.ws.transport.http.HttpComponentsMessageSender;
+
+import com.maxintech.bank.ws.AuthorizeRequest;
+import com.maxintech.bank.ws.AuthorizeResponse;
+import com.maxintech.bank.ws.CaptureRequest;
+import com.maxintech.bank.ws.CaptureResponse;
+import com.maxintech.bank.ws.CreateAccountRequest;
+import com.maxintech.bank.ws.CreateAccountResponse;
+import com.maxintech.bank.ws.GetBalanceRequest;
+import com.maxintech.bank.ws.GetBalanceResponse;
+import com.maxintech.bank.ws.ReleaseRequest;
+import com.maxintech.bank.ws.ReleaseResponse;
+import com.maxintech.bank.ws.TransferRequest;
+import com.maxintech.bank.ws.TransferResponse;
+
+import bank.data.BalanceStatus;
+import bank.data.HoldStatus;
+import bank.data.OperationStatus;
+
+/**
+ * {@link BankServiceClient} that uses the Web Service interface {@link bank.interfaces.ws.BankServiceEndpoint}.
+ * 
+ * The contract of the Web Service has no operations for several accounts, so every call is sent on its own. The 
+ * balances and the values of the transfers are sent as {@code int} because it is the type defined in 
+ * {@code bankservices.xsd}.
+ * 
+ */
+public class SoapBankServiceClient extends PooledBankServiceClient {
+	private static final QName REQUEST_CLASS_HEADER = new QName("http://maxintech.com/bank/ws", "requestClass");
+	private final CloseableHttpClient httpClient;
+	private final WebServiceTemplate ws;
+	private final String url;
+	private final WebServiceMessageCallback callback;
+
+	public SoapBankServiceClient(BankClientOptions options) {
+		super(options);
+		Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+		marshaller.setPackagesToScan(ClassUtils.getPackageName(CreateAccountRequest.class));
+		try {
+			marshaller.afterPropertiesSet();
+		} catch (Exception e) {
+			throw new IllegalStateException("Could not initialize the JAXB marshaller", e);
+		}
+		// The message sender sets the headers of the SOAP message itself
+		this.httpClient = httpClient()
+				.addInterceptorFirst(new HttpComponentsMessageSender.RemoveSoapHeadersInterceptor())
+				.build();
+		this.ws = new WebServiceTemplate(marshaller);
+		ws.setMessageSender(new HttpComponentsMessageSender(httpClient));
+		this.url = options.getUrl() + "/ws";
+		String requestClass = options.getRequestClass() == null ? null : options.getRequestClass().name();
+		this.callback = message -> {
+			if (requestClass != null) {
+				((SoapMessage) message).getSoapHeader().addHeaderElement(REQUEST_CLASS_HEADER).setText(requestClass);
+			}
+		};
+	}
+
+	@Override
+	public CompletableFuture<OperationStatus> createAccount(String name, long balance) {
+		CreateAccountRequest request = new CreateAccountRequest();
+		request.setName(name);
+		request.setBalance(Math.toIntExact(balance));
+		request.setTenant(options.getTenant());
+		return call(() -> status(((CreateAccountResponse) send(request)).getOperationStatus()));
+	}
+
+	@Override
+	public CompletableFuture<OperationStatus> transfer(String fromAccountName, String toAccountName, long transferValue) {
+		TransferRequest request = new TransferRequest();
+		request.setFrom(fromAccountName);
+		request.setTo(toAccountName);
+		request.setValue(Math.toIntExact(transferValue));
+		request.setTenant(options.getTenant());
+		return call(() -> status(((TransferResponse) send(request)).getOperationStatus()));
+	}
+
+	@Override
+	public CompletableFuture<BalanceStatus> getBalance(String name) {
+		GetBalanceRequest request = new GetBalanceRequest();
+		request.setName(name);
+		request.setTenant(options.getTenant());
+		return call(() -> {
+			GetBalanceResponse response = (GetBalanceResponse) send(request);
+			return balanceStatus(response.getOperationStatus().isStatus(), response.getOperationStatus().getErrorCode(),
+					response.getBalance());
+		});
+	}
+
+	@Override
+	public CompletableFuture<HoldStatus> authorize(String name, long amount, long ttl) {
+		AuthorizeRequest request = new AuthorizeRequest();
+		request.setAccount(name);
+		request.setAmount(amount);
+		request.setTtl(ttl);
+		request.setTenant(options.getTenant());
+		return call(() -> {
+			AuthorizeResponse response = (AuthorizeResponse) send(request);
+			return holdStatus(response.getOperationStatus().isStatus(), response.getOperationStatus().getErrorCode(),
+					response.getHoldId());
+		});
+	}
+
+	@Override
+	public CompletableFuture<OperationStatus> capture(long holdId, String toAccountName, long amount) {
+		CaptureRequest request = new CaptureRequest();
+		request.setHoldId(holdId);
+		request.setTo(toAccountName);
+		request.setAmount(amount);
+		request.setTenant(options.getTenant());
+		return call(() -> status(((CaptureResponse) send(request)).getOperationStatus()));
+	}
+
+	@Override
+	public CompletableFuture<OperationStatus> release(long holdId) {
+		ReleaseRequest request = new ReleaseRequest();
+		request.setHoldId(holdId);
+		request.setTenant(options.getTenant());
+		return call(() -> status(((ReleaseResponse) send(request)).getOperationStatus()));
+	}
+
+	@Override
+	public void close() {
+		super.close();
+		try {
+			httpClient.close();
+		} catch (IOException e) {
+			// The connections are already closed by the pool
+		}
+	}
+
+	private Object send(Object request) {
+		return ws.marshalSendAndReceive(url, request, callback);
+	}
+
+	private static OperationStatus status(com.maxintech.bank.ws.OperationStatus status) {
+		return status(status.isStatus(), status.getErrorCode());
+	}
+}
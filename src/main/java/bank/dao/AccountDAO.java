@@ -1,57 +1,206 @@
 package bank.dao;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 import bank.data.Account;
+import bank.events.BalanceEvent;
+import bank.events.BalanceEventRing;
+import bank.trace.TransferTrace;
+import bank.trace.TransferTrace.Stage;
 
 /**
  * The class manages the access to the storage where the accounts are.
- * In this simplistic implementation the storage is a Map where the key of the map entry is the name of the account
- * and the value of the map entry is an instance of {@link Account}
+ * The storage is a {@link TieredAccountStore}: the accounts used recently are in memory and the rest in a file, 
+ * so the memory depends on the accounts in use and not on the number of accounts. The file is a working area, 
+ * its content is discarded when the application starts. The store is configured with the system properties:
+ * 	bank.accounts.cache-size The maximum number of accounts in memory. 100000 by default.
+ * 	bank.accounts.cold-file The path of the file. A temporary file by default.
+ * 	bank.accounts.cold-buckets The number of buckets of the file. 16384 by default.
+ * If the system property bank.accounts.store is jdbc, the storage is a {@link JdbcAccountStore} instead, a table of 
+ * an embedded database, configured with the system properties:
+ * 	bank.accounts.jdbc-url The JDBC URL of the database. jdbc:h2:mem:accounts;MV_STORE=FALSE by default.
+ * 	bank.accounts.jdbc-connections The number of pooled connections. The number of processors by default.
+ * 	bank.accounts.cold-buckets The number of buckets of the names, for the partitions. 16384 by default.
  * 	
  * The management of the concurrency and the integrity has its roots in the MVCC (Multiversion concurrency control)
  * This class implements the snapshot isolation as level of isolation. Everyone could read the last consistent state
  * of the accounts and let modify freely the content of the accounts, but when the thread want to write (commit) the changes
  * the system evaluates if the modified accounts to be written are the latest or in between other thread did a commit
  * first.
+ * Every commit has a timestamp and keeps the previous versions of its accounts in a {@link VersionStore}, so 
+ * several accounts could be read consistently without locks with an {@link AccountSnapshot}, and an account could be 
+ * read as it was at a time with {@link #getAccountAsOf(String, long)}. The versions are collected in the background 
+ * when no snapshot needs them and they are older than the system property bank.accounts.version-retention 
+ * (60000 milliseconds by default). The snapshots expire after bank.accounts.snapshot-timeout (60000 milliseconds by 
+ * default).
  * 
  * The system hasn't retries. In case of fail to write the changes, an error is returned and the business layer is 
  * responsible to retry or not the operation.
  * 
- * A lock is used to serialize the write access the the map.
+ * A lock is used to serialize the write access the store.
+ * 
+ * The optimistic validation wastes work when many threads update the same account, most of the commits fail 
+ * and are retried. The conflicts of each account are tracked by a {@link ContentionTracker} and the operations 
+ * that touch a hot account switch to a pessimistic control: {@link #execute(Collection, Supplier)} locks the 
+ * accounts before the operation reads them, so the snapshot is still valid when it is committed. When the 
+ * conflicts decay the account goes back to the optimistic control.
+ * 
+ * If the system property bank.accounts.journal has the path of a directory, every commit is written to an 
+ * {@link AccountJournal}, once the store accepted it and before it is visible, and the accounts are loaded from it 
+ * when the application starts. If the journal refuses a commit, the store write is undone and the commit fails. 
+ * The properties bank.accounts.journal-segment-size (64 MB by default) and bank.accounts.journal-partitions 
+ * (64 by default) configure it.
+ * 
+ * Every successful commit updates the {@link BankAggregates} holding the lock, so the aggregates are the ones of the 
+ * committed accounts.
+ * 
+ * Every successful commit updates a {@link MerkleTree} of the accounts holding the lock, so two copies of the 
+ * accounts could be compared by their {@link Fingerprint}s. The system property bank.accounts.merkle-leaves 
+ * (4096 by default, rounded down to a power of two) is the number of leaves of the tree.
+ * 
+ * The accounts are kept by tenant, each one in its own {@link Ledger} with its own store, locks, journal and 
+ * everything else, so the names of the accounts are unique only in a tenant and the commits of a tenant don't wait 
+ * for the ones of other tenant. An instance accesses the accounts of one tenant, the default one unless other is 
+ * given. The tenants are the default one and the ones of the system property bank.tenants, separated by commas.
+ * 
+ * The names of the accounts are in a {@link NameIndex}, sorted and compressed in memory, so the accounts could be
+ * searched by prefix and by range of names, and a new account is known to be new without reading the store.
+ * 
+ * Every successful commit is published as {@link BalanceEvent}s in a {@link BalanceEventRing}. Only the offsets of 
+ * the events are claimed holding the lock, the events are published after it is released.
+ * 
+ * The accounts could be handed over to other process without a restart: {@link #seal()} stops the commits and 
+ * gives the accounts, and {@link #load(Collection)} loads them in the empty ledger of the other process. The 
+ * process that takes over warms up before on the ledger of {@link #WARMUP_TENANT}, whose accounts are not kept.
  * 
  * @author Maximiliano Sanchez de Bustamante
  *
  */
 public class AccountDAO {
 	/**
-	 * The map where the accounts are stored
+	 * The tenant of the accounts of the operations that don't give one
+	 */
+	public static final String DEFAULT_TENANT = "default";
+	/**
+	 * The maximum length of the name of an account, the one of the column of the {@link JdbcAccountStore}
+	 */
+	public static final int MAX_NAME_LENGTH = 1024;
+	/**
+	 * The names of the tenants: letters, digits and underscores, because they are part of names of files and tables
+	 */
+	private static final Pattern TENANT_PATTERN = Pattern.compile("[a-z0-9_]{1,32}");
+	/**
+	 * The ledgers of the tenants: the default one and the ones of the system property bank.tenants
+	 */
+	private static final Map<String, Ledger> ledgers = openLedgers();
+	/**
+	 * The tenant of the warm up of a process before it takes over the accounts of other process. It is not a valid 
+	 * name of a tenant, so it is never a tenant of the clients, and it is not one of {@link #getTenants()}.
 	 */
-	private static ConcurrentMap<String, Account> map = new ConcurrentHashMap<>();
+	public static final String WARMUP_TENANT = "-warmup";
 	/**
-	 * The lock used to serialize the write access the the map. 
-	 * It is a reentrant lock because this class could be composed  and several operation in the same thread
-	 * could try to acquire the same lock. 
-	 * @{link java.util.concurrent.locks.ReentrantLock} allows recursive locking for the same thread.
+	 * The ledger of the warm up, null when there is no warm up
 	 */
-	private static ReentrantLock lock = new ReentrantLock();
+	private static volatile Ledger warmup;
+	/**
+	 * The ledger of the tenant of this instance
+	 */
+	private final Ledger ledger;
+
+	/**
+	 * Accesses the accounts of the default tenant.
+	 */
+	public AccountDAO() {
+		this(DEFAULT_TENANT);
+	}
+
+	/**
+	 * Accesses the accounts of a tenant.
+	 * 
+	 * @param tenant The tenant
+	 * @throws IllegalArgumentException If the tenant doesn't exist, see {@link #isTenant(String)}
+	 */
+	public AccountDAO(String tenant) {
+		Ledger ledger = ledgers.get(tenant);
+		if (ledger == null && WARMUP_TENANT.equals(tenant)) {
+			ledger = warmup;
+		}
+		if (ledger == null) {
+			throw new IllegalArgumentException("Unknown tenant " + tenant);
+		}
+		this.ledger = ledger;
+	}
+
+	/**
+	 * @param tenant The name of a tenant
+	 * @return Returns true if the tenant exists
+	 */
+	public static boolean isTenant(String tenant) {
+		return tenant != null && ledgers.containsKey(tenant);
+	}
+
+	/**
+	 * @return Returns the tenants, the default one first
+	 */
+	public static Set<String> getTenants() {
+		return Collections.unmodifiableSet(ledgers.keySet());
+	}
+
+	/**
+	 * Opens a new ledger for the tenant {@link #WARMUP_TENANT}, empty, in a temporary file and without journal.
+	 */
+	public static void openWarmup() {
+		warmup = new Ledger(WARMUP_TENANT, true, false);
+	}
+
+	/**
+	 * Closes the ledger of the warm up, its accounts are lost.
+	 */
+	public static void closeWarmup() {
+		warmup = null;
+	}
+
+	/**
+	 * @return Returns the tenant of this instance
+	 */
+	public String getTenant() {
+		return ledger.tenant;
+	}
+	
 	
 	/**
 	 * Returns an {@link Account} instance given the name of the account if exists.
+	 * The instance is a copy of the last committed snapshot of the account. The caller could modify it freely
+	 * without affecting the store until the changes are committed with {@link #updateAccounts(Account, Account)}.
 	 * 
 	 * @param name The name of the account
 	 * @return Returns an {@link Account} instance given the name of the account if exists. Otherwise returns null.
 	 */
 	public Account getAccount(String name) {
-		return map.get(name);
+		Account account = ledger.store.get(name);
+		if (account == null) {
+			return null;
+		}
+		return account.copy();
 	}
 	
 	/**
 	 * Creates a new {@link Account} instance given the name and the balance.
 	 * The balance should be positive and the name should not exists already, otherwise the method will return null.
-	 * The account is added to the map and the instance is returned.
+	 * The account is added to the store and the instance is returned.
 	 * 
 	 * @param name The name of the account
 	 * @param balance Balance (positive) to be set in the new account
@@ -60,70 +209,592 @@ public class AccountDAO {
 	 */
 	public Account createAccount(String name, long balance) {
 		Account account = new Account(name, balance);
+		long offset;
 		
-		// Serialize the access to the map when we try to update the map with the accounts
-		lock.lock();
+		// Serialize the access to the store when we try to update the store with the accounts
+		ledger.lock.lock();
 		try {
-			Account value = map.putIfAbsent(name, account);
-			// The account already exists
-			if (value != null) {
+			// The account already exists, the index knows it without reading the store
+			if (ledger.names.contains(name)) {
 				return null;
 			}
+			long timestamp = ledger.versions.begin();
+			ledger.versions.created(account, timestamp);
+			write(new Account[1], new Account[] { account }, timestamp);
+			ledger.names.add(name);
+			ledger.aggregates.created(account);
+			ledger.merkleTree.created(account);
+			ledger.versions.publish(timestamp);
+			offset = ledger.events.claim(1);
 		} finally {
-			lock.unlock();
+			ledger.lock.unlock();
 		}
 		
+		ledger.events.publish(new BalanceEvent(offset, BalanceEvent.Type.CREATE, name, null, balance, balance, 
+				account.getSequence(), System.currentTimeMillis()));
 		return account;
 	}
 	
 	/**
-	 * Takes two modified accounts and tries to write (commit) the changes in the store (map).
+	 * Takes two modified accounts and tries to write (commit) the changes in the store.
+	 * The validation process is the one of {@link #updateAccounts(List)}.
+	 * 
+	 * @param one A modified {@link Account} instance to be updated
+	 * @param two A modified {@link Account} instance to be updated
+	 * @return Returns true if all the accounts could be updated. Returns false if at least one account is outdated.
+	 */
+	public boolean updateAccounts(Account one, Account two) {
+		return updateAccounts(Arrays.asList(one, two));
+	}
+
+	/**
+	 * Takes a list of modified accounts and tries to write (commit) the changes in the store atomically.
 	 * The validation process is the following:
-	 * 	Obtain the current accounts from the map.
-	 * 	Compare if the sequences are the same. If they are, the changes could be written in the map.
+	 * 	Obtain the current accounts from the store.
+	 * 	Compare if the sequences are the same. If they are, the changes could be written in the store.
 	 * 	If at least one of the sequences is different, means the account was modified and committed by other thread 
 	 * 	in between.
-	 *  If the accounts are going to be committed, the sequence is advanced in both accounts.
+	 *  If the accounts are going to be committed, the sequence is advanced in all the accounts.
 	 * The validation process is serialized with the lock object. This guarantee consistency in the data. 
+	 * All the accounts are validated and written holding the lock once, so the cost is one commit whatever 
+	 * the number of accounts, and there is not lock ordering between accounts that could lead to a deadlock.
 	 * 
-	 * @param one A modified {@link Account} instance to be updated
-	 * @param two A modified {@link Account} instance to be updated
+	 * The accounts must be different. 
+	 * 
+	 * @param accounts The modified {@link Account} instances to be updated
 	 * @return Returns true if all the accounts could be updated. Returns false if at least one account is outdated.
 	 */
-	public boolean updateAccounts(Account one, Account two) {
-		Account localOneAccount = one.copy();
-		Account localTwoAccount = two.copy();
+	public boolean updateAccounts(List<Account> accounts) {
+		return commit(accounts, false);
+	}
+
+	/**
+	 * Takes a modified account and tries to write (commit) the change in the store, as 
+	 * {@link #updateAccounts(List)}. The change creates or destroys money, like the interest or the fees, so the 
+	 * aggregates record it as an adjustment and not as part of a transfer.
+	 * 
+	 * @param account The modified {@link Account} instance to be updated
+	 * @return Returns true if the account could be updated. Returns false if the account is outdated.
+	 */
+	public boolean adjustAccount(Account account) {
+		return commit(Collections.singletonList(account), true);
+	}
+
+	/**
+	 * Returns the names of the accounts of a partition of all the accounts. Every account is in one partition.
+	 * The accounts created meanwhile could be missing.
+	 * 
+	 * @param partition The partition, from 0 to partitions - 1
+	 * @param partitions The number of partitions
+	 * @return Returns the sorted names of the accounts of the partition
+	 */
+	public SortedSet<String> getAccountNames(int partition, int partitions) {
+		return ledger.store.names(partition, partitions);
+	}
 
-		// Serialize the access to the map when we try to write the data of the transfer
-		lock.lock();
+	/**
+	 * Searches the names of the accounts that start with a prefix in a range of names, in order, with the 
+	 * {@link NameIndex} of the names, without reading the store. The accounts created meanwhile could be missing.
+	 * 
+	 * @param prefix The prefix of the names, empty for any name
+	 * @param from The first name, inclusive, empty from the first one
+	 * @param to The last name, exclusive, null until the last one
+	 * @param limit The maximum number of names
+	 * @return Returns the names, up to the limit
+	 */
+	public List<String> searchAccountNames(String prefix, String from, String to, int limit) {
+		return ledger.names.search(prefix, from, to, limit);
+	}
+
+	private boolean commit(List<Account> accounts, boolean adjustment) {
+		int count = accounts.size();
+		Account[] localAccounts = new Account[count];
+		Account[] currentAccounts = new Account[count];
+		for (int i = 0; i < count; i++) {
+			localAccounts[i] = accounts.get(i).copy();
+		}
+		long offset;
+		String conflict = null;
+
+		// Serialize the access to the store when we try to write the data of the transfer
+		TransferTrace.mark(Stage.VALIDATION);
+		ledger.lock.lock();
+		TransferTrace.mark(Stage.LOCK);
 		try {
-			// We obtain the current accounts from the store (map)
-			Account currentOneAccount = map.get(localOneAccount.getName());
-			Account currentTwoAccount = map.get(localTwoAccount.getName());
-			
 			/* 
-			 * We check the sequence in both accounts.
+			 * We obtain the current accounts from the store and check the sequence in all the accounts.
 			 * If the sequence is different in at least one of the account the operation will fail
 			 * because other operation was done in the accounts and the local copy doesn't reflect
 			 * the current value of the accounts
 			 */
-			if (currentOneAccount.getSequence() != localOneAccount.getSequence() ||
-				currentTwoAccount.getSequence() != localTwoAccount.getSequence()) {
+			for (int i = 0; i < count && conflict == null; i++) {
+				currentAccounts[i] = ledger.store.get(localAccounts[i].getName());
+				if (currentAccounts[i].getSequence() != localAccounts[i].getSequence()) {
+					conflict = localAccounts[i].getName();
+				}
+			}
+			if (conflict != null) {
 				return false;
 			}
 			
-			// Update the sequences 
-			localOneAccount.nextSequence();
-			localTwoAccount.nextSequence();
-			// Update the map with the updated accounts
-			map.put(localOneAccount.getName(), localOneAccount);
-			map.put(localTwoAccount.getName(), localTwoAccount);
-	
-			
+			// Update the sequences and the store with the updated accounts
+			for (Account localAccount : localAccounts) {
+				localAccount.nextSequence();
+			}
+			long timestamp = ledger.versions.begin();
+			for (int i = 0; i < count; i++) {
+				ledger.versions.updated(currentAccounts[i], localAccounts[i], timestamp);
+			}
+			write(currentAccounts, localAccounts, timestamp);
+			for (int i = 0; i < count; i++) {
+				if (adjustment) {
+					ledger.aggregates.adjusted(currentAccounts[i], localAccounts[i]);
+				} else {
+					ledger.aggregates.updated(currentAccounts[i], localAccounts[i]);
+				}
+				ledger.merkleTree.updated(currentAccounts[i], localAccounts[i]);
+			}
+			ledger.versions.publish(timestamp);
+			offset = ledger.events.claim(count);
 		} finally {
-			lock.unlock();
+			ledger.lock.unlock();
+			if (conflict != null) {
+				ledger.contention.recordConflict(conflict);
+				TransferTrace.mark(Stage.COMMIT);
+			}
 		}
 		
+		publishTransfer(offset, localAccounts, currentAccounts);
+		TransferTrace.mark(Stage.COMMIT);
+		return true;
+	}
+
+	/**
+	 * Runs an operation that reads and commits some accounts choosing the concurrency control by the contention 
+	 * of the accounts. 
+	 * If all the accounts are cold the operation runs without locks (optimistic). If at least one is hot, the locks
+	 * of all the accounts are acquired before the operation runs and released after it (pessimistic), so the 
+	 * operations on the same accounts don't invalidate the snapshots of each other. 
+	 * The operations that started as optimistic before the account became hot could still commit in between, so
+	 * the operation could fail as out of sequence, but it is rare.
+	 * The locks are acquired in the order of the stripes, so there is not deadlock between operations. 
+	 * A wait for a lock is recorded as a conflict, so the account keeps hot while there are waits.
+	 * 
+	 * @param names The names of the accounts the operation reads and commits
+	 * @param operation The operation
+	 * @return Returns the result of the operation
+	 */
+	public <T> T execute(Collection<String> names, Supplier<T> operation) {
+		boolean hot = false;
+		for (String name : names) {
+			hot |= ledger.contention.isHot(name);
+		}
+		ledger.contention.recordOperation(hot);
+		if (!hot) {
+			return operation.get();
+		}
+		
+		BitSet stripes = new BitSet(ledger.accountLocks.length);
+		for (String name : names) {
+			stripes.set(stripe(name));
+		}
+		int locked = -1;
+		TransferTrace.mark(Stage.VALIDATION);
+		try {
+			for (int i = stripes.nextSetBit(0); i >= 0; i = stripes.nextSetBit(i + 1)) {
+				if (!ledger.accountLocks[i].tryLock()) {
+					for (String name : names) {
+						if (stripe(name) == i) {
+							ledger.contention.recordConflict(name);
+						}
+					}
+					ledger.accountLocks[i].lock();
+				}
+				locked = i;
+			}
+			TransferTrace.mark(Stage.LOCK);
+			return operation.get();
+		} finally {
+			for (int i = stripes.nextSetBit(0); i >= 0 && i <= locked; i = stripes.nextSetBit(i + 1)) {
+				ledger.accountLocks[i].unlock();
+			}
+		}
+	}
+
+	private static Map<String, Ledger> openLedgers() {
+		Map<String, Ledger> ledgers = new LinkedHashMap<>();
+		ledgers.put(DEFAULT_TENANT, new Ledger(DEFAULT_TENANT, false));
+		for (String tenant : System.getProperty("bank.tenants", "").split(",")) {
+			tenant = tenant.trim();
+			if (tenant.isEmpty() || ledgers.containsKey(tenant)) {
+				continue;
+			}
+			if (!TENANT_PATTERN.matcher(tenant).matches()) {
+				throw new IllegalArgumentException("Invalid tenant " + tenant + ", it must match " + TENANT_PATTERN);
+			}
+			ledgers.put(tenant, new Ledger(tenant, true));
+		}
+		return ledgers;
+	}
+
+	/**
+	 * Writes the new versions of the accounts of a commit to the store and then to the journal, so a commit the 
+	 * store refused is never replayed. If the store refuses them, the versions of the commit are discarded before 
+	 * the error is thrown, so the next commit doesn't publish them. If the journal refuses them, the store write is 
+	 * undone too, so the store, the aggregates and the Merkle tree keep the state of the last commit. Must be 
+	 * called holding the lock, after the versions were added and before anything else of the commit is updated.
+	 */
+	private void write(Account[] previous, Account[] accounts, long timestamp) {
+		try {
+			ledger.store.write(previous, accounts);
+		} catch (RuntimeException e) {
+			ledger.versions.discard(accounts, timestamp);
+			throw e;
+		}
+		try {
+			log(accounts);
+		} catch (RuntimeException e) {
+			undo(previous, accounts, e);
+			ledger.versions.discard(accounts, timestamp);
+			throw e;
+		}
+	}
+
+	/**
+	 * Undoes a store write after the journal failed, the error of the undo is added to the one of the journal.
+	 */
+	private void undo(Account[] previous, Account[] accounts, RuntimeException error) {
+		try {
+			ledger.store.undo(previous, accounts);
+		} catch (RuntimeException e) {
+			error.addSuppressed(e);
+		}
+	}
+
+	/**
+	 * Writes the new versions of the accounts of a commit to the journal. Must be called holding the lock, by 
+	 * {@link #write(Account[], Account[], long)}.
+	 */
+	private void log(Account... accounts) {
+		if (ledger.journal != null) {
+			try {
+				ledger.journal.append(Arrays.asList(accounts));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	private int stripe(String name) {
+		int hash = name.hashCode();
+		return (hash ^ (hash >>> 16)) & (ledger.accountLocks.length - 1);
+	}
+
+	/**
+	 * Reserves part of the available balance of an account. The reserved balance could not be used by other 
+	 * operations until it is released or captured.
+	 * Unlike {@link #updateAccounts(List)} the funds are validated and reserved holding the lock, with the 
+	 * current state of the account, so the operation never fails because the account is out of sequence.
+	 * The sequence of the account is advanced, so the snapshots taken before the hold are outdated.
+	 * 
+	 * @param name The name of the account
+	 * @param amount The positive amount to reserve
+	 * @return Returns true if the amount was reserved. Returns false if the account doesn't exist or 
+	 * the available balance is not enough.
+	 */
+	public boolean holdFunds(String name, long amount) {
+		ledger.lock.lock();
+		try {
+			Account currentAccount = ledger.store.get(name);
+			if (currentAccount == null || currentAccount.getAvailableBalance() < amount) {
+				return false;
+			}
+			Account localAccount = currentAccount.copy();
+			localAccount.hold(amount);
+			localAccount.nextSequence();
+			long timestamp = ledger.versions.begin();
+			ledger.versions.updated(currentAccount, localAccount, timestamp);
+			write(new Account[] { currentAccount }, new Account[] { localAccount }, timestamp);
+			ledger.aggregates.updated(currentAccount, localAccount);
+			ledger.merkleTree.updated(currentAccount, localAccount);
+			ledger.versions.publish(timestamp);
+		} finally {
+			ledger.lock.unlock();
+		}
 		return true;
 	}
+
+	/**
+	 * Releases an amount reserved with {@link #holdFunds(String, long)}. 
+	 * The operation is done holding the lock, with the current state of the account.
+	 * 
+	 * @param name The name of the account
+	 * @param amount The amount reserved
+	 */
+	public void releaseFunds(String name, long amount) {
+		ledger.lock.lock();
+		try {
+			Account currentAccount = ledger.store.get(name);
+			Account localAccount = currentAccount.copy();
+			localAccount.release(amount);
+			localAccount.nextSequence();
+			long timestamp = ledger.versions.begin();
+			ledger.versions.updated(currentAccount, localAccount, timestamp);
+			write(new Account[] { currentAccount }, new Account[] { localAccount }, timestamp);
+			ledger.aggregates.updated(currentAccount, localAccount);
+			ledger.merkleTree.updated(currentAccount, localAccount);
+			ledger.versions.publish(timestamp);
+		} finally {
+			ledger.lock.unlock();
+		}
+	}
+
+	/**
+	 * Transfers part or all of an amount reserved with {@link #holdFunds(String, long)} to another account and 
+	 * releases the reserve. The funds are not validated again because they are reserved.
+	 * The operation is done holding the lock, with the current state of the accounts.
+	 * 
+	 * @param from The name of the account with the reserve
+	 * @param to The name of the account receiving the money
+	 * @param held The amount reserved
+	 * @param amount The amount to transfer. Not greater than the amount reserved.
+	 */
+	public void captureFunds(String from, String to, long held, long amount) {
+		Account[] localAccounts = new Account[2];
+		Account[] currentAccounts = new Account[2];
+		long offset;
+
+		ledger.lock.lock();
+		try {
+			currentAccounts[0] = ledger.store.get(from);
+			currentAccounts[1] = ledger.store.get(to);
+			localAccounts[0] = currentAccounts[0].copy();
+			localAccounts[1] = currentAccounts[1].copy();
+			localAccounts[0].release(held);
+			localAccounts[0].withdraw(amount);
+			localAccounts[1].deposit(amount);
+			localAccounts[0].nextSequence();
+			localAccounts[1].nextSequence();
+			long timestamp = ledger.versions.begin();
+			for (int i = 0; i < 2; i++) {
+				ledger.versions.updated(currentAccounts[i], localAccounts[i], timestamp);
+			}
+			write(currentAccounts, localAccounts, timestamp);
+			for (int i = 0; i < 2; i++) {
+				ledger.aggregates.updated(currentAccounts[i], localAccounts[i]);
+				ledger.merkleTree.updated(currentAccounts[i], localAccounts[i]);
+			}
+			ledger.versions.publish(timestamp);
+			offset = ledger.events.claim(2);
+		} finally {
+			ledger.lock.unlock();
+		}
+
+		publishTransfer(offset, localAccounts, currentAccounts);
+	}
+
+	/**
+	 * Publishes the events of the accounts of a transfer. Must be called after the lock is released.
+	 */
+	private void publishTransfer(long offset, Account[] localAccounts, Account[] currentAccounts) {
+		long timestamp = System.currentTimeMillis();
+		int count = localAccounts.length;
+		for (int i = 0; i < count; i++) {
+			// The counterpart is only known when there are two accounts
+			String counterpart = count == 2 ? localAccounts[1 - i].getName() : null;
+			ledger.events.publish(new BalanceEvent(offset + i, BalanceEvent.Type.TRANSFER, localAccounts[i].getName(), 
+					counterpart, localAccounts[i].getBalance() - currentAccounts[i].getBalance(), 
+					localAccounts[i].getBalance(), localAccounts[i].getSequence(), timestamp));
+		}
+	}
+
+	/**
+	 * @return Returns the ring where the commits are published
+	 */
+	public BalanceEventRing getEvents() {
+		return ledger.events;
+	}
+
+	/**
+	 * Returns the aggregates of the committed accounts. They are read holding the lock, so they are consistent 
+	 * between them. 
+	 * 
+	 * @return Returns a snapshot of the aggregates of all the accounts
+	 */
+	public BankStatistics getStatistics() {
+		ledger.lock.lock();
+		try {
+			return ledger.aggregates.getStatistics(ledger.store);
+		} finally {
+			ledger.lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the hashes of some nodes of a level of the Merkle tree of the accounts. They are read holding the 
+	 * lock, so they are the ones of the same committed accounts.
+	 * Two copies of the accounts are the same if the root hashes are the same. Otherwise the children of the nodes 
+	 * that differ are compared, until the leaves that differ are found, and only the accounts of those leaves, 
+	 * given by {@link #getAccounts(int)}, need to be compared. 
+	 * 
+	 * @param level The level, from 0 (the root) to the depth of the tree (the leaves)
+	 * @param from The first node of the level
+	 * @param count The maximum number of nodes
+	 * @return Returns the hashes of the nodes from the first one until the count or the end of the level
+	 */
+	public Fingerprint getFingerprint(int level, int from, int count) {
+		ledger.lock.lock();
+		try {
+			int depth = ledger.merkleTree.getDepth();
+			level = Math.max(0, Math.min(level, depth));
+			from = Math.max(0, Math.min(from, 1 << level));
+			int to = (int) Math.min(1L << level, (long) from + Math.max(0, count));
+			List<String> hashes = new ArrayList<>(to - from);
+			for (int i = from; i < to; i++) {
+				hashes.add(String.format("%016x", ledger.merkleTree.getHash(level, i)));
+			}
+			return new Fingerprint(depth, level, from, hashes);
+		} finally {
+			ledger.lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the accounts of a leaf of the Merkle tree of the accounts, to repair a copy of the accounts whose leaf
+	 * differs. The accounts are read from a snapshot, so they are consistent between them, but the accounts changed 
+	 * meanwhile could be newer than the hash of the leaf.
+	 * 
+	 * @param leaf The leaf, from 0 to 2^depth - 1
+	 * @return Returns the accounts of the leaf sorted by name
+	 */
+	public List<Account> getAccounts(int leaf) {
+		List<Account> accounts = new ArrayList<>();
+		try (AccountSnapshot snapshot = openSnapshot()) {
+			for (String name : getAccountNames(leaf, ledger.merkleTree.getLeaves())) {
+				Account account = snapshot.getAccount(name);
+				if (account != null) {
+					accounts.add(account);
+				}
+			}
+		}
+		return accounts;
+	}
+
+	/**
+	 * Opens a snapshot of all the accounts as they are after the last commit. The accounts are read from the 
+	 * snapshot without locks and the commits done after don't change them. The snapshot must be closed.
+	 * 
+	 * @return Returns the snapshot
+	 */
+	public AccountSnapshot openSnapshot() {
+		return ledger.versions.open();
+	}
+
+	/**
+	 * Opens a snapshot like {@link #openSnapshot()} that also knows the offset of the events of its commits 
+	 * ({@link AccountSnapshot#getEventOffset()}), so the accounts and the events are consistent between them. 
+	 * The lock of the commits is held only to open the snapshot.
+	 * 
+	 * @return Returns the snapshot
+	 */
+	public AccountSnapshot openSnapshotWithEvents() {
+		ledger.lock.lock();
+		try {
+			// The commits publish their versions and claim their events holding the lock
+			return ledger.versions.open(ledger.events.head());
+		} finally {
+			ledger.lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops the commits of the accounts of the tenant, to hand them over to other process. The lock of the commits 
+	 * is held by the calling thread until it calls {@link #unseal()}, so the commits wait and the reads go on. 
+	 * 
+	 * @return Returns copies of all the accounts, as they are after the last commit
+	 */
+	public List<Account> seal() {
+		ledger.lock.lock();
+		try {
+			List<Account> accounts = new ArrayList<>(ledger.names.size());
+			ledger.store.forEach(account -> accounts.add(account.copy()));
+			return accounts;
+		} catch (RuntimeException | Error e) {
+			// Not sealed, the commits go on
+			ledger.lock.unlock();
+			throw e;
+		}
+	}
+
+	/**
+	 * Lets the commits go on after {@link #seal()}. It must be called by the thread that sealed the accounts.
+	 */
+	public void unseal() {
+		if (ledger.lock.isHeldByCurrentThread()) {
+			ledger.lock.unlock();
+		}
+	}
+
+	/**
+	 * Loads the accounts handed over by other process. The tenant must have no accounts. The accounts are written 
+	 * to the journal, if it is configured, once the store accepted them, and they are visible to every snapshot, 
+	 * like the accounts loaded from the journal when the application starts. No events are published.
+	 * 
+	 * @param accounts The accounts
+	 * @throws IllegalStateException If the tenant has accounts
+	 */
+	public void load(Collection<Account> accounts) {
+		ledger.lock.lock();
+		try {
+			if (ledger.names.size() > 0) {
+				throw new IllegalStateException("The tenant " + ledger.tenant + " has already accounts");
+			}
+			List<Account> loaded = new ArrayList<>(accounts.size());
+			List<String> names = new ArrayList<>(accounts.size());
+			for (Account account : accounts) {
+				loaded.add(account.copy());
+				names.add(account.getName());
+			}
+			ledger.store.load(loaded);
+			if (ledger.journal != null) {
+				try {
+					// A record of the journal has at most 65535 accounts
+					for (int from = 0; from < loaded.size(); from += 4096) {
+						ledger.journal.append(loaded.subList(from, Math.min(loaded.size(), from + 4096)));
+					}
+				} catch (IOException e) {
+					// The tenant stays without accounts, so the load could be retried
+					UncheckedIOException error = new UncheckedIOException(e);
+					undo(new Account[loaded.size()], loaded.toArray(new Account[loaded.size()]), error);
+					throw error;
+				}
+			}
+			for (Account account : loaded) {
+				ledger.aggregates.created(account);
+				ledger.merkleTree.created(account);
+			}
+			ledger.names.load(names);
+		} finally {
+			ledger.lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns an account as it was at a time. The instance is a copy, the caller could modify it.
+	 * 
+	 * @param name The name of the account
+	 * @param time The time in milliseconds since the epoch
+	 * @return Returns the account or null if it didn't exist at that time
+	 * @throws VersionNotAvailableException If the time is older than the versions kept
+	 */
+	public Account getAccountAsOf(String name, long time) {
+		return ledger.versions.getAsOf(name, time);
+	}
+
+	/**
+	 * @return Returns the tracker of the conflicts of the accounts
+	 */
+	public ContentionTracker getContention() {
+		return ledger.contention;
+	}
 }
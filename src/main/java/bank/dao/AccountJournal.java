@@ -0,0 +1,435 @@
+package bank.dao;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import bank.data.Account;
+
+/**
+ * Append only log of the commits of the {@link AccountDAO}, so the accounts survive a restart of the application.
+ * 
+ * Each commit is a record with the new version of each account of the commit (after images). The record has its 
+ * length and a checksum, so a record written partially when the application stopped is ignored, with all its 
+ * accounts. The log is divided in segments, a new segment starts when the current one reaches the maximum size 
+ * and at each start of the application.
+ * 
+ * The segments that are not current are folded in the background into snapshots with the last version of each 
+ * account (compaction), and deleted, so the log doesn't grow without limit. The snapshots are partitioned by the 
+ * hash of the name of the account and each partition is folded independently and in parallel, so the memory of 
+ * the compaction is the one of the accounts of one partition.
+ * 
+ * The sequence of an account grows with each commit, so the last version of an account is the one with the 
+ * greatest sequence, whatever the order the records are read. Because of that the recovery reads the snapshots 
+ * and the segments in parallel, on all the processors, and merges the versions in a map per partition. The 
+ * commits of accounts of several partitions, like a transfer, don't need coordination: each account is merged 
+ * in its partition and the record was written or ignored as a whole.
+ * 
+ * The files in the directory are:
+ * 	journal.info The number of partitions and the last segment folded into the snapshots.
+ * 	segment-N.log The segments.
+ * 	snapshot-P.dat The snapshot of each partition.
+ * 
+ * The records are written to the operating system on each commit, but not forced to the disk.
+ * 
+ */
+public class AccountJournal implements Closeable {
+	private static final String INFO = "journal.info";
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	private final Path directory;
+	private final long segmentSize;
+	private final int partitions;
+	private final int parallelism;
+	private final boolean compactOnRollover;
+	private final Object compactionLock = new Object();
+	private final ExecutorService compactor;
+	private volatile long foldedSegment;
+	private long currentSegment;
+	private DataOutputStream out;
+	private long segmentBytes;
+	private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+	private final DataOutputStream recordOut = new DataOutputStream(record);
+	private final CRC32 crc = new CRC32();
+
+	/**
+	 * Opens the journal in a directory and starts a new segment. 
+	 * 
+	 * @param directory The directory of the journal. It is created if it doesn't exist.
+	 * @param segmentSize The size of a segment in bytes to start a new one
+	 * @param partitions The number of partitions of the snapshots. If the journal exists, the number of partitions
+	 * of the journal is used.
+	 * @param parallelism The number of threads of the recovery and the compaction
+	 * @param compactOnRollover If true, the compaction starts in the background when a new segment starts
+	 * @throws IOException If the journal could not be read or written
+	 */
+	public AccountJournal(Path directory, long segmentSize, int partitions, int parallelism, 
+			boolean compactOnRollover) throws IOException {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.parallelism = parallelism;
+		this.compactOnRollover = compactOnRollover;
+		Files.createDirectories(directory);
+		Path info = directory.resolve(INFO);
+		if (Files.exists(info)) {
+			try (DataInputStream in = new DataInputStream(Files.newInputStream(info))) {
+				this.partitions = in.readInt();
+				this.foldedSegment = in.readLong();
+			}
+		} else {
+			this.partitions = partitions;
+			writeInfo(0);
+		}
+		
+		// Never append to an old segment, its last record could be partial
+		currentSegment = foldedSegment;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+			for (Path file : files) {
+				currentSegment = Math.max(currentSegment, segmentNumber(file));
+			}
+		}
+		openSegment(currentSegment + 1);
+		
+		compactor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "journal-compactor");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Appends a commit. Must be called before the commit is visible, in the order of the commits.
+	 * 
+	 * @param accounts The new versions of the accounts of the commit
+	 * @throws IOException If the record could not be written
+	 */
+	public synchronized void append(Collection<Account> accounts) throws IOException {
+		record.reset();
+		recordOut.writeShort(accounts.size());
+		for (Account account : accounts) {
+			writeAccount(recordOut, account);
+		}
+		crc.reset();
+		crc.update(record.toByteArray(), 0, record.size());
+		out.writeInt(record.size());
+		out.writeInt((int) crc.getValue());
+		record.writeTo(out);
+		out.flush();
+		
+		segmentBytes += 2 * Integer.BYTES + record.size();
+		if (segmentBytes >= segmentSize) {
+			out.close();
+			openSegment(currentSegment + 1);
+			if (compactOnRollover) {
+				compactInBackground();
+			}
+		}
+	}
+
+	/**
+	 * Reads the last version of all the accounts. The snapshots and the segments are read in parallel.
+	 * 
+	 * @return Returns the accounts
+	 * @throws IOException If the journal could not be read
+	 */
+	public List<Account> recover() throws IOException {
+		synchronized (compactionLock) {
+			return read();
+		}
+	}
+
+	/**
+	 * Folds the segments that are not current in a background thread, see {@link #compact()}.
+	 */
+	public void compactInBackground() {
+		compactor.execute(() -> {
+			try {
+				compact();
+			} catch (IOException e) {
+				// The segments are folded in the next compaction
+			}
+		});
+	}
+
+	private List<Account> read() throws IOException {
+		List<Map<String, Account>> states = new ArrayList<>(partitions);
+		for (int i = 0; i < partitions; i++) {
+			states.add(new ConcurrentHashMap<>());
+		}
+		Consumer<Account> merge = account -> states.get(partition(account.getName())).merge(account.getName(), 
+				account, AccountJournal::last);
+		
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (int i = 0; i < partitions; i++) {
+			Path snapshot = snapshot(i);
+			tasks.add(() -> {
+				readSnapshot(snapshot, merge);
+				return null;
+			});
+		}
+		for (long number = foldedSegment + 1; number < currentSegment(); number++) {
+			Path segment = segment(number);
+			tasks.add(() -> {
+				readSegment(segment, merge);
+				return null;
+			});
+		}
+		runAll(tasks);
+		
+		List<Account> accounts = new ArrayList<>();
+		for (Map<String, Account> state : states) {
+			accounts.addAll(state.values());
+		}
+		return accounts;
+	}
+
+	/**
+	 * Folds the segments that are not current into the snapshots and deletes them. 
+	 * The images of the segments are routed to a file per partition, and then each partition is folded in 
+	 * parallel: the snapshot and the file of the partition are read and the last versions written to a new snapshot.
+	 * If the application stops in between, the segments are folded again, which doesn't change the snapshots.
+	 * 
+	 * @throws IOException If the journal could not be read or written
+	 */
+	public void compact() throws IOException {
+		synchronized (compactionLock) {
+			long last = currentSegment() - 1;
+			if (last <= foldedSegment) {
+				return;
+			}
+			
+			// Route the images to the partitions
+			Path[] deltas = new Path[partitions];
+			DataOutputStream[] deltaOuts = new DataOutputStream[partitions];
+			try {
+				for (int i = 0; i < partitions; i++) {
+					deltas[i] = directory.resolve("delta-" + i + ".tmp");
+					deltaOuts[i] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(deltas[i])));
+				}
+				for (long number = foldedSegment + 1; number <= last; number++) {
+					if (Thread.interrupted()) {
+						throw new InterruptedIOException("The compaction was interrupted");
+					}
+					readSegment(segment(number), account -> {
+						try {
+							writeAccount(deltaOuts[partition(account.getName())], account);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					});
+				}
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			} finally {
+				for (DataOutputStream deltaOut : deltaOuts) {
+					if (deltaOut != null) {
+						deltaOut.close();
+					}
+				}
+			}
+			
+			// Fold each partition
+			List<Callable<Void>> tasks = new ArrayList<>();
+			for (int i = 0; i < partitions; i++) {
+				int partition = i;
+				tasks.add(() -> {
+					fold(partition, deltas[partition]);
+					return null;
+				});
+			}
+			runAll(tasks);
+			
+			writeInfo(last);
+			for (long number = foldedSegment + 1; number <= last; number++) {
+				Files.deleteIfExists(segment(number));
+			}
+			foldedSegment = last;
+			for (Path delta : deltas) {
+				Files.deleteIfExists(delta);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		compactor.shutdownNow();
+		try {
+			// A compaction interrupted is done again in the next one
+			compactor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			out.close();
+		}
+	}
+
+	private void fold(int partition, Path delta) throws IOException {
+		Map<String, Account> state = new HashMap<>();
+		Consumer<Account> merge = account -> state.merge(account.getName(), account, AccountJournal::last);
+		Path snapshot = snapshot(partition);
+		readSnapshot(snapshot, merge);
+		readSnapshot(delta, merge);
+		
+		Path tmp = directory.resolve("snapshot-" + partition + ".tmp");
+		try (DataOutputStream snapshotOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			for (Account account : state.values()) {
+				writeAccount(snapshotOut, account);
+			}
+		}
+		Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private synchronized long currentSegment() {
+		return currentSegment;
+	}
+
+	private void openSegment(long number) throws IOException {
+		currentSegment = number;
+		segmentBytes = 0;
+		out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(segment(number)), 1 << 16));
+	}
+
+	private void writeInfo(long folded) throws IOException {
+		Path tmp = directory.resolve(INFO + ".tmp");
+		try (DataOutputStream infoOut = new DataOutputStream(Files.newOutputStream(tmp))) {
+			infoOut.writeInt(partitions);
+			infoOut.writeLong(folded);
+		}
+		Files.move(tmp, directory.resolve(INFO), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private void runAll(List<Callable<Void>> tasks) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IllegalStateException(cause);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads the accounts of the records of a segment until the end or the first partial or corrupted record
+	 */
+	private static void readSegment(Path segment, Consumer<Account> action) throws IOException {
+		if (!Files.exists(segment)) {
+			return;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+			CRC32 checksum = new CRC32();
+			byte[] data = new byte[256];
+			List<Account> accounts = new ArrayList<>();
+			while (true) {
+				int length = in.readInt();
+				int expected = in.readInt();
+				if (length < Short.BYTES) {
+					return;
+				}
+				if (data.length < length) {
+					data = new byte[length];
+				}
+				in.readFully(data, 0, length);
+				checksum.reset();
+				checksum.update(data, 0, length);
+				if ((int) checksum.getValue() != expected) {
+					return;
+				}
+				DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(data, 0, length));
+				accounts.clear();
+				for (int i = recordIn.readShort(); i > 0; i--) {
+					accounts.add(readAccount(recordIn));
+				}
+				accounts.forEach(action);
+			}
+		} catch (EOFException e) {
+			// End of the segment or partial record
+		}
+	}
+
+	private static void readSnapshot(Path snapshot, Consumer<Account> action) throws IOException {
+		if (!Files.exists(snapshot)) {
+			return;
+		}
+		try (InputStream stream = Files.newInputStream(snapshot);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+			while (true) {
+				action.accept(readAccount(in));
+			}
+		} catch (EOFException e) {
+			// End of the snapshot
+		}
+	}
+
+	private static void writeAccount(DataOutputStream out, Account account) throws IOException {
+		out.writeUTF(account.getName());
+		out.writeLong(account.getBalance());
+		out.writeLong(account.getSequence());
+		out.writeLong(account.getHeld());
+		out.writeLong(account.getLastBulkOperation());
+	}
+
+	private static Account readAccount(DataInputStream in) throws IOException {
+		return new Account(in.readUTF(), in.readLong(), in.readLong(), in.readLong(), in.readLong());
+	}
+
+	private static Account last(Account one, Account other) {
+		return one.getSequence() >= other.getSequence() ? one : other;
+	}
+
+	private int partition(String name) {
+		int hash = name.hashCode();
+		return ((hash ^ (hash >>> 16)) & 0x7fffffff) % partitions;
+	}
+
+	private Path segment(long number) {
+		return directory.resolve(SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+	}
+
+	private Path snapshot(int partition) {
+		return directory.resolve("snapshot-" + partition + ".dat");
+	}
+
+	private static long segmentNumber(Path file) {
+		String name = file.getFileName().toString();
+		return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+}
@@ -0,0 +1,77 @@
+package bank.dao;
+
+import bank.data.Account;
+
+/**
+ * A consistent view of all the accounts as they were at a commit, read without the lock of the commits. 
+ * The accounts of the commits done after the snapshot was open are not seen, so the accounts read from the same 
+ * snapshot are consistent between them, like the two accounts of a transfer.
+ * 
+ * The snapshot keeps the versions it needs until it is closed or it expires, it must be closed after use.
+ * 
+ * A snapshot opened with {@link AccountDAO#openSnapshotWithEvents()} also knows the offset of the events of its 
+ * commits, so the events before that offset are the ones of the accounts it sees.
+ * 
+ */
+public class AccountSnapshot implements AutoCloseable {
+	private final VersionStore versions;
+	private final long timestamp;
+	private final long openTime;
+	private final long eventOffset;
+	private volatile boolean expired;
+
+	AccountSnapshot(VersionStore versions, long timestamp, long openTime, long eventOffset) {
+		this.versions = versions;
+		this.timestamp = timestamp;
+		this.openTime = openTime;
+		this.eventOffset = eventOffset;
+	}
+
+	/**
+	 * Returns an account as it was when the snapshot was open. The instance is a copy, the caller could modify it.
+	 * 
+	 * @param name The name of the account
+	 * @return Returns the account or null if it didn't exist when the snapshot was open
+	 * @throws VersionNotAvailableException If the snapshot expired
+	 */
+	public Account getAccount(String name) {
+		return versions.get(name, this);
+	}
+
+	/**
+	 * @return Returns the timestamp of the last commit seen by the snapshot
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return Returns the time in milliseconds since the epoch when the snapshot was open
+	 */
+	public long getOpenTime() {
+		return openTime;
+	}
+
+	/**
+	 * @return Returns the offset of the first event of the commits not seen by the snapshot, -1 if it is not known
+	 */
+	public long getEventOffset() {
+		return eventOffset;
+	}
+
+	/**
+	 * @return Returns true if the snapshot was open too long and its versions could be collected
+	 */
+	public boolean isExpired() {
+		return expired;
+	}
+
+	void expire() {
+		expired = true;
+	}
+
+	@Override
+	public void close() {
+		versions.close(this);
+	}
+}
@@ -0,0 +1,92 @@
+package bank.dao;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.SortedSet;
+import java.util.function.Consumer;
+
+import bank.data.Account;
+
+/**
+ * The store of the committed accounts of the {@link AccountDAO}. The store keeps only the last version of each 
+ * account: the validation of the commits, the previous versions and the durability are done by the 
+ * {@link AccountDAO}. The writes are done holding the lock of the commits, the reads are done without it.
+ * The instances of {@link Account} given to the store or returned by it are not modified.
+ * 
+ * The implementations are the {@link TieredAccountStore}, in memory and in a file, and the 
+ * {@link JdbcAccountStore}, in an embedded database.
+ * 
+ */
+abstract class AccountStore implements Closeable {
+
+	/**
+	 * @param name The name of the account
+	 * @return Returns the last committed version of the account or null if it doesn't exist
+	 */
+	abstract Account get(String name);
+
+	/**
+	 * Writes the accounts of a commit. The accounts are visible to the readers once they are written.
+	 * 
+	 * @param previous The versions replaced, the ones returned by {@link #get(String)}, or null for the new accounts
+	 * @param accounts The new versions, in the same order
+	 */
+	abstract void write(Account[] previous, Account[] accounts);
+
+	/**
+	 * Reverts a write whose commit failed after the store accepted it, because the journal refused it: the 
+	 * previous versions are written again and the new accounts are removed. It is called holding the lock of the 
+	 * commits, before any other write.
+	 * 
+	 * @param previous The versions given to {@link #write(Account[], Account[])}, null for the new accounts
+	 * @param accounts The new versions given to {@link #write(Account[], Account[])}
+	 */
+	abstract void undo(Account[] previous, Account[] accounts);
+
+	/**
+	 * Adds many new accounts at once, when the accounts are loaded.
+	 * 
+	 * @param accounts The accounts, whose names must not be in the store
+	 */
+	abstract void load(Collection<Account> accounts);
+
+	/**
+	 * Reads the last committed version of all the accounts.
+	 * 
+	 * @param action The action to do with each account
+	 */
+	abstract void forEach(Consumer<Account> action);
+
+	/**
+	 * Returns the names of the accounts of a partition. The partitions are ranges of buckets of the hash of the 
+	 * name, see {@link ColdAccountFile#bucket(String, int)}, so every store gives the same partitions.
+	 * 
+	 * @param partition The partition, from 0 to partitions - 1
+	 * @param partitions The number of partitions
+	 * @return Returns the sorted names of the accounts of the partition
+	 */
+	abstract SortedSet<String> names(int partition, int partitions);
+
+	/**
+	 * Returns the partition of an account, the one whose {@link #names(int, int)} has the account.
+	 * 
+	 * @param name The name of the account
+	 * @param partitions The number of partitions
+	 * @return Returns the partition, from 0 to partitions - 1
+	 */
+	abstract int partition(String name, int partitions);
+
+	/**
+	 * @return Returns the first bucket of a partition
+	 */
+	static int firstBucket(int partition, int partitions, int buckets) {
+		return (int) ((long) partition * buckets / partitions);
+	}
+
+	/**
+	 * @return Returns the partition of a bucket, the last partition whose first bucket is not after it
+	 */
+	static int partitionOf(int bucket, int partitions, int buckets) {
+		return (int) (((bucket + 1) * (long) partitions - 1) / buckets);
+	}
+}
@@ -0,0 +1,186 @@
+package bank.dao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import bank.data.Account;
+
+/**
+ * Aggregates of all the accounts kept up to date by the {@link AccountDAO} on each commit, so they don't need to 
+ * read the accounts: the number of accounts, the total balance, the total held, the number and the balance of the
+ * accounts by range of balance and the accounts with the largest balances.
+ * 
+ * The ranges are powers of two: 0, 1, 2-3, 4-7 ... so there are 64 ranges at most. 
+ * The largest balances are kept in a ranking of some candidates, four times the number of accounts returned. 
+ * When the ranking is full the smallest candidate leaves it and the floor is raised to its balance: an account 
+ * out of the ranking enters it only if its balance is greater than the floor. The ranking answers the largest 
+ * balances while they are not smaller than the floor. If the balances of the candidates decreased so much that 
+ * it is not the case, the ranking is built again reading all the accounts, which should be rare.
+ * 
+ * The class is not thread safe. The DAO calls it holding the lock of the commits, so the aggregates are always 
+ * the ones of the committed accounts, and a plain sum is enough.
+ * 
+ */
+final class BankAggregates {
+	private final int top;
+	private final int candidates;
+	private long accounts;
+	private long totalBalance;
+	private long totalHeld;
+	private long createdBalance;
+	private long adjustedBalance;
+	private final long[] rangeCounts = new long[Long.SIZE];
+	private final long[] rangeBalances = new long[Long.SIZE];
+	private final TreeSet<Entry> ranking = new TreeSet<>();
+	private final Map<String, Entry> members = new HashMap<>();
+	private long floor = Long.MIN_VALUE;
+
+	private static final class Entry implements Comparable<Entry> {
+		private final String name;
+		private final long balance;
+
+		Entry(String name, long balance) {
+			this.name = name;
+			this.balance = balance;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			// The largest balance first
+			int compare = Long.compare(other.balance, balance);
+			return compare != 0 ? compare : name.compareTo(other.name);
+		}
+	}
+
+	/**
+	 * @param top The number of accounts with the largest balances returned
+	 */
+	BankAggregates(int top) {
+		this.top = top;
+		this.candidates = 4 * top;
+	}
+
+	/**
+	 * Adds a new account.
+	 * 
+	 * @param account The new account
+	 */
+	void created(Account account) {
+		accounts++;
+		createdBalance += account.getBalance();
+		totalBalance += account.getBalance();
+		totalHeld += account.getHeld();
+		addRange(account.getBalance(), 1);
+		offer(account.getName(), account.getBalance());
+	}
+
+	/**
+	 * Replaces the version of an account.
+	 * 
+	 * @param before The committed version replaced
+	 * @param after The new committed version
+	 */
+	void updated(Account before, Account after) {
+		totalBalance += after.getBalance() - before.getBalance();
+		totalHeld += after.getHeld() - before.getHeld();
+		if (after.getBalance() != before.getBalance()) {
+			addRange(before.getBalance(), -1);
+			addRange(after.getBalance(), 1);
+			Entry entry = members.remove(after.getName());
+			if (entry != null) {
+				ranking.remove(entry);
+				add(after.getName(), after.getBalance());
+			} else {
+				offer(after.getName(), after.getBalance());
+			}
+		}
+	}
+
+	/**
+	 * Replaces the version of an account changed by an adjustment, which creates or destroys money.
+	 * 
+	 * @param before The committed version replaced
+	 * @param after The new committed version
+	 */
+	void adjusted(Account before, Account after) {
+		adjustedBalance += after.getBalance() - before.getBalance();
+		updated(before, after);
+	}
+
+	/**
+	 * @param store The store of the accounts, read if the ranking must be built again
+	 * @return Returns a snapshot of the aggregates
+	 */
+	BankStatistics getStatistics(AccountStore store) {
+		List<BankStatistics.AccountBalance> largest = largest();
+		if (largest == null) {
+			ranking.clear();
+			members.clear();
+			floor = Long.MIN_VALUE;
+			store.forEach(account -> offer(account.getName(), account.getBalance()));
+			largest = largest();
+		}
+		
+		List<BankStatistics.BalanceRange> ranges = new ArrayList<>();
+		for (int i = 0; i < Long.SIZE; i++) {
+			if (rangeCounts[i] != 0) {
+				long from = i == 0 ? 0 : 1L << (i - 1);
+				long to = i == 0 ? 0 : (1L << (i - 1)) - 1 + (1L << (i - 1));
+				ranges.add(new BankStatistics.BalanceRange(from, to, rangeCounts[i], rangeBalances[i]));
+			}
+		}
+		return new BankStatistics(accounts, totalBalance, totalHeld, createdBalance, adjustedBalance, largest, 
+				ranges);
+	}
+
+	/**
+	 * @return Returns the accounts with the largest balances or null if the ranking could not answer them
+	 */
+	private List<BankStatistics.AccountBalance> largest() {
+		List<BankStatistics.AccountBalance> largest = new ArrayList<>(top);
+		Iterator<Entry> iterator = ranking.iterator();
+		while (largest.size() < top && iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.balance < floor) {
+				return null;
+			}
+			largest.add(new BankStatistics.AccountBalance(entry.name, entry.balance));
+		}
+		// Some accounts out of the ranking could be missing
+		if (largest.size() < top && floor != Long.MIN_VALUE) {
+			return null;
+		}
+		return largest;
+	}
+
+	/**
+	 * Adds an account that is not in the ranking if its balance is greater than the floor
+	 */
+	private void offer(String name, long balance) {
+		if (balance > floor) {
+			add(name, balance);
+			if (ranking.size() > candidates) {
+				Entry smallest = ranking.pollLast();
+				members.remove(smallest.name);
+				floor = Math.max(floor, smallest.balance);
+			}
+		}
+	}
+
+	private void add(String name, long balance) {
+		Entry entry = new Entry(name, balance);
+		ranking.add(entry);
+		members.put(name, entry);
+	}
+
+	private void addRange(long balance, int count) {
+		// The range of the balances with the same number of bits
+		int range = Long.SIZE - Long.numberOfLeadingZeros(Math.max(0, balance));
+		rangeCounts[range] += count;
+		rangeBalances[range] += count * balance;
+	}
+}
@@ -0,0 +1,137 @@
+package bank.dao;
+
+import java.util.List;
+
+/**
+ * Plain data object with a snapshot of the {@link BankAggregates}.
+ * 
+ */
+public class BankStatistics {
+	private final long accounts;
+	private final long totalBalance;
+	private final long totalHeld;
+	private final long createdBalance;
+	private final long adjustedBalance;
+	private final List<AccountBalance> largestBalances;
+	private final List<BalanceRange> balanceRanges;
+
+	/**
+	 * The balance of an account
+	 */
+	public static class AccountBalance {
+		private final String name;
+		private final long balance;
+
+		public AccountBalance(String name, long balance) {
+			this.name = name;
+			this.balance = balance;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getBalance() {
+			return balance;
+		}
+	}
+
+	/**
+	 * The number of accounts and the sum of their balances for a range of balances
+	 */
+	public static class BalanceRange {
+		private final long from;
+		private final long to;
+		private final long accounts;
+		private final long balance;
+
+		public BalanceRange(long from, long to, long accounts, long balance) {
+			this.from = from;
+			this.to = to;
+			this.accounts = accounts;
+			this.balance = balance;
+		}
+
+		/**
+		 * @return Returns the smallest balance of the range
+		 */
+		public long getFrom() {
+			return from;
+		}
+
+		/**
+		 * @return Returns the largest balance of the range
+		 */
+		public long getTo() {
+			return to;
+		}
+
+		public long getAccounts() {
+			return accounts;
+		}
+
+		public long getBalance() {
+			return balance;
+		}
+	}
+
+	public BankStatistics(long accounts, long totalBalance, long totalHeld, long createdBalance, long adjustedBalance,
+			List<AccountBalance> largestBalances, List<BalanceRange> balanceRanges) {
+		this.accounts = accounts;
+		this.totalBalance = totalBalance;
+		this.totalHeld = totalHeld;
+		this.createdBalance = createdBalance;
+		this.adjustedBalance = adjustedBalance;
+		this.largestBalances = largestBalances;
+		this.balanceRanges = balanceRanges;
+	}
+
+	public long getAccounts() {
+		return accounts;
+	}
+
+	public long getTotalBalance() {
+		return totalBalance;
+	}
+
+	public long getTotalHeld() {
+		return totalHeld;
+	}
+
+	/**
+	 * @return Returns the sum of the balances of the accounts when they were created
+	 */
+	public long getCreatedBalance() {
+		return createdBalance;
+	}
+
+	/**
+	 * @return Returns the money created (positive) or destroyed (negative) by the adjustments, like the interest 
+	 * or the fees
+	 */
+	public long getAdjustedBalance() {
+		return adjustedBalance;
+	}
+
+	/**
+	 * @return Returns true if the total balance is the balance created plus the adjustments. The transfers neither 
+	 * create nor destroy money, so false means a bug.
+	 */
+	public boolean isConserved() {
+		return totalBalance == createdBalance + adjustedBalance;
+	}
+
+	/**
+	 * @return Returns the accounts with the largest balances, the largest first
+	 */
+	public List<AccountBalance> getLargestBalances() {
+		return largestBalances;
+	}
+
+	/**
+	 * @return Returns the ranges of balances that have accounts, the smallest first
+	 */
+	public List<BalanceRange> getBalanceRanges() {
+		return balanceRanges;
+	}
+}
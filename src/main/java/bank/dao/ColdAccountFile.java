@@ -0,0 +1,305 @@
+package bank.dao;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import bank.data.Account;
+
+/**
+ * The file where the {@link TieredAccountStore} keeps the accounts that are not in memory.
+ * 
+ * The file is a hash table of pages of 4 KB. The name of the account selects one of the first pages (the buckets)
+ * and the account is stored in that page or in the overflow pages chained to it, which are added at the end of
+ * the file when the bucket is full. Nothing about the accounts is kept in memory, so a lookup reads the pages of 
+ * one bucket. An account always has the same size, so it is updated in its place.
+ * 
+ * The page starts with the number of the next page of the bucket (0 if there is no more) and the number of bytes 
+ * used by the accounts. Each account is the length of the name, the name in UTF-8, the balance, the sequence, 
+ * the held amount and the last bulk operation. 
+ * 
+ * The class is not thread safe, the caller must serialize the access.
+ * 
+ */
+final class ColdAccountFile implements Closeable {
+	static final int PAGE_SIZE = 4096;
+	private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+	private static final int FIXED_SIZE = Short.BYTES + 4 * Long.BYTES;
+
+	private final FileChannel channel;
+	private final int buckets;
+	private long pages;
+	private final ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+
+	/**
+	 * Creates an empty file. If the file exists its content is discarded.
+	 * 
+	 * @param path The path of the file
+	 * @param buckets The number of buckets. More buckets means shorter chains of pages and a bigger (sparse) file.
+	 * @throws IOException If the file could not be created
+	 */
+	ColdAccountFile(Path path, int buckets) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, 
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		this.buckets = buckets;
+		this.pages = buckets;
+	}
+
+	/**
+	 * @param name The name of the account
+	 * @return Returns true if the account could be stored in the file. The name must fit in a page.
+	 */
+	static boolean fits(String name) {
+		return FIXED_SIZE + name.getBytes(StandardCharsets.UTF_8).length <= PAGE_SIZE - HEADER_SIZE;
+	}
+
+	/**
+	 * @param name The name of the account
+	 * @return Returns the account stored in the file or null if it isn't in the file
+	 * @throws IOException If the file could not be read
+	 */
+	Account read(String name) throws IOException {
+		byte[] key = name.getBytes(StandardCharsets.UTF_8);
+		long number = bucket(name);
+		while (true) {
+			load(number);
+			int position = find(key);
+			if (position >= 0) {
+				page.position(position + Short.BYTES + key.length);
+				return new Account(name, page.getLong(), page.getLong(), page.getLong(), page.getLong());
+			}
+			number = page.getLong(0);
+			if (number == 0) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Stores an account, replacing the previous version of the account if it is in the file.
+	 * 
+	 * @param account The account
+	 * @return Returns false if the name doesn't fit in a page, see {@link #fits(String)}
+	 * @throws IOException If the file could not be read or written
+	 */
+	boolean write(Account account) throws IOException {
+		byte[] key = account.getName().getBytes(StandardCharsets.UTF_8);
+		int size = FIXED_SIZE + key.length;
+		if (size > PAGE_SIZE - HEADER_SIZE) {
+			return false;
+		}
+		long number = bucket(account.getName());
+		while (true) {
+			load(number);
+			int position = find(key);
+			if (position >= 0) {
+				// Update in the same place
+				page.position(position + Short.BYTES + key.length);
+				putValues(account);
+				store(number);
+				return true;
+			}
+			long next = page.getLong(0);
+			if (next == 0) {
+				break;
+			}
+			number = next;
+		}
+		
+		// Append at the end of the last page of the bucket or in a new overflow page
+		int used = page.getInt(Long.BYTES);
+		if (HEADER_SIZE + used + size > PAGE_SIZE) {
+			long overflow = pages++;
+			page.putLong(0, overflow);
+			store(number);
+			number = overflow;
+			Arrays.fill(page.array(), (byte) 0);
+			used = 0;
+		}
+		page.position(HEADER_SIZE + used);
+		page.putShort((short) key.length);
+		page.put(key);
+		putValues(account);
+		page.putInt(Long.BYTES, used + size);
+		store(number);
+		return true;
+	}
+
+	/**
+	 * Removes an account. The accounts after it in its page are moved back, the page is not released.
+	 * 
+	 * @param name The name of the account
+	 * @return Returns false if the account isn't in the file
+	 * @throws IOException If the file could not be read or written
+	 */
+	boolean delete(String name) throws IOException {
+		byte[] key = name.getBytes(StandardCharsets.UTF_8);
+		long number = bucket(name);
+		while (true) {
+			load(number);
+			int position = find(key);
+			if (position >= 0) {
+				int size = FIXED_SIZE + key.length;
+				int end = HEADER_SIZE + page.getInt(Long.BYTES);
+				byte[] data = page.array();
+				System.arraycopy(data, position + size, data, position, end - position - size);
+				Arrays.fill(data, end - size, end, (byte) 0);
+				page.putInt(Long.BYTES, end - size - HEADER_SIZE);
+				store(number);
+				return true;
+			}
+			number = page.getLong(0);
+			if (number == 0) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Reads all the accounts of the file, page by page in the order of the file. 
+	 * The action could read and write the file.
+	 * 
+	 * @param action The action to do with each account
+	 * @throws IOException If the file could not be read
+	 */
+	void forEach(Consumer<Account> action) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+		byte[] data = buffer.array();
+		for (long number = 0; number < pages; number++) {
+			read(buffer, number);
+			int end = HEADER_SIZE + buffer.getInt(Long.BYTES);
+			int position = HEADER_SIZE;
+			while (position < end) {
+				int length = buffer.getShort(position);
+				String name = new String(data, position + Short.BYTES, length, StandardCharsets.UTF_8);
+				buffer.position(position + Short.BYTES + length);
+				action.accept(new Account(name, buffer.getLong(), buffer.getLong(), buffer.getLong(), 
+						buffer.getLong()));
+				position += FIXED_SIZE + length;
+			}
+		}
+	}
+
+	/**
+	 * Reads the names of the accounts of some buckets, following the overflow pages. 
+	 * 
+	 * @param fromBucket The first bucket
+	 * @param toBucket The bucket after the last one
+	 * @param action The action to do with each name
+	 * @throws IOException If the file could not be read
+	 */
+	void forEachName(int fromBucket, int toBucket, Consumer<String> action) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+		byte[] data = buffer.array();
+		for (long bucket = fromBucket; bucket < toBucket; bucket++) {
+			long number = bucket;
+			do {
+				read(buffer, number);
+				int end = HEADER_SIZE + buffer.getInt(Long.BYTES);
+				int position = HEADER_SIZE;
+				while (position < end) {
+					int length = buffer.getShort(position);
+					action.accept(new String(data, position + Short.BYTES, length, StandardCharsets.UTF_8));
+					position += FIXED_SIZE + length;
+				}
+				number = buffer.getLong(0);
+			} while (number != 0);
+		}
+	}
+
+	/**
+	 * @return Returns the number of buckets
+	 */
+	int getBuckets() {
+		return buckets;
+	}
+
+	/**
+	 * @param name The name of the account
+	 * @return Returns the bucket of the account
+	 */
+	int bucket(String name) {
+		return bucket(name, buckets);
+	}
+
+	/**
+	 * @param name The name of the account
+	 * @param buckets The number of buckets
+	 * @return Returns the bucket of the account
+	 */
+	static int bucket(String name, int buckets) {
+		int hash = name.hashCode();
+		return ((hash ^ (hash >>> 16)) & 0x7fffffff) % buckets;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * @return Returns the offset in the loaded page of the account with the name or -1 if it isn't in the page 
+	 */
+	private int find(byte[] key) {
+		byte[] data = page.array();
+		int end = HEADER_SIZE + page.getInt(Long.BYTES);
+		int position = HEADER_SIZE;
+		while (position < end) {
+			int length = page.getShort(position);
+			if (length == key.length && equals(data, position + Short.BYTES, key)) {
+				return position;
+			}
+			position += FIXED_SIZE + length;
+		}
+		return -1;
+	}
+
+	private void putValues(Account account) {
+		page.putLong(account.getBalance());
+		page.putLong(account.getSequence());
+		page.putLong(account.getHeld());
+		page.putLong(account.getLastBulkOperation());
+	}
+
+	private void load(long number) throws IOException {
+		read(page, number);
+	}
+
+	private void read(ByteBuffer buffer, long number) throws IOException {
+		buffer.clear();
+		long position = number * PAGE_SIZE;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) {
+				// The page was never written
+				Arrays.fill(buffer.array(), buffer.position(), PAGE_SIZE, (byte) 0);
+				break;
+			}
+		}
+		buffer.clear();
+	}
+
+	private void store(long number) throws IOException {
+		page.clear();
+		long position = number * PAGE_SIZE;
+		while (page.hasRemaining()) {
+			channel.write(page, position + page.position());
+		}
+		page.clear();
+	}
+
+	private static boolean equals(byte[] data, int offset, byte[] key) {
+		for (int i = 0; i < key.length; i++) {
+			if (data[offset + i] != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
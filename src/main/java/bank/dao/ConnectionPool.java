@@ -0,0 +1,129 @@
+package bank.dao;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A fixed pool of JDBC connections, opened when the pool is created, each one with a cache of its prepared 
+ * statements, so a statement is parsed and planned once per connection and not once per use.
+ * 
+ * The connections are not in auto-commit mode: each use of a connection is a transaction, committed if it ends 
+ * normally and rolled back if it throws an exception.
+ * 
+ */
+final class ConnectionPool implements Closeable {
+	private final BlockingQueue<PooledConnection> idle;
+
+	/**
+	 * A connection with its prepared statements. It is used by one thread at a time.
+	 */
+	static final class PooledConnection {
+		private final Connection connection;
+		private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+		PooledConnection(Connection connection) {
+			this.connection = connection;
+		}
+
+		/**
+		 * @param sql The SQL of the statement
+		 * @return Returns the prepared statement of the SQL, the same instance every time
+		 * @throws SQLException If the statement could not be prepared
+		 */
+		PreparedStatement prepare(String sql) throws SQLException {
+			PreparedStatement statement = statements.get(sql);
+			if (statement == null) {
+				statement = connection.prepareStatement(sql);
+				statements.put(sql, statement);
+			}
+			return statement;
+		}
+
+		Connection getConnection() {
+			return connection;
+		}
+	}
+
+	/**
+	 * Work done in a transaction.
+	 */
+	@FunctionalInterface
+	interface Transaction<T> {
+		T run(PooledConnection connection) throws SQLException;
+	}
+
+	/**
+	 * @param url The JDBC URL of the database
+	 * @param size The number of connections
+	 * @throws SQLException If a connection could not be opened
+	 */
+	ConnectionPool(String url, int size) throws SQLException {
+		idle = new ArrayBlockingQueue<>(size);
+		try {
+			for (int i = 0; i < size; i++) {
+				Connection connection = DriverManager.getConnection(url);
+				connection.setAutoCommit(false);
+				idle.add(new PooledConnection(connection));
+			}
+		} catch (SQLException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Runs a transaction with a connection of the pool, waiting for one if all are in use.
+	 * 
+	 * @param transaction The work of the transaction
+	 * @return Returns the result of the transaction
+	 * @throws IllegalStateException If the transaction failed, with the {@link SQLException} as cause
+	 */
+	<T> T execute(Transaction<T> transaction) {
+		PooledConnection connection;
+		try {
+			connection = idle.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted waiting for a connection", e);
+		}
+		try {
+			T result = transaction.run(connection);
+			connection.connection.commit();
+			return result;
+		} catch (SQLException | RuntimeException e) {
+			try {
+				connection.connection.rollback();
+			} catch (SQLException rollback) {
+				e.addSuppressed(rollback);
+			}
+			if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			}
+			throw new IllegalStateException("The transaction failed", e);
+		} finally {
+			idle.add(connection);
+		}
+	}
+
+	/**
+	 * Closes the idle connections. The connections in use are not closed.
+	 */
+	@Override
+	public void close() {
+		PooledConnection connection;
+		while ((connection = idle.poll()) != null) {
+			try {
+				connection.connection.close();
+			} catch (SQLException e) {
+				// Nothing to do, the connection is discarded
+			}
+		}
+	}
+}
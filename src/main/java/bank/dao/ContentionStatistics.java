@@ -0,0 +1,50 @@
+package bank.dao;
+
+import java.util.List;
+
+/**
+ * Plain data object with a snapshot of the counters of the {@link ContentionTracker}.
+ * 
+ */
+public class ContentionStatistics {
+	private final long conflicts;
+	private final long optimisticOperations;
+	private final long pessimisticOperations;
+	private final long switchesToPessimistic;
+	private final long switchesToOptimistic;
+	private final List<String> hotAccounts;
+
+	public ContentionStatistics(long conflicts, long optimisticOperations, long pessimisticOperations,
+			long switchesToPessimistic, long switchesToOptimistic, List<String> hotAccounts) {
+		this.conflicts = conflicts;
+		this.optimisticOperations = optimisticOperations;
+		this.pessimisticOperations = pessimisticOperations;
+		this.switchesToPessimistic = switchesToPessimistic;
+		this.switchesToOptimistic = switchesToOptimistic;
+		this.hotAccounts = hotAccounts;
+	}
+
+	public long getConflicts() {
+		return conflicts;
+	}
+
+	public long getOptimisticOperations() {
+		return optimisticOperations;
+	}
+
+	public long getPessimisticOperations() {
+		return pessimisticOperations;
+	}
+
+	public long getSwitchesToPessimistic() {
+		return switchesToPessimistic;
+	}
+
+	public long getSwitchesToOptimistic() {
+		return switchesToOptimistic;
+	}
+
+	public List<String> getHotAccounts() {
+		return hotAccounts;
+	}
+}
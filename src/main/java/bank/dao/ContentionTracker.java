@@ -0,0 +1,131 @@
+package bank.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the conflicts of each account and decides which accounts are hot.
+ * 
+ * Each account with conflicts has a counter that halves every second, so it is a decaying count of the recent 
+ * conflicts. The counter is a single {@link AtomicLong} with the second of the last update in the high bits and 
+ * the count in the low bits, and it is updated with a compare and set without locks.
+ * An account becomes hot when its counter reaches the hot threshold and it becomes cold again when the counter 
+ * falls below the cold threshold. The gap between both thresholds avoids switching back and forth.
+ * The counters of the cold accounts without recent conflicts are removed, so the memory depends on the number 
+ * of accounts with conflicts and not on the number of accounts.
+ * 
+ */
+public class ContentionTracker {
+	private static final long EPOCH_NANOS = 1_000_000_000L;
+	private static final long ORIGIN = System.nanoTime();
+
+	private final int hotThreshold;
+	private final int coldThreshold;
+	private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+	private final LongAdder conflicts = new LongAdder();
+	private final LongAdder optimisticOperations = new LongAdder();
+	private final LongAdder pessimisticOperations = new LongAdder();
+	private final LongAdder switchesToPessimistic = new LongAdder();
+	private final LongAdder switchesToOptimistic = new LongAdder();
+
+	private static final class Counter {
+		private final AtomicLong state = new AtomicLong();
+		private final AtomicBoolean hot = new AtomicBoolean();
+
+		long add(int epoch, int value) {
+			while (true) {
+				long current = state.get();
+				long count = Math.min(Integer.MAX_VALUE, decay(current, epoch) + value);
+				if (state.compareAndSet(current, ((long) epoch << 32) | count)) {
+					return count;
+				}
+			}
+		}
+
+		long get(int epoch) {
+			return decay(state.get(), epoch);
+		}
+
+		private static long decay(long state, int epoch) {
+			int shift = epoch - (int) (state >>> 32);
+			long count = state & 0xFFFFFFFFL;
+			return shift >= 32 ? 0 : count >>> Math.max(0, shift);
+		}
+	}
+
+	/**
+	 * @param hotThreshold The decayed count of conflicts that makes an account hot
+	 * @param coldThreshold The decayed count of conflicts under which a hot account becomes cold again
+	 */
+	public ContentionTracker(int hotThreshold, int coldThreshold) {
+		this.hotThreshold = hotThreshold;
+		this.coldThreshold = coldThreshold;
+	}
+
+	/**
+	 * Records a conflict of an account: a commit failed because the account was out of sequence, or an operation
+	 * waited for the lock of the account.
+	 * 
+	 * @param name The name of the account
+	 */
+	public void recordConflict(String name) {
+		conflicts.increment();
+		Counter counter = counters.computeIfAbsent(name, key -> new Counter());
+		if (counter.add(epoch(), 1) >= hotThreshold && counter.hot.compareAndSet(false, true)) {
+			switchesToPessimistic.increment();
+		}
+	}
+
+	/**
+	 * Records an operation was done with the optimistic or the pessimistic concurrency control.
+	 * 
+	 * @param pessimistic True if the operation was done with the pessimistic concurrency control
+	 */
+	public void recordOperation(boolean pessimistic) {
+		(pessimistic ? pessimisticOperations : optimisticOperations).increment();
+	}
+
+	/**
+	 * @param name The name of the account
+	 * @return Returns true if the account is hot and the operations should use the pessimistic concurrency control
+	 */
+	public boolean isHot(String name) {
+		Counter counter = counters.get(name);
+		if (counter == null) {
+			return false;
+		}
+		long count = counter.get(epoch());
+		if (counter.hot.get()) {
+			if (count < coldThreshold && counter.hot.compareAndSet(true, false)) {
+				switchesToOptimistic.increment();
+			}
+		} else if (count == 0) {
+			// The account has not recent conflicts
+			counters.remove(name, counter);
+		}
+		return counter.hot.get();
+	}
+
+	/**
+	 * @return Returns a snapshot of the counters of the operations and the accounts that are hot
+	 */
+	public ContentionStatistics getStatistics() {
+		List<String> hotAccounts = new ArrayList<>();
+		for (String name : counters.keySet()) {
+			if (isHot(name)) {
+				hotAccounts.add(name);
+			}
+		}
+		return new ContentionStatistics(conflicts.sum(), optimisticOperations.sum(), pessimisticOperations.sum(), 
+				switchesToPessimistic.sum(), switchesToOptimistic.sum(), hotAccounts);
+	}
+
+	private static int epoch() {
+		return (int) ((System.nanoTime() - ORIGIN) / EPOCH_NANOS);
+	}
+}
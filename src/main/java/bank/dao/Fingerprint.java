@@ -0,0 +1,47 @@
+package bank.dao;
+
+import java.util.List;
+
+/**
+ * Plain data object with the hashes of some nodes of a level of the Merkle tree of the accounts.
+ * The hashes are hexadecimal, so they keep the 64 bits in any JSON parser.
+ *
+ */
+public class Fingerprint {
+	private final int depth;
+	private final int level;
+	private final int from;
+	private final List<String> hashes;
+
+	public Fingerprint(int depth, int level, int from, List<String> hashes) {
+		this.depth = depth;
+		this.level = level;
+		this.from = from;
+		this.hashes = hashes;
+	}
+
+	/**
+	 * @return Returns the level of the leaves. The level 0 is the root and the level n has 2^n nodes.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * @return Returns the node of the level of the first hash
+	 */
+	public int getFrom() {
+		return from;
+	}
+
+	/**
+	 * @return Returns the hashes of the nodes from {@link #getFrom()}, in order
+	 */
+	public List<String> getHashes() {
+		return hashes;
+	}
+}
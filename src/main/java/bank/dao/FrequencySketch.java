@@ -0,0 +1,105 @@
+package bank.dao;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximated count of the recent accesses of the accounts (a count-min sketch), used by the 
+ * {@link TieredAccountStore} to decide which accounts deserve to be in memory (TinyLFU).
+ * 
+ * Each account is mapped by four hashes to four counters of 4 bits, packed 16 per long. The frequency of an 
+ * account is the minimum of its counters, so it could be overestimated by the collisions but never 
+ * underestimated. When the number of increments reaches ten times the number of counters, all the counters are 
+ * halved, so the old accesses lose weight (aging).
+ * The counters are updated with compare and set, so the sketch could be used without locks.
+ * 
+ */
+final class FrequencySketch {
+	private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 
+			0xcbf29ce484222325L };
+	private static final long RESET_MASK = 0x7777777777777777L;
+
+	private final AtomicLongArray table;
+	private final int counterMask;
+	private final int sampleSize;
+	private final AtomicInteger additions = new AtomicInteger();
+
+	/**
+	 * @param capacity The number of accounts in memory. The number of counters is the next power of two, at least
+	 * 1024 so a small memory doesn't saturate the counters.
+	 */
+	FrequencySketch(int capacity) {
+		int counters = 1024;
+		while (counters < capacity && counters < (1 << 30)) {
+			counters <<= 1;
+		}
+		table = new AtomicLongArray(counters / 16);
+		counterMask = counters - 1;
+		sampleSize = (int) Math.min(10L * counters, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Records an access to an account.
+	 * 
+	 * @param name The name of the account
+	 */
+	void increment(String name) {
+		int hash = spread(name.hashCode());
+		boolean added = false;
+		for (int i = 0; i < SEEDS.length; i++) {
+			added |= incrementAt(index(hash, i));
+		}
+		if (added && additions.incrementAndGet() == sampleSize) {
+			reset();
+		}
+	}
+
+	/**
+	 * @param name The name of the account
+	 * @return Returns the approximated number of recent accesses to the account, from 0 to 15
+	 */
+	int frequency(String name) {
+		int hash = spread(name.hashCode());
+		int frequency = Integer.MAX_VALUE;
+		for (int i = 0; i < SEEDS.length; i++) {
+			int counter = index(hash, i);
+			frequency = Math.min(frequency, (int) (table.get(counter >>> 4) >>> ((counter & 15) << 2)) & 15);
+		}
+		return frequency;
+	}
+
+	private boolean incrementAt(int counter) {
+		int index = counter >>> 4;
+		int shift = (counter & 15) << 2;
+		while (true) {
+			long value = table.get(index);
+			if (((value >>> shift) & 15) == 15) {
+				return false;
+			}
+			if (table.compareAndSet(index, value, value + (1L << shift))) {
+				return true;
+			}
+		}
+	}
+
+	private void reset() {
+		for (int i = 0; i < table.length(); i++) {
+			long value;
+			do {
+				value = table.get(i);
+			} while (!table.compareAndSet(i, value, (value >>> 1) & RESET_MASK));
+		}
+		additions.set(sampleSize / 2);
+	}
+
+	private int index(int hash, int i) {
+		long h = (hash + SEEDS[i]) * SEEDS[i];
+		h += h >>> 32;
+		return (int) h & counterMask;
+	}
+
+	private static int spread(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,120 @@
+package bank.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import bank.data.Hold;
+import bank.scheduler.TimerWheel;
+
+/**
+ * The class manages the access to the storage where the pending holds are.
+ * The storage is a Map where the key is the id of the hold, together with a {@link TimerWheel} with the 
+ * expiration of the holds, so finding the expired holds doesn't need to scan all the holds.
+ * 
+ * Removing a hold from the map is what gives the right to capture it, release it or expire it. The map guarantees
+ * only one thread removes a hold, so the reserved amount in the account is used once.
+ * 
+ * The amount reserved in the account is managed by {@link AccountDAO}.
+ * 
+ */
+public class HoldDAO {
+	/**
+	 * The map where the holds are stored with its handle in the wheel of expirations
+	 */
+	private static ConcurrentMap<Long, TimerWheel.Timeout<Hold>> map = new ConcurrentHashMap<>();
+	/**
+	 * The wheel of expirations. The access is serialized synchronizing on it.
+	 */
+	private static TimerWheel<Hold> expirations = new TimerWheel<>(100, System.currentTimeMillis());
+	private static AtomicLong nextId = new AtomicLong(1);
+
+	/**
+	 * Creates a new hold. The amount must be already reserved in the account.
+	 * The ids of the holds are unique between all the tenants.
+	 * 
+	 * @param tenant The tenant of the account
+	 * @param account The name of the account
+	 * @param amount The amount reserved
+	 * @param authorizationTime The time in milliseconds since the epoch when the hold is authorized
+	 * @param expirationTime The time in milliseconds since the epoch when the hold expires
+	 * @return Returns the new {@link Hold}
+	 */
+	public Hold createHold(String tenant, String account, long amount, long authorizationTime, long expirationTime) {
+		Hold hold = new Hold(nextId.getAndIncrement(), tenant, account, amount, authorizationTime, expirationTime);
+		synchronized (expirations) {
+			map.put(hold.getId(), expirations.schedule(hold, expirationTime));
+		}
+		return hold;
+	}
+
+	/**
+	 * @param id The id of the hold
+	 * @return Returns the pending {@link Hold} given its id if exists. Otherwise returns null.
+	 */
+	public Hold getHold(long id) {
+		TimerWheel.Timeout<Hold> timeout = map.get(id);
+		return timeout == null ? null : timeout.getValue();
+	}
+
+	/**
+	 * Removes a pending hold. The caller is responsible to capture or release the amount reserved.
+	 * 
+	 * @param id The id of the hold
+	 * @return Returns the removed {@link Hold}. Returns null if the hold doesn't exist or other thread removed it.
+	 */
+	public Hold removeHold(long id) {
+		TimerWheel.Timeout<Hold> timeout = map.remove(id);
+		if (timeout == null) {
+			return null;
+		}
+		synchronized (expirations) {
+			expirations.cancel(timeout);
+		}
+		return timeout.getValue();
+	}
+
+	/**
+	 * @return Returns the pending holds of all the tenants
+	 */
+	public List<Hold> getHolds() {
+		List<Hold> holds = new ArrayList<>(map.size());
+		for (TimerWheel.Timeout<Hold> timeout : map.values()) {
+			holds.add(timeout.getValue());
+		}
+		return holds;
+	}
+
+	/**
+	 * Adds a hold handed over by other process, with its id. The amount must be already reserved in the account.
+	 * 
+	 * @param hold The hold
+	 */
+	public void restoreHold(Hold hold) {
+		synchronized (expirations) {
+			map.put(hold.getId(), expirations.schedule(hold, hold.getExpirationTime()));
+		}
+		// The new holds never get the id of a hold handed over
+		nextId.accumulateAndGet(hold.getId() + 1, Math::max);
+	}
+
+	/**
+	 * Removes the holds expired. The caller is responsible to release the amount reserved.
+	 * 
+	 * @param now The current time in milliseconds since the epoch
+	 * @return Returns the removed holds
+	 */
+	public List<Hold> removeExpiredHolds(long now) {
+		List<Hold> expired = new ArrayList<>();
+		synchronized (expirations) {
+			expirations.advance(now, hold -> {
+				if (map.remove(hold.getId()) != null) {
+					expired.add(hold);
+				}
+			});
+		}
+		return expired;
+	}
+}
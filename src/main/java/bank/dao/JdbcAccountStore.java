@@ -0,0 +1,221 @@
+package bank.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import bank.data.Account;
+
+/**
+ * The store of the committed accounts of the {@link AccountDAO} in a table of a database, usually an embedded one
+ * like H2, so no server is needed. The table is created when the store is opened and the previous content is 
+ * discarded: as with the {@link TieredAccountStore}, the durability is the one of the {@link AccountJournal}.
+ * 
+ * The connections are taken from a {@link ConnectionPool} and the statements are prepared once per connection.
+ * The accounts of a commit are written in one transaction with one batch of inserts, for the new accounts, and one
+ * batch of conditional updates, {@code UPDATE ... WHERE name = ? AND sequence = ?}, for the rest: the same 
+ * optimistic rule as {@link AccountDAO#updateAccounts(java.util.List)}. The {@link AccountDAO} validates the 
+ * sequences before, holding the lock of the commits, so an update that finds other sequence means the table was 
+ * changed by other writer, and the commit is rolled back. The accounts loaded at start are inserted in batches.
+ * 
+ * The table has the bucket of the name, {@link ColdAccountFile#bucket(String, int)}, so the partitions of the names
+ * are the ones of the {@link TieredAccountStore} with the same number of buckets and are read with an index.
+ * 
+ */
+final class JdbcAccountStore extends AccountStore {
+	private static final int BATCH_SIZE = 1000;
+	private static final String COLUMNS = "balance, sequence, held, last_bulk_operation";
+
+	private final String selectSql;
+	private final String selectAllSql;
+	private final String selectNamesSql;
+	private final String insertSql;
+	private final String updateSql;
+	private final String deleteSql;
+	private final ConnectionPool pool;
+	private final int buckets;
+
+	/**
+	 * @param url The JDBC URL of the database, for example {@code jdbc:h2:mem:accounts}
+	 * @param table The name of the table of the accounts
+	 * @param connections The number of connections of the pool
+	 * @param buckets The number of buckets of the names
+	 * @throws SQLException If the database could not be opened or the table could not be created
+	 */
+	JdbcAccountStore(String url, String table, int connections, int buckets) throws SQLException {
+		this.selectSql = "SELECT " + COLUMNS + " FROM " + table + " WHERE name = ?";
+		this.selectAllSql = "SELECT name, " + COLUMNS + " FROM " + table;
+		this.selectNamesSql = "SELECT name FROM " + table + " WHERE bucket >= ? AND bucket < ? ORDER BY name";
+		this.insertSql = "INSERT INTO " + table + " (name, bucket, " + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)";
+		this.updateSql = "UPDATE " + table + " SET balance = ?, sequence = ?, held = ?, last_bulk_operation = ? "
+				+ "WHERE name = ? AND sequence = ?";
+		this.deleteSql = "DELETE FROM " + table + " WHERE name = ?";
+		this.pool = new ConnectionPool(url, connections);
+		this.buckets = buckets;
+		pool.execute(connection -> {
+			try (Statement statement = connection.getConnection().createStatement()) {
+				statement.executeUpdate("DROP TABLE IF EXISTS " + table);
+				statement.executeUpdate("CREATE TABLE " + table + " (name VARCHAR(" + AccountDAO.MAX_NAME_LENGTH 
+						+ ") NOT NULL PRIMARY KEY, "
+						+ "bucket INT NOT NULL, balance BIGINT NOT NULL, sequence BIGINT NOT NULL, "
+						+ "held BIGINT NOT NULL, last_bulk_operation BIGINT NOT NULL)");
+				statement.executeUpdate("CREATE INDEX " + table + "_bucket ON " + table + " (bucket, name)");
+			}
+			return null;
+		});
+	}
+
+	@Override
+	Account get(String name) {
+		return pool.execute(connection -> {
+			PreparedStatement statement = connection.prepare(selectSql);
+			statement.setString(1, name);
+			try (ResultSet result = statement.executeQuery()) {
+				if (!result.next()) {
+					return null;
+				}
+				return new Account(name, result.getLong(1), result.getLong(2), result.getLong(3), result.getLong(4));
+			}
+		});
+	}
+
+	@Override
+	void write(Account[] previous, Account[] accounts) {
+		pool.execute(connection -> {
+			PreparedStatement insert = null;
+			PreparedStatement update = null;
+			for (int i = 0; i < accounts.length; i++) {
+				if (previous[i] == null) {
+					insert = connection.prepare(insertSql);
+					addInsert(insert, accounts[i]);
+				} else {
+					update = connection.prepare(updateSql);
+					update.setLong(1, accounts[i].getBalance());
+					update.setLong(2, accounts[i].getSequence());
+					update.setLong(3, accounts[i].getHeld());
+					update.setLong(4, accounts[i].getLastBulkOperation());
+					update.setString(5, accounts[i].getName());
+					update.setLong(6, previous[i].getSequence());
+					update.addBatch();
+				}
+			}
+			if (insert != null) {
+				insert.executeBatch();
+			}
+			if (update != null) {
+				int[] counts = update.executeBatch();
+				for (int i = 0, j = 0; i < accounts.length; i++) {
+					if (previous[i] != null && counts[j++] == 0) {
+						throw new IllegalStateException("The account " + accounts[i].getName() 
+								+ " is not in the sequence " + previous[i].getSequence());
+					}
+				}
+			}
+			return null;
+		});
+	}
+
+	@Override
+	void undo(Account[] previous, Account[] accounts) {
+		pool.execute(connection -> {
+			PreparedStatement delete = null;
+			PreparedStatement update = null;
+			for (int i = 0; i < accounts.length; i++) {
+				if (previous[i] == null) {
+					delete = connection.prepare(deleteSql);
+					delete.setString(1, accounts[i].getName());
+					delete.addBatch();
+				} else {
+					update = connection.prepare(updateSql);
+					update.setLong(1, previous[i].getBalance());
+					update.setLong(2, previous[i].getSequence());
+					update.setLong(3, previous[i].getHeld());
+					update.setLong(4, previous[i].getLastBulkOperation());
+					update.setString(5, previous[i].getName());
+					update.setLong(6, accounts[i].getSequence());
+					update.addBatch();
+				}
+			}
+			if (delete != null) {
+				delete.executeBatch();
+			}
+			if (update != null) {
+				update.executeBatch();
+			}
+			return null;
+		});
+	}
+
+	@Override
+	void load(Collection<Account> accounts) {
+		pool.execute(connection -> {
+			PreparedStatement insert = connection.prepare(insertSql);
+			int batch = 0;
+			for (Account account : accounts) {
+				addInsert(insert, account);
+				if (++batch == BATCH_SIZE) {
+					insert.executeBatch();
+					batch = 0;
+				}
+			}
+			if (batch > 0) {
+				insert.executeBatch();
+			}
+			return null;
+		});
+	}
+
+	@Override
+	void forEach(Consumer<Account> action) {
+		pool.execute(connection -> {
+			try (ResultSet result = connection.prepare(selectAllSql).executeQuery()) {
+				while (result.next()) {
+					action.accept(new Account(result.getString(1), result.getLong(2), result.getLong(3), 
+							result.getLong(4), result.getLong(5)));
+				}
+			}
+			return null;
+		});
+	}
+
+	@Override
+	SortedSet<String> names(int partition, int partitions) {
+		return pool.execute(connection -> {
+			PreparedStatement statement = connection.prepare(selectNamesSql);
+			statement.setInt(1, firstBucket(partition, partitions, buckets));
+			statement.setInt(2, firstBucket(partition + 1, partitions, buckets));
+			SortedSet<String> names = new TreeSet<>();
+			try (ResultSet result = statement.executeQuery()) {
+				while (result.next()) {
+					names.add(result.getString(1));
+				}
+			}
+			return names;
+		});
+	}
+
+	@Override
+	int partition(String name, int partitions) {
+		return partitionOf(ColdAccountFile.bucket(name, buckets), partitions, buckets);
+	}
+
+	@Override
+	public void close() {
+		pool.close();
+	}
+
+	private void addInsert(PreparedStatement insert, Account account) throws SQLException {
+		insert.setString(1, account.getName());
+		insert.setInt(2, ColdAccountFile.bucket(account.getName(), buckets));
+		insert.setLong(3, account.getBalance());
+		insert.setLong(4, account.getSequence());
+		insert.setLong(5, account.getHeld());
+		insert.setLong(6, account.getLastBulkOperation());
+		insert.addBatch();
+	}
+}
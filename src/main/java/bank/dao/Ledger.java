@@ -0,0 +1,180 @@
+package bank.dao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import bank.data.Account;
+import bank.events.BalanceEventRing;
+
+/**
+ * The accounts of a tenant and everything the {@link AccountDAO} keeps about them: the store, the lock of the 
+ * commits, the locks of the pessimistic control, the aggregates, the Merkle tree, the versions, the journal, the 
+ * index of the names and the events. Nothing is shared between the ledgers, so the commits of a tenant never wait 
+ * for the commits of other tenant and the names of the accounts are unique only in a tenant.
+ * 
+ * The ledger of the default tenant uses the files and the table given by the system properties. The ledger of 
+ * other tenant adds the name of the tenant to them: the file {@code <bank.accounts.cold-file>-<tenant>}, the 
+ * directory {@code <bank.accounts.journal>-<tenant>} and the table {@code bank_account_<tenant>}.
+ * 
+ */
+final class Ledger {
+	/**
+	 * The tenant of the ledger
+	 */
+	final String tenant;
+	/**
+	 * The store where the accounts are
+	 */
+	final AccountStore store;
+	/**
+	 * The lock used to serialize the write access the store. 
+	 * It is a reentrant lock because the {@link AccountDAO} could be composed and several operation in the same 
+	 * thread could try to acquire the same lock. 
+	 * @{link java.util.concurrent.locks.ReentrantLock} allows recursive locking for the same thread.
+	 */
+	final ReentrantLock lock = new ReentrantLock();
+	/**
+	 * The ring where the commits are published. It keeps the last 65536 events.
+	 */
+	final BalanceEventRing events = new BalanceEventRing(1 << 16);
+	/**
+	 * The locks of the pessimistic control. The accounts are mapped to a fixed number of locks (striping), so the 
+	 * memory doesn't depend on the number of accounts. The locks are always acquired in the order of the stripes.
+	 */
+	final ReentrantLock[] accountLocks = new ReentrantLock[1024];
+	/**
+	 * The conflicts of the accounts. An account is hot with 16 recent conflicts and it is cold again under 4.
+	 */
+	final ContentionTracker contention = new ContentionTracker(16, 4);
+	/**
+	 * The aggregates of all the accounts, with the 10 largest balances
+	 */
+	final BankAggregates aggregates = new BankAggregates(10);
+	/**
+	 * The Merkle tree of the accounts. Its leaves are the partitions of {@link AccountDAO#getAccountNames(int, int)}.
+	 */
+	final MerkleTree merkleTree;
+	/**
+	 * The previous versions of the accounts, collected every second
+	 */
+	final VersionStore versions;
+	/**
+	 * The log of the commits, null if the accounts are only kept while the application runs
+	 */
+	final AccountJournal journal;
+	/**
+	 * The sorted names of the accounts, for the searches and to know if an account exists without reading the store
+	 */
+	final NameIndex names = new NameIndex();
+
+	/**
+	 * Opens the ledger and loads the accounts of its journal, if it is configured.
+	 * 
+	 * @param tenant The tenant
+	 * @param qualified True if the files and the table get the name of the tenant, false for the default tenant
+	 */
+	Ledger(String tenant, boolean qualified) {
+		this(tenant, qualified, true);
+	}
+
+	/**
+	 * Opens the ledger.
+	 * 
+	 * @param tenant The tenant
+	 * @param qualified True if the files and the table get the name of the tenant, false for the default tenant
+	 * @param persistent False for a ledger of accounts that are not kept, in a temporary file and without journal 
+	 * whatever the properties
+	 */
+	Ledger(String tenant, boolean qualified, boolean persistent) {
+		this.tenant = tenant;
+		String suffix = qualified ? "-" + tenant : "";
+		for (int i = 0; i < accountLocks.length; i++) {
+			accountLocks[i] = new ReentrantLock();
+		}
+		store = openStore(suffix, persistent);
+		merkleTree = openMerkleTree();
+		versions = openVersions();
+		journal = persistent ? openJournal(suffix) : null;
+		List<String> loaded = new ArrayList<>();
+		store.forEach(account -> loaded.add(account.getName()));
+		names.load(loaded);
+	}
+
+	private AccountStore openStore(String suffix, boolean persistent) {
+		int buckets = Integer.getInteger("bank.accounts.cold-buckets", 1 << 14);
+		if (persistent && "jdbc".equals(System.getProperty("bank.accounts.store"))) {
+			try {
+				// The versions are kept by the DAO, the page store of H2 is faster than its MVCC store for the commits
+				return new JdbcAccountStore(System.getProperty("bank.accounts.jdbc-url", 
+						"jdbc:h2:mem:accounts;MV_STORE=FALSE"), "bank_account" + suffix.replace('-', '_'), 
+						Integer.getInteger("bank.accounts.jdbc-connections", Runtime.getRuntime().availableProcessors()), 
+						buckets);
+			} catch (SQLException e) {
+				throw new IllegalStateException("The database of the accounts could not be opened", e);
+			}
+		}
+		try {
+			String file = persistent ? System.getProperty("bank.accounts.cold-file") : null;
+			Path path;
+			if (file == null || file.isEmpty()) {
+				path = Files.createTempFile("bank-accounts", ".dat");
+				path.toFile().deleteOnExit();
+			} else {
+				path = Paths.get(file + suffix);
+			}
+			return new TieredAccountStore(Integer.getInteger("bank.accounts.cache-size", 100000), path, buckets);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private VersionStore openVersions() {
+		VersionStore versions = new VersionStore(name -> store.get(name), 
+				Long.getLong("bank.accounts.version-retention", 60000), 
+				Long.getLong("bank.accounts.snapshot-timeout", 60000));
+		versions.start(1000);
+		return versions;
+	}
+
+	private MerkleTree openMerkleTree() {
+		int leaves = Integer.highestOneBit(Math.max(1, Integer.getInteger("bank.accounts.merkle-leaves", 1 << 12)));
+		return new MerkleTree(leaves, name -> store.partition(name, leaves));
+	}
+
+	/**
+	 * Opens the journal, if it is configured, and loads the accounts of the journal in the store.
+	 * The holds don't survive a restart, so their funds are released.
+	 */
+	private AccountJournal openJournal(String suffix) {
+		String directory = System.getProperty("bank.accounts.journal");
+		if (directory == null || directory.isEmpty()) {
+			return null;
+		}
+		try {
+			AccountJournal journal = new AccountJournal(Paths.get(directory + suffix), 
+					Long.getLong("bank.accounts.journal-segment-size", 64L << 20), 
+					Integer.getInteger("bank.accounts.journal-partitions", 64), 
+					Runtime.getRuntime().availableProcessors(), true);
+			Collection<Account> accounts = journal.recover();
+			for (Account account : accounts) {
+				account.release(account.getHeld());
+				aggregates.created(account);
+				merkleTree.created(account);
+			}
+			store.load(accounts);
+			// Fold the segments of the previous runs
+			journal.compactInBackground();
+			return journal;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
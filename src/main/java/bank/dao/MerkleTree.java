@@ -0,0 +1,135 @@
+package bank.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.ToIntFunction;
+
+import bank.data.Account;
+
+/**
+ * A Merkle tree over the name, the balance and the sequence of all the accounts, updated on every commit, so two
+ * copies of the accounts could be compared by the root hash and the accounts that differ could be found by
+ * comparing the subtrees that differ, without comparing every account.
+ *
+ * The tree is complete and fixed: the leaves are buckets of accounts, selected by a function of the name, and
+ * each inner node is a hash of its two children. The hash of a leaf is the sum of the hashes of its accounts, so
+ * it doesn't depend on the order of the commits and a change of an account updates the leaf by the difference of
+ * the hashes and then its ancestors: the cost is the depth of the tree, the logarithm of the leaves.
+ *
+ * The nodes are in an array in the order of a heap: the root is the node 1 and the children of the node n are
+ * 2n and 2n + 1, so the node i of the level l is {@code (1 << l) + i}. The level 0 is the root and the level
+ * {@link #getDepth()} are the leaves.
+ *
+ * This class is not thread safe, it is updated and read holding the lock of the {@link AccountDAO}.
+ *
+ */
+class MerkleTree {
+	private final int depth;
+	private final int leaves;
+	private final long[] nodes;
+	private final ToIntFunction<String> leafOf;
+
+	/**
+	 * @param leaves The number of leaves, a power of two
+	 * @param leafOf Gives the leaf of an account from its name, from 0 to the number of leaves - 1
+	 */
+	MerkleTree(int leaves, ToIntFunction<String> leafOf) {
+		if (leaves <= 0 || Integer.bitCount(leaves) != 1) {
+			throw new IllegalArgumentException("The leaves must be a power of two: " + leaves);
+		}
+		this.depth = Integer.numberOfTrailingZeros(leaves);
+		this.leaves = leaves;
+		this.nodes = new long[2 * leaves];
+		this.leafOf = leafOf;
+		for (int node = leaves - 1; node >= 1; node--) {
+			nodes[node] = combine(nodes[2 * node], nodes[2 * node + 1]);
+		}
+	}
+
+	/**
+	 * Adds a new account.
+	 */
+	void created(Account account) {
+		add(account.getName(), hash(account));
+	}
+
+	/**
+	 * Replaces the previous version of an account with the new one.
+	 */
+	void updated(Account previous, Account account) {
+		add(account.getName(), hash(account) - hash(previous));
+	}
+
+	/**
+	 * @return Returns the level of the leaves
+	 */
+	int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return Returns the number of leaves, a power of two
+	 */
+	int getLeaves() {
+		return leaves;
+	}
+
+	/**
+	 * @param name The name of an account
+	 * @return Returns the leaf of the account
+	 */
+	int leaf(String name) {
+		return leafOf.applyAsInt(name);
+	}
+
+	/**
+	 * @param level The level, from 0 (the root) to {@link #getDepth()} (the leaves)
+	 * @param index The node in the level, from 0 to {@code 2^level - 1}
+	 * @return Returns the hash of the node
+	 */
+	long getHash(int level, int index) {
+		return nodes[(1 << level) + index];
+	}
+
+	/**
+	 * @return Returns the hash of the root
+	 */
+	long getRootHash() {
+		return nodes[1];
+	}
+
+	private void add(String name, long delta) {
+		int node = leaves + leaf(name);
+		nodes[node] += delta;
+		for (node >>>= 1; node >= 1; node >>>= 1) {
+			nodes[node] = combine(nodes[2 * node], nodes[2 * node + 1]);
+		}
+	}
+
+	/**
+	 * The hash of an account: FNV-1a of the name mixed with the balance and the sequence.
+	 */
+	static long hash(Account account) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : account.getName().getBytes(StandardCharsets.UTF_8)) {
+			hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+		}
+		hash = mix(hash ^ account.getBalance());
+		return mix(hash + account.getSequence() * 0x9e3779b97f4a7c15L);
+	}
+
+	/**
+	 * The hash of an inner node, it depends on the order of the children.
+	 */
+	private static long combine(long left, long right) {
+		return mix(left * 0x9e3779b97f4a7c15L + mix(right ^ 0xc2b2ae3d27d4eb4fL));
+	}
+
+	/**
+	 * The finalizer of MurmurHash3, every bit of the input changes half of the bits of the output.
+	 */
+	private static long mix(long hash) {
+		hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+		hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return hash ^ (hash >>> 33);
+	}
+}
@@ -0,0 +1,252 @@
+package bank.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The sorted names of the accounts of a ledger, compressed in memory, for the searches of names by prefix and by
+ * range and to know if an account exists without reading the store.
+ *
+ * The names are sorted and grouped in blocks of up to {@value #BLOCK_SIZE} names, coded with front coding: each
+ * name is the length of the prefix it shares with the previous one, the length of the rest and the rest in UTF-8.
+ * The names of the accounts usually share long prefixes, so a name takes a few bytes instead of the tens of bytes
+ * of a {@link String}. The blocks are in a skip list by their first name, the first block by the empty name, so
+ * the block of a name is the floor of the name.
+ *
+ * The blocks are immutable: a new name replaces its block with a new one, and a block over the size is split in
+ * two halves, adding the second half before the first one replaces the block, so a name is always in the floor
+ * block and {@link #contains(String)} is never wrong. A search could see both the old block and the second half
+ * for a moment, the names not after the last one found are skipped.
+ *
+ * The names are added by one thread at a time, holding the lock of the commits of the {@link AccountDAO}. The
+ * reads don't take locks.
+ *
+ */
+final class NameIndex {
+	static final int BLOCK_SIZE = 32;
+	private final ConcurrentSkipListMap<String, byte[]> blocks = new ConcurrentSkipListMap<>();
+	private volatile int names;
+	private volatile long bytes;
+
+	NameIndex() {
+		blocks.put("", new byte[0]);
+	}
+
+	/**
+	 * Adds many names at once, when the accounts are loaded. The index must be empty.
+	 */
+	void load(Collection<String> names) {
+		String[] sorted = names.toArray(new String[0]);
+		Arrays.sort(sorted);
+		blocks.clear();
+		long bytes = 0;
+		for (int from = 0; from < sorted.length; from += BLOCK_SIZE) {
+			byte[] block = encode(Arrays.asList(sorted).subList(from, Math.min(sorted.length, from + BLOCK_SIZE)));
+			blocks.put(from == 0 ? "" : sorted[from], block);
+			bytes += block.length;
+		}
+		blocks.putIfAbsent("", new byte[0]);
+		this.names = sorted.length;
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Adds the name of a new account. It must be called holding the lock of the commits.
+	 *
+	 * @return Returns false if the name was already in the index
+	 */
+	boolean add(String name) {
+		Map.Entry<String, byte[]> entry = blocks.floorEntry(name);
+		List<String> block = decode(entry.getValue());
+		int position = 0;
+		while (position < block.size() && block.get(position).compareTo(name) < 0) {
+			position++;
+		}
+		if (position < block.size() && block.get(position).equals(name)) {
+			return false;
+		}
+		block.add(position, name);
+		long size = bytes - entry.getValue().length;
+		if (block.size() > BLOCK_SIZE) {
+			List<String> second = block.subList(block.size() / 2, block.size());
+			byte[] encoded = encode(second);
+			blocks.put(second.get(0), encoded);
+			size += encoded.length;
+			block = block.subList(0, block.size() / 2);
+		}
+		byte[] encoded = encode(block);
+		blocks.put(entry.getKey(), encoded);
+		bytes = size + encoded.length;
+		names++;
+		return true;
+	}
+
+	/**
+	 * @param name The name of an account
+	 * @return Returns true if the name is in the index
+	 */
+	boolean contains(String name) {
+		byte[] key = name.getBytes(StandardCharsets.UTF_8);
+		byte[] block = blocks.floorEntry(name).getValue();
+		// The prefix of the current name that is the same as the key, without decoding the names
+		int matched = 0;
+		for (int position = 0; position < block.length;) {
+			long shared = varInt(block, position);
+			long rest = varInt(block, (int) shared);
+			int prefix = (int) (shared >>> 32);
+			int length = (int) (rest >>> 32);
+			position = (int) rest;
+			// A name that shares more with the previous one than the key differs from the key where the previous did
+			if (prefix <= matched) {
+				matched = prefix;
+				while (matched < key.length && matched - prefix < length
+						&& block[position + matched - prefix] == key[matched]) {
+					matched++;
+				}
+				if (matched == key.length && prefix + length == key.length) {
+					return true;
+				}
+			}
+			position += length;
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the names that start with a prefix in a range of names, in order.
+	 *
+	 * @param prefix The prefix of the names, empty for any name
+	 * @param from The first name, inclusive, empty from the first one
+	 * @param to The last name, exclusive, null until the last one
+	 * @param limit The maximum number of names
+	 * @return Returns the names, up to the limit
+	 */
+	List<String> search(String prefix, String from, String to, int limit) {
+		String start = prefix.compareTo(from) > 0 ? prefix : from;
+		List<String> found = new ArrayList<>();
+		String last = null;
+		byte[] name = new byte[64];
+		for (byte[] block : blocks.tailMap(blocks.floorKey(start), true).values()) {
+			for (int position = 0; position < block.length;) {
+				long shared = varInt(block, position);
+				long rest = varInt(block, (int) shared);
+				int prefixLength = (int) (shared >>> 32);
+				int length = prefixLength + (int) (rest >>> 32);
+				position = (int) rest;
+				if (length > name.length) {
+					name = Arrays.copyOf(name, Math.max(length, 2 * name.length));
+				}
+				System.arraycopy(block, position, name, prefixLength, length - prefixLength);
+				position += length - prefixLength;
+				String candidate = new String(name, 0, length, StandardCharsets.UTF_8);
+				if (candidate.compareTo(start) < 0 || (last != null && candidate.compareTo(last) <= 0)) {
+					continue;
+				}
+				// The names with the prefix are consecutive, the first one without it ends the search
+				if (!candidate.startsWith(prefix) || (to != null && candidate.compareTo(to) >= 0)) {
+					return found;
+				}
+				found.add(candidate);
+				last = candidate;
+				if (found.size() == limit) {
+					return found;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * @return Returns the number of names
+	 */
+	int size() {
+		return names;
+	}
+
+	/**
+	 * @return Returns the bytes of the coded names, without the keys of the blocks
+	 */
+	long getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return Returns the number of blocks
+	 */
+	int getBlocks() {
+		return blocks.size();
+	}
+
+	private static byte[] encode(List<String> names) {
+		byte[] buffer = new byte[256];
+		int position = 0;
+		byte[] previous = new byte[0];
+		for (String name : names) {
+			byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			int shared = 0;
+			int max = Math.min(previous.length, bytes.length);
+			while (shared < max && previous[shared] == bytes[shared]) {
+				shared++;
+			}
+			int rest = bytes.length - shared;
+			if (position + 10 + rest > buffer.length) {
+				buffer = Arrays.copyOf(buffer, Math.max(position + 10 + rest, 2 * buffer.length));
+			}
+			position = putVarInt(buffer, position, shared);
+			position = putVarInt(buffer, position, rest);
+			System.arraycopy(bytes, shared, buffer, position, rest);
+			position += rest;
+			previous = bytes;
+		}
+		return Arrays.copyOf(buffer, position);
+	}
+
+	private static List<String> decode(byte[] block) {
+		List<String> names = new ArrayList<>(BLOCK_SIZE + 1);
+		byte[] name = new byte[64];
+		for (int position = 0; position < block.length;) {
+			long shared = varInt(block, position);
+			long rest = varInt(block, (int) shared);
+			int prefix = (int) (shared >>> 32);
+			int length = prefix + (int) (rest >>> 32);
+			position = (int) rest;
+			if (length > name.length) {
+				name = Arrays.copyOf(name, Math.max(length, 2 * name.length));
+			}
+			System.arraycopy(block, position, name, prefix, length - prefix);
+			position += length - prefix;
+			names.add(new String(name, 0, length, StandardCharsets.UTF_8));
+		}
+		return names;
+	}
+
+	private static int putVarInt(byte[] buffer, int position, int value) {
+		while ((value & ~0x7f) != 0) {
+			buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+		return position;
+	}
+
+	/**
+	 * Reads a variable length integer, 7 bits in each byte, the highest bit set in all but the last byte.
+	 *
+	 * @return Returns the value in the high 32 bits and the position after it in the low 32 bits
+	 */
+	private static long varInt(byte[] buffer, int position) {
+		int value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = buffer[position++];
+			value |= (b & 0x7f) << shift;
+			if (b >= 0) {
+				return (long) value << 32 | position;
+			}
+		}
+	}
+}
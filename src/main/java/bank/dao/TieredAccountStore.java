@@ -0,0 +1,332 @@
+package bank.dao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import bank.data.Account;
+
+/**
+ * The store of the committed accounts of the {@link AccountDAO} in two tiers: the accounts used recently are in 
+ * memory, up to a maximum number, and the rest of the accounts are in a {@link ColdAccountFile}. 
+ * The memory depends on the accounts in use and not on the number of accounts.
+ * 
+ * An account read from the file is added to the memory if it is used more often than the account that would
+ * leave the memory (TinyLFU). The frequencies are estimated by a {@link FrequencySketch}. The account that leaves 
+ * the memory is chosen with the clock algorithm, an approximation of the least recently used: the accounts are in
+ * a circular queue and an account read since the last time the clock passed by gets a second chance.
+ * The account that leaves the memory is written to the file if it changed since it was read.
+ * 
+ * The accounts found in memory are read without locks. The rest of the operations are serialized by a lock, so 
+ * an account read from the file could not replace a newer version committed in between.
+ * The instances of {@link Account} in the store are not modified, a new version replaces them.
+ * 
+ */
+final class TieredAccountStore extends AccountStore {
+	private final int capacity;
+	private final ConcurrentMap<String, Node> cache = new ConcurrentHashMap<>();
+	private final ArrayDeque<Node> clock = new ArrayDeque<>();
+	private final FrequencySketch sketch;
+	private final ColdAccountFile cold;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	private static final class Node {
+		private final String name;
+		/**
+		 * The name doesn't fit in the file, so the account never leaves the memory
+		 */
+		private final boolean pinned;
+		private volatile Account account;
+		private volatile boolean referenced;
+		/**
+		 * The version in memory is newer than the one in the file
+		 */
+		private boolean dirty;
+
+		Node(Account account, boolean dirty) {
+			this.name = account.getName();
+			this.pinned = !ColdAccountFile.fits(name);
+			this.account = account;
+			this.dirty = dirty;
+		}
+	}
+
+	/**
+	 * @param capacity The maximum number of accounts in memory. It is exceeded only by the accounts whose name 
+	 * doesn't fit in the file.
+	 * @param path The path of the file of the accounts that are not in memory. The previous content is discarded.
+	 * @param buckets The number of buckets of the file
+	 * @throws IOException If the file could not be created
+	 */
+	TieredAccountStore(int capacity, Path path, int buckets) throws IOException {
+		this.capacity = capacity;
+		this.sketch = new FrequencySketch(capacity);
+		this.cold = new ColdAccountFile(path, buckets);
+	}
+
+	@Override
+	Account get(String name) {
+		sketch.increment(name);
+		Node node = cache.get(name);
+		if (node != null) {
+			hits.increment();
+			if (!node.referenced) {
+				node.referenced = true;
+			}
+			return node.account;
+		}
+		
+		lock.lock();
+		try {
+			// Other thread could read the account from the file in between
+			node = cache.get(name);
+			if (node != null) {
+				return node.account;
+			}
+			misses.increment();
+			Account account = cold.read(name);
+			if (account != null) {
+				admit(account, false);
+			}
+			return account;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stores a new version of an account.
+	 * 
+	 * @param account The account
+	 */
+	void put(Account account) {
+		lock.lock();
+		try {
+			Node node = cache.get(account.getName());
+			if (node != null) {
+				node.account = account;
+				node.dirty = true;
+			} else {
+				admit(account, true);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	void write(Account[] previous, Account[] accounts) {
+		for (Account account : accounts) {
+			put(account);
+		}
+	}
+
+	@Override
+	void undo(Account[] previous, Account[] accounts) {
+		for (int i = 0; i < accounts.length; i++) {
+			if (previous[i] != null) {
+				put(previous[i]);
+			} else {
+				remove(accounts[i].getName());
+			}
+		}
+	}
+
+	/**
+	 * Removes an account from the memory and from the file.
+	 * 
+	 * @param name The name of the account
+	 */
+	void remove(String name) {
+		lock.lock();
+		try {
+			Node node = cache.remove(name);
+			if (node != null) {
+				clock.remove(node);
+			}
+			cold.delete(name);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	void load(Collection<Account> accounts) {
+		for (Account account : accounts) {
+			put(account);
+		}
+	}
+
+	/**
+	 * Stores an account if there is no account with the same name.
+	 * 
+	 * @param account The account
+	 * @return Returns the account with the same name or null if the account was stored
+	 */
+	Account putIfAbsent(Account account) {
+		lock.lock();
+		try {
+			Account current = get(account.getName());
+			if (current == null) {
+				put(account);
+			}
+			return current;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Reads the last committed version of all the accounts, first the ones in memory and then the ones in the 
+	 * file. The accounts don't enter the memory. The store is locked meanwhile, so the accounts read from the file 
+	 * wait, but the accounts in memory could be read.
+	 * 
+	 * @param action The action to do with each account
+	 */
+	@Override
+	void forEach(Consumer<Account> action) {
+		lock.lock();
+		try {
+			for (Node node : cache.values()) {
+				action.accept(node.account);
+			}
+			cold.forEach(account -> {
+				// The version in memory is the last one
+				if (!cache.containsKey(account.getName())) {
+					action.accept(account);
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the names of the accounts of a partition. The partitions are ranges of buckets of the file, so all
+	 * the accounts are in one partition and the partitions could be read without reading the whole file.
+	 * 
+	 * @param partition The partition, from 0 to partitions - 1
+	 * @param partitions The number of partitions
+	 * @return Returns the sorted names of the accounts of the partition
+	 */
+	@Override
+	SortedSet<String> names(int partition, int partitions) {
+		int buckets = cold.getBuckets();
+		int fromBucket = firstBucket(partition, partitions, buckets);
+		int toBucket = firstBucket(partition + 1, partitions, buckets);
+		SortedSet<String> names = new TreeSet<>();
+		lock.lock();
+		try {
+			for (String name : cache.keySet()) {
+				int bucket = cold.bucket(name);
+				if (bucket >= fromBucket && bucket < toBucket) {
+					names.add(name);
+				}
+			}
+			cold.forEachName(fromBucket, toBucket, names::add);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			lock.unlock();
+		}
+		return names;
+	}
+
+	@Override
+	int partition(String name, int partitions) {
+		return partitionOf(cold.bucket(name), partitions, cold.getBuckets());
+	}
+
+	/**
+	 * @return Returns the number of accounts in memory
+	 */
+	int size() {
+		return cache.size();
+	}
+
+	long getHits() {
+		return hits.sum();
+	}
+
+	long getMisses() {
+		return misses.sum();
+	}
+
+	long getEvictions() {
+		return evictions.sum();
+	}
+
+	@Override
+	public void close() throws IOException {
+		cold.close();
+	}
+
+	/**
+	 * Adds an account to the memory if there is room or if it is used more often than the account that would 
+	 * leave the memory. Otherwise a new version is written to the file. Must be called holding the lock.
+	 */
+	private void admit(Account account, boolean dirty) throws IOException {
+		String name = account.getName();
+		if (cache.size() >= capacity && ColdAccountFile.fits(name)) {
+			Node victim = victim();
+			if (victim != null) {
+				if (sketch.frequency(name) <= sketch.frequency(victim.name)) {
+					// The victim stays, it will be the first candidate next time
+					clock.addFirst(victim);
+					if (dirty) {
+						cold.write(account);
+					}
+					return;
+				}
+				if (victim.dirty) {
+					cold.write(victim.account);
+				}
+				cache.remove(victim.name);
+				evictions.increment();
+			}
+		}
+		Node node = new Node(account, dirty);
+		cache.put(name, node);
+		clock.addLast(node);
+	}
+
+	/**
+	 * Takes from the clock the account that should leave the memory. The accounts whose name doesn't fit in the 
+	 * file never leave it.
+	 * 
+	 * @return Returns the account or null if all the accounts in memory must stay
+	 */
+	private Node victim() {
+		// Two rounds are enough: the first one clears the references
+		for (int i = 2 * clock.size(); i > 0; i--) {
+			Node node = clock.pollFirst();
+			if (node.referenced || node.pinned) {
+				node.referenced = false;
+				clock.addLast(node);
+			} else {
+				return node;
+			}
+		}
+		return null;
+	}
+}
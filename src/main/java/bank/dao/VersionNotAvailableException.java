@@ -0,0 +1,13 @@
+package bank.dao;
+
+/**
+ * Thrown when an account is read as it was at a time or in a snapshot whose versions were already collected.
+ * 
+ */
+public class VersionNotAvailableException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	public VersionNotAvailableException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,330 @@
+package bank.dao;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import bank.data.Account;
+
+/**
+ * The previous versions of the accounts, so the accounts could be read as they were at a commit (a snapshot) or
+ * at a time, without the lock of the commits.
+ *
+ * Each commit has a timestamp, one more than the previous commit, and a time, and pushes the new version of each
+ * account at the head of the version chain of the account, before the version is written to the store. The chain
+ * goes from the newest version to the oldest one. The store has always the latest version, so an account without
+ * chain has only one version, the one of the store, and it is visible to every reader.
+ *
+ * The readers don't take locks: a reader reads the store first and then the chain, so if the reader sees a version
+ * in the store that is newer than the reader, the chain of that version is already visible, and the reader takes
+ * the newest version of the chain that is not newer than it.
+ *
+ * The collector runs in the background, without the lock of the commits. It computes the horizon, the oldest
+ * timestamp of the open snapshots and the oldest time of the reads by time ({@code retention} ago). The first
+ * version of a chain visible at the horizon is the oldest one needed, the older ones are removed, and a chain whose
+ * head is visible at the horizon is removed. The snapshots open longer than {@code snapshotTimeout} expire, so a
+ * forgotten snapshot doesn't keep the versions: the memory of the versions is the one of the commits of the
+ * retention or the timeout, whichever is longer.
+ *
+ * The commits ({@link #begin()}, {@link #created(Account, long)}, {@link #updated(Account, Account, long)},
+ * {@link #discard(Account[], long)} and {@link #publish(long)}) must be done holding the lock of the commits of the
+ * {@link AccountDAO}. A commit the store refused is discarded before the next one begins, so its versions are never
+ * visible.
+ *
+ */
+class VersionStore {
+	private final Function<String, Account> latest;
+	private final long retention;
+	private final long snapshotTimeout;
+	private final ConcurrentHashMap<String, Version> chains = new ConcurrentHashMap<>();
+	private final LongAdder versions = new LongAdder();
+	/**
+	 * The open snapshots by their timestamps. It is also the lock of the computation of the horizon.
+	 */
+	private final TreeMap<Long, Integer> snapshots = new TreeMap<>();
+	private final Map<AccountSnapshot, Boolean> openSnapshots = new ConcurrentHashMap<>();
+	private long lastTimestamp;
+	private long lastTime;
+	private volatile long published;
+	private volatile long horizonTime;
+
+	/**
+	 * A version of an account. The account is not modified after the commit.
+	 */
+	private static class Version {
+		final long timestamp;
+		final long time;
+		final Account account;
+		volatile Version older;
+
+		Version(long timestamp, long time, Account account, Version older) {
+			this.timestamp = timestamp;
+			this.time = time;
+			this.account = account;
+			this.older = older;
+		}
+	}
+
+	/**
+	 * @param latest Reads the latest version of an account from the store, null if it doesn't exist
+	 * @param retention The time in milliseconds the versions are kept for the reads by time
+	 * @param snapshotTimeout The time in milliseconds after a snapshot expires
+	 */
+	VersionStore(Function<String, Account> latest, long retention, long snapshotTimeout) {
+		this.latest = latest;
+		this.retention = retention;
+		this.snapshotTimeout = snapshotTimeout;
+		this.horizonTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Starts a commit.
+	 *
+	 * @return Returns the timestamp of the commit
+	 */
+	long begin() {
+		// The time of the versions never goes back, even if the clock does
+		lastTime = Math.max(lastTime, System.currentTimeMillis());
+		return ++lastTimestamp;
+	}
+
+	/**
+	 * Adds the first version of a new account. It must be called before the account is written to the store.
+	 */
+	void created(Account account, long timestamp) {
+		chains.put(account.getName(), new Version(timestamp, lastTime, account, null));
+		versions.increment();
+	}
+
+	/**
+	 * Adds a new version of an account. It must be called before the account is written to the store.
+	 *
+	 * @param previous The version replaced, the one in the store
+	 * @param account The new version
+	 * @param timestamp The timestamp of the commit
+	 */
+	void updated(Account previous, Account account, long timestamp) {
+		Version head = chains.get(account.getName());
+		if (head == null) {
+			// The previous version was visible at the horizon, so it is visible to every reader until this commit
+			head = new Version(0, 0, previous, null);
+			versions.increment();
+		}
+		chains.put(account.getName(), new Version(timestamp, lastTime, account, head));
+		versions.increment();
+	}
+
+	/**
+	 * Removes the versions of a commit that was not published, because the store refused it, so the accounts are
+	 * the previous versions again. It must be called before the next commit begins.
+	 *
+	 * @param accounts The new versions of the commit
+	 * @param timestamp The timestamp of the commit
+	 */
+	void discard(Account[] accounts, long timestamp) {
+		for (Account account : accounts) {
+			Version head = chains.get(account.getName());
+			if (head == null || head.timestamp != timestamp) {
+				continue;
+			}
+			boolean removed = head.older == null ? chains.remove(account.getName(), head)
+					: chains.replace(account.getName(), head, head.older);
+			if (removed) {
+				versions.decrement();
+			}
+		}
+	}
+
+	/**
+	 * Makes the commit visible to the new snapshots, once all its accounts are in the store.
+	 */
+	void publish(long timestamp) {
+		published = timestamp;
+	}
+
+	/**
+	 * Opens a snapshot of the last commit published.
+	 */
+	AccountSnapshot open() {
+		return open(-1);
+	}
+
+	/**
+	 * Opens a snapshot of the last commit published.
+	 *
+	 * @param eventOffset The offset of the next event of the commits, -1 if it is not known
+	 */
+	AccountSnapshot open(long eventOffset) {
+		AccountSnapshot snapshot;
+		synchronized (snapshots) {
+			snapshot = new AccountSnapshot(this, published, System.currentTimeMillis(), eventOffset);
+			snapshots.merge(snapshot.getTimestamp(), 1, Integer::sum);
+		}
+		openSnapshots.put(snapshot, Boolean.TRUE);
+		return snapshot;
+	}
+
+	/**
+	 * Closes a snapshot, so its versions could be collected.
+	 */
+	void close(AccountSnapshot snapshot) {
+		if (openSnapshots.remove(snapshot) != null) {
+			release(snapshot.getTimestamp());
+		}
+	}
+
+	/**
+	 * Reads an account in a snapshot.
+	 *
+	 * @return Returns a copy of the account or null if it didn't exist in the snapshot
+	 * @throws VersionNotAvailableException If the snapshot expired
+	 */
+	Account get(String name, AccountSnapshot snapshot) {
+		Account account = latest.apply(name);
+		Version version = chains.get(name);
+		if (version != null) {
+			while (version != null && version.timestamp > snapshot.getTimestamp()) {
+				version = version.older;
+			}
+			account = version == null ? null : version.account;
+		}
+		if (snapshot.isExpired()) {
+			throw new VersionNotAvailableException("The snapshot " + snapshot.getTimestamp() + " expired");
+		}
+		return account == null ? null : account.copy();
+	}
+
+	/**
+	 * Reads an account as it was at a time.
+	 *
+	 * @param name The name of the account
+	 * @param time The time in milliseconds since the epoch
+	 * @return Returns a copy of the account or null if it didn't exist at that time
+	 * @throws VersionNotAvailableException If the versions of that time were already collected
+	 */
+	Account getAsOf(String name, long time) {
+		checkAvailable(time);
+		Account account = latest.apply(name);
+		Version version = chains.get(name);
+		if (version != null) {
+			while (version != null && version.time > time) {
+				version = version.older;
+			}
+			account = version == null ? null : version.account;
+		}
+		// The collector could have removed the versions while they were read
+		checkAvailable(time);
+		return account == null ? null : account.copy();
+	}
+
+	/**
+	 * Removes the versions that no reader needs.
+	 *
+	 * @return Returns the number of versions removed
+	 */
+	long collect() {
+		long now = System.currentTimeMillis();
+		for (AccountSnapshot snapshot : openSnapshots.keySet()) {
+			if (now - snapshot.getOpenTime() > snapshotTimeout && openSnapshots.remove(snapshot) != null) {
+				snapshot.expire();
+				release(snapshot.getTimestamp());
+			}
+		}
+		long timestamp;
+		synchronized (snapshots) {
+			timestamp = snapshots.isEmpty() ? published : Math.min(published, snapshots.firstKey());
+		}
+		long time = Math.max(horizonTime, now - retention);
+		horizonTime = time;
+
+		long removed = 0;
+		for (Map.Entry<String, Version> entry : chains.entrySet()) {
+			Version head = entry.getValue();
+			if (isVisibleAtHorizon(head, timestamp, time)) {
+				// The head is the version of the store, a commit meanwhile changes the head and keeps the chain
+				if (chains.remove(entry.getKey(), head)) {
+					removed += length(head);
+				}
+				continue;
+			}
+			Version version = head;
+			while (version != null && !isVisibleAtHorizon(version, timestamp, time)) {
+				version = version.older;
+			}
+			if (version != null && version.older != null) {
+				removed += length(version.older);
+				version.older = null;
+			}
+		}
+		versions.add(-removed);
+		return removed;
+	}
+
+	/**
+	 * Runs the collector in a daemon thread.
+	 *
+	 * @param interval The time in milliseconds between the collections
+	 */
+	void start(long interval) {
+		Thread collector = new Thread(() -> {
+			while (!Thread.currentThread().isInterrupted()) {
+				try {
+					TimeUnit.MILLISECONDS.sleep(interval);
+				} catch (InterruptedException e) {
+					return;
+				}
+				collect();
+			}
+		}, "account-versions");
+		collector.setDaemon(true);
+		collector.start();
+	}
+
+	/**
+	 * @return Returns the number of versions kept, without the ones of the store
+	 */
+	long getVersions() {
+		return versions.sum();
+	}
+
+	/**
+	 * @return Returns the number of open snapshots
+	 */
+	int getSnapshots() {
+		return openSnapshots.size();
+	}
+
+	/**
+	 * @return Returns the oldest time that could be read with {@link #getAsOf(String, long)}
+	 */
+	long getHorizonTime() {
+		return horizonTime;
+	}
+
+	private void checkAvailable(long time) {
+		if (time < horizonTime) {
+			throw new VersionNotAvailableException("The versions before " + horizonTime + " were collected");
+		}
+	}
+
+	private void release(long timestamp) {
+		synchronized (snapshots) {
+			snapshots.computeIfPresent(timestamp, (key, count) -> count == 1 ? null : count - 1);
+		}
+	}
+
+	private static boolean isVisibleAtHorizon(Version version, long timestamp, long time) {
+		return version.timestamp <= timestamp && version.time <= time;
+	}
+
+	private static long length(Version version) {
+		long length = 0;
+		for (; version != null; version = version.older) {
+			length++;
+		}
+		return length;
+	}
+}
@@ -9,20 +9,34 @@ package bank.data;
 public class Account {
 	private long balance;
 	private String name;
+	/**
+	 * The part of the balance reserved by holds. It could not be transferred until the hold is captured or released.
+	 */
+	private long held;
 	
 	/**
 	 * The sequence is managed by the Account DAO. Allows to control the version of the account in the store
 	 */
 	private long sequence;
+	
+	/**
+	 * The id of the last bulk operation applied to the account, so a resumed bulk operation doesn't apply twice
+	 */
+	private long lastBulkOperation;
 
-    protected Account(String name, long balance, long sequence) {
+    /**
+     * Rebuilds an account with all its attributes. Used by the stores of the accounts.
+     */
+    public Account(String name, long balance, long sequence, long held, long lastBulkOperation) {
         this.balance = balance;
         this.name = name;
         this.sequence = sequence;
+        this.held = held;
+        this.lastBulkOperation = lastBulkOperation;
     }
 
     public Account(String name, long balance) {
-    		this(name, balance, 0);
+    		this(name, balance, 0, 0, 0);
     }
 
 	public long getBalance() {
@@ -32,6 +46,17 @@ public class Account {
     public String getName() {
         return name;
     }
+
+    public long getHeld() {
+        return held;
+    }
+
+    /**
+     * @return Returns the balance that could be used, that is the balance that is not reserved by holds
+     */
+    public long getAvailableBalance() {
+        return balance - held;
+    }
     
     public void withdraw(long value) {
     		this.balance -= value;
@@ -41,6 +66,14 @@ public class Account {
 		this.balance += value;
     }
     
+    public void hold(long value) {
+    		this.held += value;
+    }
+
+    public void release(long value) {
+    		this.held -= value;
+    }
+
 	public long getSequence() {
 		return sequence;
 	}
@@ -49,8 +82,16 @@ public class Account {
 		this.sequence++;
 	}
 
+	public long getLastBulkOperation() {
+		return lastBulkOperation;
+	}
+
+	public void setLastBulkOperation(long lastBulkOperation) {
+		this.lastBulkOperation = lastBulkOperation;
+	}
+
 	public Account copy() {
-    		return new Account(this.name, this.balance, this.sequence);
+    		return new Account(this.name, this.balance, this.sequence, this.held, this.lastBulkOperation);
     }
 
 }
@@ -0,0 +1,39 @@
+package bank.data;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class extends the {@link OperationStatus} with a page of the names of the accounts found by a search.
+ * The next page starts at {@link #getNext()}, null if there are no more names.
+ *
+ */
+public class AccountSearchStatus extends OperationStatus {
+	private List<String> names;
+	private String next;
+
+	public AccountSearchStatus(List<String> names, String next) {
+		super(true);
+		this.names = names;
+		this.next = next;
+	}
+
+	public AccountSearchStatus(OperationError error) {
+		super(false, error);
+		this.names = Collections.emptyList();
+	}
+
+	/**
+	 * @return Returns the names of the page, sorted
+	 */
+	public List<String> getNames() {
+		return names;
+	}
+
+	/**
+	 * @return Returns the first name of the next page, null if this is the last page
+	 */
+	public String getNext() {
+		return next;
+	}
+}
@@ -0,0 +1,24 @@
+package bank.data;
+
+/**
+ * This class extends the {@link OperationStatus} with the balance of an account.
+ * It is used by the services that query an account to return the balance together with the success or failure 
+ * of the operation. 
+ * 
+ */
+public class BalanceStatus extends OperationStatus {
+	private long balance;
+
+	public BalanceStatus(long balance) {
+		super(true);
+		this.balance = balance;
+	}
+
+	public BalanceStatus(OperationError error) {
+		super(false, error);
+	}
+
+	public long getBalance() {
+		return balance;
+	}
+}
@@ -0,0 +1,24 @@
+package bank.data;
+
+/**
+ * This class extends the {@link OperationStatus} with the id of a bulk operation.
+ * It is used by the services to return the id of the new bulk operation together with the success or failure 
+ * of the operation. 
+ * 
+ */
+public class BulkStatus extends OperationStatus {
+	private long id;
+
+	public BulkStatus(long id) {
+		super(true);
+		this.id = id;
+	}
+
+	public BulkStatus(OperationError error) {
+		super(false, error);
+	}
+
+	public long getId() {
+		return id;
+	}
+}
@@ -0,0 +1,59 @@
+package bank.data;
+
+/**
+ * This class extends the {@link OperationStatus} with the result of an export of the accounts: the directory of 
+ * the files, the commit of the snapshot exported and the number of accounts, events and bytes written.
+ * 
+ */
+public class ExportStatus extends OperationStatus {
+	private String directory;
+	private long timestamp;
+	private long accounts;
+	private long events;
+	private int files;
+	private long bytes;
+
+	public ExportStatus(String directory, long timestamp, long accounts, long events, int files, long bytes) {
+		super(true);
+		this.directory = directory;
+		this.timestamp = timestamp;
+		this.accounts = accounts;
+		this.events = events;
+		this.files = files;
+		this.bytes = bytes;
+	}
+
+	public ExportStatus(OperationError error) {
+		super(false, error);
+	}
+
+	/**
+	 * @return Returns the directory of the files of the export
+	 */
+	public String getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return Returns the timestamp of the last commit exported
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public long getAccounts() {
+		return accounts;
+	}
+
+	public long getEvents() {
+		return events;
+	}
+
+	public int getFiles() {
+		return files;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+}
@@ -0,0 +1,55 @@
+package bank.data;
+
+/**
+ * Plain data object with an amount reserved in an account until it is captured, released or it expires.
+ * The times of the authorization and of the expiration are in milliseconds since the epoch.
+ * 
+ */
+public class Hold {
+	private final long id;
+	private final String tenant;
+	private final String account;
+	private final long amount;
+	private final long authorizationTime;
+	private final long expirationTime;
+
+	public Hold(long id, String tenant, String account, long amount, long authorizationTime, long expirationTime) {
+		this.id = id;
+		this.tenant = tenant;
+		this.account = account;
+		this.amount = amount;
+		this.authorizationTime = authorizationTime;
+		this.expirationTime = expirationTime;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * @return Returns the tenant of the account
+	 */
+	public String getTenant() {
+		return tenant;
+	}
+
+	public String getAccount() {
+		return account;
+	}
+
+	public long getAmount() {
+		return amount;
+	}
+
+	/**
+	 * @return Returns the time of the authorization, when the amount was counted in the velocity windows of the
+	 * account
+	 */
+	public long getAuthorizationTime() {
+		return authorizationTime;
+	}
+
+	public long getExpirationTime() {
+		return expirationTime;
+	}
+}
@@ -0,0 +1,24 @@
+package bank.data;
+
+/**
+ * This class extends the {@link OperationStatus} with the id of a hold.
+ * It is used by the services to return the id of the new hold together with the success or failure 
+ * of the operation. 
+ * 
+ */
+public class HoldStatus extends OperationStatus {
+	private long holdId;
+
+	public HoldStatus(long holdId) {
+		super(true);
+		this.holdId = holdId;
+	}
+
+	public HoldStatus(OperationError error) {
+		super(false, error);
+	}
+
+	public long getHoldId() {
+		return holdId;
+	}
+}
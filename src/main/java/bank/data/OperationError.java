@@ -15,7 +15,17 @@ public enum OperationError {
 	ACCOUNT_NOT_ENOUGH_FUNDS(502),
 	INVALID_VALUE(503),
 	ACCOUNT_OUT_OF_SEQUENCE(504),
-	ACCOUNTS_ARE_EQUAL(505)
+	ACCOUNTS_ARE_EQUAL(505),
+	SCHEDULED_TRANSFER_DOESNT_EXIST(506),
+	LEGS_NOT_BALANCED(507),
+	HOLD_DOESNT_EXIST(508),
+	BULK_OPERATION_RUNNING(509),
+	BULK_OPERATION_DOESNT_EXIST(510),
+	SERVICE_OVERLOADED(511),
+	VERSION_NOT_AVAILABLE(512),
+	TENANT_DOESNT_EXIST(513),
+	VELOCITY_LIMIT_EXCEEDED(514),
+	EXPORT_RUNNING(515)
 	;
 	
 	private final int code;
@@ -32,4 +42,20 @@ public enum OperationError {
 	public int getCode() {
 		return this.code;
 	}
+	
+	/**
+	 * Obtains the enumeration value given its numeric value.
+	 * It is the inverse of {@link #getCode()} and it is used by the clients that receive only the numeric value 
+	 * from the RESTful or Web Service interfaces.
+	 * @param code The numeric value of the operation
+	 * @return Returns the {@link OperationError} for the numeric value or null if the value is unknown
+	 */
+	public static OperationError fromCode(int code) {
+		for (OperationError error : values()) {
+			if (error.code == code) {
+				return error;
+			}
+		}
+		return null;
+	}
 }
@@ -0,0 +1,24 @@
+package bank.data;
+
+/**
+ * This class extends the {@link OperationStatus} with the id of a scheduled transfer.
+ * It is used by the scheduler to return the id of the new transfer together with the success or failure 
+ * of the operation. 
+ * 
+ */
+public class ScheduleStatus extends OperationStatus {
+	private long id;
+
+	public ScheduleStatus(long id) {
+		super(true);
+		this.id = id;
+	}
+
+	public ScheduleStatus(OperationError error) {
+		super(false, error);
+	}
+
+	public long getId() {
+		return id;
+	}
+}
@@ -0,0 +1,25 @@
+package bank.data;
+
+/**
+ * Plain data object with one leg of a multi-leg transfer: the account and the amount to add to its balance.
+ * The amount is negative for the accounts the money is taken from (debit) and positive for the accounts 
+ * the money goes to (credit).
+ * 
+ */
+public class TransferLeg {
+	private final String account;
+	private final long amount;
+
+	public TransferLeg(String account, long amount) {
+		this.account = account;
+		this.amount = amount;
+	}
+
+	public String getAccount() {
+		return account;
+	}
+
+	public long getAmount() {
+		return amount;
+	}
+}
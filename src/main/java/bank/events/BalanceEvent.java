@@ -0,0 +1,85 @@
+package bank.events;
+
+/**
+ * Plain data object with a change of the balance of an account committed by the {@link bank.dao.AccountDAO}.
+ * A transfer commits two events, one for each account.
+ * 
+ * The offset is the position of the event in the stream of all the events. It grows by one with each event, 
+ * following the order of the commits, and allows a consumer to resume the stream after the last event it received.
+ * 
+ */
+public class BalanceEvent {
+	public enum Type {
+		CREATE,
+		TRANSFER
+	}
+
+	private final long offset;
+	private final Type type;
+	private final String account;
+	private final String counterpart;
+	private final long amount;
+	private final long balance;
+	private final long sequence;
+	private final long timestamp;
+
+	public BalanceEvent(long offset, Type type, String account, String counterpart, long amount, long balance, 
+			long sequence, long timestamp) {
+		this.offset = offset;
+		this.type = type;
+		this.account = account;
+		this.counterpart = counterpart;
+		this.amount = amount;
+		this.balance = balance;
+		this.sequence = sequence;
+		this.timestamp = timestamp;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getAccount() {
+		return account;
+	}
+
+	/**
+	 * @return Returns the other account of a transfer. Null when the account is created or the transfer has 
+	 * more than two accounts.
+	 */
+	public String getCounterpart() {
+		return counterpart;
+	}
+
+	/**
+	 * @return Returns the change of the balance. Negative when the money leaves the account.
+	 */
+	public long getAmount() {
+		return amount;
+	}
+
+	/**
+	 * @return Returns the balance after the change
+	 */
+	public long getBalance() {
+		return balance;
+	}
+
+	/**
+	 * @return Returns the sequence of the account after the change
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return Returns the time of the commit in milliseconds since the epoch
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+}
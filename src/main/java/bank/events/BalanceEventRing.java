@@ -0,0 +1,88 @@
+package bank.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded ring buffer with the last {@link BalanceEvent}s committed by the {@link bank.dao.AccountDAO}.
+ * 
+ * The publication is split in two steps so the commit lock is held as little as possible: the offsets are 
+ * claimed inside the lock, which gives the events the order of the commits, and the events are written in their 
+ * slots after the lock is released. The producers never wait for the consumers. When the ring is full the oldest 
+ * events are overwritten.
+ * 
+ * The consumers read the events by offset at their own pace. The slot of an offset holds the event with that 
+ * offset once it is published. If it holds an older event, the event is claimed but not published yet. If it holds 
+ * a newer event, the consumer was too slow and the event was overwritten.
+ * 
+ */
+public class BalanceEventRing {
+	private final int mask;
+	private final AtomicReferenceArray<BalanceEvent> slots;
+	/**
+	 * The next offset to be claimed
+	 */
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * @param capacity The number of events kept in the ring. Must be a power of two.
+	 */
+	public BalanceEventRing(int capacity) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("The capacity must be a power of two");
+		}
+		this.mask = capacity - 1;
+		this.slots = new AtomicReferenceArray<>(capacity);
+	}
+
+	/**
+	 * Claims consecutive offsets for events to be published. Must be called in the order of the commits.
+	 * 
+	 * @param count The number of events
+	 * @return Returns the first offset claimed
+	 */
+	public long claim(int count) {
+		return head.getAndAdd(count);
+	}
+
+	/**
+	 * Publishes an event in the slot of its offset, previously claimed with {@link #claim(int)}.
+	 * 
+	 * @param event The event to publish
+	 */
+	public void publish(BalanceEvent event) {
+		slots.lazySet((int) (event.getOffset() & mask), event);
+	}
+
+	/**
+	 * Reads the event of an offset.
+	 * 
+	 * @param offset The offset of the event
+	 * @return Returns the event or null if the event is not published yet
+	 * @throws EventOverrunException If the event was already overwritten
+	 */
+	public BalanceEvent get(long offset) throws EventOverrunException {
+		if (offset < head.get() - capacity()) {
+			throw new EventOverrunException(offset);
+		}
+		BalanceEvent event = slots.get((int) (offset & mask));
+		if (event == null || event.getOffset() < offset) {
+			return null;
+		}
+		if (event.getOffset() > offset) {
+			throw new EventOverrunException(offset);
+		}
+		return event;
+	}
+
+	/**
+	 * @return Returns the offset of the next event, that is the number of events claimed since the beginning
+	 */
+	public long head() {
+		return head.get();
+	}
+
+	public int capacity() {
+		return mask + 1;
+	}
+}
@@ -0,0 +1,201 @@
+package bank.events;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import bank.dao.AccountDAO;
+import bank.data.OperationError;
+import bank.data.OperationStatus;
+
+/**
+ * This class streams the {@link BalanceEvent}s of the {@link BalanceEventRing} to the subscribers as Server-Sent Events.
+ * 
+ * Each subscriber has its own thread that reads the ring at the pace of the subscriber, so a slow subscriber doesn't
+ * delay the others nor the commits. The id of each Server-Sent Event is the offset of the event, so a subscriber could
+ * resume the stream after the last event it received. A subscriber that falls behind more than half of the capacity 
+ * of the ring is dropped with a {@code dropped} event that has the offset to resume from, before its events are 
+ * overwritten. If the events are already overwritten the stream ends with an {@code overrun} event.
+ * 
+ * Each stream has the events of the accounts of one tenant, the ring of the ledger of the tenant.
+ * 
+ * Each thread checks the ring for new events every millisecond while its subscriber is idle, so the number of 
+ * subscribers is limited by the property {@code bank.events.max-subscribers}, by default 64. Over the limit the 
+ * stream ends with an {@code overloaded} event that has the {@link OperationStatus} with the error
+ * {@link OperationError#SERVICE_OVERLOADED}. A stream rejected with other error, like an unknown tenant, ends with
+ * a {@code rejected} event that has the {@link OperationStatus} with the error (see {@link #reject(OperationError)}).
+ * 
+ * The property {@code bank.events.timeout-millis} is the time a stream is kept open. By default zero, which means
+ * the stream is open until the subscriber closes it.
+ * 
+ */
+@Component
+public class BalanceEventStreamer {
+	/**
+	 * The maximum number of events sent to a subscriber without checking if it is too slow
+	 */
+	private static final int BATCH = 256;
+	/**
+	 * The time a subscriber waits when there are not new events
+	 */
+	private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final long timeout;
+	private final int maxSubscribers;
+	private final AtomicInteger subscribers = new AtomicInteger();
+	private final AtomicInteger threads = new AtomicInteger();
+	private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "balance-events-" + threads.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public BalanceEventStreamer(@Value("${bank.events.timeout-millis:0}") long timeout,
+			@Value("${bank.events.max-subscribers:64}") int maxSubscribers) {
+		this.timeout = timeout;
+		this.maxSubscribers = maxSubscribers;
+	}
+
+	/**
+	 * Opens a new stream of events.
+	 * 
+	 * @param tenant The tenant of the accounts, null for the default one
+	 * @param accounts The names of the accounts to stream. Null or empty to stream all the accounts.
+	 * @param from The offset of the first event of the stream. Null to stream only the new events.
+	 * @return Returns the {@link SseEmitter} of the stream
+	 */
+	public SseEmitter subscribe(String tenant, Set<String> accounts, Long from) {
+		return subscribe(new SseEmitter(timeout), tenant, accounts, from);
+	}
+
+	/**
+	 * Ends a stream without events because the subscription was rejected.
+	 * 
+	 * @param error The error of the rejection
+	 * @return Returns the {@link SseEmitter} of the stream, with only the event of the error
+	 */
+	public SseEmitter reject(OperationError error) {
+		return reject(new SseEmitter(timeout), error);
+	}
+
+	/**
+	 * Opens a new stream of events on the given emitter.
+	 */
+	SseEmitter subscribe(SseEmitter emitter, String tenant, Set<String> accounts, Long from) {
+		String streamTenant = tenant == null ? AccountDAO.DEFAULT_TENANT : tenant;
+		if (!AccountDAO.isTenant(streamTenant)) {
+			return reject(emitter, OperationError.TENANT_DOESNT_EXIST);
+		}
+		if (subscribers.incrementAndGet() > maxSubscribers) {
+			subscribers.decrementAndGet();
+			return reject(emitter, OperationError.SERVICE_OVERLOADED);
+		}
+		BalanceEventRing ring = new AccountDAO(streamTenant).getEvents();
+		Subscription subscription = new Subscription(ring, emitter, 
+				accounts == null ? Collections.<String>emptySet() : accounts, from == null ? ring.head() : from);
+		emitter.onCompletion(subscription::cancel);
+		emitter.onTimeout(subscription::cancel);
+		try {
+			executor.execute(subscription);
+		} catch (RejectedExecutionException e) {
+			// The application is stopping
+			subscribers.decrementAndGet();
+			throw e;
+		}
+		return emitter;
+	}
+
+	private static SseEmitter reject(SseEmitter emitter, OperationError error) {
+		try {
+			emitter.send(SseEmitter.event().name(error == OperationError.SERVICE_OVERLOADED ? "overloaded" : "rejected")
+					.data(new OperationStatus(false, error), MediaType.APPLICATION_JSON));
+			emitter.complete();
+		} catch (IOException | IllegalStateException e) {
+			// The subscriber closed the stream
+		}
+		return emitter;
+	}
+
+	/**
+	 * @return Returns the number of open streams
+	 */
+	public int getSubscribers() {
+		return subscribers.get();
+	}
+
+	@PreDestroy
+	public void stop() {
+		executor.shutdownNow();
+	}
+
+	private class Subscription implements Runnable {
+		private final BalanceEventRing ring;
+		private final SseEmitter emitter;
+		private final Set<String> accounts;
+		private long offset;
+		private volatile boolean active = true;
+
+		Subscription(BalanceEventRing ring, SseEmitter emitter, Set<String> accounts, long offset) {
+			this.ring = ring;
+			this.emitter = emitter;
+			this.accounts = accounts;
+			this.offset = offset;
+		}
+
+		void cancel() {
+			active = false;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (active && !Thread.currentThread().isInterrupted()) {
+					// The subscriber is too slow, it is dropped while it still could resume
+					if (ring.head() - offset > ring.capacity() / 2) {
+						emitter.send(SseEmitter.event().name("dropped").data(offset));
+						emitter.complete();
+						return;
+					}
+
+					int sent = 0;
+					BalanceEvent event;
+					while (sent < BATCH && (event = ring.get(offset)) != null) {
+						if (accounts.isEmpty() || accounts.contains(event.getAccount())) {
+							emitter.send(SseEmitter.event().id(String.valueOf(offset)).name("balance")
+									.data(event, MediaType.APPLICATION_JSON));
+						}
+						offset++;
+						sent++;
+					}
+					if (sent == 0) {
+						LockSupport.parkNanos(IDLE_NANOS);
+					}
+				}
+			} catch (EventOverrunException e) {
+				try {
+					emitter.send(SseEmitter.event().name("overrun").data(e.getOffset()));
+					emitter.complete();
+				} catch (IOException | IllegalStateException closed) {
+					// The subscriber closed the stream
+				}
+			} catch (IOException | IllegalStateException e) {
+				// The subscriber closed the stream
+			} finally {
+				subscribers.decrementAndGet();
+			}
+		}
+	}
+}
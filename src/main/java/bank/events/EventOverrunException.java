@@ -0,0 +1,20 @@
+package bank.events;
+
+/**
+ * Thrown when a consumer reads an event of the {@link BalanceEventRing} that was already overwritten.
+ * 
+ */
+public class EventOverrunException extends Exception {
+	private static final long serialVersionUID = 1L;
+
+	private final long offset;
+
+	public EventOverrunException(long offset) {
+		super("The event " + offset + " is not longer available");
+		this.offset = offset;
+	}
+
+	public long getOffset() {
+		return offset;
+	}
+}
@@ -0,0 +1,215 @@
+package bank.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * A file of the export of the accounts, read by the analytics. The rows are stored by columns, each column coded
+ * by the kind of its values and compressed with deflate on its own, so a reader decodes only the columns it uses.
+ *
+ * The file is a header and the columns. The header is the magic number, the number of rows, the number of columns
+ * and for each column its name, its {@link Encoding}, the length of the coded values, the length compressed and the
+ * CRC32 of the compressed bytes. The numbers are big endian, the names UTF-8. The coded values use variable length
+ * integers, 7 bits in each byte with the highest bit set in all but the last byte, and the signed values are
+ * zigzag coded, so the small values take one byte whatever their sign.
+ *
+ */
+public final class ColumnFile {
+	static final int MAGIC = 0x424b4331;
+
+	/**
+	 * The coding of the values of a column
+	 */
+	public enum Encoding {
+		/**
+		 * Sorted texts, each one the length of the prefix it shares with the previous one, the length of the rest and
+		 * the rest
+		 */
+		FRONT_CODED,
+		/**
+		 * Texts that repeat, the distinct texts once and the number of the text of each row, 0 for null
+		 */
+		DICTIONARY,
+		/**
+		 * Numbers, each one zigzag coded
+		 */
+		ZIGZAG,
+		/**
+		 * Numbers that grow, each one the zigzag coded difference with the previous one
+		 */
+		DELTA
+	}
+
+	private final int rows;
+	private final Map<String, Object> columns;
+
+	private ColumnFile(int rows, Map<String, Object> columns) {
+		this.rows = rows;
+		this.columns = columns;
+	}
+
+	/**
+	 * Reads and decodes all the columns of a file.
+	 *
+	 * @param path The path of the file
+	 * @return Returns the file
+	 * @throws IOException If the file could not be read or it is not a valid file
+	 */
+	public static ColumnFile read(Path path) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+			}
+		}
+		buffer.flip();
+		if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+			throw new IOException("The file " + path + " is not an export of the accounts");
+		}
+		int rows = buffer.getInt();
+		int count = buffer.getInt();
+		String[] names = new String[count];
+		Encoding[] encodings = new Encoding[count];
+		int[] lengths = new int[count];
+		int[] compressedLengths = new int[count];
+		int[] checksums = new int[count];
+		for (int i = 0; i < count; i++) {
+			byte[] name = new byte[buffer.getShort()];
+			buffer.get(name);
+			names[i] = new String(name, StandardCharsets.UTF_8);
+			encodings[i] = Encoding.values()[buffer.get()];
+			lengths[i] = buffer.getInt();
+			compressedLengths[i] = buffer.getInt();
+			checksums[i] = buffer.getInt();
+		}
+
+		Map<String, Object> columns = new LinkedHashMap<>();
+		Inflater inflater = new Inflater();
+		try {
+			for (int i = 0; i < count; i++) {
+				byte[] compressed = new byte[compressedLengths[i]];
+				buffer.get(compressed);
+				CRC32 crc = new CRC32();
+				crc.update(compressed);
+				if ((int) crc.getValue() != checksums[i]) {
+					throw new IOException("The column " + names[i] + " of the file " + path + " is corrupted");
+				}
+				byte[] values = new byte[lengths[i]];
+				inflater.reset();
+				inflater.setInput(compressed);
+				if (inflater.inflate(values) != values.length) {
+					throw new IOException("The column " + names[i] + " of the file " + path + " is truncated");
+				}
+				columns.put(names[i], decode(encodings[i], ByteBuffer.wrap(values), rows));
+			}
+		} catch (DataFormatException e) {
+			throw new IOException("The file " + path + " is corrupted", e);
+		} finally {
+			inflater.end();
+		}
+		return new ColumnFile(rows, columns);
+	}
+
+	/**
+	 * @return Returns the number of rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return Returns the names of the columns, in the order of the file
+	 */
+	public Set<String> getColumns() {
+		return columns.keySet();
+	}
+
+	/**
+	 * @param column The name of a column of texts
+	 * @return Returns the values of the column, one for each row
+	 * @throws IllegalArgumentException If the file has not that column of texts
+	 */
+	public String[] getStrings(String column) {
+		Object values = columns.get(column);
+		if (!(values instanceof String[])) {
+			throw new IllegalArgumentException("The file has not the column of texts " + column);
+		}
+		return (String[]) values;
+	}
+
+	/**
+	 * @param column The name of a column of numbers
+	 * @return Returns the values of the column, one for each row
+	 * @throws IllegalArgumentException If the file has not that column of numbers
+	 */
+	public long[] getLongs(String column) {
+		Object values = columns.get(column);
+		if (!(values instanceof long[])) {
+			throw new IllegalArgumentException("The file has not the column of numbers " + column);
+		}
+		return (long[]) values;
+	}
+
+	private static Object decode(Encoding encoding, ByteBuffer values, int rows) {
+		switch (encoding) {
+		case FRONT_CODED: {
+			String[] strings = new String[rows];
+			byte[] previous = new byte[0];
+			for (int i = 0; i < rows; i++) {
+				int shared = (int) getVarLong(values);
+				byte[] bytes = new byte[shared + (int) getVarLong(values)];
+				System.arraycopy(previous, 0, bytes, 0, shared);
+				values.get(bytes, shared, bytes.length - shared);
+				strings[i] = new String(bytes, StandardCharsets.UTF_8);
+				previous = bytes;
+			}
+			return strings;
+		}
+		case DICTIONARY: {
+			String[] dictionary = new String[(int) getVarLong(values) + 1];
+			for (int i = 1; i < dictionary.length; i++) {
+				byte[] bytes = new byte[(int) getVarLong(values)];
+				values.get(bytes);
+				dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+			String[] strings = new String[rows];
+			for (int i = 0; i < rows; i++) {
+				strings[i] = dictionary[(int) getVarLong(values)];
+			}
+			return strings;
+		}
+		default: {
+			long[] longs = new long[rows];
+			long previous = 0;
+			for (int i = 0; i < rows; i++) {
+				long value = getVarLong(values);
+				value = (value >>> 1) ^ -(value & 1);
+				longs[i] = encoding == Encoding.DELTA ? previous + value : value;
+				previous = longs[i];
+			}
+			return longs;
+		}
+		}
+	}
+
+	private static long getVarLong(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7f) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+	}
+}
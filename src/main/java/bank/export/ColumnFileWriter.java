@@ -0,0 +1,222 @@
+package bank.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import bank.export.ColumnFile.Encoding;
+
+/**
+ * Writes a {@link ColumnFile}, once. The columns are coded and compressed as they are added, and the file is
+ * written at once with a gathering write of the header and the compressed columns, without copying them to a
+ * stream.
+ *
+ * The file is written with other name and renamed when it is complete, so a reader never sees half a file.
+ *
+ */
+final class ColumnFileWriter {
+	private final int rows;
+	private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+	private final List<Column> columns = new ArrayList<>();
+
+	private static final class Column {
+		final byte[] name;
+		final Encoding encoding;
+		final int length;
+		final ByteBuffer compressed;
+		final int checksum;
+
+		Column(byte[] name, Encoding encoding, int length, ByteBuffer compressed, int checksum) {
+			this.name = name;
+			this.encoding = encoding;
+			this.length = length;
+			this.compressed = compressed;
+			this.checksum = checksum;
+		}
+	}
+
+	/**
+	 * @param rows The number of rows, every column has one value for each row
+	 */
+	ColumnFileWriter(int rows) {
+		this.rows = rows;
+	}
+
+	/**
+	 * Adds a column of sorted texts, like the names of the accounts.
+	 */
+	ColumnFileWriter frontCoded(String name, String[] values) {
+		Buffer buffer = new Buffer();
+		byte[] previous = new byte[0];
+		for (int i = 0; i < rows; i++) {
+			byte[] bytes = values[i].getBytes(StandardCharsets.UTF_8);
+			int shared = 0;
+			int max = Math.min(previous.length, bytes.length);
+			while (shared < max && previous[shared] == bytes[shared]) {
+				shared++;
+			}
+			buffer.putVarLong(shared);
+			buffer.putVarLong(bytes.length - shared);
+			buffer.put(bytes, shared, bytes.length - shared);
+			previous = bytes;
+		}
+		return add(name, Encoding.FRONT_CODED, buffer);
+	}
+
+	/**
+	 * Adds a column of texts that repeat, like the names of the accounts of the events. The values could be null.
+	 */
+	ColumnFileWriter dictionary(String name, String[] values) {
+		Map<String, Integer> ids = new HashMap<>();
+		List<String> dictionary = new ArrayList<>();
+		Buffer rowIds = new Buffer();
+		for (int i = 0; i < rows; i++) {
+			if (values[i] == null) {
+				rowIds.putVarLong(0);
+				continue;
+			}
+			Integer id = ids.get(values[i]);
+			if (id == null) {
+				dictionary.add(values[i]);
+				id = dictionary.size();
+				ids.put(values[i], id);
+			}
+			rowIds.putVarLong(id);
+		}
+		Buffer buffer = new Buffer();
+		buffer.putVarLong(dictionary.size());
+		for (String value : dictionary) {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			buffer.putVarLong(bytes.length);
+			buffer.put(bytes, 0, bytes.length);
+		}
+		buffer.put(rowIds.bytes, 0, rowIds.length);
+		return add(name, Encoding.DICTIONARY, buffer);
+	}
+
+	/**
+	 * Adds a column of numbers, like the balances.
+	 */
+	ColumnFileWriter zigzag(String name, long[] values) {
+		return numbers(name, Encoding.ZIGZAG, values);
+	}
+
+	/**
+	 * Adds a column of numbers that grow, like the offsets and the times of the events.
+	 */
+	ColumnFileWriter delta(String name, long[] values) {
+		return numbers(name, Encoding.DELTA, values);
+	}
+
+	/**
+	 * Writes the file and renames it to its path.
+	 *
+	 * @param path The path of the file
+	 * @return Returns the size of the file in bytes
+	 * @throws IOException If the file could not be written
+	 */
+	long write(Path path) throws IOException {
+		int headerLength = 12;
+		for (Column column : columns) {
+			headerLength += 2 + column.name.length + 1 + 12;
+		}
+		ByteBuffer header = ByteBuffer.allocate(headerLength);
+		header.putInt(ColumnFile.MAGIC).putInt(rows).putInt(columns.size());
+		for (Column column : columns) {
+			header.putShort((short) column.name.length).put(column.name).put((byte) column.encoding.ordinal());
+			header.putInt(column.length).putInt(column.compressed.remaining()).putInt(column.checksum);
+		}
+		header.flip();
+		ByteBuffer[] buffers = new ByteBuffer[columns.size() + 1];
+		buffers[0] = header;
+		long size = headerLength;
+		for (int i = 0; i < columns.size(); i++) {
+			buffers[i + 1] = columns.get(i).compressed.duplicate();
+			size += buffers[i + 1].remaining();
+		}
+
+		Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			for (long written = 0; written < size;) {
+				written += channel.write(buffers);
+			}
+			channel.force(false);
+		} finally {
+			deflater.end();
+		}
+		Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return size;
+	}
+
+	private ColumnFileWriter numbers(String name, Encoding encoding, long[] values) {
+		Buffer buffer = new Buffer();
+		long previous = 0;
+		for (int i = 0; i < rows; i++) {
+			long value = encoding == Encoding.DELTA ? values[i] - previous : values[i];
+			buffer.putVarLong((value << 1) ^ (value >> 63));
+			previous = values[i];
+		}
+		return add(name, encoding, buffer);
+	}
+
+	private ColumnFileWriter add(String name, Encoding encoding, Buffer values) {
+		deflater.reset();
+		deflater.setInput(values.bytes, 0, values.length);
+		deflater.finish();
+		byte[] compressed = new byte[values.length + values.length / 1000 + 64];
+		int length = 0;
+		while (!deflater.finished()) {
+			if (length == compressed.length) {
+				compressed = Arrays.copyOf(compressed, 2 * compressed.length);
+			}
+			length += deflater.deflate(compressed, length, compressed.length - length);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(compressed, 0, length);
+		columns.add(new Column(name.getBytes(StandardCharsets.UTF_8), encoding, values.length,
+				ByteBuffer.wrap(compressed, 0, length), (int) crc.getValue()));
+		return this;
+	}
+
+	/**
+	 * The coded values of a column, a growing array of bytes
+	 */
+	private static final class Buffer {
+		byte[] bytes = new byte[1024];
+		int length;
+
+		void putVarLong(long value) {
+			ensure(10);
+			while ((value & ~0x7fL) != 0) {
+				bytes[length++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			bytes[length++] = (byte) value;
+		}
+
+		void put(byte[] source, int offset, int count) {
+			ensure(count);
+			System.arraycopy(source, offset, bytes, length, count);
+			length += count;
+		}
+
+		private void ensure(int count) {
+			if (length + count > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(length + count, 2 * bytes.length));
+			}
+		}
+	}
+}
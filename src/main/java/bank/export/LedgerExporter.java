@@ -0,0 +1,273 @@
+package bank.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import bank.dao.AccountDAO;
+import bank.dao.AccountSnapshot;
+import bank.dao.VersionNotAvailableException;
+import bank.data.Account;
+import bank.data.ExportStatus;
+import bank.data.OperationError;
+import bank.events.BalanceEvent;
+import bank.events.BalanceEventRing;
+import bank.events.EventOverrunException;
+
+/**
+ * This class exports the accounts of a tenant to {@link ColumnFile}s, so the analytics read the files instead of
+ * the services.
+ *
+ * The accounts are read from an {@link AccountSnapshot}, so the export is consistent, like if the commits had
+ * stopped, but the commits go on: the lock of the commits is held only to open the snapshot. The accounts are
+ * divided in partitions by {@link AccountDAO#getAccountNames(int, int)} and each partition is written to its own
+ * file ({@code accounts-0000.col}, ...) in parallel by a {@link ForkJoinPool}, with the columns name, balance, held,
+ * sequence and lastBulkOperation. With the history, the events of the commits of the snapshot still in the
+ * {@link BalanceEventRing} are written to {@code events.col}, with the columns offset, type, account, counterpart,
+ * amount, balance, sequence and timestamp. The ring keeps only the last events, so the history starts at the
+ * first offset of the file.
+ *
+ * The files are in a new directory {@code <tenant>-<time of the snapshot>} and the file {@code manifest.properties}
+ * is written last, with the timestamp of the snapshot and the files, so a directory without manifest is not
+ * complete. The export must finish before the snapshot expires (bank.accounts.snapshot-timeout), otherwise it
+ * fails with {@link OperationError#VERSION_NOT_AVAILABLE}.
+ *
+ * The properties are:
+ * 	{@code bank.export.directory} The directory of the exports, by default bank-export in the temporary directory.
+ * 	{@code bank.export.parallelism} The number of threads, by default the number of processors.
+ * 	{@code bank.export.partitions} The number of files of the accounts, by default 64.
+ *
+ * Only one export of a tenant runs at a time.
+ *
+ */
+@Component
+public class LedgerExporter {
+	static final String MANIFEST = "manifest.properties";
+	static final String EVENTS = "events.col";
+
+	private final Path directory;
+	private final int parallelism;
+	private final int partitions;
+	private final Set<String> running = ConcurrentHashMap.newKeySet();
+	private ForkJoinPool pool;
+
+	public LedgerExporter(@Value("${bank.export.directory:}") String directory,
+			@Value("${bank.export.parallelism:0}") int parallelism,
+			@Value("${bank.export.partitions:64}") int partitions) {
+		this.directory = directory.isEmpty() ? Paths.get(System.getProperty("java.io.tmpdir"), "bank-export")
+				: Paths.get(directory);
+		this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		this.partitions = partitions;
+	}
+
+	@PostConstruct
+	public void start() {
+		pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Stops the running exports without finishing them.
+	 *
+	 * @throws InterruptedException If the thread was interrupted while waiting the threads to stop
+	 */
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		pool.shutdownNow();
+		pool.awaitTermination(10, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Exports the accounts of a tenant and waits until the files are written.
+	 *
+	 * @param tenant The tenant, null for the default one
+	 * @param history True to export also the last events of the accounts
+	 * @return Returns an {@link ExportStatus} with the directory of the files, or the error
+	 * {@link OperationError#EXPORT_RUNNING} if other export of the tenant didn't finish
+	 * @throws UncheckedIOException If the files could not be written
+	 */
+	public ExportStatus export(String tenant, boolean history) {
+		String ledger = tenant == null ? AccountDAO.DEFAULT_TENANT : tenant;
+		if (!AccountDAO.isTenant(ledger)) {
+			return new ExportStatus(OperationError.TENANT_DOESNT_EXIST);
+		}
+		if (!running.add(ledger)) {
+			return new ExportStatus(OperationError.EXPORT_RUNNING);
+		}
+		AccountDAO dao = new AccountDAO(ledger);
+		try (AccountSnapshot snapshot = dao.openSnapshotWithEvents()) {
+			Path target = directory.resolve(ledger + "-" + snapshot.getOpenTime());
+			Files.createDirectories(target);
+			List<Callable<long[]>> tasks = new ArrayList<>();
+			for (int i = 0; i < partitions; i++) {
+				int partition = i;
+				tasks.add(() -> exportAccounts(dao, snapshot, partition, target));
+			}
+			if (history) {
+				tasks.add(() -> exportEvents(dao.getEvents(), snapshot.getEventOffset(), target));
+			}
+
+			long accounts = 0;
+			long events = 0;
+			long bytes = 0;
+			for (Future<long[]> result : pool.invokeAll(tasks)) {
+				long[] written = result.get();
+				accounts += written[0];
+				events += written[1];
+				bytes += written[2];
+			}
+
+			Properties manifest = new Properties();
+			manifest.setProperty("tenant", ledger);
+			manifest.setProperty("timestamp", Long.toString(snapshot.getTimestamp()));
+			manifest.setProperty("time", Long.toString(snapshot.getOpenTime()));
+			manifest.setProperty("partitions", Integer.toString(partitions));
+			manifest.setProperty("accounts", Long.toString(accounts));
+			manifest.setProperty("history", Boolean.toString(history));
+			manifest.setProperty("events", Long.toString(events));
+			Path tmp = target.resolve(MANIFEST + ".tmp");
+			try (OutputStream out = Files.newOutputStream(tmp)) {
+				manifest.store(out, "Export of the accounts");
+			}
+			Files.move(tmp, target.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			return new ExportStatus(target.toString(), snapshot.getTimestamp(), accounts, events, tasks.size(), 
+					bytes);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The export of the accounts was interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof VersionNotAvailableException) {
+				return new ExportStatus(OperationError.VERSION_NOT_AVAILABLE);
+			}
+			if (e.getCause() instanceof IOException) {
+				throw new UncheckedIOException((IOException) e.getCause());
+			}
+			throw new IllegalStateException("The export of the accounts failed", e.getCause());
+		} finally {
+			running.remove(ledger);
+		}
+	}
+
+	/**
+	 * @return Returns the directory of the exports
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Writes the accounts of a partition as they are in the snapshot.
+	 *
+	 * @return Returns the accounts, no events and the bytes written
+	 */
+	private long[] exportAccounts(AccountDAO dao, AccountSnapshot snapshot, int partition, Path target)
+			throws IOException {
+		// The accounts created after the snapshot could be in the partition, they are not in the snapshot
+		SortedSet<String> names = dao.getAccountNames(partition, partitions);
+		String[] name = new String[names.size()];
+		long[] balance = new long[name.length];
+		long[] held = new long[name.length];
+		long[] sequence = new long[name.length];
+		long[] lastBulkOperation = new long[name.length];
+		int rows = 0;
+		for (String accountName : names) {
+			Account account = snapshot.getAccount(accountName);
+			if (account != null) {
+				name[rows] = account.getName();
+				balance[rows] = account.getBalance();
+				held[rows] = account.getHeld();
+				sequence[rows] = account.getSequence();
+				lastBulkOperation[rows] = account.getLastBulkOperation();
+				rows++;
+			}
+		}
+		long bytes = new ColumnFileWriter(rows)
+				.frontCoded("name", name)
+				.zigzag("balance", balance)
+				.zigzag("held", held)
+				.zigzag("sequence", sequence)
+				.zigzag("lastBulkOperation", lastBulkOperation)
+				.write(target.resolve(String.format("accounts-%04d.col", partition)));
+		return new long[] { rows, 0, bytes };
+	}
+
+	/**
+	 * Writes the events before an offset that are still in the ring.
+	 *
+	 * @return Returns no accounts, the events and the bytes written
+	 */
+	private static long[] exportEvents(BalanceEventRing ring, long end, Path target) throws IOException {
+		List<BalanceEvent> events = new ArrayList<>();
+		for (long offset = Math.max(0, end - ring.capacity()); offset < end; offset++) {
+			BalanceEvent event;
+			try {
+				event = ring.get(offset);
+			} catch (EventOverrunException e) {
+				// The oldest events were overwritten by the commits meanwhile, the history starts after them
+				events.clear();
+				continue;
+			}
+			if (event == null) {
+				// The commit claimed the offset, it publishes the event right after releasing the lock
+				Thread.yield();
+				offset--;
+				continue;
+			}
+			events.add(event);
+		}
+		int rows = events.size();
+		long[] offsets = new long[rows];
+		String[] types = new String[rows];
+		String[] accounts = new String[rows];
+		String[] counterparts = new String[rows];
+		long[] amounts = new long[rows];
+		long[] balances = new long[rows];
+		long[] sequences = new long[rows];
+		long[] timestamps = new long[rows];
+		for (int i = 0; i < rows; i++) {
+			BalanceEvent event = events.get(i);
+			offsets[i] = event.getOffset();
+			types[i] = event.getType().name();
+			accounts[i] = event.getAccount();
+			counterparts[i] = event.getCounterpart();
+			amounts[i] = event.getAmount();
+			balances[i] = event.getBalance();
+			sequences[i] = event.getSequence();
+			timestamps[i] = event.getTimestamp();
+		}
+		long bytes = new ColumnFileWriter(rows)
+				.delta("offset", offsets)
+				.dictionary("type", types)
+				.dictionary("account", accounts)
+				.dictionary("counterpart", counterparts)
+				.zigzag("amount", amounts)
+				.zigzag("balance", balances)
+				.zigzag("sequence", sequences)
+				.delta("timestamp", timestamps)
+				.write(target.resolve(EVENTS));
+		return new long[] { 0, rows, bytes };
+	}
+}
@@ -0,0 +1,182 @@
+package bank.handover;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerInitializedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import bank.bulk.BulkOperationRunner;
+import bank.dao.AccountDAO;
+import bank.dao.HoldDAO;
+import bank.data.Account;
+import bank.data.Hold;
+import bank.priority.RequestScheduler;
+import bank.scheduler.TransferScheduler;
+
+/**
+ * The side of the new process that takes over the accounts of the running one (see {@link HandoverServer}), for a
+ * deploy without a cold restart. Enabled with the property {@code bank.handover.from}, the port of the handover of
+ * the running process, as {@code port} or {@code host:port}.
+ *
+ * When the context of the process is ready, before it listens on the port of the clients, the process warms up
+ * (see {@link Warmup}) while the running process still serves the clients. Then it asks for the accounts, loads
+ * them and their holds, and waits until the running process stops listening on the port of the clients, so the
+ * port is free when the embedded server of this process starts. The clients don't get a connection refused only if
+ * they retry for that time, the time without service is logged when the server starts. If the handover fails the
+ * process doesn't start.
+ *
+ * The process must have its own journal of the accounts (bank.accounts.journal), the accounts are written to it
+ * when they are loaded. The journals of the scheduled transfers and of the bulk operations (bank.scheduler.journal
+ * and bank.bulk.journal) are the ones of the running process, with one owner at a time: the running process
+ * suspends its {@link TransferScheduler} and its {@link BulkOperationRunner} before it hands over the accounts, and
+ * this process starts them, from those journals, once it took over. They don't start before, even with journals
+ * of their own. The offsets of the events of the accounts start again.
+ *
+ * The properties are:
+ * 	{@code bank.handover.from} The port of the handover of the running process.
+ * 	{@code bank.handover.warmup-file} A capture of {@link bank.capture.TrafficCapture} whose requests warm up the
+ * 	process, by default the warm up runs transfers and balances.
+ * 	{@code bank.handover.warmup-requests} The number of requests of the warm up, by default 20000.
+ * 	{@code bank.handover.timeout} The maximum time in milliseconds to wait for the running process, by default
+ * 	60000.
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "bank.handover.from")
+public class HandoverClient {
+	private static final Logger LOG = LoggerFactory.getLogger(HandoverClient.class);
+
+	private final RequestScheduler scheduler;
+	private final TransferScheduler transfers;
+	private final BulkOperationRunner bulk;
+	private final ObjectMapper mapper;
+	private final String host;
+	private final int port;
+	private final Path warmupFile;
+	private final int warmupRequests;
+	private final int timeout;
+	private final AtomicBoolean started = new AtomicBoolean();
+	private volatile long drainTime;
+
+	public HandoverClient(RequestScheduler scheduler, TransferScheduler transfers, BulkOperationRunner bulk,
+			ObjectMapper mapper,
+			@Value("${bank.handover.from}") String from,
+			@Value("${bank.handover.warmup-file:}") String warmupFile,
+			@Value("${bank.handover.warmup-requests:20000}") int warmupRequests,
+			@Value("${bank.handover.timeout:60000}") int timeout) {
+		this.scheduler = scheduler;
+		this.transfers = transfers;
+		this.bulk = bulk;
+		this.mapper = mapper;
+		int separator = from.lastIndexOf(':');
+		this.host = separator < 0 ? null : from.substring(0, separator);
+		this.port = Integer.parseInt(from.substring(separator + 1));
+		this.warmupFile = warmupFile.isEmpty() ? null : Paths.get(warmupFile);
+		this.warmupRequests = warmupRequests;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Warms up the process and takes over the accounts, once. Then it starts the scheduled transfers and the bulk
+	 * operation, the running process doesn't write their journals any more.
+	 *
+	 * @throws IOException If the handover failed, so the process doesn't start
+	 */
+	@EventListener(ContextRefreshedEvent.class)
+	public void start() throws IOException {
+		if (!started.compareAndSet(false, true)) {
+			return;
+		}
+		long warmupStart = System.currentTimeMillis();
+		new Warmup(scheduler, mapper).run(warmupFile, warmupRequests);
+		LOG.info("Warmed up with {} requests in {} ms", warmupRequests, System.currentTimeMillis() - warmupStart);
+		takeOver();
+		transfers.start();
+		bulk.start();
+	}
+
+	@EventListener(EmbeddedServletContainerInitializedEvent.class)
+	public void serving() {
+		if (drainTime > 0) {
+			LOG.info("Serving the clients, they were not served for {} ms", System.currentTimeMillis() - drainTime);
+		}
+	}
+
+	/**
+	 * Takes over the accounts of the running process.
+	 *
+	 * @throws IOException If the handover failed
+	 */
+	void takeOver() throws IOException {
+		InetAddress address = host == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(host);
+		try (Socket socket = new Socket(address, port)) {
+			socket.setSoTimeout(timeout);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			out.writeInt(HandoverState.MAGIC);
+			out.writeByte(HandoverState.REQUEST);
+			out.flush();
+			if (in.readByte() != HandoverState.STATE) {
+				throw new IOException("The running process couldn't drain its requests");
+			}
+			HandoverState state = HandoverState.read(in);
+			drainTime = state.getDrainTime();
+			long received = System.currentTimeMillis();
+			try {
+				load(state);
+			} catch (RuntimeException e) {
+				out.writeByte(HandoverState.FAILED);
+				out.flush();
+				throw e;
+			}
+			long loaded = System.currentTimeMillis();
+			out.writeByte(HandoverState.LOADED);
+			out.flush();
+			if (in.readByte() != HandoverState.RELEASED) {
+				throw new IOException("The running process didn't release the port");
+			}
+			LOG.info("Took over {} accounts and {} holds: received in {} ms, loaded in {} ms, port released in {} ms",
+					state.getAccountCount(), state.getHolds().size(), received - drainTime, loaded - received,
+					System.currentTimeMillis() - loaded);
+		}
+	}
+
+	/**
+	 * Loads the accounts and the holds of the state.
+	 *
+	 * @throws IllegalStateException If a tenant is not a tenant of this process or it already has accounts
+	 */
+	static void load(HandoverState state) {
+		for (String tenant : state.getAccounts().keySet()) {
+			if (!AccountDAO.isTenant(tenant)) {
+				throw new IllegalStateException("The tenant " + tenant + " is not a tenant of this process");
+			}
+		}
+		for (Map.Entry<String, List<Account>> tenant : state.getAccounts().entrySet()) {
+			new AccountDAO(tenant.getKey()).load(tenant.getValue());
+		}
+		HoldDAO holds = new HoldDAO();
+		for (Hold hold : state.getHolds()) {
+			holds.restoreHold(hold);
+		}
+	}
+}
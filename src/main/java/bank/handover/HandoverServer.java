@@ -0,0 +1,239 @@
+package bank.handover;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.embedded.EmbeddedServletContainer;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import bank.bulk.BulkOperationRunner;
+import bank.dao.AccountDAO;
+import bank.dao.HoldDAO;
+import bank.data.Account;
+import bank.data.OperationError;
+import bank.priority.RequestScheduler;
+import bank.scheduler.TransferScheduler;
+
+/**
+ * The side of the process that hands over its accounts to a new process, for a deploy without a cold restart.
+ * Enabled with the property {@code bank.handover.port}, the port of the local host where the new process (see
+ * {@link HandoverClient}) asks for the accounts.
+ *
+ * When it is asked, the {@link RequestScheduler} is drained: the new requests are rejected with
+ * {@link OperationError#SERVICE_OVERLOADED}, so the clients retry them, and the running ones end. The
+ * {@link TransferScheduler} and the {@link BulkOperationRunner} are suspended and their journals closed, the new
+ * process continues them from the same journals. Then the commits of every tenant are sealed
+ * ({@link AccountDAO#seal()}), so the commits of the other background tasks wait too, and the accounts and the
+ * holds are written to the socket (see {@link HandoverState}). The reads of the balances go on
+ * meanwhile. When the new process has loaded the accounts this process stops listening on the port of the
+ * clients, so the new process takes it, and exits. If the new process fails or closes the socket the commits, the
+ * scheduled transfers and the bulk operation go on in this process.
+ *
+ * The properties are:
+ * 	{@code bank.handover.port} The port of the handover, only for the local host.
+ * 	{@code bank.handover.drain-timeout} The maximum time in milliseconds to wait for the running requests, by
+ * 	default 5000. If they don't end the handover fails.
+ * 	{@code bank.handover.timeout} The maximum time in milliseconds to wait for the new process, by default 60000.
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "bank.handover.port")
+public class HandoverServer {
+	private static final Logger LOG = LoggerFactory.getLogger(HandoverServer.class);
+
+	private final RequestScheduler scheduler;
+	private final TransferScheduler transfers;
+	private final BulkOperationRunner bulk;
+	private final ApplicationContext context;
+	private final int port;
+	private final long drainTimeout;
+	private final int timeout;
+	private final List<AccountDAO> sealed = new ArrayList<>();
+	private ServerSocket serverSocket;
+
+	public HandoverServer(RequestScheduler scheduler, TransferScheduler transfers, BulkOperationRunner bulk,
+			ApplicationContext context,
+			@Value("${bank.handover.port}") int port,
+			@Value("${bank.handover.drain-timeout:5000}") long drainTimeout,
+			@Value("${bank.handover.timeout:60000}") int timeout) {
+		this.scheduler = scheduler;
+		this.transfers = transfers;
+		this.bulk = bulk;
+		this.context = context;
+		this.port = port;
+		this.drainTimeout = drainTimeout;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Listens on the port of the handover.
+	 *
+	 * @throws IOException If the port could not be opened
+	 */
+	@PostConstruct
+	public void start() throws IOException {
+		serverSocket = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+		Thread thread = new Thread(this::accept, "handover");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	@PreDestroy
+	public void stop() throws IOException {
+		serverSocket.close();
+	}
+
+	/**
+	 * @return Returns the port of the handover
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	private void accept() {
+		while (!serverSocket.isClosed()) {
+			try (Socket socket = serverSocket.accept()) {
+				socket.setSoTimeout(timeout);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(),
+						64 * 1024));
+				if (handover(in, out)) {
+					exit();
+					return;
+				}
+			} catch (IOException e) {
+				if (!serverSocket.isClosed()) {
+					LOG.warn("The handover failed, the commits go on", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Hands over the accounts to the process of the other end of the streams.
+	 *
+	 * @return Returns true if the other process took over, false if the commits go on in this process
+	 * @throws IOException If the streams failed, the commits go on in this process
+	 */
+	boolean handover(DataInputStream in, DataOutputStream out) throws IOException {
+		if (in.readInt() != HandoverState.MAGIC || in.readByte() != HandoverState.REQUEST) {
+			throw new IOException("The other process didn't ask for a handover");
+		}
+		long drainTime = System.currentTimeMillis();
+		boolean handedOver = false;
+		try {
+			if (!scheduler.drain(drainTimeout)) {
+				LOG.warn("The requests didn't end in {} ms, the handover is cancelled", drainTimeout);
+				out.writeByte(HandoverState.FAILED);
+				out.flush();
+				return false;
+			}
+			transfers.suspend();
+			bulk.suspend();
+			Map<String, List<Account>> accounts = new LinkedHashMap<>();
+			for (String tenant : AccountDAO.getTenants()) {
+				AccountDAO dao = new AccountDAO(tenant);
+				accounts.put(tenant, dao.seal());
+				// Only once it is sealed, a failed seal leaves the commits going on
+				sealed.add(dao);
+			}
+			HandoverState state = new HandoverState(drainTime, accounts, new HoldDAO().getHolds());
+			out.writeByte(HandoverState.STATE);
+			state.write(out);
+			out.flush();
+			long sent = System.currentTimeMillis();
+
+			if (in.readByte() != HandoverState.LOADED) {
+				LOG.warn("The other process couldn't load the accounts, the commits go on");
+				return false;
+			}
+			long loaded = System.currentTimeMillis();
+			releasePort();
+			out.writeByte(HandoverState.RELEASED);
+			out.flush();
+			handedOver = true;
+			LOG.info("Handed over {} accounts and {} holds: sent in {} ms, loaded in {} ms, port released in {} ms",
+					state.getAccountCount(), state.getHolds().size(), sent - drainTime, loaded - sent,
+					System.currentTimeMillis() - loaded);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("The handover was interrupted");
+		} finally {
+			if (!handedOver) {
+				unseal();
+			}
+		}
+	}
+
+	/**
+	 * Lets the commits, the background tasks and the requests go on after a failed handover. It must be called by
+	 * the thread of the handover.
+	 */
+	void unseal() {
+		for (AccountDAO dao : sealed) {
+			dao.unseal();
+		}
+		sealed.clear();
+		try {
+			transfers.resume();
+			bulk.resume();
+		} catch (IOException e) {
+			LOG.error("The scheduled transfers or the bulk operation couldn't go on after the handover", e);
+		}
+		scheduler.resume();
+	}
+
+	/**
+	 * Stops listening on the port of the clients, so the other process could listen on it.
+	 */
+	void releasePort() {
+		if (context instanceof EmbeddedWebApplicationContext) {
+			EmbeddedServletContainer container = ((EmbeddedWebApplicationContext) context)
+					.getEmbeddedServletContainer();
+			if (container != null) {
+				container.stop();
+			}
+		}
+	}
+
+	/**
+	 * Exits the process after the handover.
+	 */
+	void exit() {
+		// The commits stay sealed, a component that commits while it stops would wait forever
+		Thread halt = new Thread(() -> {
+			try {
+				TimeUnit.SECONDS.sleep(10);
+			} catch (InterruptedException e) {
+				return;
+			}
+			Runtime.getRuntime().halt(0);
+		}, "handover-halt");
+		halt.setDaemon(true);
+		halt.start();
+		System.exit(SpringApplication.exit(context));
+	}
+}
@@ -0,0 +1,150 @@
+package bank.handover;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import bank.data.Account;
+import bank.data.Hold;
+
+/**
+ * The state a process hands over to the process that takes over from it: the accounts of each tenant and the
+ * pending holds, as they were when the commits stopped.
+ *
+ * The processes talk through a socket of the local host. The successor sends {@link #MAGIC} and {@link #REQUEST},
+ * the predecessor answers {@link #STATE} and the state, or {@link #FAILED} if it couldn't drain its requests. The
+ * successor answers {@link #LOADED} when the accounts are loaded, or {@link #FAILED}, and the predecessor answers
+ * {@link #RELEASED} when it doesn't listen on the port of the clients any more.
+ *
+ * The reserved amount of each account is the one of its pending holds, so an amount whose hold expired while the
+ * commits were stopped is available again.
+ *
+ */
+final class HandoverState {
+	static final int MAGIC = 0x424b4831;
+	static final byte REQUEST = 1;
+	static final byte STATE = 2;
+	static final byte LOADED = 3;
+	static final byte RELEASED = 4;
+	static final byte FAILED = 5;
+
+	private final long drainTime;
+	private final Map<String, List<Account>> accounts;
+	private final List<Hold> holds;
+
+	/**
+	 * @param drainTime The time in milliseconds since the epoch when the predecessor stopped admitting requests
+	 * @param accounts The accounts of each tenant
+	 * @param holds The pending holds of all the tenants
+	 */
+	HandoverState(long drainTime, Map<String, List<Account>> accounts, List<Hold> holds) {
+		this.drainTime = drainTime;
+		this.holds = holds;
+		Map<String, Map<String, Long>> held = new HashMap<>();
+		for (Hold hold : holds) {
+			held.computeIfAbsent(hold.getTenant(), tenant -> new HashMap<>()).merge(hold.getAccount(),
+					hold.getAmount(), Long::sum);
+		}
+		this.accounts = new LinkedHashMap<>();
+		for (Map.Entry<String, List<Account>> tenant : accounts.entrySet()) {
+			Map<String, Long> tenantHeld = held.getOrDefault(tenant.getKey(), Collections.emptyMap());
+			List<Account> tenantAccounts = new ArrayList<>(tenant.getValue().size());
+			for (Account account : tenant.getValue()) {
+				tenantAccounts.add(new Account(account.getName(), account.getBalance(), account.getSequence(),
+						tenantHeld.getOrDefault(account.getName(), 0L), account.getLastBulkOperation()));
+			}
+			this.accounts.put(tenant.getKey(), tenantAccounts);
+		}
+	}
+
+	/**
+	 * Reads the state written by {@link #write(DataOutputStream)}.
+	 *
+	 * @throws IOException If the state could not be read
+	 */
+	static HandoverState read(DataInputStream in) throws IOException {
+		long drainTime = in.readLong();
+		Map<String, List<Account>> accounts = new LinkedHashMap<>();
+		for (int tenants = in.readInt(); tenants > 0; tenants--) {
+			String tenant = in.readUTF();
+			int count = in.readInt();
+			List<Account> tenantAccounts = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				tenantAccounts.add(new Account(in.readUTF(), in.readLong(), in.readLong(), in.readLong(),
+						in.readLong()));
+			}
+			accounts.put(tenant, tenantAccounts);
+		}
+		int count = in.readInt();
+		List<Hold> holds = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			holds.add(new Hold(in.readLong(), in.readUTF(), in.readUTF(), in.readLong(), in.readLong(), in.readLong()));
+		}
+		return new HandoverState(drainTime, accounts, holds);
+	}
+
+	/**
+	 * Writes the state to a stream, the caller flushes it.
+	 *
+	 * @throws IOException If the state could not be written
+	 */
+	void write(DataOutputStream out) throws IOException {
+		out.writeLong(drainTime);
+		out.writeInt(accounts.size());
+		for (Map.Entry<String, List<Account>> tenant : accounts.entrySet()) {
+			out.writeUTF(tenant.getKey());
+			out.writeInt(tenant.getValue().size());
+			for (Account account : tenant.getValue()) {
+				out.writeUTF(account.getName());
+				out.writeLong(account.getBalance());
+				out.writeLong(account.getSequence());
+				out.writeLong(account.getHeld());
+				out.writeLong(account.getLastBulkOperation());
+			}
+		}
+		out.writeInt(holds.size());
+		for (Hold hold : holds) {
+			out.writeLong(hold.getId());
+			out.writeUTF(hold.getTenant());
+			out.writeUTF(hold.getAccount());
+			out.writeLong(hold.getAmount());
+			out.writeLong(hold.getAuthorizationTime());
+			out.writeLong(hold.getExpirationTime());
+		}
+	}
+
+	/**
+	 * @return Returns the time in milliseconds since the epoch when the predecessor stopped admitting requests
+	 */
+	long getDrainTime() {
+		return drainTime;
+	}
+
+	/**
+	 * @return Returns the accounts of each tenant
+	 */
+	Map<String, List<Account>> getAccounts() {
+		return accounts;
+	}
+
+	List<Hold> getHolds() {
+		return holds;
+	}
+
+	/**
+	 * @return Returns the number of accounts of all the tenants
+	 */
+	long getAccountCount() {
+		long count = 0;
+		for (List<Account> tenantAccounts : accounts.values()) {
+			count += tenantAccounts.size();
+		}
+		return count;
+	}
+}
@@ -0,0 +1,116 @@
+package bank.handover;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import bank.capture.CaptureFile;
+import bank.capture.CapturedRequest;
+import bank.capture.CapturedRequest.Operation;
+import bank.dao.AccountDAO;
+import bank.data.Account;
+import bank.data.OperationStatus;
+import bank.priority.RequestClass;
+import bank.priority.RequestScheduler;
+import bank.services.BankBaseServices;
+
+/**
+ * Warms up the hot path of the requests before the process takes over the accounts of other process, so the first
+ * requests of the clients don't run interpreted.
+ *
+ * The requests run through the {@link RequestScheduler}, the {@link BankBaseServices} and the {@link AccountDAO} on
+ * the ledger of {@link AccountDAO#WARMUP_TENANT}, which is discarded after, and their results are written to JSON
+ * like the responses of the RESTful interface. The requests are the ones of a capture of the
+ * {@link bank.capture.TrafficCapture}, repeated until the number of requests, starting from the accounts of the
+ * capture. Only the creations, the transfers and the balances are replayed, the holds are shared by the tenants.
+ * Without capture the requests are transfers and balances of 100 accounts.
+ *
+ */
+final class Warmup {
+	private static final int ACCOUNTS = 100;
+
+	private final RequestScheduler scheduler;
+	private final ObjectMapper mapper;
+
+	Warmup(RequestScheduler scheduler, ObjectMapper mapper) {
+		this.scheduler = scheduler;
+		this.mapper = mapper;
+	}
+
+	/**
+	 * Runs the requests of the warm up.
+	 *
+	 * @param capture The capture file, null for the requests without capture
+	 * @param requests The number of requests
+	 * @throws IOException If the capture could not be read
+	 */
+	void run(Path capture, int requests) throws IOException {
+		AccountDAO.openWarmup();
+		try {
+			BankBaseServices service = new BankBaseServices(AccountDAO.WARMUP_TENANT);
+			List<CapturedRequest> recorded = capture == null ? new ArrayList<>() : read(service, capture);
+			if (recorded.isEmpty()) {
+				recorded = generate(service);
+			}
+			for (int i = 0; i < requests; i++) {
+				CapturedRequest request = recorded.get(i % recorded.size());
+				Object result = scheduler.execute(RequestClass.INTERACTIVE, () -> execute(service, request),
+						error -> new OperationStatus(false, error));
+				mapper.writeValueAsBytes(result);
+			}
+		} finally {
+			AccountDAO.closeWarmup();
+		}
+	}
+
+	/**
+	 * Creates the accounts of the capture and reads its requests.
+	 */
+	private static List<CapturedRequest> read(BankBaseServices service, Path capture) throws IOException {
+		List<CapturedRequest> recorded = new ArrayList<>();
+		try (CaptureFile.Reader reader = new CaptureFile.Reader(capture)) {
+			for (List<Account> accounts : reader.getAccounts().values()) {
+				for (Account account : accounts) {
+					service.createAccount(account.getName(), account.getBalance());
+				}
+			}
+			for (CapturedRequest request = reader.next(); request != null; request = reader.next()) {
+				if (request.getOperation() == Operation.CREATE_ACCOUNT || request.getOperation() == Operation.TRANSFER
+						|| request.getOperation() == Operation.BALANCE) {
+					recorded.add(request);
+				}
+			}
+		}
+		return recorded;
+	}
+
+	private static List<CapturedRequest> generate(BankBaseServices service) {
+		for (int i = 0; i < ACCOUNTS; i++) {
+			service.createAccount("warmup-" + i, 1000000);
+		}
+		Random random = new Random(0);
+		List<CapturedRequest> generated = new ArrayList<>();
+		for (int i = 0; i < 10 * ACCOUNTS; i++) {
+			String from = "warmup-" + random.nextInt(ACCOUNTS);
+			String to = "warmup-" + random.nextInt(ACCOUNTS);
+			generated.add(new CapturedRequest(Operation.TRANSFER, null, from, to, 1, 0));
+			generated.add(new CapturedRequest(Operation.BALANCE, null, to, null, 0, 0));
+		}
+		return generated;
+	}
+
+	private static OperationStatus execute(BankBaseServices service, CapturedRequest request) {
+		switch (request.getOperation()) {
+		case CREATE_ACCOUNT:
+			return service.createAccount(request.getAccount(), request.getAmount());
+		case TRANSFER:
+			return service.transfer(request.getAccount(), request.getTo(), request.getAmount());
+		default:
+			return service.getBalance(request.getAccount());
+		}
+	}
+}
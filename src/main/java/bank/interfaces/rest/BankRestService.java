@@ -1,12 +1,56 @@
 package bank.interfaces.rest;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import bank.bulk.BulkOperation;
+import bank.bulk.BulkOperationRunner;
+import bank.capture.CaptureStatistics;
+import bank.capture.CapturedRequest.Operation;
+import bank.capture.TrafficCapture;
+import bank.dao.BankStatistics;
+import bank.dao.ContentionStatistics;
+import bank.dao.Fingerprint;
+import bank.data.Account;
+import bank.data.AccountSearchStatus;
+import bank.data.BalanceStatus;
+import bank.data.BulkStatus;
+import bank.data.ExportStatus;
+import bank.data.HoldStatus;
+import bank.data.OperationError;
 import bank.data.OperationStatus;
+import bank.data.ScheduleStatus;
+import bank.data.TransferLeg;
+import bank.events.BalanceEventStreamer;
+import bank.export.LedgerExporter;
+import bank.priority.RequestClass;
+import bank.priority.RequestClassStatistics;
+import bank.priority.RequestScheduler;
+import bank.priority.TenantScheduler;
+import bank.priority.TenantStatistics;
+import bank.scheduler.ScheduledTransfer;
+import bank.scheduler.TransferScheduler;
 import bank.services.BankBaseServices;
+import bank.trace.FlightRecording;
 
 /**
  * This class is a RESTful interface for the service {@link BankBaseServices}.
@@ -21,21 +65,46 @@ import bank.services.BankBaseServices;
 @RestController
 @RequestMapping("/bank/rest")
 public class BankRestService {
+	@Autowired
+	private TransferScheduler scheduler;
+	@Autowired
+	private BulkOperationRunner bulkRunner;
+	@Autowired
+	private BalanceEventStreamer streamer;
+	@Autowired
+	private RequestScheduler requestScheduler;
+	@Autowired
+	private TenantScheduler tenantScheduler;
+	@Autowired
+	private TrafficCapture capture;
+	@Autowired
+	private LedgerExporter exporter;
+	@Autowired(required = false)
+	private FlightRecording recording;
+
 	/**
 	 * This method is the RESTful wrapper of the {@link BankBaseServices}.createAccount method.
 	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /createAccount}
-	 * are mapped to this method.
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/createAccount} for the accounts of a tenant.
 	 *  
 	 * @param name Name of the new account. The parameter is mandatory.
 	 * @param balance Balance of the new account. The parameter is mandatory.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
 	 * @return Passes the @{link {@link OperationStatus} given by the {@code BankBaseServices} object
 	 */
-    @RequestMapping(value = "/createAccount", method = RequestMethod.GET)
+    @RequestMapping(value = { "/createAccount", "/tenants/{tenant}/createAccount" }, method = RequestMethod.GET)
     public OperationStatus createAccount(
     						@RequestParam(value="name", required=true) String name,
-    						@RequestParam(value="balance", required=true) long balance) {
-    		BankBaseServices service = new BankBaseServices();
-    		OperationStatus status = service.createAccount(name, balance);
+    						@RequestParam(value="balance", required=true) long balance,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		TrafficCapture.request(Operation.CREATE_ACCOUNT, tenant, name, null, balance, 0);
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		OperationStatus status = tenantScheduler.execute(tenant, requestClass, 
+    				() -> service.createAccount(name, balance), 
+    				error -> new OperationStatus(false, error));
     		
     		return status;
     }
@@ -44,21 +113,680 @@ public class BankRestService {
 	/**
 	 * This method is the RESTful wrapper of the {@link BankBaseServices}.transfer method.
 	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /createAccount}
-	 * are mapped to this method.
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/transfer} for the accounts of a tenant.
 	 *  
 	 * @param fromAccountName Name of the source account. The parameter is mandatory.
 	 * @param toAccountName Name of the target account. The parameter is mandatory.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
 	 * @return Passes the {@link OperationStatus} given by the {@code BankBaseServices} object
 	 * @return
 	 */
-    @RequestMapping(value = "/transfer", method = RequestMethod.GET)
+    @RequestMapping(value = { "/transfer", "/tenants/{tenant}/transfer" }, method = RequestMethod.GET)
     public OperationStatus transfer(
 			@RequestParam(value="from", required=true) String fromAccountName,
 			@RequestParam(value="to", required=true) String toAccountName,
-    			@RequestParam(value="value", required=true) long transferValue) {
-    		BankBaseServices service = new BankBaseServices();
-    		OperationStatus status = service.transfer(fromAccountName, toAccountName, transferValue);
+    			@RequestParam(value="value", required=true) long transferValue,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		TrafficCapture.request(Operation.TRANSFER, tenant, fromAccountName, toAccountName, transferValue, 0);
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		OperationStatus status = tenantScheduler.execute(tenant, requestClass, 
+    				() -> service.transfer(fromAccountName, toAccountName, transferValue), 
+    				error -> new OperationStatus(false, error));
+    		
+    		return status;
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BankBaseServices}.transfer method for multi-leg transfers.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /multiTransfer}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/multiTransfer} for the accounts of a tenant.
+	 * The legs are given as pairs of the parameters {@code account} and {@code amount}, in the same order. 
+	 * For example {@code ?account=a&amount=-30&account=b&amount=10&account=c&amount=20}.
+	 *  
+	 * @param accounts Names of the accounts of the legs. The parameter is mandatory.
+	 * @param amounts Amounts of the legs, negative to take money from the account. The parameter is mandatory.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link OperationStatus} given by the {@code BankBaseServices} object
+	 */
+    @RequestMapping(value = { "/multiTransfer", "/tenants/{tenant}/multiTransfer" }, method = RequestMethod.GET)
+    public OperationStatus multiTransfer(
+			@RequestParam(value="account", required=true) List<String> accounts,
+			@RequestParam(value="amount", required=true) List<Long> amounts,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		if (accounts.size() != amounts.size()) {
+    			return new OperationStatus(false, OperationError.INVALID_VALUE);
+    		}
+    		List<TransferLeg> legs = new ArrayList<>(accounts.size());
+    		for (int i = 0; i < accounts.size(); i++) {
+    			legs.add(new TransferLeg(accounts.get(i), amounts.get(i)));
+    		}
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		OperationStatus status = tenantScheduler.execute(tenant, requestClass, 
+    				() -> service.transfer(legs), 
+    				error -> new OperationStatus(false, error));
+    		
+    		return status;
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BankBaseServices}.createAccount method for several accounts.
+	 * The {@code @RequestMapping} annotation ensures the HTTP POST request to {@code /createAccounts}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/createAccounts} for the accounts of a tenant.
+	 * The accounts are given as pairs of the form parameters {@code name} and {@code balance}, in the same order, and
+	 * each one is created on its own: the failure of one doesn't change the others. It is used by the
+	 * {@link bank.client.RestBankServiceClient} to send in one request the accounts queued while its connections 
+	 * are busy.
+	 *  
+	 * @param names Names of the new accounts. The parameter is mandatory.
+	 * @param balances Balances of the new accounts. The parameter is mandatory.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Returns the {@link OperationStatus} of each account, in the same order
+	 */
+    @RequestMapping(value = { "/createAccounts", "/tenants/{tenant}/createAccounts" }, method = RequestMethod.POST)
+    public List<OperationStatus> createAccounts(
+			@RequestParam(value="name", required=true) List<String> names,
+			@RequestParam(value="balance", required=true) List<Long> balances,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		if (names.size() != balances.size()) {
+    			return Collections.nCopies(names.size(), new OperationStatus(false, OperationError.INVALID_VALUE));
+    		}
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		List<OperationStatus> statuses = new ArrayList<>(names.size());
+    		for (int i = 0; i < names.size(); i++) {
+    			String name = names.get(i);
+    			long balance = balances.get(i);
+    			TrafficCapture.request(Operation.CREATE_ACCOUNT, tenant, name, null, balance, 0);
+    			statuses.add(tenantScheduler.execute(tenant, requestClass, 
+    					() -> service.createAccount(name, balance), 
+    					error -> new OperationStatus(false, error)));
+    		}
+    		
+    		return statuses;
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BankBaseServices}.transfer method for several transfers.
+	 * The {@code @RequestMapping} annotation ensures the HTTP POST request to {@code /transfers}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/transfers} for the accounts of a tenant.
+	 * The transfers are given as triples of the form parameters {@code from}, {@code to} and {@code value}, in the 
+	 * same order. Unlike {@code /multiTransfer}, each transfer is done on its own: the failure of one doesn't 
+	 * change the others. It is used by the {@link bank.client.RestBankServiceClient} to send in one request the 
+	 * transfers queued while its connections are busy.
+	 *  
+	 * @param fromAccountNames Names of the source accounts. The parameter is mandatory.
+	 * @param toAccountNames Names of the target accounts. The parameter is mandatory.
+	 * @param transferValues Values to transfer. The parameter is mandatory.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Returns the {@link OperationStatus} of each transfer, in the same order
+	 */
+    @RequestMapping(value = { "/transfers", "/tenants/{tenant}/transfers" }, method = RequestMethod.POST)
+    public List<OperationStatus> transfers(
+			@RequestParam(value="from", required=true) List<String> fromAccountNames,
+			@RequestParam(value="to", required=true) List<String> toAccountNames,
+			@RequestParam(value="value", required=true) List<Long> transferValues,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		if (fromAccountNames.size() != toAccountNames.size() || fromAccountNames.size() != transferValues.size()) {
+    			return Collections.nCopies(fromAccountNames.size(), 
+    					new OperationStatus(false, OperationError.INVALID_VALUE));
+    		}
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		List<OperationStatus> statuses = new ArrayList<>(fromAccountNames.size());
+    		for (int i = 0; i < fromAccountNames.size(); i++) {
+    			String from = fromAccountNames.get(i);
+    			String to = toAccountNames.get(i);
+    			long value = transferValues.get(i);
+    			TrafficCapture.request(Operation.TRANSFER, tenant, from, to, value, 0);
+    			statuses.add(tenantScheduler.execute(tenant, requestClass, 
+    					() -> service.transfer(from, to, value), 
+    					error -> new OperationStatus(false, error)));
+    		}
+    		
+    		return statuses;
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BankBaseServices}.getBalance method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /balance}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/balance} for the accounts of a tenant.
+	 *  
+	 * @param name Name of the account. The parameter is mandatory.
+	 * @param asOf Time in milliseconds since the epoch to obtain the balance the account had at that time. 
+	 * The parameter is optional, by default the current balance.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link BalanceStatus} given by the {@code BankBaseServices} object
+	 */
+    @RequestMapping(value = { "/balance", "/tenants/{tenant}/balance" }, method = RequestMethod.GET)
+    public BalanceStatus balance(
+    						@RequestParam(value="name", required=true) String name,
+    						@RequestParam(value="asOf", required=false) Long asOf,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		if (asOf == null) {
+    			TrafficCapture.request(Operation.BALANCE, tenant, name, null, 0, 0);
+    		}
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		BalanceStatus status = tenantScheduler.execute(tenant, requestClass, 
+    				() -> asOf == null ? service.getBalance(name) : service.getBalance(name, asOf), 
+    				BalanceStatus::new);
+    		
+    		return status;
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BankBaseServices}.authorize method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /authorize}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/authorize} for the accounts of a tenant.
+	 *  
+	 * @param name Name of the account. The parameter is mandatory.
+	 * @param amount Amount to reserve. The parameter is mandatory.
+	 * @param ttl Time in milliseconds until the hold expires. The parameter is optional, by default 10 minutes.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link HoldStatus} given by the {@code BankBaseServices} object
+	 */
+    @RequestMapping(value = { "/authorize", "/tenants/{tenant}/authorize" }, method = RequestMethod.GET)
+    public HoldStatus authorize(
+    			@RequestParam(value="account", required=true) String name,
+    			@RequestParam(value="amount", required=true) long amount,
+    			@RequestParam(value="ttl", defaultValue="600000") long ttl,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		TrafficCapture.request(Operation.AUTHORIZE, tenant, name, null, amount, ttl);
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		HoldStatus status = tenantScheduler.execute(tenant, requestClass, 
+    				() -> service.authorize(name, amount, ttl), 
+    				HoldStatus::new);
+    		
+    		return status;
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BankBaseServices}.capture method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /capture}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/capture} for the accounts of a tenant.
+	 *  
+	 * @param holdId Id of the hold. The parameter is mandatory.
+	 * @param toAccountName Name of the target account. The parameter is mandatory.
+	 * @param amount Amount to transfer. The parameter is mandatory.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link OperationStatus} given by the {@code BankBaseServices} object
+	 */
+    @RequestMapping(value = { "/capture", "/tenants/{tenant}/capture" }, method = RequestMethod.GET)
+    public OperationStatus capture(
+    			@RequestParam(value="hold", required=true) long holdId,
+    			@RequestParam(value="to", required=true) String toAccountName,
+    			@RequestParam(value="amount", required=true) long amount,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		TrafficCapture.request(Operation.CAPTURE, tenant, null, toAccountName, amount, holdId);
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		OperationStatus status = tenantScheduler.execute(tenant, requestClass, 
+    				() -> service.capture(holdId, toAccountName, amount), 
+    				error -> new OperationStatus(false, error));
     		
     		return status;
     }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BankBaseServices}.release method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /release}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/release} for the accounts of a tenant.
+	 *  
+	 * @param holdId Id of the hold. The parameter is mandatory.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link OperationStatus} given by the {@code BankBaseServices} object
+	 */
+    @RequestMapping(value = { "/release", "/tenants/{tenant}/release" }, method = RequestMethod.GET)
+    public OperationStatus release(
+    			@RequestParam(value="hold", required=true) long holdId,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		TrafficCapture.request(Operation.RELEASE, tenant, null, null, 0, holdId);
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		OperationStatus status = tenantScheduler.execute(tenant, requestClass, 
+    				() -> service.release(holdId), 
+    				error -> new OperationStatus(false, error));
+    		
+    		return status;
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link TransferScheduler}.schedule method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /scheduleTransfer}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/scheduleTransfer} for the accounts of a 
+	 * tenant.
+	 *  
+	 * @param fromAccountName Name of the source account. The parameter is mandatory.
+	 * @param toAccountName Name of the target account. The parameter is mandatory.
+	 * @param transferValue Value to transfer. The parameter is mandatory.
+	 * @param executionTime Time of the execution in milliseconds since the epoch. The parameter is mandatory.
+	 * @param interval Interval between executions in milliseconds. The parameter is optional, by default the 
+	 * transfer is executed once.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link ScheduleStatus} given by the {@code TransferScheduler} object
+	 */
+    @RequestMapping(value = { "/scheduleTransfer", "/tenants/{tenant}/scheduleTransfer" }, method = RequestMethod.GET)
+    public ScheduleStatus scheduleTransfer(
+			@RequestParam(value="from", required=true) String fromAccountName,
+			@RequestParam(value="to", required=true) String toAccountName,
+    			@RequestParam(value="value", required=true) long transferValue,
+    			@RequestParam(value="time", required=true) long executionTime,
+    			@RequestParam(value="interval", defaultValue="0") long interval,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		return tenantScheduler.execute(tenant, requestClass, 
+    				() -> scheduler.schedule(tenant, fromAccountName, toAccountName, transferValue, executionTime, interval), 
+    				ScheduleStatus::new);
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link TransferScheduler}.list method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /scheduledTransfers}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/scheduledTransfers} for the transfers of a 
+	 * tenant. If the request is rejected the response is the {@link OperationStatus} with the error, see 
+	 * {@link #rejected(RejectedRequestException)}.
+	 *  
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the pending {@link ScheduledTransfer}s given by the {@code TransferScheduler} object
+	 */
+    @RequestMapping(value = { "/scheduledTransfers", "/tenants/{tenant}/scheduledTransfers" }, method = RequestMethod.GET)
+    public List<ScheduledTransfer> scheduledTransfers(
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		return tenantScheduler.execute(tenant, requestClass, () -> scheduler.list(tenant), BankRestService::reject);
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link TransferScheduler}.cancel method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /cancelScheduledTransfer}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/cancelScheduledTransfer} for the transfers 
+	 * of a tenant.
+	 *  
+	 * @param id Id of the scheduled transfer. The parameter is mandatory.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link OperationStatus} given by the {@code TransferScheduler} object
+	 */
+    @RequestMapping(value = { "/cancelScheduledTransfer", "/tenants/{tenant}/cancelScheduledTransfer" }, 
+    		method = RequestMethod.GET)
+    public OperationStatus cancelScheduledTransfer(
+    			@RequestParam(value="id", required=true) long id,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		return tenantScheduler.execute(tenant, requestClass, 
+    				() -> scheduler.cancel(tenant, id), 
+    				error -> new OperationStatus(false, error));
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BulkOperationRunner}.submit method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /bulkOperation}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/bulkOperation} for the accounts of a 
+	 * tenant.
+	 *  
+	 * @param type The kind of operation: INTEREST or FEE. The parameter is mandatory.
+	 * @param amount The rate in basis points of the interest or the amount of the fee. The parameter is mandatory.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link BulkStatus} given by the {@code BulkOperationRunner} object
+	 */
+    @RequestMapping(value = { "/bulkOperation", "/tenants/{tenant}/bulkOperation" }, method = RequestMethod.GET)
+    public BulkStatus bulkOperation(
+    			@RequestParam(value="type", required=true) BulkOperation.Type type,
+    			@RequestParam(value="amount", required=true) long amount,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		return tenantScheduler.execute(tenant, requestClass, 
+    				() -> bulkRunner.submit(tenant, type, amount), 
+    				BulkStatus::new);
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BulkOperationRunner}.list method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /bulkOperations}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/bulkOperations} for the operations of a 
+	 * tenant. If the request is rejected the response is the {@link OperationStatus} with the error, see 
+	 * {@link #rejected(RejectedRequestException)}.
+	 *  
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link BulkOperation}s with their progress given by the {@code BulkOperationRunner} object
+	 */
+    @RequestMapping(value = { "/bulkOperations", "/tenants/{tenant}/bulkOperations" }, method = RequestMethod.GET)
+    public List<BulkOperation> bulkOperations(
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		return tenantScheduler.execute(tenant, requestClass, () -> bulkRunner.list(tenant), BankRestService::reject);
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BulkOperationRunner}.cancel method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /cancelBulkOperation}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/cancelBulkOperation} for the operations of 
+	 * a tenant.
+	 *  
+	 * @param id Id of the bulk operation. The parameter is mandatory.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link OperationStatus} given by the {@code BulkOperationRunner} object
+	 */
+    @RequestMapping(value = { "/cancelBulkOperation", "/tenants/{tenant}/cancelBulkOperation" }, 
+    		method = RequestMethod.GET)
+    public OperationStatus cancelBulkOperation(
+    			@RequestParam(value="id", required=true) long id,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		return tenantScheduler.execute(tenant, requestClass, 
+    				() -> bulkRunner.cancel(tenant, id), 
+    				error -> new OperationStatus(false, error));
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BankBaseServices}.getStatistics method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /statistics}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/statistics} for the accounts of a tenant.
+	 * If the request is rejected the response is the {@link OperationStatus} with the error, see 
+	 * {@link #rejected(RejectedRequestException)}.
+	 *  
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link BankStatistics} given by the {@code BankBaseServices} object
+	 */
+    @RequestMapping(value = { "/statistics", "/tenants/{tenant}/statistics" }, method = RequestMethod.GET)
+    public BankStatistics statistics(
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		return tenantScheduler.execute(tenant, requestClass, service::getStatistics, BankRestService::reject);
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BankBaseServices}.getContention method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /contention}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/contention} for the accounts of a tenant.
+	 * If the request is rejected the response is the {@link OperationStatus} with the error, see 
+	 * {@link #rejected(RejectedRequestException)}.
+	 *  
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link ContentionStatistics} given by the {@code BankBaseServices} object
+	 */
+    @RequestMapping(value = { "/contention", "/tenants/{tenant}/contention" }, method = RequestMethod.GET)
+    public ContentionStatistics contention(
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		return tenantScheduler.execute(tenant, requestClass, service::getContention, BankRestService::reject);
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BankBaseServices}.getFingerprint method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /fingerprint}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/fingerprint} for the accounts of a tenant.
+	 * If the request is rejected the response is the {@link OperationStatus} with the error, see 
+	 * {@link #rejected(RejectedRequestException)}.
+	 *  
+	 * @param level The level of the Merkle tree. The parameter is optional, by default 0, the root.
+	 * @param from The first node of the level. The parameter is optional, by default 0.
+	 * @param count The maximum number of nodes. The parameter is optional, by default 1024.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link Fingerprint} given by the {@code BankBaseServices} object
+	 */
+    @RequestMapping(value = { "/fingerprint", "/tenants/{tenant}/fingerprint" }, method = RequestMethod.GET)
+    public Fingerprint fingerprint(
+    			@RequestParam(value="level", defaultValue="0") int level,
+    			@RequestParam(value="from", defaultValue="0") int from,
+    			@RequestParam(value="count", defaultValue="1024") int count,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		return tenantScheduler.execute(tenant, requestClass, 
+    				() -> service.getFingerprint(level, from, count), BankRestService::reject);
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BankBaseServices}.getFingerprintAccounts method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /fingerprintAccounts}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/fingerprintAccounts} for the accounts of a 
+	 * tenant. If the request is rejected the response is the {@link OperationStatus} with the error, see 
+	 * {@link #rejected(RejectedRequestException)}.
+	 *  
+	 * @param leaf The leaf of the Merkle tree. The parameter is mandatory.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link Account}s of the leaf given by the {@code BankBaseServices} object
+	 */
+    @RequestMapping(value = { "/fingerprintAccounts", "/tenants/{tenant}/fingerprintAccounts" }, 
+    		method = RequestMethod.GET)
+    public List<Account> fingerprintAccounts(
+    			@RequestParam(value="leaf", required=true) int leaf,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		return tenantScheduler.execute(tenant, requestClass, 
+    				() -> service.getFingerprintAccounts(leaf), BankRestService::reject);
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link BankBaseServices}.searchAccounts method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /searchAccounts}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/searchAccounts} for the accounts of a 
+	 * tenant.
+	 *  
+	 * @param prefix The prefix of the names. The parameter is optional, by default any name.
+	 * @param from The first name, inclusive. The parameter is optional, by default from the first name. The next 
+	 * page is searched from the name next of the previous page.
+	 * @param to The last name, exclusive. The parameter is optional, by default until the last name.
+	 * @param limit The maximum number of names. The parameter is optional, by default 100.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Passes the {@link AccountSearchStatus} given by the {@code BankBaseServices} object
+	 */
+    @RequestMapping(value = { "/searchAccounts", "/tenants/{tenant}/searchAccounts" }, method = RequestMethod.GET)
+    public AccountSearchStatus searchAccounts(
+    			@RequestParam(value="prefix", defaultValue="") String prefix,
+    			@RequestParam(value="from", defaultValue="") String from,
+    			@RequestParam(value="to", required=false) String to,
+    			@RequestParam(value="limit", defaultValue="100") int limit,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		BankBaseServices service = new BankBaseServices(tenant);
+    		return tenantScheduler.execute(tenant, requestClass, 
+    				() -> service.searchAccounts(prefix, from, to, limit), AccountSearchStatus::new);
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link LedgerExporter}.export method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /exportAccounts}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/exportAccounts} for the accounts of a 
+	 * tenant. The request waits until the files are written.
+	 *  
+	 * @param history True to export also the last events of the accounts. The parameter is optional, by default 
+	 * false.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @return Passes the {@link ExportStatus} given by the {@code LedgerExporter} object
+	 */
+    @RequestMapping(value = { "/exportAccounts", "/tenants/{tenant}/exportAccounts" }, method = RequestMethod.GET)
+    public ExportStatus exportAccounts(
+    			@RequestParam(value="history", defaultValue="false") boolean history,
+    			@PathVariable(value="tenant", required=false) String tenant) {
+    		return exporter.export(tenant, history);
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link RequestScheduler}.getStatistics method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /requestClasses}
+	 * are mapped to this method.
+	 *  
+	 * @return Passes the {@link RequestClassStatistics} of each class given by the {@code RequestScheduler} object
+	 */
+    @RequestMapping(value = "/requestClasses", method = RequestMethod.GET)
+    public List<RequestClassStatistics> requestClasses() {
+    		return requestScheduler.getStatistics();
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link TenantScheduler}.getStatistics method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /tenants}
+	 * are mapped to this method.
+	 *  
+	 * @return Passes the {@link TenantStatistics} of each tenant given by the {@code TenantScheduler} object
+	 */
+    @RequestMapping(value = "/tenants", method = RequestMethod.GET)
+    public List<TenantStatistics> tenants() {
+    		return tenantScheduler.getStatistics();
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link TrafficCapture}.start method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /startTrafficCapture}
+	 * are mapped to this method.
+	 *  
+	 * @param duration Seconds of the capture. The parameter is optional, by default 0, until it is stopped.
+	 * @return Passes the {@link CaptureStatistics} with the file of the capture given by the {@code TrafficCapture}
+	 * @throws IOException If the file of the capture could not be created
+	 */
+    @RequestMapping(value = "/startTrafficCapture", method = RequestMethod.GET)
+    public CaptureStatistics startTrafficCapture(
+    			@RequestParam(value="duration", defaultValue="0") long duration) throws IOException {
+    		return capture.start(duration);
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link TrafficCapture}.stop method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /stopTrafficCapture}
+	 * are mapped to this method.
+	 *  
+	 * @return Passes the {@link CaptureStatistics} of the capture stopped given by the {@code TrafficCapture}
+	 */
+    @RequestMapping(value = "/stopTrafficCapture", method = RequestMethod.GET)
+    public CaptureStatistics stopTrafficCapture() {
+    		return capture.stop();
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link TrafficCapture}.getStatistics method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /trafficCapture}
+	 * are mapped to this method.
+	 *  
+	 * @return Passes the {@link CaptureStatistics} of the current or the last capture given by the 
+	 * {@code TrafficCapture}
+	 */
+    @RequestMapping(value = "/trafficCapture", method = RequestMethod.GET)
+    public CaptureStatistics trafficCapture() {
+    		return capture.getStatistics();
+    }
+
+	/**
+	 * This method is the RESTful wrapper of the {@link FlightRecording}.dump method.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /recording}
+	 * are mapped to this method.
+	 * The response is the file of the Flight Recorder with the last minutes of the application, it could be opened
+	 * with Java Mission Control. The status is 404 if there is no recording.
+	 *  
+	 * @param response The HTTP response where the file is written
+	 * @throws IOException If the recording could not be written
+	 */
+    @RequestMapping(value = "/recording", method = RequestMethod.GET)
+    public void recording(HttpServletResponse response) throws IOException {
+    		if (recording == null) {
+    			response.sendError(HttpServletResponse.SC_NOT_FOUND, "There is no flight recording");
+    			return;
+    		}
+    		Path file = Files.createTempFile("bank", ".jfr");
+    		try {
+    			recording.dump(file);
+    			response.setContentType("application/octet-stream");
+    			response.setHeader("Content-Disposition", "attachment; filename=bank.jfr");
+    			response.setContentLengthLong(Files.size(file));
+    			Files.copy(file, response.getOutputStream());
+    		} finally {
+    			Files.deleteIfExists(file);
+    		}
+    }
+
+	/**
+	 * This method opens a stream of Server-Sent Events with the changes of the balances of the accounts.
+	 * The {@code @RequestMapping} annotation ensures the HTTP request to {@code /events}
+	 * are mapped to this method, and the ones to {@code /tenants/{tenant}/events} for the accounts of a tenant.
+	 * The request only takes a worker of the tenant while the stream is opened. If it is rejected the stream only
+	 * has the event with the error.
+	 *  
+	 * @param accounts Comma separated names of the accounts to stream. The parameter is optional, by default
+	 * all the accounts are streamed.
+	 * @param from Offset of the first event. The parameter is optional, by default only the new events are streamed.
+	 * @param lastEventId The header sent by the clients that reconnect to resume the stream after the last event 
+	 * received. It is used when the parameter {@code from} is not given.
+	 * @param tenant Tenant of the accounts, given by the path {@code /tenants/{tenant}}. By default the default tenant.
+	 * @param requestClass The class of the request for the {@link RequestScheduler}. The header {@code X-Request-Class}
+	 * is optional, by default INTERACTIVE.
+	 * @return Returns the stream given by the {@code BalanceEventStreamer} object
+	 */
+    @RequestMapping(value = { "/events", "/tenants/{tenant}/events" }, method = RequestMethod.GET)
+    public SseEmitter events(
+    			@RequestParam(value="accounts", required=false) Set<String> accounts,
+    			@RequestParam(value="from", required=false) Long from,
+    			@RequestHeader(value="Last-Event-ID", required=false) Long lastEventId,
+    			@PathVariable(value="tenant", required=false) String tenant,
+    			@RequestHeader(value=RequestClass.HEADER, defaultValue="INTERACTIVE") RequestClass requestClass) {
+    		Long first = from;
+    		if (first == null && lastEventId != null) {
+    			first = lastEventId + 1;
+    		}
+    		Long offset = first;
+    		return tenantScheduler.execute(tenant, requestClass, 
+    				() -> streamer.subscribe(tenant, accounts, offset), streamer::reject);
+    }
+
+	/**
+	 * Answers a rejected request whose response has no {@link OperationStatus} with the {@link OperationStatus} of
+	 * the error and the status 404 for {@link OperationError#TENANT_DOESNT_EXIST} or 503 for 
+	 * {@link OperationError#SERVICE_OVERLOADED}.
+	 * 
+	 * @param e The rejection
+	 * @return Returns the response with the {@link OperationStatus} of the error
+	 */
+    @ExceptionHandler(RejectedRequestException.class)
+    public ResponseEntity<OperationStatus> rejected(RejectedRequestException e) {
+    		HttpStatus status = e.getError() == OperationError.TENANT_DOESNT_EXIST ? HttpStatus.NOT_FOUND 
+    				: HttpStatus.SERVICE_UNAVAILABLE;
+    		return ResponseEntity.status(status).body(new OperationStatus(false, e.getError()));
+    }
+
+    private static <T> T reject(OperationError error) {
+    		throw new RejectedRequestException(error);
+    }
 }
@@ -0,0 +1,24 @@
+package bank.interfaces.rest;
+
+import bank.data.OperationError;
+
+/**
+ * Thrown when a request whose response has no {@link bank.data.OperationStatus}, like a list or the statistics, is
+ * rejected by the {@link bank.priority.TenantScheduler}. The {@link BankRestService} answers it with the status of
+ * the error.
+ *
+ */
+class RejectedRequestException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	private final OperationError error;
+
+	RejectedRequestException(OperationError error) {
+		super("The request was rejected with the error " + error);
+		this.error = error;
+	}
+
+	OperationError getError() {
+		return error;
+	}
+}
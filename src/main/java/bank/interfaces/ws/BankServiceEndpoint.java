@@ -1,16 +1,53 @@
 package bank.interfaces.ws;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.ws.server.endpoint.annotation.Endpoint;
 import org.springframework.ws.server.endpoint.annotation.PayloadRoot;
 import org.springframework.ws.server.endpoint.annotation.RequestPayload;
 import org.springframework.ws.server.endpoint.annotation.ResponsePayload;
+import org.springframework.ws.soap.SoapHeaderElement;
+import org.springframework.ws.soap.server.endpoint.annotation.SoapHeader;
 
+import com.maxintech.bank.ws.AccountBalance;
+import com.maxintech.bank.ws.AuthorizeRequest;
+import com.maxintech.bank.ws.AuthorizeResponse;
+import com.maxintech.bank.ws.BalanceRange;
+import com.maxintech.bank.ws.CancelScheduledTransferRequest;
+import com.maxintech.bank.ws.CancelScheduledTransferResponse;
+import com.maxintech.bank.ws.CaptureRequest;
+import com.maxintech.bank.ws.CaptureResponse;
 import com.maxintech.bank.ws.CreateAccountRequest;
 import com.maxintech.bank.ws.CreateAccountResponse;
+import com.maxintech.bank.ws.GetBalanceRequest;
+import com.maxintech.bank.ws.GetBalanceResponse;
+import com.maxintech.bank.ws.GetStatisticsRequest;
+import com.maxintech.bank.ws.GetStatisticsResponse;
+import com.maxintech.bank.ws.ListScheduledTransfersRequest;
+import com.maxintech.bank.ws.ListScheduledTransfersResponse;
+import com.maxintech.bank.ws.MultiTransferRequest;
+import com.maxintech.bank.ws.MultiTransferResponse;
+import com.maxintech.bank.ws.ReleaseRequest;
+import com.maxintech.bank.ws.ReleaseResponse;
+import com.maxintech.bank.ws.ScheduleTransferRequest;
+import com.maxintech.bank.ws.ScheduleTransferResponse;
 import com.maxintech.bank.ws.TransferRequest;
 import com.maxintech.bank.ws.TransferResponse;
 
+import bank.capture.CapturedRequest.Operation;
+import bank.capture.TrafficCapture;
+import bank.dao.BankStatistics;
+import bank.data.BalanceStatus;
+import bank.data.HoldStatus;
 import bank.data.OperationStatus;
+import bank.data.ScheduleStatus;
+import bank.data.TransferLeg;
+import bank.priority.RequestClass;
+import bank.priority.TenantScheduler;
+import bank.scheduler.ScheduledTransfer;
+import bank.scheduler.TransferScheduler;
 import bank.services.BankBaseServices;
 
 /**
@@ -25,6 +62,12 @@ import bank.services.BankBaseServices;
 @Endpoint
 public class BankServiceEndpoint {
 	private static final String NAMESPACE_URI = "http://maxintech.com/bank/ws";
+	private static final String REQUEST_CLASS_HEADER = "{" + NAMESPACE_URI + "}requestClass";
+
+	@Autowired
+	private TransferScheduler scheduler;
+	@Autowired
+	private TenantScheduler tenantScheduler;
 
 	/**
 	 * This method is the Web Service wrapper of the {@link BankBaseServices}.createAccount method.
@@ -36,14 +79,21 @@ public class BankServiceEndpoint {
 	 * payload.
 	 * 
 	 * @param request The incoming message. An instance of {@link CreateAccountRequest}
+	 * The optional element tenant of the request selects the accounts of a tenant, by default the default tenant.
+	 * @param requestClass The optional SOAP header with the {@link RequestClass} of the request, by default INTERACTIVE
 	 * @return Returns the response with an instance of @{CreateAccountResponse}
 	 */
 	@PayloadRoot(namespace = NAMESPACE_URI, localPart = "createAccountRequest")
 	@ResponsePayload
-	public CreateAccountResponse createAccount(@RequestPayload CreateAccountRequest request) {
+	public CreateAccountResponse createAccount(@RequestPayload CreateAccountRequest request,
+			@SoapHeader(REQUEST_CLASS_HEADER) SoapHeaderElement requestClass) {
 		CreateAccountResponse response = new CreateAccountResponse();
-		BankBaseServices service = new BankBaseServices();
-		OperationStatus status = service.createAccount(request.getName(), request.getBalance());
+		BankBaseServices service = new BankBaseServices(request.getTenant());
+		TrafficCapture.request(Operation.CREATE_ACCOUNT, request.getTenant(), 
+				request.getName(), null, request.getBalance(), 0);
+		OperationStatus status = tenantScheduler.execute(request.getTenant(), requestClass(requestClass), 
+				() -> service.createAccount(request.getName(), request.getBalance()), 
+				error -> new OperationStatus(false, error));
 		com.maxintech.bank.ws.OperationStatus wsStatus = new com.maxintech.bank.ws.OperationStatus();
 		wsStatus.setStatus(status.isSuccess());
 		wsStatus.setErrorCode(status.getErrorCode().getCode());
@@ -62,15 +112,22 @@ public class BankServiceEndpoint {
 	 * payload.
 	 * 
 	 * @param request The incoming message. An instance of {@link TransferRequest}
+	 * The optional element tenant of the request selects the accounts of a tenant, by default the default tenant.
+	 * @param requestClass The optional SOAP header with the {@link RequestClass} of the request, by default INTERACTIVE
 	 * @return Returns the response with an instance of @{TransferResponse}
 	 */
 	@PayloadRoot(namespace = NAMESPACE_URI, localPart = "transferRequest")
 	@ResponsePayload
-	public TransferResponse transfer(@RequestPayload TransferRequest request) {
+	public TransferResponse transfer(@RequestPayload TransferRequest request,
+			@SoapHeader(REQUEST_CLASS_HEADER) SoapHeaderElement requestClass) {
 		TransferResponse response = new TransferResponse();
-		BankBaseServices service = new BankBaseServices();
+		BankBaseServices service = new BankBaseServices(request.getTenant());
 
-		OperationStatus status = service.transfer(request.getFrom(), request.getTo(), request.getValue());
+		TrafficCapture.request(Operation.TRANSFER, request.getTenant(), 
+				request.getFrom(), request.getTo(), request.getValue(), 0);
+		OperationStatus status = tenantScheduler.execute(request.getTenant(), requestClass(requestClass), 
+				() -> service.transfer(request.getFrom(), request.getTo(), request.getValue()), 
+				error -> new OperationStatus(false, error));
 
 		com.maxintech.bank.ws.OperationStatus wsStatus = new com.maxintech.bank.ws.OperationStatus();
 		wsStatus.setStatus(status.isSuccess());
@@ -79,4 +136,295 @@ public class BankServiceEndpoint {
 
 		return response;
 	}
+
+	/**
+	 * This method is the Web Service wrapper of the {@link BankBaseServices}.transfer method for multi-leg transfers.
+	 * 
+	 * @param request The incoming message. An instance of {@link MultiTransferRequest}
+	 * The optional element tenant of the request selects the accounts of a tenant, by default the default tenant.
+	 * @param requestClass The optional SOAP header with the {@link RequestClass} of the request, by default INTERACTIVE
+	 * @return Returns the response with an instance of @{MultiTransferResponse}
+	 */
+	@PayloadRoot(namespace = NAMESPACE_URI, localPart = "multiTransferRequest")
+	@ResponsePayload
+	public MultiTransferResponse multiTransfer(@RequestPayload MultiTransferRequest request,
+			@SoapHeader(REQUEST_CLASS_HEADER) SoapHeaderElement requestClass) {
+		MultiTransferResponse response = new MultiTransferResponse();
+		BankBaseServices service = new BankBaseServices(request.getTenant());
+
+		List<TransferLeg> legs = new ArrayList<>(request.getLeg().size());
+		for (com.maxintech.bank.ws.TransferLeg leg : request.getLeg()) {
+			legs.add(new TransferLeg(leg.getAccount(), leg.getAmount()));
+		}
+		OperationStatus status = tenantScheduler.execute(request.getTenant(), requestClass(requestClass), 
+				() -> service.transfer(legs), 
+				error -> new OperationStatus(false, error));
+
+ 		response.setOperationStatus(wsStatus(status));
+
+		return response;
+	}
+
+	/**
+	 * This method is the Web Service wrapper of the {@link BankBaseServices}.getBalance method.
+	 * 
+	 * The annotation {@code @PayloadRoot} is used by Spring WS to pick the handler method based on 
+	 * the message’s namespace and localPart. {@code @RequestPayload} indicates that the incoming message 
+	 * will be mapped to the method’s request parameter.
+	 * The {@code @ResponsePayload} annotation makes Spring WS map the returned value to the response 
+	 * payload.
+	 * 
+	 * @param request The incoming message. An instance of {@link GetBalanceRequest}
+	 * The optional element tenant of the request selects the accounts of a tenant, by default the default tenant.
+	 * @param requestClass The optional SOAP header with the {@link RequestClass} of the request, by default INTERACTIVE
+	 * @return Returns the response with an instance of @{GetBalanceResponse}
+	 */
+	@PayloadRoot(namespace = NAMESPACE_URI, localPart = "getBalanceRequest")
+	@ResponsePayload
+	public GetBalanceResponse getBalance(@RequestPayload GetBalanceRequest request,
+			@SoapHeader(REQUEST_CLASS_HEADER) SoapHeaderElement requestClass) {
+		GetBalanceResponse response = new GetBalanceResponse();
+		BankBaseServices service = new BankBaseServices(request.getTenant());
+
+		TrafficCapture.request(Operation.BALANCE, request.getTenant(), request.getName(), null, 0, 0);
+		BalanceStatus status = tenantScheduler.execute(request.getTenant(), requestClass(requestClass), 
+				() -> service.getBalance(request.getName()), 
+				BalanceStatus::new);
+
+		com.maxintech.bank.ws.OperationStatus wsStatus = new com.maxintech.bank.ws.OperationStatus();
+		wsStatus.setStatus(status.isSuccess());
+		wsStatus.setErrorCode(status.getErrorCode().getCode());
+ 		response.setOperationStatus(wsStatus);
+ 		response.setBalance(status.getBalance());
+
+		return response;
+	}
+
+	/**
+	 * This method is the Web Service wrapper of the {@link BankBaseServices}.authorize method.
+	 * The hold expires in 10 minutes if the time to live is not given.
+	 * 
+	 * @param request The incoming message. An instance of {@link AuthorizeRequest}
+	 * The optional element tenant of the request selects the accounts of a tenant, by default the default tenant.
+	 * @param requestClass The optional SOAP header with the {@link RequestClass} of the request, by default INTERACTIVE
+	 * @return Returns the response with an instance of @{AuthorizeResponse}
+	 */
+	@PayloadRoot(namespace = NAMESPACE_URI, localPart = "authorizeRequest")
+	@ResponsePayload
+	public AuthorizeResponse authorize(@RequestPayload AuthorizeRequest request,
+			@SoapHeader(REQUEST_CLASS_HEADER) SoapHeaderElement requestClass) {
+		AuthorizeResponse response = new AuthorizeResponse();
+		BankBaseServices service = new BankBaseServices(request.getTenant());
+
+		long ttl = request.getTtl() == null ? 600000 : request.getTtl();
+		TrafficCapture.request(Operation.AUTHORIZE, request.getTenant(), 
+				request.getAccount(), null, request.getAmount(), ttl);
+		HoldStatus status = tenantScheduler.execute(request.getTenant(), requestClass(requestClass), 
+				() -> service.authorize(request.getAccount(), request.getAmount(), ttl), 
+				HoldStatus::new);
+
+ 		response.setOperationStatus(wsStatus(status));
+ 		response.setHoldId(status.getHoldId());
+
+		return response;
+	}
+
+	/**
+	 * This method is the Web Service wrapper of the {@link BankBaseServices}.capture method.
+	 * 
+	 * @param request The incoming message. An instance of {@link CaptureRequest}
+	 * The optional element tenant of the request selects the accounts of a tenant, by default the default tenant.
+	 * @param requestClass The optional SOAP header with the {@link RequestClass} of the request, by default INTERACTIVE
+	 * @return Returns the response with an instance of @{CaptureResponse}
+	 */
+	@PayloadRoot(namespace = NAMESPACE_URI, localPart = "captureRequest")
+	@ResponsePayload
+	public CaptureResponse capture(@RequestPayload CaptureRequest request,
+			@SoapHeader(REQUEST_CLASS_HEADER) SoapHeaderElement requestClass) {
+		CaptureResponse response = new CaptureResponse();
+		BankBaseServices service = new BankBaseServices(request.getTenant());
+
+		TrafficCapture.request(Operation.CAPTURE, request.getTenant(), 
+				null, request.getTo(), request.getAmount(), request.getHoldId());
+		OperationStatus status = tenantScheduler.execute(request.getTenant(), requestClass(requestClass), 
+				() -> service.capture(request.getHoldId(), request.getTo(), request.getAmount()), 
+				error -> new OperationStatus(false, error));
+
+ 		response.setOperationStatus(wsStatus(status));
+
+		return response;
+	}
+
+	/**
+	 * This method is the Web Service wrapper of the {@link BankBaseServices}.release method.
+	 * 
+	 * @param request The incoming message. An instance of {@link ReleaseRequest}
+	 * The optional element tenant of the request selects the accounts of a tenant, by default the default tenant.
+	 * @param requestClass The optional SOAP header with the {@link RequestClass} of the request, by default INTERACTIVE
+	 * @return Returns the response with an instance of @{ReleaseResponse}
+	 */
+	@PayloadRoot(namespace = NAMESPACE_URI, localPart = "releaseRequest")
+	@ResponsePayload
+	public ReleaseResponse release(@RequestPayload ReleaseRequest request,
+			@SoapHeader(REQUEST_CLASS_HEADER) SoapHeaderElement requestClass) {
+		ReleaseResponse response = new ReleaseResponse();
+		BankBaseServices service = new BankBaseServices(request.getTenant());
+
+		TrafficCapture.request(Operation.RELEASE, request.getTenant(), null, null, 0, request.getHoldId());
+		OperationStatus status = tenantScheduler.execute(request.getTenant(), requestClass(requestClass), 
+				() -> service.release(request.getHoldId()), 
+				error -> new OperationStatus(false, error));
+
+ 		response.setOperationStatus(wsStatus(status));
+
+		return response;
+	}
+
+	/**
+	 * This method is the Web Service wrapper of the {@link TransferScheduler}.schedule method.
+	 * 
+	 * @param request The incoming message. An instance of {@link ScheduleTransferRequest}
+	 * The optional element tenant of the request selects the accounts of a tenant, by default the default tenant.
+	 * @param requestClass The optional SOAP header with the {@link RequestClass} of the request, by default INTERACTIVE
+	 * @return Returns the response with an instance of @{ScheduleTransferResponse}
+	 */
+	@PayloadRoot(namespace = NAMESPACE_URI, localPart = "scheduleTransferRequest")
+	@ResponsePayload
+	public ScheduleTransferResponse scheduleTransfer(@RequestPayload ScheduleTransferRequest request,
+			@SoapHeader(REQUEST_CLASS_HEADER) SoapHeaderElement requestClass) {
+		ScheduleTransferResponse response = new ScheduleTransferResponse();
+
+		long interval = request.getInterval() == null ? 0 : request.getInterval();
+		ScheduleStatus status = tenantScheduler.execute(request.getTenant(), requestClass(requestClass), 
+				() -> scheduler.schedule(request.getTenant(), request.getFrom(), request.getTo(), request.getValue(), 
+						request.getExecutionTime(), interval), 
+				ScheduleStatus::new);
+
+ 		response.setOperationStatus(wsStatus(status));
+ 		response.setId(status.getId());
+
+		return response;
+	}
+
+	/**
+	 * This method is the Web Service wrapper of the {@link TransferScheduler}.list method.
+	 * The response has the operation status, with the error if the request was rejected.
+	 * 
+	 * @param request The incoming message. An instance of {@link ListScheduledTransfersRequest}
+	 * The optional element tenant of the request selects the accounts of a tenant, by default the default tenant.
+	 * @param requestClass The optional SOAP header with the {@link RequestClass} of the request, by default INTERACTIVE
+	 * @return Returns the response with an instance of @{ListScheduledTransfersResponse}
+	 */
+	@PayloadRoot(namespace = NAMESPACE_URI, localPart = "listScheduledTransfersRequest")
+	@ResponsePayload
+	public ListScheduledTransfersResponse listScheduledTransfers(@RequestPayload ListScheduledTransfersRequest request,
+			@SoapHeader(REQUEST_CLASS_HEADER) SoapHeaderElement requestClass) {
+		ListScheduledTransfersResponse response = new ListScheduledTransfersResponse();
+
+		OperationStatus status = tenantScheduler.execute(request.getTenant(), requestClass(requestClass), () -> {
+			for (ScheduledTransfer transfer : scheduler.list(request.getTenant())) {
+				com.maxintech.bank.ws.ScheduledTransfer wsTransfer = new com.maxintech.bank.ws.ScheduledTransfer();
+				wsTransfer.setId(transfer.getId());
+				wsTransfer.setFrom(transfer.getFrom());
+				wsTransfer.setTo(transfer.getTo());
+				wsTransfer.setValue(transfer.getValue());
+				wsTransfer.setExecutionTime(transfer.getExecutionTime());
+				wsTransfer.setInterval(transfer.getInterval());
+				wsTransfer.setExecutions(transfer.getExecutions());
+				response.getScheduledTransfer().add(wsTransfer);
+			}
+			return new OperationStatus(true);
+		}, error -> new OperationStatus(false, error));
+
+ 		response.setOperationStatus(wsStatus(status));
+
+		return response;
+	}
+
+	/**
+	 * This method is the Web Service wrapper of the {@link TransferScheduler}.cancel method.
+	 * 
+	 * @param request The incoming message. An instance of {@link CancelScheduledTransferRequest}
+	 * The optional element tenant of the request selects the accounts of a tenant, by default the default tenant.
+	 * @param requestClass The optional SOAP header with the {@link RequestClass} of the request, by default INTERACTIVE
+	 * @return Returns the response with an instance of @{CancelScheduledTransferResponse}
+	 */
+	@PayloadRoot(namespace = NAMESPACE_URI, localPart = "cancelScheduledTransferRequest")
+	@ResponsePayload
+	public CancelScheduledTransferResponse cancelScheduledTransfer(@RequestPayload CancelScheduledTransferRequest request,
+			@SoapHeader(REQUEST_CLASS_HEADER) SoapHeaderElement requestClass) {
+		CancelScheduledTransferResponse response = new CancelScheduledTransferResponse();
+
+		OperationStatus status = tenantScheduler.execute(request.getTenant(), requestClass(requestClass), 
+				() -> scheduler.cancel(request.getTenant(), request.getId()), 
+				error -> new OperationStatus(false, error));
+
+ 		response.setOperationStatus(wsStatus(status));
+
+		return response;
+	}
+
+	/**
+	 * This method is the Web Service wrapper of the {@link BankBaseServices}.getStatistics method.
+	 * The response has the operation status, with the error if the request was rejected.
+	 * 
+	 * @param request The incoming message. An instance of {@link GetStatisticsRequest}
+	 * The optional element tenant of the request selects the accounts of a tenant, by default the default tenant.
+	 * @param requestClass The optional SOAP header with the {@link RequestClass} of the request, by default INTERACTIVE
+	 * @return Returns the response with an instance of @{GetStatisticsResponse}
+	 */
+	@PayloadRoot(namespace = NAMESPACE_URI, localPart = "getStatisticsRequest")
+	@ResponsePayload
+	public GetStatisticsResponse getStatistics(@RequestPayload GetStatisticsRequest request,
+			@SoapHeader(REQUEST_CLASS_HEADER) SoapHeaderElement requestClass) {
+		GetStatisticsResponse response = new GetStatisticsResponse();
+		BankBaseServices service = new BankBaseServices(request.getTenant());
+
+		OperationStatus status = tenantScheduler.execute(request.getTenant(), requestClass(requestClass), () -> {
+			BankStatistics statistics = service.getStatistics();
+
+			response.setAccounts(statistics.getAccounts());
+			response.setTotalBalance(statistics.getTotalBalance());
+			response.setTotalHeld(statistics.getTotalHeld());
+			response.setCreatedBalance(statistics.getCreatedBalance());
+			response.setAdjustedBalance(statistics.getAdjustedBalance());
+			response.setConserved(statistics.isConserved());
+			for (BankStatistics.AccountBalance balance : statistics.getLargestBalances()) {
+				AccountBalance wsBalance = new AccountBalance();
+				wsBalance.setName(balance.getName());
+				wsBalance.setBalance(balance.getBalance());
+				response.getLargestBalance().add(wsBalance);
+			}
+			for (BankStatistics.BalanceRange range : statistics.getBalanceRanges()) {
+				BalanceRange wsRange = new BalanceRange();
+				wsRange.setFrom(range.getFrom());
+				wsRange.setTo(range.getTo());
+				wsRange.setAccounts(range.getAccounts());
+				wsRange.setBalance(range.getBalance());
+				response.getBalanceRange().add(wsRange);
+			}
+			return new OperationStatus(true);
+		}, error -> new OperationStatus(false, error));
+
+ 		response.setOperationStatus(wsStatus(status));
+
+		return response;
+	}
+
+	/**
+	 * Parses the request class of the SOAP header, the default class when there is no header.
+	 */
+	private static RequestClass requestClass(SoapHeaderElement header) {
+		return RequestClass.parse(header == null ? null : header.getText());
+	}
+
+	/**
+	 * Translates the status of the services to the status of the Web Service.
+	 */
+	private static com.maxintech.bank.ws.OperationStatus wsStatus(OperationStatus status) {
+		com.maxintech.bank.ws.OperationStatus wsStatus = new com.maxintech.bank.ws.OperationStatus();
+		wsStatus.setStatus(status.isSuccess());
+		wsStatus.setErrorCode(status.getErrorCode().getCode());
+		return wsStatus;
+	}
 }
@@ -4,6 +4,7 @@ import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.ws.config.annotation.EnableWs;
 import org.springframework.ws.config.annotation.WsConfigurerAdapter;
@@ -12,6 +13,13 @@ import org.springframework.ws.wsdl.wsdl11.DefaultWsdl11Definition;
 import org.springframework.xml.xsd.SimpleXsdSchema;
 import org.springframework.xml.xsd.XsdSchema;
 
+/**
+ * Configuration of the Web Service interface.
+ * 
+ * The WSDL definition and the XSD schema are lazy beans. Parsing the schema is one of the costs of the startup and 
+ * it is only needed by the {@link MessageDispatcherServlet}, which is initialized with the first SOAP request. 
+ *
+ */
 @EnableWs
 @Configuration
 public class WebServiceConfig extends WsConfigurerAdapter {
@@ -23,6 +31,7 @@ public class WebServiceConfig extends WsConfigurerAdapter {
 		return new ServletRegistrationBean(servlet, "/bank/ws/*");
 	}
 
+	@Lazy
 	@Bean(name = "bankServices")
 	public DefaultWsdl11Definition defaultWsdl11Definition(XsdSchema bankServicesSchema) {
 		DefaultWsdl11Definition wsdl11Definition = new DefaultWsdl11Definition();
@@ -33,6 +42,7 @@ public class WebServiceConfig extends WsConfigurerAdapter {
 		return wsdl11Definition;
 	}
 
+	@Lazy
 	@Bean
 	public XsdSchema bankServicesSchema() {
 		return new SimpleXsdSchema(new ClassPathResource("bankservices.xsd"));
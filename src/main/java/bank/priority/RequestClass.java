@@ -0,0 +1,39 @@
+package bank.priority;
+
+/**
+ * The classes of the requests of the RESTful and Web Service interfaces. Each class has its own queue in the
+ * {@link RequestScheduler}, so a burst of one class doesn't delay the requests of the other one.
+ *
+ * The class is given by the header {@value #HEADER} of the RESTful requests and by the SOAP header
+ * {@code requestClass} of the Web Service requests. The requests without the header are {@link #INTERACTIVE}.
+ *
+ */
+public enum RequestClass {
+	/**
+	 * The operations of the customers, that need a short latency.
+	 */
+	INTERACTIVE,
+	/**
+	 * The operations of the settlements and other batches, that need throughput.
+	 */
+	SETTLEMENT;
+
+	/**
+	 * The name of the HTTP header of the RESTful requests with the class.
+	 */
+	public static final String HEADER = "X-Request-Class";
+
+	/**
+	 * Obtains the class given its name, ignoring the case and the spaces.
+	 *
+	 * @param name The name of the class, it could be null or empty
+	 * @return Returns the class or {@link #INTERACTIVE} if the name is null or empty
+	 * @throws IllegalArgumentException If the name is not the one of a class
+	 */
+	public static RequestClass parse(String name) {
+		if (name == null || name.trim().isEmpty()) {
+			return INTERACTIVE;
+		}
+		return valueOf(name.trim().toUpperCase());
+	}
+}
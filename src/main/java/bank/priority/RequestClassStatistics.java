@@ -0,0 +1,90 @@
+package bank.priority;
+
+/**
+ * The state and the counters of the queue of a {@link RequestClass} in the {@link RequestScheduler}.
+ *
+ */
+public class RequestClassStatistics {
+	private final RequestClass requestClass;
+	private final int weight;
+	private final int capacity;
+	private final int depth;
+	private final long admitted;
+	private final long rejected;
+	private final long expired;
+	private final long averageWaitMicros;
+	private final long maxWaitMicros;
+
+	public RequestClassStatistics(RequestClass requestClass, int weight, int capacity, int depth, long admitted,
+			long rejected, long expired, long averageWaitMicros, long maxWaitMicros) {
+		this.requestClass = requestClass;
+		this.weight = weight;
+		this.capacity = capacity;
+		this.depth = depth;
+		this.admitted = admitted;
+		this.rejected = rejected;
+		this.expired = expired;
+		this.averageWaitMicros = averageWaitMicros;
+		this.maxWaitMicros = maxWaitMicros;
+	}
+
+	public RequestClass getRequestClass() {
+		return requestClass;
+	}
+
+	/**
+	 * @return Returns the share of the workers given to the class when the queues of several classes are not empty
+	 */
+	public int getWeight() {
+		return weight;
+	}
+
+	/**
+	 * @return Returns the maximum number of requests waiting in the queue
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return Returns the number of requests waiting in the queue now
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return Returns the number of requests that were executed
+	 */
+	public long getAdmitted() {
+		return admitted;
+	}
+
+	/**
+	 * @return Returns the number of requests rejected because the queue was full
+	 */
+	public long getRejected() {
+		return rejected;
+	}
+
+	/**
+	 * @return Returns the number of requests rejected because they waited the maximum time in the queue
+	 */
+	public long getExpired() {
+		return expired;
+	}
+
+	/**
+	 * @return Returns the average time in microseconds the admitted requests waited in the queue
+	 */
+	public long getAverageWaitMicros() {
+		return averageWaitMicros;
+	}
+
+	/**
+	 * @return Returns the maximum time in microseconds an admitted request waited in the queue
+	 */
+	public long getMaxWaitMicros() {
+		return maxWaitMicros;
+	}
+}
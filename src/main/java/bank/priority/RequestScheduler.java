@@ -0,0 +1,329 @@
+package bank.priority;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import bank.capture.TrafficCapture;
+import bank.data.OperationError;
+import bank.trace.TransferTrace;
+import bank.trace.TransferTrace.Stage;
+
+/**
+ * This class limits the number of requests of the RESTful and Web Service interfaces that run the bank services
+ * at the same time, and decides which request runs next when the limit is reached.
+ *
+ * Each {@link RequestClass} has a bounded queue. When all the workers are busy the request waits in the queue of
+ * its class, and when a worker ends the next request is taken from the queues by a smooth weighted round robin,
+ * so each class with requests waiting gets a share of the workers proportional to its weight. A burst of one
+ * class fills only its own queue and the requests of the other classes keep their share.
+ *
+ * The requests are rejected early with {@link OperationError#SERVICE_OVERLOADED} instead of waiting until the
+ * timeout of the client: when the queue of the class is full, and when the request waited the maximum time of the
+ * class in the queue. The request runs in the thread of the caller, the queue only holds the thread until its turn.
+ *
+ * The scheduler could be drained, for the handover of the accounts to other process: {@link #drain(long)} rejects
+ * the new requests and the ones waiting with {@link OperationError#SERVICE_OVERLOADED} and waits until the
+ * running ones end, and {@link #resume()} admits the requests again.
+ *
+ * The properties are:
+ * 	{@code bank.priority.workers} The number of requests running at the same time, by default twice the number of
+ * 	processors.
+ * 	{@code bank.priority.interactive.weight}, {@code bank.priority.settlement.weight} The weights, by default 4
+ * 	and 1.
+ * 	{@code bank.priority.interactive.capacity}, {@code bank.priority.settlement.capacity} The sizes of the queues,
+ * 	by default 100 and 50.
+ * 	{@code bank.priority.interactive.max-wait}, {@code bank.priority.settlement.max-wait} The maximum time in
+ * 	milliseconds in the queues, by default 1000 and 5000.
+ *
+ */
+@Component
+public class RequestScheduler {
+	private final int workers;
+	private final ClassQueue[] queues = new ClassQueue[RequestClass.values().length];
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition idle = lock.newCondition();
+	private int running;
+	private boolean draining;
+
+	public RequestScheduler(@Value("${bank.priority.workers:0}") int workers,
+			@Value("${bank.priority.interactive.weight:4}") int interactiveWeight,
+			@Value("${bank.priority.interactive.capacity:100}") int interactiveCapacity,
+			@Value("${bank.priority.interactive.max-wait:1000}") long interactiveMaxWait,
+			@Value("${bank.priority.settlement.weight:1}") int settlementWeight,
+			@Value("${bank.priority.settlement.capacity:50}") int settlementCapacity,
+			@Value("${bank.priority.settlement.max-wait:5000}") long settlementMaxWait) {
+		this.workers = workers > 0 ? workers : 2 * Runtime.getRuntime().availableProcessors();
+		queues[RequestClass.INTERACTIVE.ordinal()] = new ClassQueue(RequestClass.INTERACTIVE, interactiveWeight,
+				interactiveCapacity, interactiveMaxWait);
+		queues[RequestClass.SETTLEMENT.ordinal()] = new ClassQueue(RequestClass.SETTLEMENT, settlementWeight,
+				settlementCapacity, settlementMaxWait);
+	}
+
+	/**
+	 * Runs an operation when a worker is free and it is the turn of its class.
+	 *
+	 * @param requestClass The class of the request
+	 * @param operation The operation, it runs in the thread of the caller
+	 * @param rejected Builds the result of a rejected request from the error
+	 * @return Returns the result of the operation or the result built by {@code rejected} with the error
+	 * {@link OperationError#SERVICE_OVERLOADED} if the request was rejected
+	 */
+	public <T> T execute(RequestClass requestClass, Supplier<T> operation, Function<OperationError, T> rejected) {
+		ClassQueue queue = queues[requestClass.ordinal()];
+		TransferTrace.mark(Stage.UNMARSHAL);
+		lock.lock();
+		try {
+			// The queues are only used when all the workers are busy, otherwise they are empty
+			if (draining) {
+				queue.rejected++;
+				T result = rejected.apply(OperationError.SERVICE_OVERLOADED);
+				TrafficCapture.outcome(requestClass, result);
+				return result;
+			} else if (running < workers) {
+				running++;
+				queue.admitted(0);
+			} else if (!await(queue)) {
+				T result = rejected.apply(OperationError.SERVICE_OVERLOADED);
+				TrafficCapture.outcome(requestClass, result);
+				return result;
+			}
+		} finally {
+			lock.unlock();
+		}
+		TransferTrace.mark(Stage.QUEUE);
+		try {
+			T result = operation.get();
+			TransferTrace.serviceReturned();
+			TransferTrace.outcome(requestClass, result);
+			TrafficCapture.outcome(requestClass, result);
+			return result;
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Stops admitting requests and waits until the running ones end. The new requests and the ones waiting in the
+	 * queues are rejected.
+	 *
+	 * @param timeout The maximum time to wait in milliseconds
+	 * @return Returns true if no request is running, false if some request didn't end in time
+	 * @throws InterruptedException If the thread was interrupted while waiting
+	 */
+	public boolean drain(long timeout) throws InterruptedException {
+		lock.lock();
+		try {
+			draining = true;
+			for (ClassQueue queue : queues) {
+				for (Ticket ticket : queue.waiting) {
+					ticket.condition.signal();
+				}
+			}
+			long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+			while (running > 0) {
+				if (remaining <= 0) {
+					return false;
+				}
+				remaining = idle.awaitNanos(remaining);
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Admits the requests again after {@link #drain(long)}.
+	 */
+	public void resume() {
+		lock.lock();
+		try {
+			draining = false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return Returns the maximum number of requests running at the same time
+	 */
+	public int getWorkers() {
+		return workers;
+	}
+
+	/**
+	 * Obtains the state and the counters of the queue of each class.
+	 *
+	 * @return Returns the statistics in the order of {@link RequestClass}
+	 */
+	public List<RequestClassStatistics> getStatistics() {
+		List<RequestClassStatistics> statistics = new ArrayList<>(queues.length);
+		lock.lock();
+		try {
+			for (ClassQueue queue : queues) {
+				statistics.add(new RequestClassStatistics(queue.requestClass, queue.weight, queue.capacity,
+						queue.waiting.size(), queue.admitted, queue.rejected, queue.expired,
+						queue.admitted == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(queue.totalWaitNanos / queue.admitted),
+						TimeUnit.NANOSECONDS.toMicros(queue.longestWaitNanos)));
+			}
+		} finally {
+			lock.unlock();
+		}
+		return statistics;
+	}
+
+	/**
+	 * Waits in the queue of the class until a worker is given to the request. Must be called with the lock held.
+	 *
+	 * @return Returns true if the request got a worker, false if it was rejected
+	 */
+	private boolean await(ClassQueue queue) {
+		if (queue.waiting.size() >= queue.capacity) {
+			queue.rejected++;
+			return false;
+		}
+		long start = System.nanoTime();
+		Ticket ticket = new Ticket(lock.newCondition());
+		queue.waiting.add(ticket);
+		long remaining = queue.waitLimitNanos;
+		try {
+			while (!ticket.granted) {
+				if (draining) {
+					queue.waiting.remove(ticket);
+					queue.rejected++;
+					return false;
+				}
+				if (remaining <= 0) {
+					queue.waiting.remove(ticket);
+					queue.expired++;
+					return false;
+				}
+				remaining = ticket.condition.awaitNanos(remaining);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			if (ticket.granted) {
+				// The worker was given to this request, so it passes to the next one
+				running--;
+				dispatch();
+			} else {
+				queue.waiting.remove(ticket);
+			}
+			queue.expired++;
+			return false;
+		}
+		queue.admitted(System.nanoTime() - start);
+		return true;
+	}
+
+	private void release() {
+		lock.lock();
+		try {
+			running--;
+			if (draining) {
+				if (running == 0) {
+					idle.signalAll();
+				}
+			} else {
+				dispatch();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gives the free workers to the requests waiting. Must be called with the lock held.
+	 */
+	private void dispatch() {
+		while (running < workers) {
+			ClassQueue queue = next();
+			if (queue == null) {
+				return;
+			}
+			Ticket ticket = queue.waiting.poll();
+			ticket.granted = true;
+			running++;
+			ticket.condition.signal();
+		}
+	}
+
+	/**
+	 * Chooses the queue of the next request by the smooth weighted round robin: each queue with requests gains
+	 * its weight, the queue with more credit is chosen and loses the weights of all the queues with requests.
+	 * The choices are interleaved, for the weights 3 and 1 the sequence is A A B A.
+	 *
+	 * @return Returns the queue or null if all the queues are empty
+	 */
+	private ClassQueue next() {
+		ClassQueue chosen = null;
+		int total = 0;
+		for (ClassQueue queue : queues) {
+			if (queue.waiting.isEmpty()) {
+				// An idle class doesn't accumulate credit for a later burst
+				queue.credit = 0;
+				continue;
+			}
+			queue.credit += queue.weight;
+			total += queue.weight;
+			if (chosen == null || queue.credit > chosen.credit) {
+				chosen = queue;
+			}
+		}
+		if (chosen != null) {
+			chosen.credit -= total;
+		}
+		return chosen;
+	}
+
+	/**
+	 * The queue and the counters of a class. The fields are guarded by the lock of the scheduler.
+	 */
+	private static class ClassQueue {
+		final RequestClass requestClass;
+		final int weight;
+		final int capacity;
+		final long waitLimitNanos;
+		final ArrayDeque<Ticket> waiting = new ArrayDeque<>();
+		int credit;
+		long admitted;
+		long rejected;
+		long expired;
+		long totalWaitNanos;
+		long longestWaitNanos;
+
+		ClassQueue(RequestClass requestClass, int weight, int capacity, long maxWaitMillis) {
+			this.requestClass = requestClass;
+			this.weight = Math.max(1, weight);
+			this.capacity = capacity;
+			this.waitLimitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+		}
+
+		void admitted(long waitNanos) {
+			admitted++;
+			totalWaitNanos += waitNanos;
+			longestWaitNanos = Math.max(longestWaitNanos, waitNanos);
+		}
+	}
+
+	/**
+	 * A request waiting in a queue.
+	 */
+	private static class Ticket {
+		final Condition condition;
+		boolean granted;
+
+		Ticket(Condition condition) {
+			this.condition = condition;
+		}
+	}
+}
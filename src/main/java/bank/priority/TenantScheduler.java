@@ -0,0 +1,96 @@
+package bank.priority;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import bank.capture.TrafficCapture;
+import bank.dao.AccountDAO;
+import bank.dao.BankStatistics;
+import bank.data.OperationError;
+
+/**
+ * This class gives each tenant of the {@link AccountDAO} its own budget of workers and its own queues in front of
+ * the {@link RequestScheduler} shared by all the tenants, so a burst of one tenant waits in the queues of the
+ * tenant, up to its budget, and the requests of the other tenants keep getting workers.
+ *
+ * A request first waits for a worker of its tenant, with the classes and the weights of the
+ * {@link RequestScheduler}, and then for a worker of the shared scheduler. The requests of an unknown tenant are
+ * rejected with {@link OperationError#TENANT_DOESNT_EXIST}.
+ *
+ * The property {@code bank.tenants.workers} is the number of requests of a tenant running at the same time. By
+ * default it is the workers of the shared scheduler when there is only the default tenant, and half of them when
+ * there are more tenants. The weights, the capacities and the maximum waits of the queues are the ones of the
+ * properties {@code bank.priority.*}.
+ *
+ */
+@Component
+public class TenantScheduler {
+	private final RequestScheduler requestScheduler;
+	private final Map<String, RequestScheduler> schedulers = new LinkedHashMap<>();
+	private final int workers;
+
+	public TenantScheduler(RequestScheduler requestScheduler,
+			@Value("${bank.tenants.workers:0}") int workers,
+			@Value("${bank.priority.interactive.weight:4}") int interactiveWeight,
+			@Value("${bank.priority.interactive.capacity:100}") int interactiveCapacity,
+			@Value("${bank.priority.interactive.max-wait:1000}") long interactiveMaxWait,
+			@Value("${bank.priority.settlement.weight:1}") int settlementWeight,
+			@Value("${bank.priority.settlement.capacity:50}") int settlementCapacity,
+			@Value("${bank.priority.settlement.max-wait:5000}") long settlementMaxWait) {
+		this.requestScheduler = requestScheduler;
+		if (workers <= 0) {
+			workers = AccountDAO.getTenants().size() == 1 ? requestScheduler.getWorkers()
+					: Math.max(1, requestScheduler.getWorkers() / 2);
+		}
+		this.workers = workers;
+		for (String tenant : AccountDAO.getTenants()) {
+			schedulers.put(tenant, new RequestScheduler(workers, interactiveWeight, interactiveCapacity,
+					interactiveMaxWait, settlementWeight, settlementCapacity, settlementMaxWait));
+		}
+	}
+
+	/**
+	 * Runs an operation on the accounts of a tenant when the tenant and the shared scheduler have a worker free.
+	 *
+	 * @param tenant The tenant, null for the default one
+	 * @param requestClass The class of the request
+	 * @param operation The operation, it runs in the thread of the caller
+	 * @param rejected Builds the result of a rejected request from the error
+	 * @return Returns the result of the operation or the result built by {@code rejected} with the error
+	 * {@link OperationError#TENANT_DOESNT_EXIST} or {@link OperationError#SERVICE_OVERLOADED}
+	 */
+	public <T> T execute(String tenant, RequestClass requestClass, Supplier<T> operation,
+			Function<OperationError, T> rejected) {
+		RequestScheduler scheduler = schedulers.get(tenant == null ? AccountDAO.DEFAULT_TENANT : tenant);
+		if (scheduler == null) {
+			T result = rejected.apply(OperationError.TENANT_DOESNT_EXIST);
+			TrafficCapture.outcome(requestClass, result);
+			return result;
+		}
+		return scheduler.execute(requestClass, () -> requestScheduler.execute(requestClass, operation, rejected),
+				rejected);
+	}
+
+	/**
+	 * Obtains the accounts and the queues of each tenant.
+	 *
+	 * @return Returns the statistics of the tenants, the default one first
+	 */
+	public List<TenantStatistics> getStatistics() {
+		List<TenantStatistics> statistics = new ArrayList<>(schedulers.size());
+		for (Map.Entry<String, RequestScheduler> entry : schedulers.entrySet()) {
+			AccountDAO dao = new AccountDAO(entry.getKey());
+			BankStatistics accounts = dao.getStatistics();
+			statistics.add(new TenantStatistics(entry.getKey(), accounts.getAccounts(), accounts.getTotalBalance(),
+					dao.getContention().getStatistics().getConflicts(), workers, entry.getValue().getStatistics()));
+		}
+		return statistics;
+	}
+}
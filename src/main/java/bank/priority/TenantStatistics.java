@@ -0,0 +1,65 @@
+package bank.priority;
+
+import java.util.List;
+
+/**
+ * The accounts and the requests of a tenant, to find the tenants whose load slows down the rest.
+ *
+ */
+public class TenantStatistics {
+	private final String tenant;
+	private final long accounts;
+	private final long totalBalance;
+	private final long conflicts;
+	private final int workers;
+	private final List<RequestClassStatistics> requestClasses;
+
+	public TenantStatistics(String tenant, long accounts, long totalBalance, long conflicts, int workers,
+			List<RequestClassStatistics> requestClasses) {
+		this.tenant = tenant;
+		this.accounts = accounts;
+		this.totalBalance = totalBalance;
+		this.conflicts = conflicts;
+		this.workers = workers;
+		this.requestClasses = requestClasses;
+	}
+
+	public String getTenant() {
+		return tenant;
+	}
+
+	/**
+	 * @return Returns the number of accounts of the tenant
+	 */
+	public long getAccounts() {
+		return accounts;
+	}
+
+	/**
+	 * @return Returns the sum of the balances of the accounts of the tenant
+	 */
+	public long getTotalBalance() {
+		return totalBalance;
+	}
+
+	/**
+	 * @return Returns the number of commits of the tenant that failed because the accounts changed in between
+	 */
+	public long getConflicts() {
+		return conflicts;
+	}
+
+	/**
+	 * @return Returns the maximum number of requests of the tenant running at the same time
+	 */
+	public int getWorkers() {
+		return workers;
+	}
+
+	/**
+	 * @return Returns the queues of the requests of the tenant, in the order of {@link RequestClass}
+	 */
+	public List<RequestClassStatistics> getRequestClasses() {
+		return requestClasses;
+	}
+}
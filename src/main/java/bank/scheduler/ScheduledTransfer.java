@@ -0,0 +1,103 @@
+package bank.scheduler;
+
+import bank.data.OperationError;
+
+/**
+ * Plain data object with a transfer scheduled for a later time and, optionally, repeated with a fixed interval.
+ * The execution time and the interval are in milliseconds. The execution time is since the epoch. The accounts are
+ * the ones of the tenant of the transfer.
+ * 
+ */
+public class ScheduledTransfer {
+	private final long id;
+	private final String tenant;
+	private final String from;
+	private final String to;
+	private final long value;
+	private final long interval;
+	private long executionTime;
+	private long executions;
+	private OperationError lastError;
+
+	public ScheduledTransfer(long id, String tenant, String from, String to, long value, long executionTime, 
+			long interval) {
+		this.id = id;
+		this.tenant = tenant;
+		this.from = from;
+		this.to = to;
+		this.value = value;
+		this.executionTime = executionTime;
+		this.interval = interval;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * @return Returns the tenant of the accounts
+	 */
+	public String getTenant() {
+		return tenant;
+	}
+
+	public String getFrom() {
+		return from;
+	}
+
+	public String getTo() {
+		return to;
+	}
+
+	public long getValue() {
+		return value;
+	}
+
+	/**
+	 * @return Returns the interval between executions in milliseconds. Zero if the transfer is executed once.
+	 */
+	public long getInterval() {
+		return interval;
+	}
+
+	/**
+	 * @return Returns the time of the next execution in milliseconds since the epoch
+	 */
+	public long getExecutionTime() {
+		return executionTime;
+	}
+
+	void setExecutionTime(long executionTime) {
+		this.executionTime = executionTime;
+	}
+
+	/**
+	 * @return Returns the number of times the transfer was executed, successfully or not
+	 */
+	public long getExecutions() {
+		return executions;
+	}
+
+	/**
+	 * @return Returns the result of the last execution or null if the transfer was never executed
+	 */
+	public OperationError getLastError() {
+		return lastError;
+	}
+
+	void executed(OperationError error) {
+		this.executions++;
+		this.lastError = error;
+	}
+
+	public boolean isRecurring() {
+		return interval > 0;
+	}
+
+	public ScheduledTransfer copy() {
+		ScheduledTransfer copy = new ScheduledTransfer(id, tenant, from, to, value, executionTime, interval);
+		copy.executions = executions;
+		copy.lastError = lastError;
+		return copy;
+	}
+}
@@ -0,0 +1,199 @@
+package bank.scheduler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import bank.dao.AccountDAO;
+
+/**
+ * Append only file with the changes of the pending {@link ScheduledTransfer}s. Allows the pending transfers 
+ * to survive a restart of the application.
+ * 
+ * There are three kinds of records: the transfer with its tenant and its next execution time (a new transfer or the 
+ * next execution of a recurring one), the removal of a transfer (cancelled or executed) and the start of an 
+ * execution. When the file is loaded the records are replayed and the file is rewritten with only the pending 
+ * transfers, and it is rewritten the same way by {@link #compact(Collection)} when it has too many records. The 
+ * transfers of the files written before the transfers had a tenant are loaded in the default tenant.
+ * 
+ * An execution started without its removal or its next execution time after it is in doubt: the application 
+ * stopped while the transfer was executed, or right after. The loaded transfers don't execute it again, so a 
+ * transfer is executed at most once: a transfer executed once is removed and a recurring transfer goes to its 
+ * next execution.
+ * 
+ * The class is not thread safe. The caller must serialize the access.
+ * 
+ */
+class ScheduledTransferJournal implements Closeable {
+	/**
+	 * The transfers of the default tenant written before the transfers had a tenant
+	 */
+	private static final byte SCHEDULED_DEFAULT = 'S';
+	private static final byte SCHEDULED = 'T';
+	private static final byte REMOVED = 'R';
+	private static final byte EXECUTING = 'E';
+	/**
+	 * Minimum number of records to compact the file
+	 */
+	private static final int MIN_COMPACTION = 1024;
+
+	private final File file;
+	private DataOutputStream out;
+	private int records;
+	private int inDoubt;
+
+	ScheduledTransferJournal(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Reads the pending transfers and compacts the file. Must be called before any write.
+	 * A truncated last record, because the application stopped in the middle of a write, is ignored.
+	 * 
+	 * @return Returns the pending transfers by id
+	 * @throws IOException If the file could not be read or written
+	 */
+	Map<Long, ScheduledTransfer> load() throws IOException {
+		Map<Long, ScheduledTransfer> transfers = new TreeMap<>();
+		Map<Long, Long> executing = new HashMap<>();
+		if (file.exists()) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+				while (true) {
+					byte type = in.readByte();
+					long id = in.readLong();
+					if (type == SCHEDULED || type == SCHEDULED_DEFAULT) {
+						String tenant = type == SCHEDULED ? in.readUTF() : AccountDAO.DEFAULT_TENANT;
+						transfers.put(id, new ScheduledTransfer(id, tenant, in.readUTF(), in.readUTF(), in.readLong(), 
+								in.readLong(), in.readLong()));
+						executing.remove(id);
+					} else if (type == EXECUTING) {
+						executing.put(id, in.readLong());
+					} else {
+						transfers.remove(id);
+						executing.remove(id);
+					}
+				}
+			} catch (EOFException e) {
+				// End of the journal
+			}
+		}
+
+		// The executions in doubt are not executed again
+		inDoubt = 0;
+		for (Map.Entry<Long, Long> execution : executing.entrySet()) {
+			ScheduledTransfer transfer = transfers.get(execution.getKey());
+			if (transfer == null) {
+				continue;
+			}
+			inDoubt++;
+			if (transfer.isRecurring()) {
+				transfer.setExecutionTime(execution.getValue() + transfer.getInterval());
+			} else {
+				transfers.remove(execution.getKey());
+			}
+		}
+
+		compact(transfers.values());
+		return transfers;
+	}
+
+	/**
+	 * @return Returns the number of executions in doubt found by {@link #load()}
+	 */
+	int getInDoubt() {
+		return inDoubt;
+	}
+
+	/**
+	 * @param pending The number of pending transfers
+	 * @return Returns true if the file has many more records than pending transfers
+	 */
+	boolean isCompactionDue(int pending) {
+		return records > MIN_COMPACTION + 2 * pending;
+	}
+
+	/**
+	 * Rewrites the file with only the pending transfers.
+	 * 
+	 * @param pending The pending transfers
+	 * @throws IOException If the file could not be written
+	 */
+	void compact(Collection<ScheduledTransfer> pending) throws IOException {
+		if (out != null) {
+			out.close();
+			out = null;
+		}
+		File compacted = new File(file.getPath() + ".tmp");
+		try (DataOutputStream tmp = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(compacted)))) {
+			for (ScheduledTransfer transfer : pending) {
+				write(tmp, transfer);
+			}
+		}
+		Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, 
+				StandardCopyOption.ATOMIC_MOVE);
+
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+		records = pending.size();
+	}
+
+	/**
+	 * Records a new transfer or the new execution time of a transfer.
+	 */
+	void scheduled(ScheduledTransfer transfer) throws IOException {
+		write(out, transfer);
+		out.flush();
+		records++;
+	}
+
+	/**
+	 * Records the execution of a transfer starts. 
+	 */
+	void executing(ScheduledTransfer transfer) throws IOException {
+		out.writeByte(EXECUTING);
+		out.writeLong(transfer.getId());
+		out.writeLong(transfer.getExecutionTime());
+		out.flush();
+		records++;
+	}
+
+	/**
+	 * Records the transfer is not longer pending.
+	 */
+	void removed(long id) throws IOException {
+		out.writeByte(REMOVED);
+		out.writeLong(id);
+		out.flush();
+		records++;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (out != null) {
+			out.close();
+		}
+	}
+
+	private static void write(DataOutputStream out, ScheduledTransfer transfer) throws IOException {
+		out.writeByte(SCHEDULED);
+		out.writeLong(transfer.getId());
+		out.writeUTF(transfer.getTenant());
+		out.writeUTF(transfer.getFrom());
+		out.writeUTF(transfer.getTo());
+		out.writeLong(transfer.getValue());
+		out.writeLong(transfer.getExecutionTime());
+		out.writeLong(transfer.getInterval());
+	}
+}
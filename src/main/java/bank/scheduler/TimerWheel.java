@@ -0,0 +1,201 @@
+package bank.scheduler;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical hashed timing wheel. Holds values until a given time and hands them out when the time is reached.
+ * 
+ * The time is divided in ticks. The wheel has several levels of 64 slots each. The first level has one slot 
+ * per tick, the second level one slot per 64 ticks, the third one slot per 64*64 ticks and so on. A value is 
+ * linked in the slot of the lowest level that reaches its deadline. When the wheel enters the range of 
+ * ticks of a slot of a higher level the values of the slot are cascaded to the lower levels.
+ * The insertion and the cancellation are O(1) because the slots are doubly linked lists and the handle returned 
+ * by {@link #schedule(Object, long)} knows its slot. Advancing one tick is O(1) plus the values that expire or 
+ * cascade in that tick.
+ * 
+ * With six levels the wheel reaches 64^6 ticks, more than 200 years with ticks of 100 milliseconds. Values with a
+ * later deadline are kept in the last level and cascaded again until they are reached.
+ * 
+ * The class is not thread safe. The caller must serialize the access.
+ * 
+ * @param <T> The type of the values held by the wheel
+ */
+public class TimerWheel<T> {
+	private static final int WHEEL_BITS = 6;
+	private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+	private static final int LEVELS = 6;
+
+	private final long tickMillis;
+	private final long startMillis;
+	private final Timeout<T>[][] wheels;
+	/**
+	 * The last tick processed. The values with this deadline or an earlier one were already handed out.
+	 */
+	private long currentTick;
+	private int size;
+
+	/**
+	 * Handle of a value held by the wheel. Allows to cancel it.
+	 * 
+	 * @param <T> The type of the value
+	 */
+	public static final class Timeout<T> {
+		private final T value;
+		private long deadline;
+		private int level;
+		private int slot;
+		private boolean pending;
+		private Timeout<T> prev;
+		private Timeout<T> next;
+
+		private Timeout(T value, long deadline) {
+			this.value = value;
+			this.deadline = deadline;
+		}
+
+		public T getValue() {
+			return value;
+		}
+
+		/**
+		 * @return Returns true while the value is in the wheel, it means it is neither expired nor cancelled
+		 */
+		public boolean isPending() {
+			return pending;
+		}
+	}
+
+	/**
+	 * @param tickMillis The duration of a tick in milliseconds. It is the precision of the wheel.
+	 * @param startMillis The time of the tick zero, usually the current time
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public TimerWheel(long tickMillis, long startMillis) {
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException("The tick must be positive");
+		}
+		this.tickMillis = tickMillis;
+		this.startMillis = startMillis;
+		this.wheels = new Timeout[LEVELS][WHEEL_SIZE];
+	}
+
+	/**
+	 * Adds a value to the wheel. 
+	 * The value is handed out by the first call to {@link #advance(long, Consumer)} with a time equal or later 
+	 * than the given time. If the time already passed it is handed out by the next call. 
+	 * 
+	 * @param value The value to hold
+	 * @param timeMillis The time in milliseconds when the value expires
+	 * @return Returns the handle to cancel the value
+	 */
+	public Timeout<T> schedule(T value, long timeMillis) {
+		// Round up, a value never expires before its time
+		long deadline = Math.floorDiv(timeMillis - startMillis + tickMillis - 1, tickMillis);
+		Timeout<T> timeout = new Timeout<>(value, Math.max(deadline, currentTick + 1));
+		insert(timeout);
+		size++;
+		return timeout;
+	}
+
+	/**
+	 * Removes a value from the wheel.
+	 * 
+	 * @param timeout The handle returned when the value was added
+	 * @return Returns true if the value was removed. Returns false if the value was already expired or cancelled.
+	 */
+	public boolean cancel(Timeout<T> timeout) {
+		if (!timeout.pending) {
+			return false;
+		}
+		unlink(timeout);
+		size--;
+		return true;
+	}
+
+	/**
+	 * Advances the wheel until the given time and hands out the values that expire, tick after tick.
+	 * The consumer could add new values to the wheel.
+	 * 
+	 * @param nowMillis The current time in milliseconds
+	 * @param expired The consumer of the values that expire
+	 */
+	public void advance(long nowMillis, Consumer<T> expired) {
+		long target = Math.floorDiv(nowMillis - startMillis, tickMillis);
+		while (currentTick < target) {
+			currentTick++;
+			// Entering the range of a slot of a higher level, its values go to the lower levels
+			for (int level = LEVELS - 1; level > 0; level--) {
+				if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+					cascade(level, (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK));
+				}
+			}
+
+			// All the values of the slot of the first level expire in this tick
+			int slot = (int) (currentTick & WHEEL_MASK);
+			Timeout<T> timeout = wheels[0][slot];
+			wheels[0][slot] = null;
+			while (timeout != null) {
+				Timeout<T> next = timeout.next;
+				timeout.pending = false;
+				timeout.prev = null;
+				timeout.next = null;
+				size--;
+				expired.accept(timeout.value);
+				timeout = next;
+			}
+		}
+	}
+
+	/**
+	 * @return Returns the number of values in the wheel
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void insert(Timeout<T> timeout) {
+		long delta = timeout.deadline - currentTick;
+		int level = 0;
+		while (level < LEVELS - 1 && delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+			level++;
+		}
+		// A deadline beyond the reach of the wheel waits in the last slot reachable
+		long deadline = Math.min(timeout.deadline, currentTick + (1L << (WHEEL_BITS * LEVELS)) - 1);
+		int slot = (int) ((deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+
+		timeout.level = level;
+		timeout.slot = slot;
+		timeout.pending = true;
+		timeout.prev = null;
+		timeout.next = wheels[level][slot];
+		if (timeout.next != null) {
+			timeout.next.prev = timeout;
+		}
+		wheels[level][slot] = timeout;
+	}
+
+	private void unlink(Timeout<T> timeout) {
+		if (timeout.prev == null) {
+			wheels[timeout.level][timeout.slot] = timeout.next;
+		} else {
+			timeout.prev.next = timeout.next;
+		}
+		if (timeout.next != null) {
+			timeout.next.prev = timeout.prev;
+		}
+		timeout.pending = false;
+		timeout.prev = null;
+		timeout.next = null;
+	}
+
+	private void cascade(int level, int slot) {
+		Timeout<T> timeout = wheels[level][slot];
+		wheels[level][slot] = null;
+		while (timeout != null) {
+			Timeout<T> next = timeout.next;
+			insert(timeout);
+			timeout = next;
+		}
+	}
+}
@@ -0,0 +1,405 @@
+package bank.scheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import bank.dao.AccountDAO;
+import bank.data.OperationError;
+import bank.data.OperationStatus;
+import bank.data.ScheduleStatus;
+import bank.services.BankBaseServices;
+
+/**
+ * This class allows to schedule transfers for a later time, once or repeated with a fixed interval.
+ * 
+ * The pending transfers are held in a {@link TimerWheel}, so adding and cancelling a transfer doesn't depend on 
+ * the number of pending transfers. A single thread advances the wheel every tick and executes the transfers that 
+ * are due in that tick as a batch with {@link BankBaseServices#transfer(String, String, long)}, each one on the 
+ * accounts of its tenant. The transfers of a tenant are only listed and cancelled through that tenant.
+ * A transfer that fails with {@link OperationError#ACCOUNT_OUT_OF_SEQUENCE} is retried in the next tick. 
+ * Other errors are final for that execution and are kept in the transfer as the last error.
+ * 
+ * If the property {@code bank.scheduler.journal} has the path of a file, the pending transfers are written to it
+ * and loaded again when the application starts. Otherwise the transfers are only kept in memory. The start of each
+ * execution is written too, so a transfer whose execution was interrupted by a stop of the application is not 
+ * executed again when it starts: the transfers are executed at most once (see {@link ScheduledTransferJournal}).
+ * The transfers in doubt are logged, to reconcile them with the balances of the accounts.
+ * The property {@code bank.scheduler.tick-millis} is the precision of the scheduler, by default 100 milliseconds.
+ * 
+ * On a handover (see {@link bank.handover.HandoverServer}) the journal is shared by both processes and it has one
+ * owner at a time: the running process suspends its scheduler before it hands over the accounts, and the process
+ * that takes over (property {@code bank.handover.from}) starts it when it took over them.
+ * 
+ */
+@Component
+public class TransferScheduler {
+	private static final Logger LOG = LoggerFactory.getLogger(TransferScheduler.class);
+
+	/**
+	 * Number of times a transfer is retried in the next tick when the accounts are out of sequence
+	 */
+	private static final int MAX_RETRIES = 3;
+
+	private final long tickMillis;
+	private final String journalPath;
+	private final AtomicLong nextId = new AtomicLong(1);
+	private final Map<Long, TimerWheel.Timeout<ScheduledTransfer>> pending = new HashMap<>();
+	private final Map<Long, Integer> retries = new HashMap<>();
+	private TimerWheel<ScheduledTransfer> wheel;
+	private ScheduledTransferJournal journal;
+	private final boolean takesOver;
+	private ScheduledExecutorService ticker;
+	private boolean suspended;
+
+	public TransferScheduler(@Value("${bank.scheduler.tick-millis:100}") long tickMillis,
+			@Value("${bank.scheduler.journal:}") String journalPath,
+			@Value("${bank.handover.from:}") String handoverFrom) {
+		this.tickMillis = tickMillis;
+		this.journalPath = journalPath;
+		this.takesOver = !handoverFrom.isEmpty();
+	}
+
+	/**
+	 * Starts the scheduler, unless the process takes over from other one: the journal belongs to the running 
+	 * process until the handover, and the {@link bank.handover.HandoverClient} starts the scheduler after it.
+	 * 
+	 * @throws IOException If the journal could not be read
+	 */
+	@PostConstruct
+	public void init() throws IOException {
+		if (!takesOver) {
+			start();
+		}
+	}
+
+	/**
+	 * Loads the pending transfers from the journal, if any, and starts the thread that executes the transfers. 
+	 * 
+	 * @throws IOException If the journal could not be read
+	 */
+	public synchronized void start() throws IOException {
+		if (wheel == null || !journalPath.isEmpty()) {
+			// After a suspension the pending transfers are loaded again from the journal, if any
+			pending.clear();
+			retries.clear();
+			wheel = new TimerWheel<>(tickMillis, System.currentTimeMillis());
+		}
+		if (!journalPath.isEmpty()) {
+			journal = new ScheduledTransferJournal(new File(journalPath));
+			for (ScheduledTransfer transfer : journal.load().values()) {
+				pending.put(transfer.getId(), wheel.schedule(transfer, transfer.getExecutionTime()));
+				nextId.set(Math.max(nextId.get(), transfer.getId() + 1));
+			}
+			if (journal.getInDoubt() > 0) {
+				LOG.warn("{} scheduled transfers were executing when the application stopped, they are not executed "
+						+ "again", journal.getInDoubt());
+			}
+		}
+
+		ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "transfer-scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public synchronized void stop() throws IOException {
+		if (ticker != null) {
+			ticker.shutdownNow();
+		}
+		if (journal != null) {
+			journal.close();
+		}
+	}
+
+	/**
+	 * Stops executing the transfers and closes the journal, so other process could take them over. The transfers 
+	 * of the current tick end first.
+	 * 
+	 * @throws IOException If the journal could not be closed
+	 * @throws InterruptedException If the thread was interrupted while waiting the transfers
+	 */
+	public void suspend() throws IOException, InterruptedException {
+		ScheduledExecutorService stopped;
+		synchronized (this) {
+			if (ticker == null || suspended) {
+				return;
+			}
+			suspended = true;
+			stopped = ticker;
+			stopped.shutdown();
+		}
+		// Without the lock, the tick takes it to record the transfers executed
+		stopped.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		synchronized (this) {
+			if (journal != null) {
+				journal.close();
+			}
+		}
+	}
+
+	/**
+	 * Starts again the scheduler suspended by {@link #suspend()}, from the journal, when the handover failed.
+	 * 
+	 * @throws IOException If the journal could not be read
+	 */
+	public synchronized void resume() throws IOException {
+		if (!suspended) {
+			return;
+		}
+		suspended = false;
+		if (journal != null) {
+			journal.close();
+		}
+		start();
+	}
+
+	/**
+	 * Schedules a transfer. Validates the same as {@link BankBaseServices#transfer(String, String, long)} except 
+	 * the funds, which are validated when the transfer is executed.
+	 * 
+	 * @param tenant The tenant of the accounts, null for the default one
+	 * @param fromAccountName The name of the source account to transfer money
+	 * @param toAccountName The name of the target account to transfer money
+	 * @param transferValue The positive greater than zero value to transfer between the accounts 
+	 * @param executionTime The time of the (first) execution in milliseconds since the epoch. 
+	 * If the time already passed the transfer is executed in the next tick.
+	 * @param interval The interval between executions in milliseconds. Zero to execute the transfer once.
+	 * @return Returns a {@link ScheduleStatus} with the id of the scheduled transfer
+	 */
+	public ScheduleStatus schedule(String tenant, String fromAccountName, String toAccountName, long transferValue, 
+			long executionTime, long interval) {
+		String transferTenant = tenant == null ? AccountDAO.DEFAULT_TENANT : tenant;
+		if (!AccountDAO.isTenant(transferTenant)) {
+			return new ScheduleStatus(OperationError.TENANT_DOESNT_EXIST);
+		}
+		AccountDAO dao = new AccountDAO(transferTenant);
+
+		// check the transfer value is positive and the interval is not negative
+		if (transferValue <= 0 || interval < 0) {
+			return new ScheduleStatus(OperationError.INVALID_VALUE);
+		}
+		
+		// Could not transfer to the same account
+		if (fromAccountName.equals(toAccountName)) {
+			return new ScheduleStatus(OperationError.ACCOUNTS_ARE_EQUAL);
+		}
+		
+		// Check account exists
+		if (dao.getAccount(fromAccountName) == null || dao.getAccount(toAccountName) == null) {
+			return new ScheduleStatus(OperationError.ACCOUNT_DOESNT_EXIST);
+		}
+
+		ScheduledTransfer transfer = new ScheduledTransfer(nextId.getAndIncrement(), transferTenant, fromAccountName, 
+				toAccountName, transferValue, executionTime, interval);
+		synchronized (this) {
+			journalScheduled(transfer);
+			pending.put(transfer.getId(), wheel.schedule(transfer, executionTime));
+		}
+		return new ScheduleStatus(transfer.getId());
+	}
+
+	/**
+	 * Cancels a pending transfer. 
+	 * 
+	 * @param tenant The tenant of the transfer, null for the default one
+	 * @param id The id of the scheduled transfer
+	 * @return Returns an {@link OperationStatus}. The error is {@link OperationError#SCHEDULED_TRANSFER_DOESNT_EXIST}
+	 * if the transfer is not pending or it is of other tenant.
+	 */
+	public synchronized OperationStatus cancel(String tenant, long id) {
+		TimerWheel.Timeout<ScheduledTransfer> timeout = pending.get(id);
+		if (timeout == null || !timeout.getValue().getTenant().equals(tenant == null ? AccountDAO.DEFAULT_TENANT 
+				: tenant)) {
+			return new OperationStatus(false, OperationError.SCHEDULED_TRANSFER_DOESNT_EXIST);
+		}
+		pending.remove(id);
+		wheel.cancel(timeout);
+		retries.remove(id);
+		journalRemoved(id);
+		compactJournal();
+		return new OperationStatus(true);
+	}
+
+	/**
+	 * @param tenant The tenant of the transfers, null for the default one
+	 * @return Returns a copy of the pending transfers of the tenant ordered by id
+	 */
+	public synchronized List<ScheduledTransfer> list(String tenant) {
+		String transferTenant = tenant == null ? AccountDAO.DEFAULT_TENANT : tenant;
+		List<ScheduledTransfer> transfers = new ArrayList<>();
+		for (TimerWheel.Timeout<ScheduledTransfer> timeout : pending.values()) {
+			if (timeout.getValue().getTenant().equals(transferTenant)) {
+				transfers.add(timeout.getValue().copy());
+			}
+		}
+		transfers.sort((one, two) -> Long.compare(one.getId(), two.getId()));
+		return transfers;
+	}
+
+	/**
+	 * Executes the transfers that are due. The transfers are collected holding the lock, but they are executed 
+	 * without it so the scheduling and the cancellation don't wait for the transfers. The errors are logged, so
+	 * they don't stop the next ticks.
+	 */
+	void tick() {
+		try {
+			List<ScheduledTransfer> due = collect();
+			if (due.isEmpty()) {
+				return;
+			}
+
+			Map<String, BankBaseServices> services = new HashMap<>();
+			List<ScheduledTransfer> executed = new ArrayList<>(due.size());
+			List<OperationError> results = new ArrayList<>(due.size());
+			List<ScheduledTransfer> failed = new ArrayList<>();
+			for (ScheduledTransfer transfer : due) {
+				try {
+					BankBaseServices service = services.computeIfAbsent(transfer.getTenant(), BankBaseServices::new);
+					results.add(service.transfer(transfer.getFrom(), transfer.getTo(), transfer.getValue())
+							.getErrorCode());
+					executed.add(transfer);
+				} catch (RuntimeException e) {
+					LOG.error("The scheduled transfer {} failed, it is executed again in the next tick", 
+							transfer.getId(), e);
+					failed.add(transfer);
+				}
+			}
+
+			synchronized (this) {
+				long now = System.currentTimeMillis();
+				for (ScheduledTransfer transfer : failed) {
+					// Unless it was cancelled while it was executed
+					if (pending.containsKey(transfer.getId())) {
+						pending.put(transfer.getId(), wheel.schedule(transfer, now));
+					}
+				}
+				for (int i = 0; i < executed.size(); i++) {
+					try {
+						executed(executed.get(i), results.get(i), now);
+					} catch (UncheckedIOException e) {
+						// The transfer is updated in memory, only the journal missed it
+						LOG.error("The journal of the scheduled transfers failed", e);
+					}
+				}
+				compactJournal();
+			}
+		} catch (RuntimeException e) {
+			LOG.error("The tick of the scheduled transfers failed", e);
+		}
+	}
+
+	/**
+	 * Takes the transfers that are due from the wheel and records their executions start. If the record fails the
+	 * transfers are executed in the next tick.
+	 */
+	private synchronized List<ScheduledTransfer> collect() {
+		List<ScheduledTransfer> due = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		wheel.advance(now, due::add);
+		if (journal != null) {
+			try {
+				for (ScheduledTransfer transfer : due) {
+					journal.executing(transfer);
+				}
+			} catch (IOException e) {
+				for (ScheduledTransfer transfer : due) {
+					pending.put(transfer.getId(), wheel.schedule(transfer, now));
+				}
+				throw new UncheckedIOException(e);
+			}
+		}
+		return due;
+	}
+
+	private void executed(ScheduledTransfer transfer, OperationError error, long now) {
+		long id = transfer.getId();
+		// Cancelled while it was executed
+		if (!pending.containsKey(id)) {
+			return;
+		}
+
+		if (error == OperationError.ACCOUNT_OUT_OF_SEQUENCE) {
+			int retry = retries.merge(id, 1, Integer::sum);
+			if (retry <= MAX_RETRIES) {
+				pending.put(id, wheel.schedule(transfer, now));
+				return;
+			}
+		}
+		retries.remove(id);
+		transfer.executed(error);
+
+		if (!transfer.isRecurring()) {
+			pending.remove(id);
+			journalRemoved(id);
+			return;
+		}
+		// The next execution, skipping the ones that were missed
+		long next = transfer.getExecutionTime() + transfer.getInterval();
+		if (next <= now) {
+			next += ((now - next) / transfer.getInterval() + 1) * transfer.getInterval();
+		}
+		transfer.setExecutionTime(next);
+		pending.put(id, wheel.schedule(transfer, next));
+		journalScheduled(transfer);
+	}
+
+	/**
+	 * Rewrites the journal with the pending transfers when it has many more records.
+	 */
+	private void compactJournal() {
+		if (journal == null || !journal.isCompactionDue(pending.size())) {
+			return;
+		}
+		List<ScheduledTransfer> transfers = new ArrayList<>(pending.size());
+		for (TimerWheel.Timeout<ScheduledTransfer> timeout : pending.values()) {
+			transfers.add(timeout.getValue());
+		}
+		try {
+			journal.compact(transfers);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void journalScheduled(ScheduledTransfer transfer) {
+		if (journal == null) {
+			return;
+		}
+		try {
+			journal.scheduled(transfer);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void journalRemoved(long id) {
+		if (journal == null) {
+			return;
+		}
+		try {
+			journal.removed(id);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -1,9 +1,27 @@
 package bank.services;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import bank.dao.AccountDAO;
+import bank.dao.BankStatistics;
+import bank.dao.ContentionStatistics;
+import bank.dao.Fingerprint;
+import bank.dao.HoldDAO;
+import bank.dao.VersionNotAvailableException;
 import bank.data.Account;
+import bank.data.AccountSearchStatus;
+import bank.data.BalanceStatus;
+import bank.data.Hold;
+import bank.data.HoldStatus;
 import bank.data.OperationError;
 import bank.data.OperationStatus;
+import bank.data.TransferLeg;
+import bank.trace.TransferTrace;
+import bank.velocity.VelocityRules;
 
 /**
  * This class encapsulates the services of a bank.
@@ -11,22 +29,60 @@ import bank.data.OperationStatus;
  * 
  * Allows to create a new account.
  * Allows to transfer money form one existing account to another existing account.
+ * Allows to transfer money between several existing accounts atomically.
+ * Allows to query the balance of an existing account.
+ * Allows to reserve funds of an existing account (authorize) and later transfer them (capture) or release them.
+ * Allows to query the contention of the accounts.
+ * Allows to query the aggregates of all the accounts.
+ * Allows to search the names of the accounts by prefix and by range of names.
+ * 
+ * The services work on the accounts of a tenant, the default one unless other is given. The names of the accounts
+ * and the holds of other tenants are not visible.
+ * 
+ * The transfers and the authorizations of holds are checked against the {@link VelocityRules} of the tenant before 
+ * they are committed, the debits over the limits of the account in a window of time are rejected with 
+ * {@link OperationError#VELOCITY_LIMIT_EXCEEDED}. A hold is counted when it is authorized, so its capture is not 
+ * checked again, and the amount not captured is subtracted when it is released, captured or it expires.
  * 
  * @author Maximiliano Sanchez de Bustamante
  *
  */
 public class BankBaseServices {
+	/**
+	 * The maximum number of names of a page of {@link #searchAccounts(String, String, String, int)}
+	 */
+	public static final int MAX_SEARCH_LIMIT = 1000;
+	private final String tenant;
+
+	/**
+	 * Creates the services of the accounts of the default tenant.
+	 */
+	public BankBaseServices() {
+		this(AccountDAO.DEFAULT_TENANT);
+	}
+
+	/**
+	 * Creates the services of the accounts of a tenant.
+	 * 
+	 * @param tenant The tenant, it must exist (see {@link AccountDAO#isTenant(String)}). Null for the default one.
+	 */
+	public BankBaseServices(String tenant) {
+		this.tenant = tenant == null ? AccountDAO.DEFAULT_TENANT : tenant;
+	}
 
 	/**
 	 * This method realize the transfer from one existing account to another existing account validating the following:
 	 * 	The value to transfer is positive greater than zero.
 	 * 	The accounts are not the same.
 	 * 	The accounts exists.
-	 * 	The source account has funds to do the transfer.
+	 * 	The source account has funds to do the transfer. The funds reserved by holds are not available.
+	 * 	The source account is within its velocity limits.
 	 * 
 	 * The service uses the {@link AccountDAO} to obtain a valid snapshot of the accounts to do the validation 
 	 * and later to do the transfer. Because of that the validation of the funds is valid meanwhile when the DAO tries
 	 * to commit the changes the snapshot still valid.  
+	 * When one of the accounts is hot the DAO locks the accounts before the snapshot is taken, so the transfer 
+	 * doesn't fail because the accounts are out of sequence (see {@link AccountDAO#execute}).
 	 * 
 	 * @param fromAccountName The name of the source account to transfer money
 	 * @param toAccountName The name of the target account to transfer money
@@ -34,7 +90,8 @@ public class BankBaseServices {
 	 * @return Returns an {@link OperationStatus}
 	 */
 	public OperationStatus transfer(String fromAccountName, String toAccountName, long transferValue) {
-		AccountDAO dao = new AccountDAO();	
+		AccountDAO dao = new AccountDAO(tenant);	
+		TransferTrace.transfer(Arrays.asList(fromAccountName, toAccountName), transferValue);
 		
 		// check the transfer value is positive
 		if (transferValue <= 0) {
@@ -46,6 +103,15 @@ public class BankBaseServices {
 			return new OperationStatus(false, OperationError.ACCOUNTS_ARE_EQUAL);
 		}
 		
+		return dao.execute(Arrays.asList(fromAccountName, toAccountName), 
+				() -> commitTransfer(dao, fromAccountName, toAccountName, transferValue));
+	}
+	
+	/**
+	 * Reads the accounts of a transfer, validates the funds and commits it.
+	 */
+	private OperationStatus commitTransfer(AccountDAO dao, String fromAccountName, String toAccountName, 
+			long transferValue) {
 		// Check account exists
 		Account fromAccount = dao.getAccount(fromAccountName);
 		if (fromAccount == null) {
@@ -62,10 +128,17 @@ public class BankBaseServices {
 		 * The DAO will do the final check using the sequence to know if  one or both were used
 		 * meanwhile this is processing.
 		 */
-		if (fromAccount.getBalance()-transferValue < 0) {
+		if (fromAccount.getAvailableBalance()-transferValue < 0) {
 			return new OperationStatus(false, OperationError.ACCOUNT_NOT_ENOUGH_FUNDS);
 		}		 
 		
+		// Count the debit in the velocity windows of the source account, it is subtracted if it is not committed
+		VelocityRules velocity = VelocityRules.of(tenant);
+		long now = System.currentTimeMillis();
+		if (!velocity.acquire(fromAccountName, transferValue, now)) {
+			return new OperationStatus(false, OperationError.VELOCITY_LIMIT_EXCEEDED);
+		}
+		
 		// Do the transfer ...
 		fromAccount.withdraw(transferValue);
 		toAccount.deposit(transferValue);
@@ -73,6 +146,7 @@ public class BankBaseServices {
 		// If some thread changed one or both accounts the method will return false
 		// because they are out of sequence and could not do the transfer
 		if (!dao.updateAccounts(fromAccount, toAccount)) {
+			velocity.release(fromAccountName, transferValue, now);
 			return new OperationStatus(false, OperationError.ACCOUNT_OUT_OF_SEQUENCE);
 		}
 
@@ -80,9 +154,129 @@ public class BankBaseServices {
 		return new OperationStatus(true);
 	}
 	
+	/**
+	 * This method realize a multi-leg transfer: takes money from some existing accounts and gives it to other 
+	 * existing accounts, all or nothing. For example a payroll is one debit and many credits.
+	 * The following is validated:
+	 * 	There are at least two legs and the amount of each leg is not zero.
+	 * 	The sum of the amounts is zero, the money is neither created nor destroyed.
+	 * 	The accounts are not repeated.
+	 * 	The accounts exists.
+	 * 	The accounts with a debit have funds to do it.
+	 * 	The accounts with a debit are within their velocity limits.
+	 * 
+	 * As {@link #transfer(String, String, long)} the validation is done with a snapshot of the accounts and
+	 * it is valid meanwhile when the DAO tries to commit the changes the snapshot still valid. All the accounts are
+	 * committed at once. The concurrency control is chosen by the contention of the accounts as well.
+	 * 
+	 * @param legs The legs of the transfer
+	 * @return Returns an {@link OperationStatus}
+	 */
+	public OperationStatus transfer(List<TransferLeg> legs) {
+		AccountDAO dao = new AccountDAO(tenant);
+		
+		long amount = 0;
+		List<String> accounts = new ArrayList<>(legs.size());
+		for (TransferLeg leg : legs) {
+			accounts.add(leg.getAccount());
+			amount += Math.max(0, leg.getAmount());
+		}
+		TransferTrace.transfer(accounts, amount);
+
+		// There is nothing to transfer with less than two legs
+		if (legs.size() < 2) {
+			return new OperationStatus(false, OperationError.INVALID_VALUE);
+		}
+		
+		// check the amounts are not zero and the legs are balanced
+		long sum = 0;
+		try {
+			for (TransferLeg leg : legs) {
+				if (leg.getAmount() == 0) {
+					return new OperationStatus(false, OperationError.INVALID_VALUE);
+				}
+				sum = Math.addExact(sum, leg.getAmount());
+			}
+		} catch (ArithmeticException e) {
+			return new OperationStatus(false, OperationError.INVALID_VALUE);
+		}
+		if (sum != 0) {
+			return new OperationStatus(false, OperationError.LEGS_NOT_BALANCED);
+		}
+		
+		// Could not use the same account twice
+		Set<String> names = new HashSet<>();
+		for (TransferLeg leg : legs) {
+			if (!names.add(leg.getAccount())) {
+				return new OperationStatus(false, OperationError.ACCOUNTS_ARE_EQUAL);
+			}
+		}
+		
+		return dao.execute(names, () -> commitTransfer(dao, legs));
+	}
+	
+	/**
+	 * Reads the accounts of a multi-leg transfer, validates the funds and commits it.
+	 */
+	private OperationStatus commitTransfer(AccountDAO dao, List<TransferLeg> legs) {
+		// Check accounts exist and do the transfer in the snapshot
+		List<Account> accounts = new ArrayList<>(legs.size());
+		for (TransferLeg leg : legs) {
+			Account account = dao.getAccount(leg.getAccount());
+			if (account == null) {
+				return new OperationStatus(false, OperationError.ACCOUNT_DOESNT_EXIST);
+			}
+			
+			// Check it has enough balance to do the debit. The check is optimistic as in the simple transfer.
+			if (leg.getAmount() < 0) {
+				if (account.getAvailableBalance() + leg.getAmount() < 0) {
+					return new OperationStatus(false, OperationError.ACCOUNT_NOT_ENOUGH_FUNDS);
+				}
+				account.withdraw(-leg.getAmount());
+			} else {
+				account.deposit(leg.getAmount());
+			}
+			accounts.add(account);
+		}
+		
+		// Count the debits in the velocity windows, all or none
+		VelocityRules velocity = VelocityRules.of(tenant);
+		long now = System.currentTimeMillis();
+		List<TransferLeg> debits = new ArrayList<>();
+		for (TransferLeg leg : legs) {
+			if (leg.getAmount() < 0) {
+				if (!velocity.acquire(leg.getAccount(), -leg.getAmount(), now)) {
+					release(velocity, debits, now);
+					return new OperationStatus(false, OperationError.VELOCITY_LIMIT_EXCEEDED);
+				}
+				debits.add(leg);
+			}
+		}
+		
+		// Persist the transfer
+		// If some thread changed at least one account the method will return false
+		if (!dao.updateAccounts(accounts)) {
+			release(velocity, debits, now);
+			return new OperationStatus(false, OperationError.ACCOUNT_OUT_OF_SEQUENCE);
+		}
+
+		// Return the operation was a success
+		return new OperationStatus(true);
+	}
+	
+	/**
+	 * Subtracts the debits of a transfer not committed from the velocity windows.
+	 */
+	private static void release(VelocityRules velocity, List<TransferLeg> debits, long time) {
+		for (TransferLeg leg : debits) {
+			velocity.release(leg.getAccount(), -leg.getAmount(), time);
+		}
+	}
+	
 	/**
 	 * Creates a new account.
 	 * Validates if the balance is a positive number (included zero)
+	 * Validates if the name is not longer than {@link AccountDAO#MAX_NAME_LENGTH}
 	 * Validates if the account already exists. If that the case return an error.
 	 * 
 	 * @param name A name for the new account
@@ -90,10 +284,10 @@ public class BankBaseServices {
 	 * @return Returns an {@link OperationStatus}
 	 */
 	public OperationStatus createAccount(String name, long balance) {
-		AccountDAO dao = new AccountDAO();
+		AccountDAO dao = new AccountDAO(tenant);
 		
-		// check the balance value is positive
-		if (balance < 0) {
+		// check the balance value is positive and the name fits in the store
+		if (balance < 0 || name.length() > AccountDAO.MAX_NAME_LENGTH) {
 			return new OperationStatus(false, OperationError.INVALID_VALUE);
 		}
 		
@@ -105,4 +299,285 @@ public class BankBaseServices {
 		// Return the operation was a success
 		return new OperationStatus(true);
 	}
+
+	/**
+	 * Obtains the balance of an existing account.
+	 * The balance is the one of the last committed snapshot of the account.
+	 * 
+	 * @param name The name of the account
+	 * @return Returns a {@link BalanceStatus} with the balance of the account or the 
+	 * error {@link OperationError#ACCOUNT_DOESNT_EXIST}
+	 */
+	public BalanceStatus getBalance(String name) {
+		AccountDAO dao = new AccountDAO(tenant);
+		
+		// Check account exists
+		Account account = dao.getAccount(name);
+		if (account == null) {
+			return new BalanceStatus(OperationError.ACCOUNT_DOESNT_EXIST);
+		}
+		
+		return new BalanceStatus(account.getBalance());
+	}
+
+	/**
+	 * Obtains the balance an account had at a time, from the previous versions of the account.
+	 * 
+	 * @param name The name of the account
+	 * @param asOfTime The time in milliseconds since the epoch
+	 * @return Returns a {@link BalanceStatus} with the balance of the account at that time or the 
+	 * error {@link OperationError#ACCOUNT_DOESNT_EXIST} if the account didn't exist at that time, or the error
+	 * {@link OperationError#VERSION_NOT_AVAILABLE} if the versions of that time are not kept anymore
+	 */
+	public BalanceStatus getBalance(String name, long asOfTime) {
+		AccountDAO dao = new AccountDAO(tenant);
+		
+		Account account;
+		try {
+			account = dao.getAccountAsOf(name, asOfTime);
+		} catch (VersionNotAvailableException e) {
+			return new BalanceStatus(OperationError.VERSION_NOT_AVAILABLE);
+		}
+		if (account == null) {
+			return new BalanceStatus(OperationError.ACCOUNT_DOESNT_EXIST);
+		}
+		
+		return new BalanceStatus(account.getBalance());
+	}
+
+	/**
+	 * Searches the names of the accounts that start with a prefix in a range of names, a page at a time. The names 
+	 * are sorted, the next page is searched from the name {@link AccountSearchStatus#getNext()} with the same prefix,
+	 * the same end and the same limit.
+	 * 
+	 * @param prefix The prefix of the names, empty for any name
+	 * @param from The first name, inclusive, empty from the first one
+	 * @param to The last name, exclusive, null until the last one
+	 * @param limit The maximum number of names of the page, from 1 to {@value #MAX_SEARCH_LIMIT}
+	 * @return Returns an {@link AccountSearchStatus} with the names or the error 
+	 * {@link OperationError#INVALID_VALUE} if the limit is out of range
+	 */
+	public AccountSearchStatus searchAccounts(String prefix, String from, String to, int limit) {
+		AccountDAO dao = new AccountDAO(tenant);
+		
+		// check the limit is in the range
+		if (limit <= 0 || limit > MAX_SEARCH_LIMIT) {
+			return new AccountSearchStatus(OperationError.INVALID_VALUE);
+		}
+		
+		// One more name than the page tells where the next page starts
+		List<String> names = dao.searchAccountNames(prefix == null ? "" : prefix, from == null ? "" : from, to, 
+				limit + 1);
+		String next = null;
+		if (names.size() > limit) {
+			next = names.remove(limit);
+		}
+		return new AccountSearchStatus(names, next);
+	}
+
+	/**
+	 * Reserves funds of an existing account (authorization of a hold). The reserved funds are not available for 
+	 * other operations until the hold is captured, released or it expires.
+	 * The funds are validated and reserved atomically by the {@link AccountDAO}, with the current state of 
+	 * the account, so the authorization doesn't fail because the account is out of sequence.
+	 * The amount is counted as a debit in the velocity windows of the account, it is rejected over the limits.
+	 * 
+	 * @param name The name of the account
+	 * @param amount The positive greater than zero amount to reserve
+	 * @param ttl The time in milliseconds until the hold expires. Positive greater than zero.
+	 * @return Returns a {@link HoldStatus} with the id of the hold
+	 */
+	public HoldStatus authorize(String name, long amount, long ttl) {
+		AccountDAO dao = new AccountDAO(tenant);
+		
+		// check the amount and the time to live are positive
+		if (amount <= 0 || ttl <= 0) {
+			return new HoldStatus(OperationError.INVALID_VALUE);
+		}
+		
+		// Check account exists
+		if (dao.getAccount(name) == null) {
+			return new HoldStatus(OperationError.ACCOUNT_DOESNT_EXIST);
+		}
+		
+		// Count the debit in the velocity windows of the account, it is subtracted if the funds are not reserved
+		VelocityRules velocity = VelocityRules.of(tenant);
+		long now = System.currentTimeMillis();
+		if (!velocity.acquire(name, amount, now)) {
+			return new HoldStatus(OperationError.VELOCITY_LIMIT_EXCEEDED);
+		}
+		
+		// Reserve the funds
+		if (!dao.holdFunds(name, amount)) {
+			velocity.release(name, amount, now);
+			return new HoldStatus(OperationError.ACCOUNT_NOT_ENOUGH_FUNDS);
+		}
+		
+		Hold hold = new HoldDAO().createHold(tenant, name, amount, now, now + ttl);
+		return new HoldStatus(hold.getId());
+	}
+	
+	/**
+	 * Transfers funds reserved by a hold to another existing account (capture of a hold). The amount could be 
+	 * less than the reserved, the rest of the reserve is released. The hold ends.
+	 * The funds and the velocity limits are not validated again because they are reserved and counted.
+	 * 
+	 * @param holdId The id of the hold
+	 * @param toAccountName The name of the target account to transfer money
+	 * @param amount The positive greater than zero amount to transfer, not greater than the reserved
+	 * @return Returns an {@link OperationStatus}
+	 * @throws RuntimeException If the funds could not be transferred, the hold is kept
+	 */
+	public OperationStatus capture(long holdId, String toAccountName, long amount) {
+		AccountDAO dao = new AccountDAO(tenant);
+		HoldDAO holdDAO = new HoldDAO();
+		
+		// Check hold exists
+		Hold hold = holdDAO.getHold(holdId);
+		if (hold == null || !hold.getTenant().equals(tenant)) {
+			return new OperationStatus(false, OperationError.HOLD_DOESNT_EXIST);
+		}
+		
+		// check the amount is positive and it is reserved
+		if (amount <= 0 || amount > hold.getAmount()) {
+			return new OperationStatus(false, OperationError.INVALID_VALUE);
+		}
+		
+		// Could not transfer to the same account
+		if (hold.getAccount().equals(toAccountName)) {
+			return new OperationStatus(false, OperationError.ACCOUNTS_ARE_EQUAL);
+		}
+		
+		// Check account exists
+		if (dao.getAccount(toAccountName) == null) {
+			return new OperationStatus(false, OperationError.ACCOUNT_DOESNT_EXIST);
+		}
+		
+		// Other thread could capture, release or expire the hold in between
+		if (holdDAO.removeHold(holdId) == null) {
+			return new OperationStatus(false, OperationError.HOLD_DOESNT_EXIST);
+		}
+		try {
+			dao.captureFunds(hold.getAccount(), toAccountName, hold.getAmount(), amount);
+		} catch (RuntimeException e) {
+			// The amount is still reserved, the hold could be captured or released again
+			holdDAO.restoreHold(hold);
+			throw e;
+		}
+		if (amount < hold.getAmount()) {
+			VelocityRules.of(tenant).releaseAmount(hold.getAccount(), hold.getAmount() - amount,
+					hold.getAuthorizationTime());
+		}
+
+		// Return the operation was a success
+		return new OperationStatus(true);
+	}
+	
+	/**
+	 * Releases the funds reserved by a hold. The hold ends.
+	 * 
+	 * @param holdId The id of the hold
+	 * @return Returns an {@link OperationStatus}
+	 * @throws RuntimeException If the funds could not be released, the hold is kept
+	 */
+	public OperationStatus release(long holdId) {
+		HoldDAO holdDAO = new HoldDAO();
+		
+		// Check hold exists
+		Hold hold = holdDAO.getHold(holdId);
+		if (hold == null || !hold.getTenant().equals(tenant)) {
+			return new OperationStatus(false, OperationError.HOLD_DOESNT_EXIST);
+		}
+		
+		// Other thread could capture, release or expire the hold in between
+		if (holdDAO.removeHold(holdId) == null) {
+			return new OperationStatus(false, OperationError.HOLD_DOESNT_EXIST);
+		}
+		try {
+			new AccountDAO(tenant).releaseFunds(hold.getAccount(), hold.getAmount());
+		} catch (RuntimeException e) {
+			// The amount is still reserved, the hold could be released again or expire
+			holdDAO.restoreHold(hold);
+			throw e;
+		}
+		VelocityRules.of(tenant).release(hold.getAccount(), hold.getAmount(), hold.getAuthorizationTime());
+
+		// Return the operation was a success
+		return new OperationStatus(true);
+	}
+	
+	/**
+	 * Releases the funds reserved by the holds that expired, of all the tenants. A hold whose funds could not be 
+	 * released is kept, so it expires again in the next call.
+	 * 
+	 * @return Returns the number of holds that expired
+	 * @throws RuntimeException The first error releasing the funds, after releasing the funds of the other holds
+	 */
+	public int expireHolds() {
+		HoldDAO holdDAO = new HoldDAO();
+		List<Hold> expired = holdDAO.removeExpiredHolds(System.currentTimeMillis());
+		RuntimeException error = null;
+		int released = 0;
+		for (Hold hold : expired) {
+			try {
+				new AccountDAO(hold.getTenant()).releaseFunds(hold.getAccount(), hold.getAmount());
+				VelocityRules.of(hold.getTenant()).release(hold.getAccount(), hold.getAmount(),
+						hold.getAuthorizationTime());
+				released++;
+			} catch (RuntimeException e) {
+				holdDAO.restoreHold(hold);
+				if (error == null) {
+					error = e;
+				}
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+		return released;
+	}
+
+	/**
+	 * Obtains the counters of the concurrency control of the transfers: the conflicts, the operations done with 
+	 * the optimistic and the pessimistic control, the switches between them and the accounts that are hot.
+	 * 
+	 * @return Returns a {@link ContentionStatistics}
+	 */
+	public ContentionStatistics getContention() {
+		return new AccountDAO(tenant).getContention().getStatistics();
+	}
+
+	/**
+	 * Obtains the aggregates of all the accounts: the number of accounts, the total balance, the accounts with the 
+	 * largest balances and the accounts by range of balance. They are kept up to date on each commit, so the 
+	 * accounts are not read.
+	 * 
+	 * @return Returns a {@link BankStatistics}
+	 */
+	public BankStatistics getStatistics() {
+		return new AccountDAO(tenant).getStatistics();
+	}
+
+	/**
+	 * Obtains the hashes of some nodes of a level of the Merkle tree of the accounts, to compare the accounts 
+	 * with other copy of them. 
+	 * 
+	 * @param level The level, from 0 (the root) to the depth of the tree (the leaves)
+	 * @param from The first node of the level
+	 * @param count The maximum number of nodes
+	 * @return Returns a {@link Fingerprint}
+	 */
+	public Fingerprint getFingerprint(int level, int from, int count) {
+		return new AccountDAO(tenant).getFingerprint(level, from, count);
+	}
+
+	/**
+	 * Obtains the accounts of a leaf of the Merkle tree of the accounts, to repair other copy of them.
+	 * 
+	 * @param leaf The leaf
+	 * @return Returns the accounts of the leaf sorted by name
+	 */
+	public List<Account> getFingerprintAccounts(int leaf) {
+		return new AccountDAO(tenant).getAccounts(leaf);
+	}
 }
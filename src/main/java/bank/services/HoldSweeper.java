@@ -0,0 +1,57 @@
+package bank.services;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Background thread that releases the funds of the expired holds with {@link BankBaseServices#expireHolds()}.
+ * The property {@code bank.holds.sweep-millis} is the time between sweeps, by default 1000 milliseconds.
+ * The errors of a sweep are logged and the holds whose funds were not released expire again in the next sweep.
+ * 
+ */
+@Component
+public class HoldSweeper {
+	private static final Logger LOG = LoggerFactory.getLogger(HoldSweeper.class);
+
+	private final long sweepMillis;
+	private ScheduledExecutorService sweeper;
+
+	public HoldSweeper(@Value("${bank.holds.sweep-millis:1000}") long sweepMillis) {
+		this.sweepMillis = sweepMillis;
+	}
+
+	@PostConstruct
+	public void start() {
+		sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "hold-sweeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sweeper.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Releases the funds of the expired holds. An exception would cancel the next sweeps, so it is logged.
+	 */
+	void sweep() {
+		try {
+			new BankBaseServices().expireHolds();
+		} catch (RuntimeException e) {
+			LOG.error("The funds of some expired holds could not be released, they are released in the next sweep", e);
+		}
+	}
+
+	@PreDestroy
+	public void stop() {
+		sweeper.shutdownNow();
+	}
+}
@@ -0,0 +1,47 @@
+package bank.startup;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerInitializedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import bank.tools.load.BankClient;
+import bank.tools.load.RestBankClient;
+import bank.tools.load.SoapBankClient;
+
+/**
+ * Training run of the fast startup mode. Enabled with the property {@code bank.startup.training=true}.
+ * 
+ * When the application is ready it sends a few requests to itself through the RESTful and the Web Service 
+ * interfaces and exits. The Java VM of the training run records the classes loaded, which are the classes 
+ * needed to start and to answer the first transfer, and the list is used to build the class data sharing archive.
+ * See the Maven profile {@code fast-startup}.
+ * 
+ */
+@Component
+@ConditionalOnProperty(name = "bank.startup.training", havingValue = "true")
+public class StartupTraining {
+	private int port;
+
+	@EventListener
+	public void containerInitialized(EmbeddedServletContainerInitializedEvent event) {
+		port = event.getEmbeddedServletContainer().getPort();
+	}
+
+	@EventListener
+	public void ready(ApplicationReadyEvent event) {
+		String url = "http://localhost:" + port + "/bank";
+		train(new RestBankClient(url + "/rest"), "rest");
+		train(new SoapBankClient(url + "/ws"), "soap");
+		System.exit(SpringApplication.exit(event.getApplicationContext()));
+	}
+
+	private static void train(BankClient client, String prefix) {
+		client.createAccount("training-" + prefix + "-from", 10);
+		client.createAccount("training-" + prefix + "-to", 0);
+		client.transfer("training-" + prefix + "-from", "training-" + prefix + "-to", 1);
+		client.getBalance("training-" + prefix + "-to");
+	}
+}
@@ -0,0 +1,126 @@
+package bank.tools.journal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import bank.dao.AccountJournal;
+import bank.data.Account;
+
+/**
+ * Command line tool that measures the {@link AccountJournal}: writes a history of transfers between random 
+ * accounts and measures the recovery with one thread and with several threads, the compaction, and the recovery 
+ * after the compaction.
+ * 
+ * The options are given in the command line as {@code --name=value}:
+ * <pre>
+ *  --directory=target/journal-benchmark Directory of the journal. It must not exist or be empty.
+ *  --operations=10000000               Number of transfers written
+ *  --accounts=1000000                  Number of accounts
+ *  --threads=4                         Threads of the parallel recovery and the compaction
+ *  --partitions=64                     Partitions of the snapshots
+ *  --segment-size=67108864             Size of a segment in bytes
+ * </pre>
+ * 
+ * Run it with:
+ * 	java -cp target/classes bank.tools.journal.JournalBenchmark --operations=10000000
+ * 
+ */
+public class JournalBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		Path directory = Paths.get("target/journal-benchmark");
+		long operations = 10_000_000;
+		int accounts = 1_000_000;
+		int threads = 4;
+		int partitions = 64;
+		long segmentSize = 64L << 20;
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException("Invalid argument " + arg);
+			}
+			String value = arg.substring(separator + 1);
+			switch (arg.substring(2, separator)) {
+			case "directory": directory = Paths.get(value); break;
+			case "operations": operations = Long.parseLong(value); break;
+			case "accounts": accounts = Integer.parseInt(value); break;
+			case "threads": threads = Integer.parseInt(value); break;
+			case "partitions": partitions = Integer.parseInt(value); break;
+			case "segment-size": segmentSize = Long.parseLong(value); break;
+			default:
+				throw new IllegalArgumentException("Unknown argument " + arg);
+			}
+		}
+		
+		// Write the history. The compaction is done later to measure the recovery of all the segments.
+		long start = System.nanoTime();
+		try (AccountJournal journal = new AccountJournal(directory, segmentSize, partitions, threads, false)) {
+			Account[] state = new Account[accounts];
+			for (int i = 0; i < accounts; i++) {
+				state[i] = new Account("account-" + i, 1_000_000);
+				journal.append(Arrays.asList(state[i]));
+			}
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			for (long operation = 0; operation < operations; operation++) {
+				int from = random.nextInt(accounts);
+				int to = random.nextInt(accounts);
+				if (from == to) {
+					continue;
+				}
+				long value = 1 + random.nextInt(100);
+				state[from] = state[from].copy();
+				state[to] = state[to].copy();
+				state[from].withdraw(value);
+				state[to].deposit(value);
+				state[from].nextSequence();
+				state[to].nextSequence();
+				journal.append(Arrays.asList(state[from], state[to]));
+			}
+		}
+		report("write", operations + accounts, start);
+		System.out.printf("journal size %d MB%n", size(directory) >> 20);
+		
+		recover(directory, segmentSize, partitions, 1, "recovery of the segments, 1 thread");
+		recover(directory, segmentSize, partitions, threads, "recovery of the segments, " + threads + " threads");
+		
+		start = System.nanoTime();
+		try (AccountJournal journal = new AccountJournal(directory, segmentSize, partitions, threads, false)) {
+			journal.compact();
+		}
+		report("compaction", operations + accounts, start);
+		System.out.printf("journal size %d MB%n", size(directory) >> 20);
+		
+		recover(directory, segmentSize, partitions, threads, "recovery of the snapshots, " + threads + " threads");
+	}
+
+	private static void recover(Path directory, long segmentSize, int partitions, int threads, String title) 
+			throws IOException {
+		long start = System.nanoTime();
+		try (AccountJournal journal = new AccountJournal(directory, segmentSize, partitions, threads, false)) {
+			List<Account> accounts = journal.recover();
+			report(title + " (" + accounts.size() + " accounts)", 0, start);
+		}
+	}
+
+	private static void report(String title, long operations, long start) {
+		long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		if (operations > 0) {
+			System.out.printf("%s: %d ms, %.0f operations/s%n", title, millis, operations * 1000.0 / millis);
+		} else {
+			System.out.printf("%s: %d ms%n", title, millis);
+		}
+	}
+
+	private static long size(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.mapToLong(file -> file.toFile().length()).sum();
+		}
+	}
+}
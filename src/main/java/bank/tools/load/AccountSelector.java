@@ -0,0 +1,133 @@
+package bank.tools.load;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chooses the index of the account to be used by the next operation of the {@link LoadGenerator}.
+ * The distribution of the selection drives the contention in the storage: with a uniform distribution the 
+ * transfers are spread among all the accounts, with a skewed distribution a few accounts receive most 
+ * of the transfers and the commits fail with {@link bank.data.OperationError#ACCOUNT_OUT_OF_SEQUENCE}.
+ * 
+ * The implementations are thread safe. The random numbers are obtained from {@link ThreadLocalRandom}.
+ * 
+ */
+public abstract class AccountSelector {
+	protected final int accounts;
+
+	protected AccountSelector(int accounts) {
+		if (accounts < 2) {
+			throw new IllegalArgumentException("At least two accounts are needed to do transfers");
+		}
+		this.accounts = accounts;
+	}
+
+	/**
+	 * @return Returns the index of an account between zero (included) and the number of accounts (excluded)
+	 */
+	public abstract int next();
+
+	/**
+	 * Chooses the source and the target accounts of a transfer. They are always different.
+	 * @return Returns an array of two different indexes. The first one is the source account.
+	 */
+	public int[] nextPair() {
+		int from = next();
+		int to = next();
+		while (to == from) {
+			to = next();
+		}
+		return new int[] { from, to };
+	}
+
+	/**
+	 * Creates the selector given the name of the distribution.
+	 * 
+	 * @param distribution One of {@code uniform}, {@code zipf} or {@code hotset}
+	 * @param accounts The number of accounts
+	 * @param zipfExponent The exponent of the Zipfian distribution
+	 * @param hotFraction The fraction of the accounts that are hot in the hot set distribution
+	 * @param hotTraffic The fraction of the operations that goes to the hot accounts in the hot set distribution
+	 * @return Returns the selector for the distribution
+	 */
+	public static AccountSelector create(String distribution, int accounts, double zipfExponent, 
+			double hotFraction, double hotTraffic) {
+		switch (distribution) {
+		case "uniform":
+			return new Uniform(accounts);
+		case "zipf":
+			return new Zipf(accounts, zipfExponent);
+		case "hotset":
+			return new HotSet(accounts, hotFraction, hotTraffic);
+		default:
+			throw new IllegalArgumentException("Unknown distribution " + distribution);
+		}
+	}
+
+	/**
+	 * All the accounts have the same probability.
+	 */
+	static class Uniform extends AccountSelector {
+		Uniform(int accounts) {
+			super(accounts);
+		}
+
+		@Override
+		public int next() {
+			return ThreadLocalRandom.current().nextInt(accounts);
+		}
+	}
+
+	/**
+	 * The probability of the account of rank k is proportional to 1/k^s. 
+	 * The cumulative distribution is computed once and the selection is a binary search on it.
+	 */
+	static class Zipf extends AccountSelector {
+		private final double[] cumulative;
+
+		Zipf(int accounts, double exponent) {
+			super(accounts);
+			cumulative = new double[accounts];
+			double sum = 0;
+			for (int i = 0; i < accounts; i++) {
+				sum += 1.0 / Math.pow(i + 1, exponent);
+				cumulative[i] = sum;
+			}
+			for (int i = 0; i < accounts; i++) {
+				cumulative[i] /= sum;
+			}
+		}
+
+		@Override
+		public int next() {
+			int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+			// When the value is not found binarySearch returns (-(insertion point) - 1)
+			index = index < 0 ? -index - 1 : index;
+			return Math.min(index, accounts - 1);
+		}
+	}
+
+	/**
+	 * A fraction of the accounts (the first ones) receives a fraction of the operations.
+	 * The rest of the operations are spread uniformly among the cold accounts.
+	 */
+	static class HotSet extends AccountSelector {
+		private final int hotAccounts;
+		private final double hotTraffic;
+
+		HotSet(int accounts, double hotFraction, double hotTraffic) {
+			super(accounts);
+			this.hotAccounts = Math.max(2, Math.min(accounts, (int) (accounts * hotFraction)));
+			this.hotTraffic = hotTraffic;
+		}
+
+		@Override
+		public int next() {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			if (hotAccounts == accounts || random.nextDouble() < hotTraffic) {
+				return random.nextInt(hotAccounts);
+			}
+			return hotAccounts + random.nextInt(accounts - hotAccounts);
+		}
+	}
+}
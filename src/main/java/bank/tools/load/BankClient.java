@@ -0,0 +1,38 @@
+package bank.tools.load;
+
+import bank.data.OperationError;
+
+/**
+ * Abstraction of the interface used by the {@link LoadGenerator} to reach the bank services.
+ * There is one implementation for each interface of the service: in process (calling directly the 
+ * {@link bank.services.BankBaseServices}), RESTful and Web Service.
+ * 
+ * The implementations must be thread safe because the same instance is shared by all the load threads.
+ * 
+ */
+public interface BankClient {
+	/**
+	 * Creates a new account.
+	 * @param name A name for the new account
+	 * @param balance The positive value to be set as balance for the account
+	 * @return Returns the {@link OperationError} of the operation. {@link OperationError#NO_ERROR} means success.
+	 */
+	OperationError createAccount(String name, long balance);
+
+	/**
+	 * Transfers money from one existing account to another existing account.
+	 * @param fromAccountName The name of the source account to transfer money
+	 * @param toAccountName The name of the target account to transfer money
+	 * @param transferValue The positive greater than zero value to transfer between the accounts
+	 * @return Returns the {@link OperationError} of the operation. {@link OperationError#NO_ERROR} means success.
+	 */
+	OperationError transfer(String fromAccountName, String toAccountName, long transferValue);
+
+	/**
+	 * Obtains the balance of an existing account.
+	 * @param name The name of the account
+	 * @return Returns the balance of the account
+	 * @throws IllegalStateException If the account doesn't exist
+	 */
+	long getBalance(String name);
+}
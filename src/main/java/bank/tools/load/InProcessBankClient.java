@@ -0,0 +1,32 @@
+package bank.tools.load;
+
+import bank.data.BalanceStatus;
+import bank.data.OperationError;
+import bank.services.BankBaseServices;
+
+/**
+ * {@link BankClient} that calls directly the {@link BankBaseServices} in the same Java VM.
+ * It measures the cost of the service and the storage without the cost of the HTTP and the marshalling.
+ * 
+ */
+public class InProcessBankClient implements BankClient {
+
+	@Override
+	public OperationError createAccount(String name, long balance) {
+		return new BankBaseServices().createAccount(name, balance).getErrorCode();
+	}
+
+	@Override
+	public OperationError transfer(String fromAccountName, String toAccountName, long transferValue) {
+		return new BankBaseServices().transfer(fromAccountName, toAccountName, transferValue).getErrorCode();
+	}
+
+	@Override
+	public long getBalance(String name) {
+		BalanceStatus status = new BankBaseServices().getBalance(name);
+		if (!status.isSuccess()) {
+			throw new IllegalStateException("Account " + name + " failed with error " + status.getErrorCode());
+		}
+		return status.getBalance();
+	}
+}
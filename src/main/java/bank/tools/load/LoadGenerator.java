@@ -0,0 +1,192 @@
+package bank.tools.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import bank.data.OperationError;
+
+/**
+ * Load generator and soak test tool for the bank services.
+ * 
+ * The tool creates the accounts, sends transfers between them during the given time and, at the end, checks 
+ * the total balance of the accounts is the same as at the beginning. The transfers could be sent to the 
+ * {@link bank.services.BankBaseServices} in the same Java VM or to a running service through the RESTful or 
+ * the Web Service interfaces.
+ * 
+ * The load could be closed loop (each thread sends the next transfer when the previous one ends) or open loop 
+ * (the transfers are sent at a fixed rate). In the open loop the latency is measured from the time the transfer 
+ * should have been sent, so the latency includes the time waiting for the previous transfers when the service 
+ * can not keep the rate.
+ * 
+ * Example, to run 5 minutes of skewed load against a running service:
+ * <pre>
+ * 	$ java -cp target/bank-0.0.1.jar -Dloader.main=bank.tools.load.LoadGenerator org.springframework.boot.loader.PropertiesLauncher \
+ * 		--interface=rest --accounts=10000 --distribution=zipf --duration=300
+ * </pre>
+ * The options are described in {@link LoadOptions}.
+ * 
+ */
+public class LoadGenerator {
+	private final LoadOptions options;
+	private final BankClient client;
+	private final AccountSelector selector;
+	private final LoadStatistics statistics = new LoadStatistics();
+
+	public LoadGenerator(LoadOptions options) {
+		this.options = options;
+		this.client = options.createClient();
+		this.selector = AccountSelector.create(options.distribution, options.accounts, options.zipfExponent, 
+				options.hotFraction, options.hotTraffic);
+	}
+
+	public static void main(String[] args) throws Exception {
+		LoadGenerator generator = new LoadGenerator(LoadOptions.parse(args));
+		System.exit(generator.run() ? 0 : 1);
+	}
+
+	/**
+	 * Creates the accounts, runs the load and checks the balance is conserved.
+	 * @return Returns true if the total balance of the accounts is the same before and after the load
+	 * @throws Exception If a load thread is interrupted or fails
+	 */
+	public boolean run() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(options.threads);
+		try {
+			createAccounts(executor);
+			long initialBalance = totalBalance(executor);
+			System.out.printf("Accounts: %d, total balance: %d%n", options.accounts, initialBalance);
+			System.out.printf("Load: %s, %d threads, %s, %s distribution, %ds%n", options.bankInterface, 
+					options.threads, options.isOpenLoop() ? options.rate + " ops/s" : "closed loop", 
+					options.distribution, options.duration);
+
+			long elapsed = runLoad(executor);
+			statistics.reportTotal(System.out, elapsed);
+
+			long finalBalance = totalBalance(executor);
+			boolean conserved = initialBalance == finalBalance;
+			System.out.printf("Total balance: %d -> %d %s%n", initialBalance, finalBalance, 
+					conserved ? "(conserved)" : "(NOT CONSERVED)");
+			return conserved;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	public LoadStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Creates the accounts in parallel. If the account already exists, for example because the tool is run 
+	 * again against the same service, the existing account is used.
+	 */
+	private void createAccounts(ExecutorService executor) throws Exception {
+		List<Future<?>> futures = new ArrayList<>();
+		for (int thread = 0; thread < options.threads; thread++) {
+			final int first = thread;
+			futures.add(executor.submit(() -> {
+				for (int i = first; i < options.accounts; i += options.threads) {
+					OperationError error = client.createAccount(accountName(i), options.balance);
+					if (error != OperationError.NO_ERROR && error != OperationError.ACCOUNT_ALREADY_EXISTS) {
+						throw new IllegalStateException("Account " + accountName(i) + " failed with error " + error);
+					}
+				}
+				return null;
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+	}
+
+	/**
+	 * Obtains the sum of the balances of all the accounts reading them in parallel.
+	 */
+	private long totalBalance(ExecutorService executor) throws Exception {
+		List<Future<Long>> futures = new ArrayList<>();
+		for (int thread = 0; thread < options.threads; thread++) {
+			final int first = thread;
+			futures.add(executor.submit(() -> {
+				long sum = 0;
+				for (int i = first; i < options.accounts; i += options.threads) {
+					sum += client.getBalance(accountName(i));
+				}
+				return sum;
+			}));
+		}
+		long total = 0;
+		for (Future<Long> future : futures) {
+			total += future.get();
+		}
+		return total;
+	}
+
+	/**
+	 * Runs the load threads during the given time and reports the partial results.
+	 * @return Returns the duration of the load in nanoseconds
+	 */
+	private long runLoad(ExecutorService executor) throws Exception {
+		long start = System.nanoTime();
+		long end = start + TimeUnit.SECONDS.toNanos(options.duration);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int thread = 0; thread < options.threads; thread++) {
+			futures.add(executor.submit(() -> generate(start, end)));
+		}
+
+		long reportInterval = TimeUnit.SECONDS.toNanos(options.reportInterval);
+		long nextReport = start + reportInterval;
+		while (nextReport < end) {
+			LockSupport.parkNanos(nextReport - System.nanoTime());
+			if (System.nanoTime() >= nextReport) {
+				statistics.reportInterval(System.out, nextReport - start);
+				nextReport += reportInterval;
+			}
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * The loop of one load thread. In the open loop each thread sends its share of the rate.
+	 */
+	private void generate(long start, long end) {
+		long interval = options.isOpenLoop() ? (long) (options.threads * 1e9 / options.rate) : 0;
+		long intended = start;
+		while (true) {
+			if (options.isOpenLoop()) {
+				intended += interval;
+				long wait = intended - System.nanoTime();
+				if (wait > 0) {
+					LockSupport.parkNanos(wait);
+				}
+			} else {
+				intended = System.nanoTime();
+			}
+			if (intended >= end) {
+				return;
+			}
+
+			int[] pair = selector.nextPair();
+			long value = 1 + ThreadLocalRandom.current().nextLong(options.maxValue);
+			OperationError error;
+			try {
+				error = client.transfer(accountName(pair[0]), accountName(pair[1]), value);
+			} catch (RuntimeException e) {
+				error = null;
+			}
+			statistics.record(error, System.nanoTime() - intended);
+		}
+	}
+
+	private String accountName(int index) {
+		return options.prefix + index;
+	}
+}
@@ -0,0 +1,123 @@
+package bank.tools.load;
+
+/**
+ * Options of the {@link LoadGenerator}. They are given in the command line as {@code --name=value}.
+ * 
+ * <pre>
+ *  --interface=inprocess|rest|soap|sdk  Interface used to reach the service (default inprocess). sdk is the
+ *                                   RESTful interface through the client library {@link bank.client}
+ *  --url=http://localhost:8080/bank Base URL of the service for the rest, soap and sdk interfaces
+ *  --connections=4                  Connections of the client library of the sdk interface
+ *  --accounts=1000                  Number of accounts created before the load starts
+ *  --prefix=load-                   Prefix of the names of the accounts
+ *  --balance=100000                 Initial balance of each account
+ *  --threads=8                      Number of threads generating load
+ *  --duration=60                    Duration of the load in seconds
+ *  --rate=0                         Transfers per second for all the threads (open loop). 
+ *                                   Zero means each thread sends the next transfer when the previous ends (closed loop)
+ *  --distribution=uniform           Selection of the accounts: uniform, zipf or hotset
+ *  --zipf-exponent=0.99             Exponent of the zipf distribution
+ *  --hot-fraction=0.01              Fraction of the accounts that are hot in the hotset distribution
+ *  --hot-traffic=0.9                Fraction of the transfers that goes to the hot accounts in the hotset distribution
+ *  --max-value=100                  Maximum value of a transfer. The value is random between 1 and this value
+ *  --report-interval=10             Seconds between the partial reports
+ * </pre>
+ * 
+ */
+public class LoadOptions {
+	String bankInterface = "inprocess";
+	String url = "http://localhost:8080/bank";
+	int connections = 4;
+	int accounts = 1000;
+	String prefix = "load-";
+	long balance = 100000;
+	int threads = 8;
+	long duration = 60;
+	double rate = 0;
+	String distribution = "uniform";
+	double zipfExponent = 0.99;
+	double hotFraction = 0.01;
+	double hotTraffic = 0.9;
+	long maxValue = 100;
+	long reportInterval = 10;
+
+	/**
+	 * Parses the command line arguments.
+	 * @param args The arguments given to the main method
+	 * @return Returns the options with the default values replaced by the given ones
+	 * @throws IllegalArgumentException If an argument is unknown, has not the form {@code --name=value} or its value
+	 * is out of range
+	 */
+	public static LoadOptions parse(String[] args) {
+		LoadOptions options = new LoadOptions();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException("Invalid argument " + arg);
+			}
+			String name = arg.substring(2, separator);
+			String value = arg.substring(separator + 1);
+			switch (name) {
+			case "interface": options.bankInterface = value; break;
+			case "url": options.url = value; break;
+			case "connections": options.connections = Integer.parseInt(value); break;
+			case "accounts": options.accounts = Integer.parseInt(value); break;
+			case "prefix": options.prefix = value; break;
+			case "balance": options.balance = Long.parseLong(value); break;
+			case "threads": options.threads = Integer.parseInt(value); break;
+			case "duration": options.duration = Long.parseLong(value); break;
+			case "rate": options.rate = Double.parseDouble(value); break;
+			case "distribution": options.distribution = value; break;
+			case "zipf-exponent": options.zipfExponent = Double.parseDouble(value); break;
+			case "hot-fraction": options.hotFraction = Double.parseDouble(value); break;
+			case "hot-traffic": options.hotTraffic = Double.parseDouble(value); break;
+			case "max-value": options.maxValue = Long.parseLong(value); break;
+			case "report-interval": options.reportInterval = Long.parseLong(value); break;
+			default:
+				throw new IllegalArgumentException("Unknown argument " + arg);
+			}
+		}
+		positive("connections", options.connections);
+		positive("accounts", options.accounts);
+		positive("threads", options.threads);
+		positive("duration", options.duration);
+		positive("max-value", options.maxValue);
+		positive("report-interval", options.reportInterval);
+		if (options.rate < 0) {
+			throw new IllegalArgumentException("The rate must not be negative");
+		}
+		return options;
+	}
+
+	private static void positive(String name, long value) {
+		if (value <= 0) {
+			throw new IllegalArgumentException("The " + name + " must be greater than zero");
+		}
+	}
+
+	/**
+	 * Creates the {@link BankClient} for the interface given in the options.
+	 * @return Returns the client to reach the service
+	 */
+	public BankClient createClient() {
+		switch (bankInterface) {
+		case "inprocess":
+			return new InProcessBankClient();
+		case "rest":
+			return new RestBankClient(url + "/rest");
+		case "soap":
+			return new SoapBankClient(url + "/ws");
+		case "sdk":
+			return new SdkBankClient(url, connections);
+		default:
+			throw new IllegalArgumentException("Unknown interface " + bankInterface);
+		}
+	}
+
+	/**
+	 * @return Returns true if the load is generated at a fixed rate (open loop)
+	 */
+	public boolean isOpenLoop() {
+		return rate > 0;
+	}
+}
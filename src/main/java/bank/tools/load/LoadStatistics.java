@@ -0,0 +1,108 @@
+package bank.tools.load;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import bank.data.OperationError;
+
+/**
+ * Collects the results of the transfers done by the {@link LoadGenerator}: the latency in a HDR histogram and 
+ * the number of operations by {@link OperationError}.
+ * The recording is wait free and could be done by all the load threads at the same time. 
+ * The reporting is done by a single thread.
+ * 
+ */
+public class LoadStatistics {
+	private final Recorder recorder = new Recorder(3);
+	private final Histogram total = new Histogram(3);
+	private final Map<OperationError, LongAdder> errors = new EnumMap<>(OperationError.class);
+	/**
+	 * Operations that ended with an exception, for example a connection refused.
+	 */
+	private final LongAdder failures = new LongAdder();
+	private Histogram interval;
+
+	public LoadStatistics() {
+		for (OperationError error : OperationError.values()) {
+			errors.put(error, new LongAdder());
+		}
+	}
+
+	/**
+	 * Records the result of an operation.
+	 * @param error The result of the operation. Null if the operation ended with an exception.
+	 * @param latencyNanos The latency of the operation in nanoseconds
+	 */
+	public void record(OperationError error, long latencyNanos) {
+		recorder.recordValue(latencyNanos);
+		if (error == null) {
+			failures.increment();
+		} else {
+			errors.get(error).increment();
+		}
+	}
+
+	/**
+	 * Prints the throughput and the percentiles of the operations done since the last call.
+	 * @param out Where to print the report
+	 * @param elapsedNanos Time since the beginning of the load
+	 */
+	public void reportInterval(PrintStream out, long elapsedNanos) {
+		interval = recorder.getIntervalHistogram(interval);
+		total.add(interval);
+		double seconds = (interval.getEndTimeStamp() - interval.getStartTimeStamp()) / 1000.0;
+		out.printf("%6ds %10.0f ops/s  p50=%s p99=%s max=%s  out-of-sequence=%d%n",
+				TimeUnit.NANOSECONDS.toSeconds(elapsedNanos),
+				seconds > 0 ? interval.getTotalCount() / seconds : 0,
+				micros(interval.getValueAtPercentile(50)),
+				micros(interval.getValueAtPercentile(99)),
+				micros(interval.getMaxValue()),
+				errors.get(OperationError.ACCOUNT_OUT_OF_SEQUENCE).sum());
+	}
+
+	/**
+	 * Prints the throughput, the breakdown of the results and the percentiles of all the operations.
+	 * Must be called after the last operation is recorded.
+	 * @param out Where to print the report
+	 * @param elapsedNanos The duration of the load
+	 */
+	public void reportTotal(PrintStream out, long elapsedNanos) {
+		interval = recorder.getIntervalHistogram(interval);
+		total.add(interval);
+		long count = total.getTotalCount();
+		out.println();
+		out.printf("Transfers: %d in %.1fs (%.0f ops/s)%n", count, elapsedNanos / 1e9, count / (elapsedNanos / 1e9));
+		for (Map.Entry<OperationError, LongAdder> entry : errors.entrySet()) {
+			long errorCount = entry.getValue().sum();
+			if (errorCount > 0) {
+				out.printf("  %-26s %10d (%5.2f%%)%n", entry.getKey(), errorCount, 100.0 * errorCount / count);
+			}
+		}
+		if (failures.sum() > 0) {
+			out.printf("  %-26s %10d (%5.2f%%)%n", "EXCEPTION", failures.sum(), 100.0 * failures.sum() / count);
+		}
+		out.println("Latency:");
+		for (double percentile : new double[] { 50, 90, 99, 99.9, 99.99 }) {
+			out.printf("  p%-6s %s%n", percentile, micros(total.getValueAtPercentile(percentile)));
+		}
+		out.printf("  max     %s%n", micros(total.getMaxValue()));
+	}
+
+	public long getCount(OperationError error) {
+		return errors.get(error).sum();
+	}
+
+	public long getFailures() {
+		return failures.sum();
+	}
+
+	private static String micros(long nanos) {
+		return String.format("%.1fus", nanos / 1000.0);
+	}
+}
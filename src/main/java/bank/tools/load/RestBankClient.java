@@ -0,0 +1,51 @@
+package bank.tools.load;
+
+import java.util.Map;
+
+import org.springframework.web.client.RestTemplate;
+
+import bank.data.OperationError;
+
+/**
+ * {@link BankClient} that uses the RESTful interface {@link bank.interfaces.rest.BankRestService}.
+ * The responses are read as maps because {@link bank.data.OperationStatus} is not a JSON bean that 
+ * could be deserialized.
+ * 
+ */
+public class RestBankClient implements BankClient {
+	private final RestTemplate restTemplate = new RestTemplate();
+	private final String baseUrl;
+
+	/**
+	 * @param baseUrl The URL of the RESTful interface, for example {@code http://localhost:8080/bank/rest}
+	 */
+	public RestBankClient(String baseUrl) {
+		this.baseUrl = baseUrl;
+	}
+
+	@Override
+	public OperationError createAccount(String name, long balance) {
+		return errorCode(restTemplate.getForObject(baseUrl + "/createAccount?name={name}&balance={balance}", 
+				Map.class, name, balance));
+	}
+
+	@Override
+	public OperationError transfer(String fromAccountName, String toAccountName, long transferValue) {
+		return errorCode(restTemplate.getForObject(baseUrl + "/transfer?from={from}&to={to}&value={value}", 
+				Map.class, fromAccountName, toAccountName, transferValue));
+	}
+
+	@Override
+	public long getBalance(String name) {
+		Map<?, ?> response = restTemplate.getForObject(baseUrl + "/balance?name={name}", Map.class, name);
+		OperationError error = errorCode(response);
+		if (error != OperationError.NO_ERROR) {
+			throw new IllegalStateException("Account " + name + " failed with error " + error);
+		}
+		return ((Number) response.get("balance")).longValue();
+	}
+
+	private static OperationError errorCode(Map<?, ?> response) {
+		return OperationError.fromCode(((Number) response.get("errorCode")).intValue());
+	}
+}
@@ -0,0 +1,58 @@
+package bank.tools.load;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import bank.client.BankClientOptions;
+import bank.client.BankServiceClient;
+import bank.client.RestBankServiceClient;
+import bank.data.BalanceStatus;
+import bank.data.OperationError;
+
+/**
+ * {@link BankClient} that uses the {@link RestBankServiceClient} of the client library, so the load measures the
+ * pooled connections and the batching of the calls. The load threads wait for each call, so the calls are 
+ * coalesced when there are more load threads than connections.
+ * 
+ */
+public class SdkBankClient implements BankClient {
+	private final BankServiceClient client;
+
+	/**
+	 * @param url The base URL of the service, for example {@code http://localhost:8080/bank}
+	 * @param connections The number of connections of the client
+	 */
+	public SdkBankClient(String url, int connections) {
+		this.client = new RestBankServiceClient(new BankClientOptions().setUrl(url).setConnections(connections));
+	}
+
+	@Override
+	public OperationError createAccount(String name, long balance) {
+		return join(client.createAccount(name, balance)).getErrorCode();
+	}
+
+	@Override
+	public OperationError transfer(String fromAccountName, String toAccountName, long transferValue) {
+		return join(client.transfer(fromAccountName, toAccountName, transferValue)).getErrorCode();
+	}
+
+	@Override
+	public long getBalance(String name) {
+		BalanceStatus status = join(client.getBalance(name));
+		if (!status.isSuccess()) {
+			throw new IllegalStateException("Account " + name + " failed with error " + status.getErrorCode());
+		}
+		return status.getBalance();
+	}
+
+	private static <T> T join(Future<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+		}
+	}
+}
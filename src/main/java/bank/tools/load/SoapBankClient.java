@@ -0,0 +1,70 @@
+package bank.tools.load;
+
+import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.util.ClassUtils;
+import org.springframework.ws.client.core.WebServiceTemplate;
+
+import com.maxintech.bank.ws.CreateAccountRequest;
+import com.maxintech.bank.ws.CreateAccountResponse;
+import com.maxintech.bank.ws.GetBalanceRequest;
+import com.maxintech.bank.ws.GetBalanceResponse;
+import com.maxintech.bank.ws.TransferRequest;
+import com.maxintech.bank.ws.TransferResponse;
+
+import bank.data.OperationError;
+
+/**
+ * {@link BankClient} that uses the Web Service interface {@link bank.interfaces.ws.BankServiceEndpoint}.
+ * The values are sent as {@code int} because it is the type defined in {@code bankservices.xsd}.
+ * 
+ */
+public class SoapBankClient implements BankClient {
+	private final WebServiceTemplate ws;
+	private final String url;
+
+	/**
+	 * @param url The URL of the Web Service interface, for example {@code http://localhost:8080/bank/ws}
+	 */
+	public SoapBankClient(String url) {
+		Jaxb2Marshaller marshaller = new Jaxb2Marshaller();
+		marshaller.setPackagesToScan(ClassUtils.getPackageName(CreateAccountRequest.class));
+		try {
+			marshaller.afterPropertiesSet();
+		} catch (Exception e) {
+			throw new IllegalStateException("Could not initialize the JAXB marshaller", e);
+		}
+		this.ws = new WebServiceTemplate(marshaller);
+		this.url = url;
+	}
+
+	@Override
+	public OperationError createAccount(String name, long balance) {
+		CreateAccountRequest request = new CreateAccountRequest();
+		request.setName(name);
+		request.setBalance(Math.toIntExact(balance));
+		CreateAccountResponse response = (CreateAccountResponse) ws.marshalSendAndReceive(url, request);
+		return OperationError.fromCode(response.getOperationStatus().getErrorCode());
+	}
+
+	@Override
+	public OperationError transfer(String fromAccountName, String toAccountName, long transferValue) {
+		TransferRequest request = new TransferRequest();
+		request.setFrom(fromAccountName);
+		request.setTo(toAccountName);
+		request.setValue(Math.toIntExact(transferValue));
+		TransferResponse response = (TransferResponse) ws.marshalSendAndReceive(url, request);
+		return OperationError.fromCode(response.getOperationStatus().getErrorCode());
+	}
+
+	@Override
+	public long getBalance(String name) {
+		GetBalanceRequest request = new GetBalanceRequest();
+		request.setName(name);
+		GetBalanceResponse response = (GetBalanceResponse) ws.marshalSendAndReceive(url, request);
+		if (!response.getOperationStatus().isStatus()) {
+			throw new IllegalStateException("Account " + name + " failed with error " 
+					+ OperationError.fromCode(response.getOperationStatus().getErrorCode()));
+		}
+		return response.getBalance();
+	}
+}
@@ -0,0 +1,148 @@
+package bank.tools.reconcile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import org.springframework.web.client.RestTemplate;
+
+import bank.dao.Fingerprint;
+
+/**
+ * Command line tool that compares the accounts of two instances of the application, for example a replica and
+ * its primary or a restored backup and the live one, with the {@link Fingerprint}s of their Merkle trees.
+ *
+ * The roots are compared first. Where two nodes differ their children are compared, level by level, until the
+ * leaves that differ are found, and only the accounts of those leaves are read and compared. The accounts that
+ * differ are printed, with the number of requests done.
+ *
+ * The options are given in the command line as {@code --name=value}:
+ * <pre>
+ *  --primary=http://localhost:8080/bank/rest   The RESTful interface of the reference copy
+ *  --replica=http://localhost:8081/bank/rest   The RESTful interface of the copy to check
+ * </pre>
+ *
+ * Both instances must have the same property {@code bank.accounts.merkle-leaves}.
+ *
+ */
+public class Reconciler {
+	private final RestTemplate restTemplate = new RestTemplate();
+	private final String primary;
+	private final String replica;
+	private int requests;
+
+	public Reconciler(String primary, String replica) {
+		this.primary = primary;
+		this.replica = replica;
+	}
+
+	public static void main(String[] args) {
+		String primary = "http://localhost:8080/bank/rest";
+		String replica = "http://localhost:8081/bank/rest";
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException("Invalid argument " + arg);
+			}
+			String value = arg.substring(separator + 1);
+			switch (arg.substring(2, separator)) {
+			case "primary": primary = value; break;
+			case "replica": replica = value; break;
+			default:
+				throw new IllegalArgumentException("Unknown argument " + arg);
+			}
+		}
+
+		Reconciler reconciler = new Reconciler(primary, replica);
+		List<Integer> leaves = reconciler.findDivergentLeaves();
+		System.out.println(leaves.size() + " leaves differ " + leaves);
+		for (int leaf : leaves) {
+			for (String difference : reconciler.compareLeaf(leaf)) {
+				System.out.println(difference);
+			}
+		}
+		System.out.println(reconciler.requests + " requests");
+	}
+
+	/**
+	 * Finds the leaves whose hashes differ, descending only into the nodes that differ.
+	 *
+	 * @return Returns the leaves that differ, empty if the copies are the same
+	 */
+	public List<Integer> findDivergentLeaves() {
+		Fingerprint primaryRoot = fingerprint(primary, 0, 0, 1);
+		Fingerprint replicaRoot = fingerprint(replica, 0, 0, 1);
+		if (primaryRoot.getDepth() != replicaRoot.getDepth()) {
+			throw new IllegalStateException("The trees have different depths: " + primaryRoot.getDepth() + " and "
+					+ replicaRoot.getDepth());
+		}
+		List<Integer> divergent = new ArrayList<>();
+		if (!primaryRoot.getHashes().equals(replicaRoot.getHashes())) {
+			divergent.add(0);
+		}
+		for (int level = 1; level <= primaryRoot.getDepth() && !divergent.isEmpty(); level++) {
+			List<Integer> children = new ArrayList<>();
+			for (int parent : divergent) {
+				List<String> primaryHashes = fingerprint(primary, level, 2 * parent, 2).getHashes();
+				List<String> replicaHashes = fingerprint(replica, level, 2 * parent, 2).getHashes();
+				for (int i = 0; i < 2; i++) {
+					if (!primaryHashes.get(i).equals(replicaHashes.get(i))) {
+						children.add(2 * parent + i);
+					}
+				}
+			}
+			divergent = children;
+		}
+		return divergent;
+	}
+
+	/**
+	 * Compares the accounts of a leaf.
+	 *
+	 * @param leaf The leaf
+	 * @return Returns a description of each account that differs
+	 */
+	public List<String> compareLeaf(int leaf) {
+		Map<String, Map<?, ?>> primaryAccounts = accounts(primary, leaf);
+		Map<String, Map<?, ?>> replicaAccounts = accounts(replica, leaf);
+		List<String> differences = new ArrayList<>();
+		for (Map.Entry<String, Map<?, ?>> entry : primaryAccounts.entrySet()) {
+			Map<?, ?> replicaAccount = replicaAccounts.get(entry.getKey());
+			if (replicaAccount == null) {
+				differences.add("missing " + entry.getValue());
+			} else if (!Objects.equals(entry.getValue().get("balance"), replicaAccount.get("balance"))
+					|| !Objects.equals(entry.getValue().get("sequence"), replicaAccount.get("sequence"))) {
+				differences.add("changed " + entry.getValue() + " replica " + replicaAccount);
+			}
+		}
+		for (Map.Entry<String, Map<?, ?>> entry : replicaAccounts.entrySet()) {
+			if (!primaryAccounts.containsKey(entry.getKey())) {
+				differences.add("extra " + entry.getValue());
+			}
+		}
+		return differences;
+	}
+
+	private Fingerprint fingerprint(String baseUrl, int level, int from, int count) {
+		requests++;
+		Map<?, ?> response = restTemplate.getForObject(baseUrl + "/fingerprint?level={level}&from={from}&count={count}",
+				Map.class, level, from, count);
+		List<String> hashes = new ArrayList<>();
+		for (Object hash : (List<?>) response.get("hashes")) {
+			hashes.add((String) hash);
+		}
+		return new Fingerprint(((Number) response.get("depth")).intValue(), level, from, hashes);
+	}
+
+	private Map<String, Map<?, ?>> accounts(String baseUrl, int leaf) {
+		requests++;
+		List<?> response = restTemplate.getForObject(baseUrl + "/fingerprintAccounts?leaf={leaf}", List.class, leaf);
+		Map<String, Map<?, ?>> accounts = new TreeMap<>();
+		for (Object account : response) {
+			accounts.put((String) ((Map<?, ?>) account).get("name"), (Map<?, ?>) account);
+		}
+		return accounts;
+	}
+}
@@ -0,0 +1,126 @@
+package bank.tools.replay;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import bank.capture.CapturedRequest;
+import bank.capture.CapturedRequest.Operation;
+import bank.data.OperationError;
+
+/**
+ * Collects the outcomes and the latencies of the requests of a capture, as they were recorded and as they were 
+ * replayed by the {@link TrafficReplayer}, by operation, and prints them side by side.
+ * The replayed results are recorded by the threads of the clients, at the same time.
+ * 
+ */
+public class ReplayStatistics {
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	private final Map<Operation, Histogram> recorded = new EnumMap<>(Operation.class);
+	private final Map<Operation, Histogram> replayed = new EnumMap<>(Operation.class);
+	private final Map<Operation, Map<String, LongAdder[]>> outcomes = new EnumMap<>(Operation.class);
+	private final LongAdder differences = new LongAdder();
+	private final LongAdder requests = new LongAdder();
+
+	public ReplayStatistics() {
+		for (Operation operation : Operation.values()) {
+			recorded.put(operation, new ConcurrentHistogram(3));
+			replayed.put(operation, new ConcurrentHistogram(3));
+			outcomes.put(operation, new ConcurrentHashMap<>());
+		}
+	}
+
+	/**
+	 * Records the result of a replayed request, with the one recorded in the capture.
+	 * 
+	 * @param request The captured request
+	 * @param outcome The outcome of the replay, null if the request failed with an exception
+	 * @param latencyNanos The latency of the replay, from the time the request was due
+	 */
+	public void record(CapturedRequest request, OperationError outcome, long latencyNanos) {
+		Operation operation = request.getOperation();
+		requests.increment();
+		recorded.get(operation).recordValue(Math.max(1, request.getLatencyNanos()));
+		replayed.get(operation).recordValue(Math.max(1, latencyNanos));
+		count(operation, name(request.getOutcome()), 0);
+		count(operation, name(outcome), 1);
+		if (request.getOutcome() != outcome) {
+			differences.increment();
+		}
+	}
+
+	/**
+	 * @return Returns the number of replayed requests whose outcome was not the recorded one
+	 */
+	public long getDifferences() {
+		return differences.sum();
+	}
+
+	/**
+	 * @return Returns the ratio of the replayed and the recorded percentile 99 of the operation with the worst ratio
+	 */
+	public double getWorstP99Ratio() {
+		double worst = 0;
+		for (Operation operation : Operation.values()) {
+			Histogram recordedLatency = recorded.get(operation);
+			if (recordedLatency.getTotalCount() > 0) {
+				worst = Math.max(worst, (double) replayed.get(operation).getValueAtPercentile(99) 
+						/ recordedLatency.getValueAtPercentile(99));
+			}
+		}
+		return worst;
+	}
+
+	/**
+	 * Prints the outcomes and the percentiles of the latency of each operation, recorded and replayed.
+	 * Must be called after the last request is recorded.
+	 */
+	public void report(PrintStream out) {
+		long count = requests.sum();
+		out.println();
+		out.printf("%-15s %-27s %10s %10s%n", "Operation", "Outcome", "Recorded", "Replayed");
+		for (Map.Entry<Operation, Map<String, LongAdder[]>> operation : outcomes.entrySet()) {
+			for (Map.Entry<String, LongAdder[]> outcome : new TreeMap<>(operation.getValue()).entrySet()) {
+				out.printf("%-15s %-27s %10d %10d%n", operation.getKey(), outcome.getKey(), 
+						outcome.getValue()[0].sum(), outcome.getValue()[1].sum());
+			}
+		}
+		out.println();
+		out.printf("%-15s %-8s %12s %12s%n", "Operation", "Latency", "Recorded", "Replayed");
+		for (Operation operation : Operation.values()) {
+			if (recorded.get(operation).getTotalCount() == 0) {
+				continue;
+			}
+			for (double percentile : PERCENTILES) {
+				out.printf("%-15s p%-7s %12s %12s%n", operation, percentile, 
+						micros(recorded.get(operation).getValueAtPercentile(percentile)),
+						micros(replayed.get(operation).getValueAtPercentile(percentile)));
+			}
+			out.printf("%-15s %-8s %12s %12s%n", operation, "max", micros(recorded.get(operation).getMaxValue()),
+					micros(replayed.get(operation).getMaxValue()));
+		}
+		out.println();
+		out.printf("Outcomes different from the recorded: %d of %d (%.2f%%)%n", differences.sum(), count, 
+				count == 0 ? 0 : 100.0 * differences.sum() / count);
+	}
+
+	private void count(Operation operation, String outcome, int index) {
+		outcomes.get(operation).computeIfAbsent(outcome, key -> new LongAdder[] { new LongAdder(), new LongAdder() })
+				[index].increment();
+	}
+
+	private static String name(OperationError outcome) {
+		return outcome == null ? "EXCEPTION" : outcome.name();
+	}
+
+	private static String micros(long nanos) {
+		return String.format("%.1fus", nanos / 1000.0);
+	}
+}
@@ -0,0 +1,211 @@
+package bank.tools.replay;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+import bank.capture.CaptureFile;
+import bank.capture.CapturedRequest;
+import bank.client.BankClientOptions;
+import bank.client.BankServiceClient;
+import bank.client.RestBankServiceClient;
+import bank.client.SoapBankServiceClient;
+import bank.dao.AccountDAO;
+import bank.data.Account;
+import bank.data.HoldStatus;
+import bank.data.OperationError;
+import bank.data.OperationStatus;
+import bank.priority.RequestClass;
+
+/**
+ * Command line tool that replays a capture of the {@link bank.capture.TrafficCapture} against an instance of the 
+ * application, usually a fresh one of the build to test, and compares the outcomes and the latencies of the 
+ * replay with the ones recorded.
+ * 
+ * First the accounts of the header of the capture are created, in the tenant they were. Then each request is sent
+ * when it is due, at the time it started in the capture divided by the speed, through the same interface (REST or
+ * SOAP), tenant and request class, without waiting for the previous requests (open loop). The latency is measured
+ * from the time the request was due, so a slow instance is not hidden by the requests sent late. The holds of the
+ * capture are mapped to the holds of the replay, the capture or release of a hold waits for its authorization.
+ * The instance must have the tenants of the capture.
+ * 
+ * The options are given in the command line as {@code --name=value}:
+ * <pre>
+ *  --file=traffic-1.cap                The capture file, mandatory
+ *  --url=http://localhost:8080/bank    Base URL of the instance
+ *  --speed=1                           Speed of the replay, 2 is twice as fast. 0 sends all the requests at once
+ *  --connections=16                    Connections of each client
+ *  --create-accounts=true              Create the accounts of the capture before the replay
+ *  --max-p99-ratio=0                   Exit with 1 if the replayed percentile 99 of an operation is more than this
+ *                                      times the recorded one. 0 doesn't check it
+ * </pre>
+ * 
+ */
+public class TrafficReplayer {
+	private final Path file;
+	private final String url;
+	private final double speed;
+	private final int connections;
+	private final Map<String, BankServiceClient> clients = new HashMap<>();
+	private final Map<Long, CompletableFuture<Long>> holds = new ConcurrentHashMap<>();
+	private final ReplayStatistics statistics = new ReplayStatistics();
+
+	public TrafficReplayer(Path file, String url, double speed, int connections) {
+		this.file = file;
+		this.url = url;
+		this.speed = speed;
+		this.connections = connections;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String file = null;
+		String url = "http://localhost:8080/bank";
+		double speed = 1;
+		int connections = 16;
+		boolean createAccounts = true;
+		double maxP99Ratio = 0;
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException("Invalid argument " + arg);
+			}
+			String value = arg.substring(separator + 1);
+			switch (arg.substring(2, separator)) {
+			case "file": file = value; break;
+			case "url": url = value; break;
+			case "speed": speed = Double.parseDouble(value); break;
+			case "connections": connections = Integer.parseInt(value); break;
+			case "create-accounts": createAccounts = Boolean.parseBoolean(value); break;
+			case "max-p99-ratio": maxP99Ratio = Double.parseDouble(value); break;
+			default:
+				throw new IllegalArgumentException("Unknown argument " + arg);
+			}
+		}
+		if (file == null) {
+			throw new IllegalArgumentException("The option --file is mandatory");
+		}
+
+		TrafficReplayer replayer = new TrafficReplayer(Paths.get(file), url, speed, connections);
+		ReplayStatistics statistics = replayer.replay(createAccounts);
+		statistics.report(System.out);
+		double ratio = statistics.getWorstP99Ratio();
+		System.out.printf("Worst ratio of the percentile 99: %.2f%n", ratio);
+		System.exit(maxP99Ratio > 0 && ratio > maxP99Ratio ? 1 : 0);
+	}
+
+	/**
+	 * Creates the accounts, if asked, and replays the requests of the capture.
+	 * 
+	 * @param createAccounts True to create the accounts of the header of the capture first
+	 * @return Returns the statistics of the replay
+	 * @throws IOException If the capture could not be read
+	 */
+	public ReplayStatistics replay(boolean createAccounts) throws IOException {
+		List<CapturedRequest> requests = new ArrayList<>();
+		try (CaptureFile.Reader reader = new CaptureFile.Reader(file)) {
+			if (createAccounts) {
+				createAccounts(reader.getAccounts());
+			}
+			for (CapturedRequest request = reader.next(); request != null; request = reader.next()) {
+				requests.add(request);
+			}
+		}
+		// The records are in the order the requests ended
+		requests.sort(Comparator.comparingLong(CapturedRequest::getStartNanos));
+		long capturedNanos = requests.isEmpty() ? 0 : requests.get(requests.size() - 1).getStartNanos();
+		System.out.printf("Replaying %d requests of %.1fs at speed %s%n", requests.size(), capturedNanos / 1e9, 
+				speed == 0 ? "max" : speed + "x");
+
+		List<CompletableFuture<?>> pending = new ArrayList<>(requests.size());
+		long start = System.nanoTime();
+		try {
+			for (CapturedRequest request : requests) {
+				long due = speed == 0 ? System.nanoTime() : start + (long) (request.getStartNanos() / speed);
+				for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+					LockSupport.parkNanos(wait);
+				}
+				pending.add(send(request).handle((status, failure) -> {
+					statistics.record(request, failure == null ? status.getErrorCode() : null, System.nanoTime() - due);
+					return null;
+				}));
+			}
+			CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+			System.out.printf("Replayed in %.1fs%n", (System.nanoTime() - start) / 1e9);
+		} finally {
+			for (BankServiceClient client : clients.values()) {
+				client.close();
+			}
+		}
+		return statistics;
+	}
+
+	private void createAccounts(Map<String, List<Account>> accounts) {
+		for (Map.Entry<String, List<Account>> tenant : accounts.entrySet()) {
+			// The client coalesces the new accounts, they are sent in a few requests
+			BankServiceClient client = client("REST", tenant(tenant.getKey()), null, 100);
+			List<CompletableFuture<OperationStatus>> created = new ArrayList<>();
+			for (Account account : tenant.getValue()) {
+				created.add(client.createAccount(account.getName(), account.getBalance()));
+			}
+			long failed = created.stream().filter(status -> !status.join().isSuccess()).count();
+			System.out.printf("Tenant %s: %d accounts created, %d failed%n", tenant.getKey(), created.size() - failed,
+					failed);
+		}
+	}
+
+	private CompletableFuture<? extends OperationStatus> send(CapturedRequest request) {
+		BankServiceClient client = client(request.getChannel(), request.getTenant(), request.getRequestClass(), 1);
+		switch (request.getOperation()) {
+		case CREATE_ACCOUNT:
+			return client.createAccount(request.getAccount(), request.getAmount());
+		case TRANSFER:
+			return client.transfer(request.getAccount(), request.getTo(), request.getAmount());
+		case BALANCE:
+			return client.getBalance(request.getAccount());
+		case AUTHORIZE:
+			CompletableFuture<HoldStatus> hold = client.authorize(request.getAccount(), request.getAmount(), 
+					request.getArgument());
+			if (request.getOutcome() == OperationError.NO_ERROR) {
+				holds.put(request.getResult(), hold.thenApply(status -> status.isSuccess() ? status.getHoldId() : -1)
+						.exceptionally(failure -> -1L));
+			}
+			return hold;
+		case CAPTURE:
+			return hold(request.getArgument())
+					.thenCompose(id -> client.capture(id, request.getTo(), request.getAmount()));
+		case RELEASE:
+			return hold(request.getArgument()).thenCompose(client::release);
+		default:
+			throw new IllegalStateException("Unknown operation " + request.getOperation());
+		}
+	}
+
+	/**
+	 * @return Returns the id in the replay of a hold of the capture, -1 if it was authorized before the capture
+	 */
+	private CompletableFuture<Long> hold(long capturedId) {
+		CompletableFuture<Long> hold = holds.get(capturedId);
+		return hold != null ? hold : CompletableFuture.completedFuture(-1L);
+	}
+
+	private BankServiceClient client(String channel, String tenant, RequestClass requestClass, int maxBatch) {
+		String key = channel + "/" + tenant + "/" + requestClass + "/" + maxBatch;
+		return clients.computeIfAbsent(key, k -> {
+			BankClientOptions options = new BankClientOptions().setUrl(url).setTenant(tenant)
+					.setRequestClass(requestClass).setConnections(connections).setMaxBatch(maxBatch);
+			return "SOAP".equals(channel) ? new SoapBankServiceClient(options) : new RestBankServiceClient(options);
+		});
+	}
+
+	private static String tenant(String tenant) {
+		return AccountDAO.DEFAULT_TENANT.equals(tenant) ? null : tenant;
+	}
+}
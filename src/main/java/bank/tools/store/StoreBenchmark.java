@@ -0,0 +1,117 @@
+package bank.tools.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import bank.dao.AccountDAO;
+import bank.data.Account;
+
+/**
+ * Command line tool that compares the stores of the accounts of the {@link AccountDAO} on the same hardware: 
+ * creates the accounts, runs transfers between random accounts from several threads and reads random accounts, 
+ * through the {@link AccountDAO}, with the store chosen by the system property bank.accounts.store. 
+ * The store is chosen when the {@link AccountDAO} is loaded, so each store is measured in its own run.
+ * 
+ * The options are given in the command line as {@code --name=value}:
+ * <pre>
+ *  --store=tiered        The store: tiered (memory and file) or jdbc (embedded database)
+ *  --accounts=100000     Number of accounts
+ *  --operations=1000000  Number of transfers and of reads
+ *  --threads=4           Threads of the transfers and the reads
+ * </pre>
+ * 
+ * Run it with:
+ * 	java -cp target/classes:h2.jar bank.tools.store.StoreBenchmark --store=jdbc
+ * 
+ */
+public class StoreBenchmark {
+
+	public static void main(String[] args) throws InterruptedException {
+		String store = "tiered";
+		int accounts = 100_000;
+		long operations = 1_000_000;
+		int threads = 4;
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException("Invalid argument " + arg);
+			}
+			String value = arg.substring(separator + 1);
+			switch (arg.substring(2, separator)) {
+			case "store": store = value; break;
+			case "accounts": accounts = Integer.parseInt(value); break;
+			case "operations": operations = Long.parseLong(value); break;
+			case "threads": threads = Integer.parseInt(value); break;
+			default:
+				throw new IllegalArgumentException("Unknown argument " + arg);
+			}
+		}
+		// Before the AccountDAO is loaded
+		System.setProperty("bank.accounts.store", store);
+		if (System.getProperty("bank.accounts.cache-size") == null) {
+			System.setProperty("bank.accounts.cache-size", String.valueOf(accounts));
+		}
+		AccountDAO dao = new AccountDAO();
+		System.out.printf("store %s, %d accounts, %d threads%n", store, accounts, threads);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < accounts; i++) {
+			dao.createAccount("account-" + i, 1_000_000);
+		}
+		report("create", accounts, start);
+
+		int count = accounts;
+		LongAdder conflicts = new LongAdder();
+		start = System.nanoTime();
+		run(threads, operations / threads, () -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			int from = random.nextInt(count);
+			int to = random.nextInt(count);
+			if (from == to) {
+				return;
+			}
+			long value = 1 + random.nextInt(100);
+			while (true) {
+				Account fromAccount = dao.getAccount("account-" + from);
+				Account toAccount = dao.getAccount("account-" + to);
+				fromAccount.withdraw(value);
+				toAccount.deposit(value);
+				if (dao.updateAccounts(fromAccount, toAccount)) {
+					return;
+				}
+				conflicts.increment();
+			}
+		});
+		report("transfer", operations, start);
+		System.out.printf("conflicts %d%n", conflicts.sum());
+
+		start = System.nanoTime();
+		run(threads, operations / threads, 
+				() -> dao.getAccount("account-" + ThreadLocalRandom.current().nextInt(count)));
+		report("read", operations, start);
+	}
+
+	private static void run(int threads, long operations, Runnable operation) throws InterruptedException {
+		List<Thread> workers = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			Thread worker = new Thread(() -> {
+				for (long j = 0; j < operations; j++) {
+					operation.run();
+				}
+			});
+			worker.start();
+			workers.add(worker);
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+	}
+
+	private static void report(String title, long operations, long start) {
+		long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		System.out.printf("%s: %d ms, %.0f operations/s%n", title, millis, operations * 1000.0 / millis);
+	}
+}
@@ -0,0 +1,83 @@
+package bank.trace;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * This class keeps a Flight Recorder recording running while the application runs, so a latency spike could be
+ * diagnosed after it happened by dumping the recording with {@link #dump(Path)}.
+ *
+ * The recording has the settings {@code default} of the JVM, low overhead, with the garbage collections, the
+ * locks and the samples of the threads, and all the {@code bank.Transfer} events of {@link TransferTrace}.
+ * Only the last part of the recording is kept.
+ *
+ * The properties are:
+ * 	{@code bank.trace.recording} If false there is no recording, by default true.
+ * 	{@code bank.trace.max-age} The minutes kept, by default 10.
+ * 	{@code bank.trace.max-size} The megabytes kept, by default 64.
+ *
+ * The component is not created if the JVM has no Flight Recorder.
+ *
+ */
+@Component
+@ConditionalOnClass(name = "jdk.jfr.Recording")
+@ConditionalOnProperty(name = "bank.trace.recording", matchIfMissing = true)
+public class FlightRecording {
+	private final long maxAge;
+	private final long maxSize;
+	private Recording recording;
+
+	public FlightRecording(@Value("${bank.trace.max-age:10}") long maxAge,
+			@Value("${bank.trace.max-size:64}") long maxSize) {
+		this.maxAge = maxAge;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Starts the recording.
+	 *
+	 * @throws IOException If the settings could not be read
+	 * @throws ParseException If the settings could not be parsed
+	 */
+	@PostConstruct
+	public synchronized void start() throws IOException, ParseException {
+		recording = new Recording(Configuration.getConfiguration("default"));
+		recording.setName("bank");
+		recording.enable(TransferEvent.NAME).withThreshold(Duration.ZERO);
+		recording.setToDisk(true);
+		recording.setMaxAge(Duration.ofMinutes(maxAge));
+		recording.setMaxSize(maxSize * 1024 * 1024);
+		recording.start();
+	}
+
+	/**
+	 * Stops the recording.
+	 */
+	@PreDestroy
+	public synchronized void stop() {
+		recording.close();
+	}
+
+	/**
+	 * Writes the recording, from the oldest part kept until now, to a file. The recording goes on.
+	 *
+	 * @param file The file, in the format of Flight Recorder ({@code .jfr})
+	 * @throws IOException If the file could not be written
+	 */
+	public synchronized void dump(Path file) throws IOException {
+		recording.dump(file);
+	}
+}
@@ -0,0 +1,62 @@
+package bank.trace;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import bank.capture.TrafficCapture;
+
+/**
+ * This filter keeps a {@link TransferTrace} for each request of the RESTful and Web Service interfaces, so the
+ * time before and after the service, the unmarshalling and the serialization, are part of the trace. The requests
+ * are also given to the {@link TrafficCapture}, which keeps them only while a capture is running.
+ *
+ * If the property {@code bank.trace.sample-rate} is greater than zero, one of every that number of transfers is
+ * written to the log {@code bank.trace} with the time of each stage. By default no transfer is written.
+ *
+ */
+@Component
+public class TraceFilter extends OncePerRequestFilter {
+	private static final Logger LOG = LoggerFactory.getLogger("bank.trace");
+
+	private final long sampleRate;
+	private final TrafficCapture capture;
+	private final AtomicLong transfers = new AtomicLong();
+
+	public TraceFilter(@Value("${bank.trace.sample-rate:0}") long sampleRate, TrafficCapture capture) {
+		this.sampleRate = sampleRate;
+		this.capture = capture;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		if (!path.startsWith("/bank/")) {
+			chain.doFilter(request, response);
+			return;
+		}
+		String channel = path.startsWith("/bank/ws") ? "SOAP" : "REST";
+		TransferTrace.begin(channel);
+		capture.begin(channel);
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			capture.end();
+			TransferTrace trace = TransferTrace.end();
+			if (trace != null && sampleRate > 0 && transfers.incrementAndGet() % sampleRate == 0) {
+				LOG.info("{}", trace);
+			}
+		}
+	}
+}
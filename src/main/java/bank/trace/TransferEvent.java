@@ -0,0 +1,76 @@
+package bank.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The Flight Recorder event of a {@link TransferTrace}. The duration of the event is the one of the request.
+ *
+ */
+@Name(TransferEvent.NAME)
+@Label("Transfer")
+@Category("Bank")
+@Description("A transfer of the RESTful or Web Service interfaces with the time of each stage")
+@StackTrace(false)
+class TransferEvent extends Event {
+	static final String NAME = "bank.Transfer";
+
+	@Label("Interface")
+	String channel;
+	@Label("Accounts")
+	String accounts;
+	@Label("Amount")
+	long amount;
+	@Label("Request Class")
+	String requestClass;
+	@Label("Outcome")
+	String outcome;
+	@Label("Unmarshal")
+	@Timespan
+	long unmarshal;
+	@Label("Queue")
+	@Timespan
+	long queue;
+	@Label("Validation")
+	@Timespan
+	long validation;
+	@Label("Lock")
+	@Timespan
+	long lock;
+	@Label("Commit")
+	@Timespan
+	long commit;
+	@Label("Serialization")
+	@Timespan
+	long serialization;
+
+	static TransferEvent start() {
+		TransferEvent event = new TransferEvent();
+		event.begin();
+		return event;
+	}
+
+	static void commit(TransferEvent event, TransferTrace trace) {
+		event.end();
+		if (!event.shouldCommit()) {
+			return;
+		}
+		event.channel = trace.getChannel();
+		event.accounts = trace.getAccounts();
+		event.amount = trace.getAmount();
+		event.requestClass = trace.getRequestClass() == null ? null : trace.getRequestClass().name();
+		event.outcome = trace.getOutcome() == null ? null : trace.getOutcome().name();
+		event.unmarshal = trace.getNanos(TransferTrace.Stage.UNMARSHAL);
+		event.queue = trace.getNanos(TransferTrace.Stage.QUEUE);
+		event.validation = trace.getNanos(TransferTrace.Stage.VALIDATION);
+		event.lock = trace.getNanos(TransferTrace.Stage.LOCK);
+		event.commit = trace.getNanos(TransferTrace.Stage.COMMIT);
+		event.serialization = trace.getNanos(TransferTrace.Stage.SERIALIZATION);
+		event.commit();
+	}
+}
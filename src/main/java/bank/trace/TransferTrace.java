@@ -0,0 +1,235 @@
+package bank.trace;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import bank.data.OperationError;
+import bank.data.OperationStatus;
+import bank.priority.RequestClass;
+
+/**
+ * The time of each stage of a request of the RESTful or Web Service interfaces that does a transfer.
+ *
+ * The trace is kept by the thread of the request, from {@link #begin(String)} to {@link #end()}. The layers mark
+ * with {@link #mark(Stage)} the end of the stage they did, and the time since the previous mark is added to it,
+ * so a stage that happens several times (the lock of the pessimistic control and the lock of the commit) is
+ * accumulated. The marks do nothing when the thread has no trace, like the scheduled transfers.
+ *
+ * When the request was a transfer, {@link #end()} commits a {@code bank.Transfer} event to Java Flight Recorder
+ * with the accounts, the outcome and the time of each stage. The event costs almost nothing when no recording
+ * is enabled, and it is skipped if the JVM has no Flight Recorder.
+ *
+ */
+public final class TransferTrace {
+	/**
+	 * The stages of a request, in the order they happen.
+	 */
+	public enum Stage {
+		/**
+		 * From the start of the request to the call of the service: the parsing of the request, the
+		 * unmarshalling of the parameters or the SOAP message.
+		 */
+		UNMARSHAL,
+		/**
+		 * The wait in the queue of the request class.
+		 */
+		QUEUE,
+		/**
+		 * The service reading and validating the accounts.
+		 */
+		VALIDATION,
+		/**
+		 * The wait for the locks of the accounts and the lock of the commit.
+		 */
+		LOCK,
+		/**
+		 * The check of the sequences and the write of the accounts holding the lock, the publication of the
+		 * events and the rest of the service until it returns. A sequence conflict ends here with the outcome
+		 * {@link OperationError#ACCOUNT_OUT_OF_SEQUENCE}.
+		 */
+		COMMIT,
+		/**
+		 * From the return of the service to the end of the request: the serialization of the response.
+		 */
+		SERIALIZATION
+	}
+
+	private static final ThreadLocal<TransferTrace> CURRENT = new ThreadLocal<>();
+	private static final boolean FLIGHT_RECORDER = isFlightRecorderAvailable();
+
+	private final String channel;
+	private final long start;
+	private final long[] nanos = new long[Stage.values().length];
+	private final TransferEvent event;
+	private long last;
+	private Stage lastStage;
+	private long end;
+	private String accounts;
+	private long amount;
+	private RequestClass requestClass;
+	private OperationError outcome;
+
+	private TransferTrace(String channel) {
+		this.channel = channel;
+		this.event = FLIGHT_RECORDER ? TransferEvent.start() : null;
+		this.start = System.nanoTime();
+		this.last = start;
+	}
+
+	/**
+	 * Starts the trace of the request of the current thread.
+	 *
+	 * @param channel The interface of the request: REST or SOAP
+	 */
+	public static void begin(String channel) {
+		CURRENT.set(new TransferTrace(channel));
+	}
+
+	/**
+	 * Ends the trace of the request of the current thread. The time since the last mark is the serialization.
+	 *
+	 * @return Returns the trace if the request was a transfer, otherwise null
+	 */
+	public static TransferTrace end() {
+		TransferTrace trace = CURRENT.get();
+		if (trace == null) {
+			return null;
+		}
+		CURRENT.remove();
+		trace.add(Stage.SERIALIZATION);
+		trace.end = trace.last;
+		if (trace.accounts == null) {
+			return null;
+		}
+		if (trace.event != null) {
+			TransferEvent.commit(trace.event, trace);
+		}
+		return trace;
+	}
+
+	/**
+	 * Adds the time since the last mark to a stage of the request of the current thread.
+	 *
+	 * @param stage The stage that ended
+	 */
+	public static void mark(Stage stage) {
+		TransferTrace trace = CURRENT.get();
+		if (trace != null) {
+			trace.add(stage);
+		}
+	}
+
+	/**
+	 * Marks the return of the service of the request of the current thread. The time since the last mark is part
+	 * of the commit if the service committed, like the release of the locks of the accounts and the result of the
+	 * service. Otherwise the service ended in the validation, like a transfer without funds.
+	 */
+	public static void serviceReturned() {
+		TransferTrace trace = CURRENT.get();
+		if (trace != null) {
+			trace.add(trace.lastStage == Stage.COMMIT ? Stage.COMMIT : Stage.VALIDATION);
+		}
+	}
+
+	/**
+	 * Records that the request of the current thread is a transfer.
+	 *
+	 * @param accounts The names of the accounts of the transfer
+	 * @param amount The amount transferred
+	 */
+	public static void transfer(Collection<String> accounts, long amount) {
+		TransferTrace trace = CURRENT.get();
+		if (trace != null) {
+			trace.accounts = String.join(",", accounts);
+			trace.amount = amount;
+		}
+	}
+
+	/**
+	 * Records the class and the result of the request of the current thread.
+	 *
+	 * @param requestClass The class of the request
+	 * @param result The result returned by the service, the outcome is taken if it is an {@link OperationStatus}
+	 */
+	public static void outcome(RequestClass requestClass, Object result) {
+		TransferTrace trace = CURRENT.get();
+		if (trace != null) {
+			trace.requestClass = requestClass;
+			if (result instanceof OperationStatus) {
+				trace.outcome = ((OperationStatus) result).getErrorCode();
+			}
+		}
+	}
+
+	private void add(Stage stage) {
+		long now = System.nanoTime();
+		nanos[stage.ordinal()] += now - last;
+		last = now;
+		lastStage = stage;
+	}
+
+	public String getChannel() {
+		return channel;
+	}
+
+	public String getAccounts() {
+		return accounts;
+	}
+
+	public long getAmount() {
+		return amount;
+	}
+
+	public RequestClass getRequestClass() {
+		return requestClass;
+	}
+
+	/**
+	 * @return Returns the error of the transfer, {@link OperationError#NO_ERROR} if it was successful, or null if
+	 * the service was not called because the request was rejected
+	 */
+	public OperationError getOutcome() {
+		return outcome;
+	}
+
+	/**
+	 * @param stage The stage
+	 * @return Returns the time of the stage in nanoseconds
+	 */
+	public long getNanos(Stage stage) {
+		return nanos[stage.ordinal()];
+	}
+
+	/**
+	 * @return Returns the time of the request in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return end - start;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder text = new StringBuilder();
+		text.append(channel).append(" transfer ").append(accounts).append(" amount ").append(amount)
+				.append(" class ").append(requestClass).append(" outcome ").append(outcome)
+				.append(" total ").append(TimeUnit.NANOSECONDS.toMicros(getTotalNanos())).append("us");
+		for (Stage stage : Stage.values()) {
+			text.append(' ').append(stage.name().toLowerCase()).append(' ')
+					.append(TimeUnit.NANOSECONDS.toMicros(nanos[stage.ordinal()])).append("us");
+		}
+		return text.toString();
+	}
+
+	/**
+	 * The class {@link TransferEvent} is only loaded if the Flight Recorder API is in the JVM, it was added to
+	 * Java 8 in the update 262.
+	 */
+	private static boolean isFlightRecorderAvailable() {
+		try {
+			Class.forName("jdk.jfr.FlightRecorder");
+			return true;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+}
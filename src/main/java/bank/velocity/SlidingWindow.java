@@ -0,0 +1,147 @@
+package bank.velocity;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The number and the amount of the transfers of an account in a rolling window of time, without locks.
+ *
+ * The time is divided in buckets of {@code window / buckets} milliseconds, the epochs, and the counters of the
+ * last {@code buckets + 1} epochs are kept in a ring. The window covers the ring, so it is at least its length and
+ * at most one more bucket: the limits are never checked against less than the window.
+ *
+ * The totals of the window are kept besides the buckets, so a check reads two counters instead of the whole ring.
+ * A transfer adds to its bucket and to the totals. A bucket belongs to one epoch and it is never reset: when it
+ * leaves the window it is removed from the ring with a compare and set, by the thread that moves the window or the
+ * one that reuses its slot, and only the thread that removed it subtracts it from the totals. A thread that adds to
+ * a bucket of the current epoch doesn't lose the update, because that bucket is removed only a whole ring later.
+ * The totals could count a bucket that is leaving the window for a moment, never less than the window.
+ *
+ * The buckets are created on the first transfer of their epoch, so a quiet account has few of them.
+ *
+ */
+final class SlidingWindow {
+	private static final AtomicLongFieldUpdater<SlidingWindow> COUNT =
+			AtomicLongFieldUpdater.newUpdater(SlidingWindow.class, "count");
+	private static final AtomicLongFieldUpdater<SlidingWindow> AMOUNT =
+			AtomicLongFieldUpdater.newUpdater(SlidingWindow.class, "amount");
+	private static final AtomicLongFieldUpdater<SlidingWindow> HEAD =
+			AtomicLongFieldUpdater.newUpdater(SlidingWindow.class, "head");
+
+	private final VelocityLimit limit;
+	private final long maxCount;
+	private final long maxAmount;
+	private final long bucketMillis;
+	private final AtomicReferenceArray<Bucket> ring;
+	private volatile long count;
+	private volatile long amount;
+	/**
+	 * The last epoch of the window, the buckets before the ring of this epoch were removed
+	 */
+	private volatile long head;
+
+	private static final class Bucket {
+		private static final AtomicLongFieldUpdater<Bucket> COUNT =
+				AtomicLongFieldUpdater.newUpdater(Bucket.class, "count");
+		private static final AtomicLongFieldUpdater<Bucket> AMOUNT =
+				AtomicLongFieldUpdater.newUpdater(Bucket.class, "amount");
+
+		final long epoch;
+		volatile long count;
+		volatile long amount;
+
+		Bucket(long epoch) {
+			this.epoch = epoch;
+		}
+	}
+
+	SlidingWindow(VelocityLimit limit) {
+		this.limit = limit;
+		// The limits are copied, so a check doesn't read other object
+		this.maxCount = limit.getMaxCount();
+		this.maxAmount = limit.getMaxAmount();
+		this.bucketMillis = limit.getWindowMillis() / limit.getBuckets();
+		this.ring = new AtomicReferenceArray<>(limit.getBuckets() + 1);
+	}
+
+	/**
+	 * Adds to the counters of the bucket of a time. If the time is older than the window, nothing is added.
+	 *
+	 * @param time The time in milliseconds
+	 * @param count The transfers to add, negative to subtract them
+	 * @param amount The amount to add, negative to subtract it
+	 */
+	void add(long time, long count, long amount) {
+		long epoch = time / bucketMillis;
+		advance(epoch);
+		if (epoch <= head - ring.length()) {
+			// The bucket left the window, its counters were already subtracted from the totals
+			return;
+		}
+		int slot = (int) (epoch % ring.length());
+		while (true) {
+			Bucket bucket = ring.get(slot);
+			if (bucket != null && bucket.epoch > epoch) {
+				return;
+			}
+			if (bucket == null || bucket.epoch < epoch) {
+				if (ring.compareAndSet(slot, bucket, new Bucket(epoch)) && bucket != null) {
+					subtract(bucket);
+				}
+				continue;
+			}
+			Bucket.COUNT.addAndGet(bucket, count);
+			Bucket.AMOUNT.addAndGet(bucket, amount);
+			COUNT.addAndGet(this, count);
+			AMOUNT.addAndGet(this, amount);
+			return;
+		}
+	}
+
+	/**
+	 * Checks the counters of the window that ends at a time against the limit.
+	 *
+	 * @param time The time in milliseconds
+	 * @return Returns true if the counters are not over the limit
+	 */
+	boolean isWithin(long time) {
+		advance(time / bucketMillis);
+		return (maxCount <= 0 || count <= maxCount) && (maxAmount <= 0 || amount <= maxAmount);
+	}
+
+	VelocityLimit getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return Returns the number of transfers in the window that ends at a time
+	 */
+	long getCount(long time) {
+		advance(time / bucketMillis);
+		return count;
+	}
+
+	/**
+	 * Moves the window to an epoch, removing the buckets that leave it. Only the thread that moves the head removes
+	 * them, at most a ring of them.
+	 */
+	private void advance(long epoch) {
+		long last = head;
+		if (epoch <= last || !HEAD.compareAndSet(this, last, epoch)) {
+			return;
+		}
+		long oldest = epoch - ring.length() + 1;
+		for (long leaving = Math.max(last - ring.length() + 1, oldest - ring.length()); leaving < oldest; leaving++) {
+			int slot = (int) (leaving % ring.length());
+			Bucket bucket = ring.get(slot);
+			if (bucket != null && bucket.epoch < oldest && ring.compareAndSet(slot, bucket, null)) {
+				subtract(bucket);
+			}
+		}
+	}
+
+	private void subtract(Bucket bucket) {
+		COUNT.addAndGet(this, -bucket.count);
+		AMOUNT.addAndGet(this, -bucket.amount);
+	}
+}
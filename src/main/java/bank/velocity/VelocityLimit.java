@@ -0,0 +1,60 @@
+package bank.velocity;
+
+/**
+ * Plain data object with a limit of the transfers of an account in a rolling window of time: the maximum number
+ * of transfers and the maximum amount transferred. A limit of 0 is not checked.
+ *
+ * The window is divided in buckets, the counters slide a bucket at a time (see {@link SlidingWindow}).
+ *
+ */
+public final class VelocityLimit {
+	private final String window;
+	private final long windowMillis;
+	private final int buckets;
+	private final long maxCount;
+	private final long maxAmount;
+
+	/**
+	 * @param window The name of the window, for example minute
+	 * @param windowMillis The length of the window in milliseconds
+	 * @param buckets The buckets of the window, the length must be a multiple of them
+	 * @param maxCount The maximum number of transfers in the window, 0 without limit
+	 * @param maxAmount The maximum amount transferred in the window, 0 without limit
+	 */
+	public VelocityLimit(String window, long windowMillis, int buckets, long maxCount, long maxAmount) {
+		if (buckets <= 0 || windowMillis <= 0 || windowMillis % buckets != 0) {
+			throw new IllegalArgumentException("The window " + windowMillis + " is not a multiple of " + buckets
+					+ " buckets");
+		}
+		this.window = window;
+		this.windowMillis = windowMillis;
+		this.buckets = buckets;
+		this.maxCount = maxCount;
+		this.maxAmount = maxAmount;
+	}
+
+	public String getWindow() {
+		return window;
+	}
+
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+
+	public int getBuckets() {
+		return buckets;
+	}
+
+	public long getMaxCount() {
+		return maxCount;
+	}
+
+	public long getMaxAmount() {
+		return maxAmount;
+	}
+
+	@Override
+	public String toString() {
+		return window + "(count " + maxCount + ", amount " + maxAmount + ")";
+	}
+}
@@ -0,0 +1,333 @@
+package bank.velocity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The limits of the transfers of the accounts of a tenant in rolling windows of time (velocity checks), for example
+ * at most 100 transfers or 1000000 transferred in a minute. They are checked inline, before a transfer is committed,
+ * with a {@link SlidingWindow} of each limit and account, so a transfer over the limits is rejected without other
+ * service in between.
+ *
+ * The accounts are grouped in classes by the prefix of their names, the longest prefix that matches, and the limits
+ * are the ones of the class. The accounts of no class have the limits of the class {@code default}. The classes and
+ * the limits are configured with the system properties:
+ * 	bank.velocity.classes The classes as class:prefix, separated by commas. For example vip:vip-,corp:corp-
+ * 	bank.velocity.<class>.<window>.count The maximum number of transfers in the window
+ * 	bank.velocity.<class>.<window>.amount The maximum amount transferred in the window
+ * where the windows are minute (buckets of 5 seconds), hour (buckets of 5 minutes) and day (buckets of an hour).
+ * Without any limit the checks cost nothing and no counters are kept.
+ *
+ * The transfer is counted first and the window is checked after, so two concurrent transfers could both be
+ * rejected near the limit but never both accepted over it. A transfer rejected or not committed is subtracted
+ * again. A hold is counted when it is authorized, like a transfer, and subtracted when it is released or it
+ * expires. The counters of an account are removed when it had no transfers for the longest window of its class
+ * (plus a bucket), so the memory is the one of the accounts active in the windows. The counters are marked 
+ * removed with a compare and set of their last time, so a transfer never counts in removed counters.
+ *
+ */
+public class VelocityRules {
+	/**
+	 * The class of the accounts that match no prefix
+	 */
+	public static final String DEFAULT_CLASS = "default";
+	private static final Map<String, VelocityLimit> WINDOWS = new LinkedHashMap<>();
+	static {
+		WINDOWS.put("minute", new VelocityLimit("minute", TimeUnit.MINUTES.toMillis(1), 12, 0, 0));
+		WINDOWS.put("hour", new VelocityLimit("hour", TimeUnit.HOURS.toMillis(1), 12, 0, 0));
+		WINDOWS.put("day", new VelocityLimit("day", TimeUnit.DAYS.toMillis(1), 24, 0, 0));
+	}
+	private static final Map<String, VelocityRules> TENANTS = new ConcurrentHashMap<>();
+	private static ScheduledExecutorService sweeper;
+
+	private final List<String> prefixes = new ArrayList<>();
+	private final List<List<VelocityLimit>> prefixLimits = new ArrayList<>();
+	private final List<VelocityLimit> defaultLimits;
+	private final boolean enabled;
+	private final ConcurrentHashMap<String, Counters> accounts = new ConcurrentHashMap<>();
+	private final LongAdder rejected = new LongAdder();
+
+	/**
+	 * The windows of an account, one for each limit of its class.
+	 */
+	private static final class Counters {
+		private static final AtomicLongFieldUpdater<Counters> LAST_TIME =
+				AtomicLongFieldUpdater.newUpdater(Counters.class, "lastTime");
+		/**
+		 * The last time of counters removed by the sweeper, they are not used anymore
+		 */
+		static final long REMOVED = Long.MIN_VALUE;
+		final SlidingWindow[] windows;
+		final long idleMillis;
+		volatile long lastTime = System.currentTimeMillis();
+
+		Counters(List<VelocityLimit> limits) {
+			this.windows = new SlidingWindow[limits.size()];
+			long longest = 0;
+			for (int i = 0; i < windows.length; i++) {
+				VelocityLimit limit = limits.get(i);
+				windows[i] = new SlidingWindow(limit);
+				longest = Math.max(longest, limit.getWindowMillis() + limit.getWindowMillis() / limit.getBuckets());
+			}
+			this.idleMillis = longest;
+		}
+
+		/**
+		 * Marks the counters used at a time, so the sweeper doesn't remove them.
+		 *
+		 * @return Returns false if the sweeper already removed them
+		 */
+		boolean use(long time) {
+			while (true) {
+				long last = lastTime;
+				if (last == REMOVED) {
+					return false;
+				}
+				if (last >= time || LAST_TIME.compareAndSet(this, last, time)) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * Marks the counters removed if they were not used since a time.
+		 *
+		 * @return Returns true if they were marked, then they are not used anymore
+		 */
+		boolean remove(long idleSince) {
+			long last = lastTime;
+			return last != REMOVED && last < idleSince && LAST_TIME.compareAndSet(this, last, REMOVED);
+		}
+	}
+
+	/**
+	 * @param prefixes The limits of the classes of accounts by the prefix of their names
+	 * @param defaultLimits The limits of the accounts that match no prefix
+	 */
+	public VelocityRules(Map<String, List<VelocityLimit>> prefixes, List<VelocityLimit> defaultLimits) {
+		// The longest prefix first, so the first that matches is the longest
+		List<String> sorted = new ArrayList<>(prefixes.keySet());
+		sorted.sort((a, b) -> b.length() - a.length());
+		boolean enabled = !defaultLimits.isEmpty();
+		for (String prefix : sorted) {
+			this.prefixes.add(prefix);
+			this.prefixLimits.add(prefixes.get(prefix));
+			enabled |= !prefixes.get(prefix).isEmpty();
+		}
+		this.defaultLimits = defaultLimits;
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Obtains the rules of a tenant, configured with the system properties. The counters of the dormant accounts of
+	 * all the tenants are removed by a daemon thread every 10 seconds.
+	 *
+	 * @param tenant The tenant
+	 * @return Returns the rules of the tenant
+	 */
+	public static VelocityRules of(String tenant) {
+		VelocityRules rules = TENANTS.get(tenant);
+		if (rules == null) {
+			rules = TENANTS.computeIfAbsent(tenant, key -> configured());
+			startSweeper();
+		}
+		return rules;
+	}
+
+	/**
+	 * Counts a transfer of an account and checks the limits of its class.
+	 *
+	 * @param name The name of the account that sends the money
+	 * @param amount The amount transferred
+	 * @param time The time of the transfer in milliseconds, the same one to {@link #release(String, long, long)} it
+	 * @return Returns true if the transfer is within the limits. If false it is not counted.
+	 */
+	public boolean acquire(String name, long amount, long time) {
+		if (!enabled) {
+			return true;
+		}
+		List<VelocityLimit> limits = limits(name);
+		if (limits.isEmpty()) {
+			return true;
+		}
+		while (true) {
+			// computeIfAbsent locks the bin even if the key is there, the counters are usually there
+			Counters counters = accounts.get(name);
+			if (counters == null) {
+				counters = accounts.computeIfAbsent(name, key -> new Counters(limits));
+			}
+			if (!counters.use(time)) {
+				// The sweeper removed them in between, the transfer is counted in new ones
+				accounts.remove(name, counters);
+				continue;
+			}
+			for (SlidingWindow window : counters.windows) {
+				window.add(time, 1, amount);
+			}
+			for (SlidingWindow window : counters.windows) {
+				if (!window.isWithin(time)) {
+					subtract(counters, amount, time);
+					rejected.increment();
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Subtracts a transfer counted by {@link #acquire(String, long, long)} that was not committed.
+	 *
+	 * @param name The name of the account that sends the money
+	 * @param amount The amount of the transfer
+	 * @param time The time given to {@link #acquire(String, long, long)}
+	 */
+	public void release(String name, long amount, long time) {
+		if (!enabled) {
+			return;
+		}
+		Counters counters = accounts.get(name);
+		if (counters != null) {
+			subtract(counters, amount, time);
+		}
+	}
+
+	/**
+	 * Subtracts part of the amount of a transfer counted by {@link #acquire(String, long, long)}, the transfer is
+	 * still counted. For example the rest of a hold captured for less than it reserved.
+	 *
+	 * @param name The name of the account that sends the money
+	 * @param amount The amount subtracted
+	 * @param time The time given to {@link #acquire(String, long, long)}
+	 */
+	public void releaseAmount(String name, long amount, long time) {
+		if (!enabled) {
+			return;
+		}
+		Counters counters = accounts.get(name);
+		if (counters != null) {
+			for (SlidingWindow window : counters.windows) {
+				window.add(time, 0, -amount);
+			}
+		}
+	}
+
+	/**
+	 * Removes the counters of the accounts without transfers in the longest window of their class.
+	 *
+	 * @param now The current time in milliseconds
+	 * @return Returns the number of accounts removed
+	 */
+	public int sweep(long now) {
+		int removed = 0;
+		for (Map.Entry<String, Counters> entry : accounts.entrySet()) {
+			Counters counters = entry.getValue();
+			if (counters.remove(now - counters.idleMillis)) {
+				accounts.remove(entry.getKey(), counters);
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * @param name The name of an account
+	 * @param time The time in milliseconds
+	 * @return Returns the number of transfers of the account in each window of its class at that time
+	 */
+	public Map<String, Long> getCounts(String name, long time) {
+		Counters counters = accounts.get(name);
+		if (counters == null) {
+			return Collections.emptyMap();
+		}
+		Map<String, Long> counts = new LinkedHashMap<>();
+		for (SlidingWindow window : counters.windows) {
+			counts.put(window.getLimit().getWindow(), window.getCount(time));
+		}
+		return counts;
+	}
+
+	/**
+	 * @return Returns the number of accounts with counters
+	 */
+	public int getAccounts() {
+		return accounts.size();
+	}
+
+	/**
+	 * @return Returns the number of transfers rejected by the limits
+	 */
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	private List<VelocityLimit> limits(String name) {
+		for (int i = 0; i < prefixes.size(); i++) {
+			if (name.startsWith(prefixes.get(i))) {
+				return prefixLimits.get(i);
+			}
+		}
+		return defaultLimits;
+	}
+
+	private static void subtract(Counters counters, long amount, long time) {
+		for (SlidingWindow window : counters.windows) {
+			window.add(time, -1, -amount);
+		}
+	}
+
+	private static VelocityRules configured() {
+		Map<String, List<VelocityLimit>> prefixes = new LinkedHashMap<>();
+		for (String entry : System.getProperty("bank.velocity.classes", "").split(",")) {
+			entry = entry.trim();
+			if (entry.isEmpty()) {
+				continue;
+			}
+			int separator = entry.indexOf(':');
+			if (separator <= 0 || separator == entry.length() - 1) {
+				throw new IllegalArgumentException("Invalid class " + entry + ", it must be class:prefix");
+			}
+			prefixes.put(entry.substring(separator + 1), configuredLimits(entry.substring(0, separator)));
+		}
+		return new VelocityRules(prefixes, configuredLimits(DEFAULT_CLASS));
+	}
+
+	private static List<VelocityLimit> configuredLimits(String accountClass) {
+		List<VelocityLimit> limits = new ArrayList<>();
+		for (VelocityLimit window : WINDOWS.values()) {
+			String property = "bank.velocity." + accountClass + "." + window.getWindow();
+			long count = Long.getLong(property + ".count", 0);
+			long amount = Long.getLong(property + ".amount", 0);
+			if (count > 0 || amount > 0) {
+				limits.add(new VelocityLimit(window.getWindow(), window.getWindowMillis(), window.getBuckets(),
+						count, amount));
+			}
+		}
+		return limits;
+	}
+
+	private static synchronized void startSweeper() {
+		if (sweeper != null) {
+			return;
+		}
+		sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "velocity-sweeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sweeper.scheduleWithFixedDelay(() -> {
+			for (VelocityRules rules : TENANTS.values()) {
+				rules.sweep(System.currentTimeMillis());
+			}
+		}, 10, 10, TimeUnit.SECONDS);
+	}
+}
@@ -0,0 +1,116 @@
+//
+// This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.2.7 
+// See <a href="http://java.sun.com/xml/jaxb">http://java.sun.com/xml/jaxb</a> 
+// Any modifications to this file will be lost upon recompilation of the source schema. 
+// Generated on: 2026.10.19 at 04:48:43 PM UTC 
+//
+
+
+package com.maxintech.bank.ws;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlType;
+
+
+/**
+ * <p>Java class for balanceRange complex type.
+ * 
+ * <p>The following schema fragment specifies the expected content contained within this class.
+ * 
+ * <pre>
+ * &lt;complexType name="balanceRange">
+ *   &lt;complexContent>
+ *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
+ *       &lt;sequence>
+ *         &lt;element name="from" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *         &lt;element name="to" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *         &lt;element name="accounts" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *         &lt;element name="balance" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *       &lt;/sequence>
+ *     &lt;/restriction>
+ *   &lt;/complexContent>
+ * &lt;/complexType>
+ * </pre>
+ * 
+ * 
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "balanceRange", propOrder = {
+    "from",
+    "to",
+    "accounts",
+    "balance"
+})
+public class BalanceRange {
+
+    protected long from;
+    protected long to;
+    protected long accounts;
+    protected long balance;
+
+    /**
+     * Gets the value of the from property.
+     * 
+     */
+    public long getFrom() {
+        return from;
+    }
+
+    /**
+     * Sets the value of the from property.
+     * 
+     */
+    public void setFrom(long value) {
+        this.from = value;
+    }
+
+    /**
+     * Gets the value of the to property.
+     * 
+     */
+    public long getTo() {
+        return to;
+    }
+
+    /**
+     * Sets the value of the to property.
+     * 
+     */
+    public void setTo(long value) {
+        this.to = value;
+    }
+
+    /**
+     * Gets the value of the accounts property.
+     * 
+     */
+    public long getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Sets the value of the accounts property.
+     * 
+     */
+    public void setAccounts(long value) {
+        this.accounts = value;
+    }
+
+    /**
+     * Gets the value of the balance property.
+     * 
+     */
+    public long getBalance() {
+        return balance;
+    }
+
+    /**
+     * Sets the value of the balance property.
+     * 
+     */
+    public void setBalance(long value) {
+        this.balance = value;
+    }
+
+}
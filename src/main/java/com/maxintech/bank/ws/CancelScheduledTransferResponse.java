@@ -0,0 +1,71 @@
+//
+// This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.2.7 
+// See <a href="http://java.sun.com/xml/jaxb">http://java.sun.com/xml/jaxb</a> 
+// Any modifications to this file will be lost upon recompilation of the source schema. 
+// Generated on: 2026.10.19 at 04:22:24 PM UTC 
+//
+
+
+package com.maxintech.bank.ws;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+
+/**
+ * <p>Java class for anonymous complex type.
+ * 
+ * <p>The following schema fragment specifies the expected content contained within this class.
+ * 
+ * <pre>
+ * &lt;complexType>
+ *   &lt;complexContent>
+ *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
+ *       &lt;sequence>
+ *         &lt;element name="operationStatus" type="{http://maxintech.com/bank/ws}operationStatus"/>
+ *       &lt;/sequence>
+ *     &lt;/restriction>
+ *   &lt;/complexContent>
+ * &lt;/complexType>
+ * </pre>
+ * 
+ * 
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "", propOrder = {
+    "operationStatus"
+})
+@XmlRootElement(name = "cancelScheduledTransferResponse")
+public class CancelScheduledTransferResponse {
+
+    @XmlElement(required = true)
+    protected OperationStatus operationStatus;
+
+    /**
+     * Gets the value of the operationStatus property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link OperationStatus }
+     *     
+     */
+    public OperationStatus getOperationStatus() {
+        return operationStatus;
+    }
+
+    /**
+     * Sets the value of the operationStatus property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link OperationStatus }
+     *     
+     */
+    public void setOperationStatus(OperationStatus value) {
+        this.operationStatus = value;
+    }
+
+}
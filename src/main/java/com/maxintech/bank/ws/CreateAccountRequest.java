@@ -2,7 +2,7 @@
 // This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.2.7 
 // See <a href="http://java.sun.com/xml/jaxb">http://java.sun.com/xml/jaxb</a> 
 // Any modifications to this file will be lost upon recompilation of the source schema. 
-// Generated on: 2017.12.21 at 11:28:48 AM ART 
+// Generated on: 2026.10.19 at 05:29:38 PM UTC 
 //
 
 
@@ -27,6 +27,7 @@ import javax.xml.bind.annotation.XmlType;
  *       &lt;sequence>
  *         &lt;element name="name" type="{http://www.w3.org/2001/XMLSchema}string"/>
  *         &lt;element name="balance" type="{http://www.w3.org/2001/XMLSchema}int"/>
+ *         &lt;element name="tenant" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
  *       &lt;/sequence>
  *     &lt;/restriction>
  *   &lt;/complexContent>
@@ -38,7 +39,8 @@ import javax.xml.bind.annotation.XmlType;
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlType(name = "", propOrder = {
     "name",
-    "balance"
+    "balance",
+    "tenant"
 })
 @XmlRootElement(name = "createAccountRequest")
 public class CreateAccountRequest {
@@ -46,6 +48,7 @@ public class CreateAccountRequest {
     @XmlElement(required = true)
     protected String name;
     protected int balance;
+    protected String tenant;
 
     /**
      * Gets the value of the name property.
@@ -87,4 +90,28 @@ public class CreateAccountRequest {
         this.balance = value;
     }
 
+    /**
+     * Gets the value of the tenant property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * Sets the value of the tenant property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setTenant(String value) {
+        this.tenant = value;
+    }
+
 }
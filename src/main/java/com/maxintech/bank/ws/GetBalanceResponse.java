@@ -0,0 +1,90 @@
+//
+// This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.2.7 
+// See <a href="http://java.sun.com/xml/jaxb">http://java.sun.com/xml/jaxb</a> 
+// Any modifications to this file will be lost upon recompilation of the source schema. 
+// Generated on: 2026.10.19 at 04:16:09 PM UTC 
+//
+
+
+package com.maxintech.bank.ws;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+
+/**
+ * <p>Java class for anonymous complex type.
+ * 
+ * <p>The following schema fragment specifies the expected content contained within this class.
+ * 
+ * <pre>
+ * &lt;complexType>
+ *   &lt;complexContent>
+ *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
+ *       &lt;sequence>
+ *         &lt;element name="operationStatus" type="{http://maxintech.com/bank/ws}operationStatus"/>
+ *         &lt;element name="balance" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *       &lt;/sequence>
+ *     &lt;/restriction>
+ *   &lt;/complexContent>
+ * &lt;/complexType>
+ * </pre>
+ * 
+ * 
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "", propOrder = {
+    "operationStatus",
+    "balance"
+})
+@XmlRootElement(name = "getBalanceResponse")
+public class GetBalanceResponse {
+
+    @XmlElement(required = true)
+    protected OperationStatus operationStatus;
+    protected long balance;
+
+    /**
+     * Gets the value of the operationStatus property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link OperationStatus }
+     *     
+     */
+    public OperationStatus getOperationStatus() {
+        return operationStatus;
+    }
+
+    /**
+     * Sets the value of the operationStatus property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link OperationStatus }
+     *     
+     */
+    public void setOperationStatus(OperationStatus value) {
+        this.operationStatus = value;
+    }
+
+    /**
+     * Gets the value of the balance property.
+     * 
+     */
+    public long getBalance() {
+        return balance;
+    }
+
+    /**
+     * Sets the value of the balance property.
+     * 
+     */
+    public void setBalance(long value) {
+        this.balance = value;
+    }
+
+}
@@ -0,0 +1,249 @@
+//
+// This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.2.7 
+// See <a href="http://java.sun.com/xml/jaxb">http://java.sun.com/xml/jaxb</a> 
+// Any modifications to this file will be lost upon recompilation of the source schema. 
+// Generated on: 2026.10.19 at 06:45:48 PM UTC 
+//
+
+
+package com.maxintech.bank.ws;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+
+
+/**
+ * <p>Java class for anonymous complex type.
+ * 
+ * <p>The following schema fragment specifies the expected content contained within this class.
+ * 
+ * <pre>
+ * &lt;complexType>
+ *   &lt;complexContent>
+ *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
+ *       &lt;sequence>
+ *         &lt;element name="accounts" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *         &lt;element name="totalBalance" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *         &lt;element name="totalHeld" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *         &lt;element name="createdBalance" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *         &lt;element name="adjustedBalance" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *         &lt;element name="conserved" type="{http://www.w3.org/2001/XMLSchema}boolean"/>
+ *         &lt;element name="largestBalance" type="{http://maxintech.com/bank/ws}accountBalance" maxOccurs="unbounded" minOccurs="0"/>
+ *         &lt;element name="balanceRange" type="{http://maxintech.com/bank/ws}balanceRange" maxOccurs="unbounded" minOccurs="0"/>
+ *         &lt;element name="operationStatus" type="{http://maxintech.com/bank/ws}operationStatus" minOccurs="0"/>
+ *       &lt;/sequence>
+ *     &lt;/restriction>
+ *   &lt;/complexContent>
+ * &lt;/complexType>
+ * </pre>
+ * 
+ * 
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "", propOrder = {
+    "accounts",
+    "totalBalance",
+    "totalHeld",
+    "createdBalance",
+    "adjustedBalance",
+    "conserved",
+    "largestBalance",
+    "balanceRange",
+    "operationStatus"
+})
+@XmlRootElement(name = "getStatisticsResponse")
+public class GetStatisticsResponse {
+
+    protected long accounts;
+    protected long totalBalance;
+    protected long totalHeld;
+    protected long createdBalance;
+    protected long adjustedBalance;
+    protected boolean conserved;
+    protected List<AccountBalance> largestBalance;
+    protected List<BalanceRange> balanceRange;
+    protected OperationStatus operationStatus;
+
+    /**
+     * Gets the value of the accounts property.
+     * 
+     */
+    public long getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Sets the value of the accounts property.
+     * 
+     */
+    public void setAccounts(long value) {
+        this.accounts = value;
+    }
+
+    /**
+     * Gets the value of the totalBalance property.
+     * 
+     */
+    public long getTotalBalance() {
+        return totalBalance;
+    }
+
+    /**
+     * Sets the value of the totalBalance property.
+     * 
+     */
+    public void setTotalBalance(long value) {
+        this.totalBalance = value;
+    }
+
+    /**
+     * Gets the value of the totalHeld property.
+     * 
+     */
+    public long getTotalHeld() {
+        return totalHeld;
+    }
+
+    /**
+     * Sets the value of the totalHeld property.
+     * 
+     */
+    public void setTotalHeld(long value) {
+        this.totalHeld = value;
+    }
+
+    /**
+     * Gets the value of the createdBalance property.
+     * 
+     */
+    public long getCreatedBalance() {
+        return createdBalance;
+    }
+
+    /**
+     * Sets the value of the createdBalance property.
+     * 
+     */
+    public void setCreatedBalance(long value) {
+        this.createdBalance = value;
+    }
+
+    /**
+     * Gets the value of the adjustedBalance property.
+     * 
+     */
+    public long getAdjustedBalance() {
+        return adjustedBalance;
+    }
+
+    /**
+     * Sets the value of the adjustedBalance property.
+     * 
+     */
+    public void setAdjustedBalance(long value) {
+        this.adjustedBalance = value;
+    }
+
+    /**
+     * Gets the value of the conserved property.
+     * 
+     */
+    public boolean isConserved() {
+        return conserved;
+    }
+
+    /**
+     * Sets the value of the conserved property.
+     * 
+     */
+    public void setConserved(boolean value) {
+        this.conserved = value;
+    }
+
+    /**
+     * Gets the value of the largestBalance property.
+     * 
+     * <p>
+     * This accessor method returns a reference to the live list,
+     * not a snapshot. Therefore any modification you make to the
+     * returned list will be present inside the JAXB object.
+     * This is why there is not a <CODE>set</CODE> method for the largestBalance property.
+     * 
+     * <p>
+     * For example, to add a new item, do as follows:
+     * <pre>
+     *    getLargestBalance().add(newItem);
+     * </pre>
+     * 
+     * 
+     * <p>
+     * Objects of the following type(s) are allowed in the list
+     * {@link AccountBalance }
+     * 
+     * 
+     */
+    public List<AccountBalance> getLargestBalance() {
+        if (largestBalance == null) {
+            largestBalance = new ArrayList<AccountBalance>();
+        }
+        return this.largestBalance;
+    }
+
+    /**
+     * Gets the value of the balanceRange property.
+     * 
+     * <p>
+     * This accessor method returns a reference to the live list,
+     * not a snapshot. Therefore any modification you make to the
+     * returned list will be present inside the JAXB object.
+     * This is why there is not a <CODE>set</CODE> method for the balanceRange property.
+     * 
+     * <p>
+     * For example, to add a new item, do as follows:
+     * <pre>
+     *    getBalanceRange().add(newItem);
+     * </pre>
+     * 
+     * 
+     * <p>
+     * Objects of the following type(s) are allowed in the list
+     * {@link BalanceRange }
+     * 
+     * 
+     */
+    public List<BalanceRange> getBalanceRange() {
+        if (balanceRange == null) {
+            balanceRange = new ArrayList<BalanceRange>();
+        }
+        return this.balanceRange;
+    }
+
+    /**
+     * Gets the value of the operationStatus property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link OperationStatus }
+     *     
+     */
+    public OperationStatus getOperationStatus() {
+        return operationStatus;
+    }
+
+    /**
+     * Sets the value of the operationStatus property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link OperationStatus }
+     *     
+     */
+    public void setOperationStatus(OperationStatus value) {
+        this.operationStatus = value;
+    }
+
+}
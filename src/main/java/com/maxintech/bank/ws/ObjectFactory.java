@@ -2,7 +2,7 @@
 // This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.2.7 
 // See <a href="http://java.sun.com/xml/jaxb">http://java.sun.com/xml/jaxb</a> 
 // Any modifications to this file will be lost upon recompilation of the source schema. 
-// Generated on: 2017.12.21 at 11:28:48 AM ART 
+// Generated on: 2026.10.19 at 04:48:43 PM UTC 
 //
 
 
@@ -52,6 +52,102 @@ public class ObjectFactory {
         return new OperationStatus();
     }
 
+    /**
+     * Create an instance of {@link ListScheduledTransfersResponse }
+     * 
+     */
+    public ListScheduledTransfersResponse createListScheduledTransfersResponse() {
+        return new ListScheduledTransfersResponse();
+    }
+
+    /**
+     * Create an instance of {@link ScheduledTransfer }
+     * 
+     */
+    public ScheduledTransfer createScheduledTransfer() {
+        return new ScheduledTransfer();
+    }
+
+    /**
+     * Create an instance of {@link ReleaseResponse }
+     * 
+     */
+    public ReleaseResponse createReleaseResponse() {
+        return new ReleaseResponse();
+    }
+
+    /**
+     * Create an instance of {@link MultiTransferRequest }
+     * 
+     */
+    public MultiTransferRequest createMultiTransferRequest() {
+        return new MultiTransferRequest();
+    }
+
+    /**
+     * Create an instance of {@link TransferLeg }
+     * 
+     */
+    public TransferLeg createTransferLeg() {
+        return new TransferLeg();
+    }
+
+    /**
+     * Create an instance of {@link CaptureRequest }
+     * 
+     */
+    public CaptureRequest createCaptureRequest() {
+        return new CaptureRequest();
+    }
+
+    /**
+     * Create an instance of {@link CaptureResponse }
+     * 
+     */
+    public CaptureResponse createCaptureResponse() {
+        return new CaptureResponse();
+    }
+
+    /**
+     * Create an instance of {@link GetBalanceRequest }
+     * 
+     */
+    public GetBalanceRequest createGetBalanceRequest() {
+        return new GetBalanceRequest();
+    }
+
+    /**
+     * Create an instance of {@link CancelScheduledTransferRequest }
+     * 
+     */
+    public CancelScheduledTransferRequest createCancelScheduledTransferRequest() {
+        return new CancelScheduledTransferRequest();
+    }
+
+    /**
+     * Create an instance of {@link ScheduleTransferResponse }
+     * 
+     */
+    public ScheduleTransferResponse createScheduleTransferResponse() {
+        return new ScheduleTransferResponse();
+    }
+
+    /**
+     * Create an instance of {@link ListScheduledTransfersRequest }
+     * 
+     */
+    public ListScheduledTransfersRequest createListScheduledTransfersRequest() {
+        return new ListScheduledTransfersRequest();
+    }
+
+    /**
+     * Create an instance of {@link CancelScheduledTransferResponse }
+     * 
+     */
+    public CancelScheduledTransferResponse createCancelScheduledTransferResponse() {
+        return new CancelScheduledTransferResponse();
+    }
+
     /**
      * Create an instance of {@link TransferRequest }
      * 
@@ -76,4 +172,84 @@ public class ObjectFactory {
         return new TransferResponse();
     }
 
+    /**
+     * Create an instance of {@link AuthorizeRequest }
+     * 
+     */
+    public AuthorizeRequest createAuthorizeRequest() {
+        return new AuthorizeRequest();
+    }
+
+    /**
+     * Create an instance of {@link ReleaseRequest }
+     * 
+     */
+    public ReleaseRequest createReleaseRequest() {
+        return new ReleaseRequest();
+    }
+
+    /**
+     * Create an instance of {@link GetStatisticsRequest }
+     * 
+     */
+    public GetStatisticsRequest createGetStatisticsRequest() {
+        return new GetStatisticsRequest();
+    }
+
+    /**
+     * Create an instance of {@link GetBalanceResponse }
+     * 
+     */
+    public GetBalanceResponse createGetBalanceResponse() {
+        return new GetBalanceResponse();
+    }
+
+    /**
+     * Create an instance of {@link ScheduleTransferRequest }
+     * 
+     */
+    public ScheduleTransferRequest createScheduleTransferRequest() {
+        return new ScheduleTransferRequest();
+    }
+
+    /**
+     * Create an instance of {@link MultiTransferResponse }
+     * 
+     */
+    public MultiTransferResponse createMultiTransferResponse() {
+        return new MultiTransferResponse();
+    }
+
+    /**
+     * Create an instance of {@link AuthorizeResponse }
+     * 
+     */
+    public AuthorizeResponse createAuthorizeResponse() {
+        return new AuthorizeResponse();
+    }
+
+    /**
+     * Create an instance of {@link GetStatisticsResponse }
+     * 
+     */
+    public GetStatisticsResponse createGetStatisticsResponse() {
+        return new GetStatisticsResponse();
+    }
+
+    /**
+     * Create an instance of {@link AccountBalance }
+     * 
+     */
+    public AccountBalance createAccountBalance() {
+        return new AccountBalance();
+    }
+
+    /**
+     * Create an instance of {@link BalanceRange }
+     * 
+     */
+    public BalanceRange createBalanceRange() {
+        return new BalanceRange();
+    }
+
 }
@@ -0,0 +1,192 @@
+//
+// This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.2.7 
+// See <a href="http://java.sun.com/xml/jaxb">http://java.sun.com/xml/jaxb</a> 
+// Any modifications to this file will be lost upon recompilation of the source schema. 
+// Generated on: 2026.10.19 at 04:22:24 PM UTC 
+//
+
+
+package com.maxintech.bank.ws;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlType;
+
+
+/**
+ * <p>Java class for scheduledTransfer complex type.
+ * 
+ * <p>The following schema fragment specifies the expected content contained within this class.
+ * 
+ * <pre>
+ * &lt;complexType name="scheduledTransfer">
+ *   &lt;complexContent>
+ *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
+ *       &lt;sequence>
+ *         &lt;element name="id" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *         &lt;element name="from" type="{http://www.w3.org/2001/XMLSchema}string"/>
+ *         &lt;element name="to" type="{http://www.w3.org/2001/XMLSchema}string"/>
+ *         &lt;element name="value" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *         &lt;element name="executionTime" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *         &lt;element name="interval" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *         &lt;element name="executions" type="{http://www.w3.org/2001/XMLSchema}long"/>
+ *       &lt;/sequence>
+ *     &lt;/restriction>
+ *   &lt;/complexContent>
+ * &lt;/complexType>
+ * </pre>
+ * 
+ * 
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "scheduledTransfer", propOrder = {
+    "id",
+    "from",
+    "to",
+    "value",
+    "executionTime",
+    "interval",
+    "executions"
+})
+public class ScheduledTransfer {
+
+    protected long id;
+    @XmlElement(required = true)
+    protected String from;
+    @XmlElement(required = true)
+    protected String to;
+    protected long value;
+    protected long executionTime;
+    protected long interval;
+    protected long executions;
+
+    /**
+     * Gets the value of the id property.
+     * 
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the value of the id property.
+     * 
+     */
+    public void setId(long value) {
+        this.id = value;
+    }
+
+    /**
+     * Gets the value of the from property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getFrom() {
+        return from;
+    }
+
+    /**
+     * Sets the value of the from property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setFrom(String value) {
+        this.from = value;
+    }
+
+    /**
+     * Gets the value of the to property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getTo() {
+        return to;
+    }
+
+    /**
+     * Sets the value of the to property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setTo(String value) {
+        this.to = value;
+    }
+
+    /**
+     * Gets the value of the value property.
+     * 
+     */
+    public long getValue() {
+        return value;
+    }
+
+    /**
+     * Sets the value of the value property.
+     * 
+     */
+    public void setValue(long value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the value of the executionTime property.
+     * 
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    /**
+     * Sets the value of the executionTime property.
+     * 
+     */
+    public void setExecutionTime(long value) {
+        this.executionTime = value;
+    }
+
+    /**
+     * Gets the value of the interval property.
+     * 
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Sets the value of the interval property.
+     * 
+     */
+    public void setInterval(long value) {
+        this.interval = value;
+    }
+
+    /**
+     * Gets the value of the executions property.
+     * 
+     */
+    public long getExecutions() {
+        return executions;
+    }
+
+    /**
+     * Sets the value of the executions property.
+     * 
+     */
+    public void setExecutions(long value) {
+        this.executions = value;
+    }
+
+}
@@ -2,7 +2,7 @@
 // This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.2.7 
 // See <a href="http://java.sun.com/xml/jaxb">http://java.sun.com/xml/jaxb</a> 
 // Any modifications to this file will be lost upon recompilation of the source schema. 
-// Generated on: 2017.12.21 at 11:28:48 AM ART 
+// Generated on: 2026.10.19 at 05:29:38 PM UTC 
 //
 
 
@@ -28,6 +28,7 @@ import javax.xml.bind.annotation.XmlType;
  *         &lt;element name="from" type="{http://www.w3.org/2001/XMLSchema}string"/>
  *         &lt;element name="to" type="{http://www.w3.org/2001/XMLSchema}string"/>
  *         &lt;element name="value" type="{http://www.w3.org/2001/XMLSchema}int"/>
+ *         &lt;element name="tenant" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
  *       &lt;/sequence>
  *     &lt;/restriction>
  *   &lt;/complexContent>
@@ -40,7 +41,8 @@ import javax.xml.bind.annotation.XmlType;
 @XmlType(name = "", propOrder = {
     "from",
     "to",
-    "value"
+    "value",
+    "tenant"
 })
 @XmlRootElement(name = "transferRequest")
 public class TransferRequest {
@@ -50,6 +52,7 @@ public class TransferRequest {
     @XmlElement(required = true)
     protected String to;
     protected int value;
+    protected String tenant;
 
     /**
      * Gets the value of the from property.
@@ -115,4 +118,28 @@ public class TransferRequest {
         this.value = value;
     }
 
+    /**
+     * Gets the value of the tenant property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * Sets the value of the tenant property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setTenant(String value) {
+        this.tenant = value;
+    }
+
 }
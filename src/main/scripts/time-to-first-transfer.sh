@@ -0,0 +1,35 @@
+#!/bin/bash
+#
+# Measures the time from the start of the Java VM until the first transfer is answered by the RESTful interface.
+# The arguments are the command to start the application, for example:
+#	$ src/main/scripts/time-to-first-transfer.sh java -jar target/bank-0.0.1.jar
+#	$ src/main/scripts/time-to-first-transfer.sh java -Xshare:auto -XX:+UnlockDiagnosticVMOptions \
+#		-XX:SharedArchiveFile=target/bank.jsa -jar target/bank-0.0.1.jar --spring.profiles.active=fast-startup
+# The second one is the application packaged by the Maven profile fast-startup (see the README).
+#
+# The application must listen in the port 8080, or the one given in the variable PORT.
+#
+PORT=${PORT:-8080}
+URL="http://localhost:$PORT/bank/rest"
+
+now() {
+	date +%s%N
+}
+
+start=$(now)
+"$@" --server.port=$PORT > /dev/null 2>&1 &
+pid=$!
+trap "kill $pid 2> /dev/null" EXIT
+
+until curl -s -o /dev/null "$URL/createAccount?name=first-from&balance=10"; do
+	if ! kill -0 $pid 2> /dev/null; then
+		echo "The application ended before the first transfer" >&2
+		exit 1
+	fi
+	sleep 0.01
+done
+curl -s -o /dev/null "$URL/createAccount?name=first-to&balance=0"
+curl -s "$URL/transfer?from=first-from&to=first-to&value=1" | grep -q '"success":true' || exit 1
+end=$(now)
+
+echo "Time to first transfer: $(( (end - start) / 1000000 )) ms"
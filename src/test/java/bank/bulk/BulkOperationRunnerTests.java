@@ -0,0 +1,129 @@
+package bank.bulk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bank.dao.AccountDAO;
+import bank.data.BulkStatus;
+import bank.data.OperationError;
+import bank.services.BankBaseServices;
+
+/**
+ * Tests of the {@link BulkOperationRunner} on the accounts of the {@link AccountDAO}. The operations are applied 
+ * to all the accounts of a tenant, also the ones of other tests, so the tests only verify their own accounts.
+ */
+public class BulkOperationRunnerTests {
+	private static final int ACCOUNTS = 300;
+	private static final int PARTITIONS = 16;
+	private static final String TENANT = "corporate";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void interestAppliedToEveryAccountDuringTransfers() throws Exception {
+		String[] names = createAccounts(null, "bulkInterest");
+		BulkOperationRunner runner = new BulkOperationRunner(2, PARTITIONS, 0, "", "");
+		runner.start();
+		
+		AtomicBoolean running = new AtomicBoolean(true);
+		Thread transfers = new Thread(() -> {
+			BankBaseServices service = new BankBaseServices();
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			while (running.get()) {
+				service.transfer(names[random.nextInt(ACCOUNTS)], names[random.nextInt(ACCOUNTS)], 1);
+			}
+		});
+		transfers.start();
+		BulkStatus status = runner.submit(null, BulkOperation.Type.INTEREST, 100);
+		assertThat(status.isSuccess()).isTrue();
+		assertThat(runner.submit(null, BulkOperation.Type.FEE, 1).getErrorCode())
+				.isIn(OperationError.BULK_OPERATION_RUNNING, OperationError.NO_ERROR);
+		BulkOperation operation = await(runner, null, status.getId());
+		running.set(false);
+		transfers.join();
+		runner.stop();
+
+		assertThat(operation.getState()).isEqualTo(BulkOperation.State.COMPLETED);
+		assertThat(operation.getCompletedPartitions()).isEqualTo(PARTITIONS);
+		AccountDAO dao = new AccountDAO();
+		for (String name : names) {
+			assertThat(dao.getAccount(name).getLastBulkOperation()).as("operation of %s", name)
+					.isEqualTo(status.getId());
+		}
+		assertThat(dao.getStatistics().isConserved()).isTrue();
+	}
+
+	/**
+	 * The operation of a tenant continues on the accounts of the tenant after a restart, and it is not visible 
+	 * through other tenant.
+	 */
+	@Test
+	public void operationContinuesAfterRestart() throws Exception {
+		String[] names = createAccounts(TENANT, "bulkResume");
+		assertThat(new BankBaseServices().createAccount("bulkResumeDefault", 1000).isSuccess()).isTrue();
+		String journal = new File(folder.getRoot(), "bulk.journal").getPath();
+		BulkOperationRunner runner = new BulkOperationRunner(2, PARTITIONS, 500, journal, "");
+		runner.start();
+		BulkStatus status = runner.submit(TENANT, BulkOperation.Type.FEE, 10);
+		assertThat(runner.list(null)).isEmpty();
+		assertThat(runner.cancel(null, status.getId()).getErrorCode())
+				.isEqualTo(OperationError.BULK_OPERATION_DOESNT_EXIST);
+		assertThat(runner.submit("unknown", BulkOperation.Type.FEE, 10).getErrorCode())
+				.isEqualTo(OperationError.TENANT_DOESNT_EXIST);
+		Thread.sleep(200);
+		runner.stop();
+		assertThat(runner.list(TENANT).get(0).getCompletedPartitions()).isLessThan(PARTITIONS);
+		
+		BulkOperationRunner restarted = new BulkOperationRunner(2, PARTITIONS, 0, journal, "");
+		restarted.start();
+		BulkOperation operation = await(restarted, TENANT, status.getId());
+		restarted.stop();
+		
+		assertThat(operation.getState()).isEqualTo(BulkOperation.State.COMPLETED);
+		assertThat(operation.getTenant()).isEqualTo(TENANT);
+		AccountDAO dao = new AccountDAO(TENANT);
+		for (String name : names) {
+			// The fee is taken once
+			assertThat(dao.getAccount(name).getBalance()).as("balance of %s", name).isEqualTo(990);
+		}
+		assertThat(new AccountDAO().getAccount("bulkResumeDefault").getBalance()).isEqualTo(1000);
+		
+		// The journal has no operation to continue
+		BulkOperationRunner again = new BulkOperationRunner(2, PARTITIONS, 0, journal, "");
+		again.start();
+		assertThat(again.list(TENANT)).isEmpty();
+		again.stop();
+	}
+
+	private static String[] createAccounts(String tenant, String prefix) {
+		BankBaseServices service = new BankBaseServices(tenant);
+		String[] names = new String[ACCOUNTS];
+		for (int i = 0; i < ACCOUNTS; i++) {
+			names[i] = prefix + i;
+			assertThat(service.createAccount(names[i], 1000).isSuccess()).isTrue();
+		}
+		return names;
+	}
+
+	private static BulkOperation await(BulkOperationRunner runner, String tenant, long id) 
+			throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 30000;
+		while (System.currentTimeMillis() < deadline) {
+			for (BulkOperation operation : runner.list(tenant)) {
+				if (operation.getId() == id && operation.getState() != BulkOperation.State.RUNNING) {
+					return operation;
+				}
+			}
+			Thread.sleep(20);
+		}
+		throw new AssertionError("The operation " + id + " didn't finish");
+	}
+}
@@ -0,0 +1,137 @@
+package bank.capture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import bank.capture.CapturedRequest.Operation;
+import bank.client.BankClientOptions;
+import bank.client.BankServiceClient;
+import bank.client.RestBankServiceClient;
+import bank.client.SoapBankServiceClient;
+import bank.data.Account;
+import bank.data.HoldStatus;
+import bank.data.OperationError;
+import bank.priority.RequestClass;
+import bank.tools.replay.ReplayStatistics;
+import bank.tools.replay.TrafficReplayer;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.DEFINED_PORT)
+public class TrafficCaptureTests {
+
+    @Autowired
+    private TrafficCapture capture;
+
+    /**
+     * The records are read as they were written, and a record written partially at the end is ignored.
+     */
+    @Test
+    public void captureFileRoundTrip() throws Exception {
+        Path file = Files.createTempFile("traffic", ".cap");
+        try {
+            Map<String, List<Account>> accounts = Collections.singletonMap("default", 
+                    Arrays.asList(new Account("a", 100), new Account("b", 0)));
+            try (CaptureFile.Writer writer = new CaptureFile.Writer(file, 1234, accounts)) {
+                for (int i = 0; i < 3; i++) {
+                    CapturedRequest request = new CapturedRequest(Operation.TRANSFER, null, "a", "b", 10 + i, 0);
+                    request.setChannel(i == 1 ? "SOAP" : "REST");
+                    request.setRequestClass(i == 2 ? RequestClass.SETTLEMENT : null);
+                    request.setStartNanos(1000000L * (3 - i));
+                    request.setLatencyNanos(500000);
+                    request.setOutcome(i == 0 ? OperationError.NO_ERROR : OperationError.ACCOUNT_OUT_OF_SEQUENCE);
+                    writer.write(request);
+                }
+            }
+            try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.APPEND)) {
+                out.write(new byte[] { (byte) Operation.BALANCE.ordinal(), 0 });
+            }
+
+            try (CaptureFile.Reader reader = new CaptureFile.Reader(file)) {
+                assertThat(reader.getStartTime()).isEqualTo(1234);
+                assertThat(reader.getAccounts().get("default")).extracting(Account::getName).containsExactly("a", "b");
+                assertThat(reader.getAccounts().get("default")).extracting(Account::getBalance).containsExactly(100L, 0L);
+                List<CapturedRequest> requests = new ArrayList<>();
+                for (CapturedRequest request = reader.next(); request != null; request = reader.next()) {
+                    requests.add(request);
+                }
+                assertThat(requests).extracting(CapturedRequest::getAmount).containsExactly(10L, 11L, 12L);
+                assertThat(requests).extracting(CapturedRequest::getStartNanos).containsExactly(3000000L, 2000000L, 1000000L);
+                assertThat(requests).extracting(CapturedRequest::getChannel).containsExactly("REST", "SOAP", "REST");
+                assertThat(requests.get(2).getRequestClass()).isEqualTo(RequestClass.SETTLEMENT);
+                assertThat(requests.get(1).getOutcome()).isEqualTo(OperationError.ACCOUNT_OUT_OF_SEQUENCE);
+                assertThat(requests.get(0).getTo()).isEqualTo("b");
+                assertThat(requests.get(0).getTenant()).isNull();
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * The requests of both interfaces are captured, and the replay maps the holds of the capture to its own.
+     */
+    @Test
+    public void requestsAreCapturedAndReplayed() throws Exception {
+        BankClientOptions options = new BankClientOptions().setTenant("corporate").setMaxBatch(1);
+        Path file = Paths.get(capture.start(0).getFile());
+        try (BankServiceClient rest = new RestBankServiceClient(options);
+                BankServiceClient soap = new SoapBankServiceClient(options)) {
+            assertThat(rest.createAccount("captureAccount1", 1000).get().isSuccess()).isTrue();
+            assertThat(rest.createAccount("captureAccount2", 0).get().isSuccess()).isTrue();
+            assertThat(rest.transfer("captureAccount1", "captureAccount2", 30).get().isSuccess()).isTrue();
+            HoldStatus captured = soap.authorize("captureAccount1", 50, 60000).get();
+            assertThat(rest.capture(captured.getHoldId(), "captureAccount2", 20).get().isSuccess()).isTrue();
+            HoldStatus released = soap.authorize("captureAccount1", 10, 60000).get();
+            assertThat(rest.release(released.getHoldId()).get().isSuccess()).isTrue();
+            assertThat(rest.getBalance("captureAccount2").get().getBalance()).isEqualTo(50);
+        } finally {
+            CaptureStatistics statistics = capture.stop();
+            assertThat(statistics.isActive()).isFalse();
+            assertThat(statistics.getRequests()).isEqualTo(8);
+        }
+
+        try {
+            List<CapturedRequest> requests = new ArrayList<>();
+            try (CaptureFile.Reader reader = new CaptureFile.Reader(file)) {
+                assertThat(reader.getAccounts()).containsKeys("default", "retail", "corporate");
+                assertThat(reader.getAccounts().get("corporate")).extracting(Account::getName)
+                        .doesNotContain("captureAccount1");
+                for (CapturedRequest request = reader.next(); request != null; request = reader.next()) {
+                    requests.add(request);
+                }
+            }
+            assertThat(requests).extracting(CapturedRequest::getOperation).containsExactly(Operation.CREATE_ACCOUNT,
+                    Operation.CREATE_ACCOUNT, Operation.TRANSFER, Operation.AUTHORIZE, Operation.CAPTURE,
+                    Operation.AUTHORIZE, Operation.RELEASE, Operation.BALANCE);
+            assertThat(requests).extracting(CapturedRequest::getTenant).containsOnly("corporate");
+            assertThat(requests).extracting(CapturedRequest::getOutcome).containsOnly(OperationError.NO_ERROR);
+            assertThat(requests.get(3).getChannel()).isEqualTo("SOAP");
+            assertThat(requests.get(3).getRequestClass()).isEqualTo(RequestClass.INTERACTIVE);
+            assertThat(requests.get(4).getArgument()).isEqualTo(requests.get(3).getResult());
+            assertThat(requests.get(7).getResult()).isEqualTo(50);
+
+            // The accounts exist, so only their creation has a different outcome
+            ReplayStatistics replay = new TrafficReplayer(file, "http://localhost:8080/bank", 0, 2).replay(false);
+            assertThat(replay.getDifferences()).isEqualTo(2);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
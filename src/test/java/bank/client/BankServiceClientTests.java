@@ -0,0 +1,130 @@
+package bank.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import bank.data.BalanceStatus;
+import bank.data.HoldStatus;
+import bank.data.OperationError;
+import bank.data.OperationStatus;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = WebEnvironment.DEFINED_PORT)
+public class BankServiceClientTests {
+
+    /**
+     * Many transfers in flight through two connections are coalesced and all of them are done.
+     */
+    @Test
+    public void restClientTransfers() throws Exception {
+        try (BankServiceClient client = new RestBankServiceClient(new BankClientOptions().setConnections(2))) {
+            assertThat(client.createAccount("clientAccount1", 1000).get().isSuccess()).isTrue();
+            assertThat(client.createAccount("clientAccount2", 0).get().isSuccess()).isTrue();
+            assertThat(client.createAccount("clientAccount1", 0).get().getErrorCode())
+                    .isEqualTo(OperationError.ACCOUNT_ALREADY_EXISTS);
+
+            List<CompletableFuture<OperationStatus>> transfers = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                transfers.add(client.transfer("clientAccount1", "clientAccount2", 5));
+            }
+            CompletableFuture<OperationStatus> missing = client.transfer("clientAccount1", "clientAccountMissing", 5);
+            for (CompletableFuture<OperationStatus> transfer : transfers) {
+                OperationStatus status = transfer.get(10, TimeUnit.SECONDS);
+                // The transfers of the same accounts could collide, but they never fail silently
+                assertThat(status.isSuccess() || status.getErrorCode() == OperationError.ACCOUNT_OUT_OF_SEQUENCE).isTrue();
+            }
+            assertThat(missing.get().getErrorCode()).isEqualTo(OperationError.ACCOUNT_DOESNT_EXIST);
+
+            BalanceStatus from = client.getBalance("clientAccount1").get();
+            BalanceStatus to = client.getBalance("clientAccount2").get();
+            assertThat(from.getBalance() + to.getBalance()).isEqualTo(1000);
+            assertThat(to.getBalance() % 5).isEqualTo(0);
+
+            HoldStatus hold = client.authorize("clientAccount1", 10, 60000).get();
+            assertThat(hold.isSuccess()).isTrue();
+            assertThat(client.capture(hold.getHoldId(), "clientAccount2", 10).get().isSuccess()).isTrue();
+            assertThat(client.release(hold.getHoldId()).get().getErrorCode()).isEqualTo(OperationError.HOLD_DOESNT_EXIST);
+        }
+    }
+
+    @Test
+    public void soapClientOperations() throws Exception {
+        try (BankServiceClient client = new SoapBankServiceClient(new BankClientOptions().setTenant("retail"))) {
+            assertThat(client.createAccount("clientAccount10", 100).get().isSuccess()).isTrue();
+            assertThat(client.createAccount("clientAccount11", 0).get().isSuccess()).isTrue();
+            assertThat(client.transfer("clientAccount10", "clientAccount11", 30).get().isSuccess()).isTrue();
+            assertThat(client.transfer("clientAccount10", "clientAccount11", 300).get().getErrorCode())
+                    .isEqualTo(OperationError.ACCOUNT_NOT_ENOUGH_FUNDS);
+            assertThat(client.getBalance("clientAccount11").get().getBalance()).isEqualTo(30);
+
+            HoldStatus hold = client.authorize("clientAccount10", 20, 60000).get();
+            assertThat(hold.isSuccess()).isTrue();
+            assertThat(client.release(hold.getHoldId()).get().isSuccess()).isTrue();
+        }
+        // The accounts are in the tenant retail only
+        try (BankServiceClient client = new SoapBankServiceClient(new BankClientOptions())) {
+            assertThat(client.getBalance("clientAccount11").get().getErrorCode())
+                    .isEqualTo(OperationError.ACCOUNT_DOESNT_EXIST);
+        }
+    }
+
+    @Test
+    public void unreachableServiceFails() throws Exception {
+        try (BankServiceClient client = new RestBankServiceClient(new BankClientOptions()
+                .setUrl("http://localhost:1/bank").setConnectTimeout(500))) {
+            client.getBalance("clientAccount1").get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(BankClientException.class);
+            return;
+        }
+        throw new AssertionError("The call didn't fail");
+    }
+
+    /**
+     * With one sender, the calls queued while it is busy are sent in one batch.
+     */
+    @Test
+    public void callsQueuedWhileBusyAreCoalesced() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(1);
+        List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+        Batcher<Integer> batcher = new Batcher<>(executor, 1, 8, calls -> {
+            sending.countDown();
+            busy.await();
+            batches.add(calls.size());
+            return Collections.nCopies(calls.size(), new OperationStatus(true));
+        });
+        try {
+            List<CompletableFuture<OperationStatus>> futures = new ArrayList<>();
+            futures.add(batcher.add(0));
+            assertThat(sending.await(10, TimeUnit.SECONDS)).isTrue();
+            for (int i = 1; i < 21; i++) {
+                futures.add(batcher.add(i));
+            }
+            busy.countDown();
+            for (CompletableFuture<OperationStatus> future : futures) {
+                assertThat(future.get(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+            }
+            // The first call is sent at once, the rest wait for it
+            assertThat(batches).containsExactly(1, 8, 8, 4);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package bank.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import bank.data.Account;
+import bank.data.OperationError;
+import bank.data.OperationStatus;
+import bank.services.BankBaseServices;
+
+/**
+ * Multi-threaded stress tests of the commit of the {@link AccountDAO}.
+ * Many threads do random transfers through {@link BankBaseServices} while an observer thread reads the accounts.
+ * At the end the tests verify:
+ * 	The sum of the balances is the same as at the beginning.
+ * 	No balance was negative, neither at the end nor seen by the observer.
+ * 	The sequence of each account never went back.
+ * 	No update was lost: the final balance and sequence of each account are the ones expected by the
+ * 	successful transfers that touched it.
+ * 	The aggregates of the accounts conserve the money.
+ */
+public class AccountDAOStressTests {
+	private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+	private static final long DURATION_MILLIS = 2000;
+	private static final long INITIAL_BALANCE = 1000;
+
+	private ExecutorService executor;
+
+	@Before
+	public void init() {
+		executor = Executors.newFixedThreadPool(THREADS + 1);
+	}
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Few accounts, so almost all the transfers are in conflict.
+	 */
+	@Test
+	public void transfersWithHighContention() throws Exception {
+		stress("stressHot", 4, 50);
+	}
+
+	/**
+	 * Many accounts, so most of the transfers commit.
+	 */
+	@Test
+	public void transfersWithLowContention() throws Exception {
+		stress("stressCold", 1000, 50);
+	}
+
+	/**
+	 * Transfers bigger than the balance, so the funds validation runs against balances close to zero.
+	 */
+	@Test
+	public void transfersDrainingAccounts() throws Exception {
+		stress("stressDrain", 8, 2 * INITIAL_BALANCE);
+	}
+
+	/**
+	 * Accounts that are hot from the beginning, so the transfers use the pessimistic control.
+	 */
+	@Test
+	public void transfersWithPessimisticControl() throws Exception {
+		ContentionTracker contention = new AccountDAO().getContention();
+		long pessimistic = contention.getStatistics().getPessimisticOperations();
+		stress("stressPessimistic", 4, 50, true);
+		assertThat(contention.getStatistics().getPessimisticOperations()).isGreaterThan(pessimistic);
+	}
+
+	private void stress(String prefix, int accounts, long maxValue) throws Exception {
+		stress(prefix, accounts, maxValue, false);
+	}
+
+	private void stress(String prefix, int accounts, long maxValue, boolean hot) throws Exception {
+		AccountDAO dao = new AccountDAO();
+		BankBaseServices service = new BankBaseServices();
+		String[] names = new String[accounts];
+		for (int i = 0; i < accounts; i++) {
+			names[i] = prefix + i;
+			assertThat(service.createAccount(names[i], INITIAL_BALANCE).isSuccess()).isTrue();
+			for (int j = 0; hot && j < 64; j++) {
+				dao.getContention().recordConflict(names[i]);
+			}
+		}
+
+		AtomicBoolean running = new AtomicBoolean(true);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<long[][]>> workers = new ArrayList<>();
+		for (int thread = 0; thread < THREADS; thread++) {
+			workers.add(executor.submit(() -> {
+				// Net balance change and number of commits of each account done by this thread
+				long[] deltas = new long[accounts];
+				long[] commits = new long[accounts];
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				start.await();
+				while (running.get()) {
+					int from = random.nextInt(accounts);
+					int to = random.nextInt(accounts);
+					long value = 1 + random.nextLong(maxValue);
+					OperationStatus status = service.transfer(names[from], names[to], value);
+					if (status.isSuccess()) {
+						deltas[from] -= value;
+						deltas[to] += value;
+						commits[from]++;
+						commits[to]++;
+					} else {
+						assertThat(status.getErrorCode()).isIn(OperationError.ACCOUNTS_ARE_EQUAL,
+								OperationError.ACCOUNT_NOT_ENOUGH_FUNDS, OperationError.ACCOUNT_OUT_OF_SEQUENCE);
+					}
+				}
+				return new long[][] { deltas, commits };
+			}));
+		}
+		Future<?> observer = executor.submit(() -> {
+			long[] sequences = new long[accounts];
+			start.await();
+			while (running.get()) {
+				for (int i = 0; i < accounts; i++) {
+					Account account = dao.getAccount(names[i]);
+					assertThat(account.getBalance()).as("balance of %s", names[i]).isGreaterThanOrEqualTo(0);
+					assertThat(account.getSequence()).as("sequence of %s", names[i]).isGreaterThanOrEqualTo(sequences[i]);
+					sequences[i] = account.getSequence();
+				}
+			}
+			return null;
+		});
+
+		start.countDown();
+		TimeUnit.MILLISECONDS.sleep(DURATION_MILLIS);
+		running.set(false);
+		observer.get();
+
+		long[] deltas = new long[accounts];
+		long[] commits = new long[accounts];
+		for (Future<long[][]> worker : workers) {
+			long[][] result = worker.get();
+			for (int i = 0; i < accounts; i++) {
+				deltas[i] += result[0][i];
+				commits[i] += result[1][i];
+			}
+		}
+
+		long total = 0;
+		for (int i = 0; i < accounts; i++) {
+			Account account = dao.getAccount(names[i]);
+			total += account.getBalance();
+			assertThat(account.getBalance()).as("balance of %s", names[i]).isGreaterThanOrEqualTo(0);
+			assertThat(account.getBalance()).as("balance of %s", names[i]).isEqualTo(INITIAL_BALANCE + deltas[i]);
+			assertThat(account.getSequence()).as("sequence of %s", names[i]).isEqualTo(commits[i]);
+		}
+		assertThat(total).isEqualTo(INITIAL_BALANCE * accounts);
+		assertThat(dao.getStatistics().isConserved()).isTrue();
+	}
+}
@@ -0,0 +1,108 @@
+package bank.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bank.data.Account;
+
+/**
+ * Tests of the {@link AccountJournal}: the recovery after several segments, compactions and restarts, and the 
+ * recovery of a partial record.
+ */
+public class AccountJournalTests {
+	private static final int ACCOUNTS = 100;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void lastVersionsRecoveredAfterCompactionsAndRestarts() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		Map<String, Account> expected = new HashMap<>();
+		Random random = new Random(42);
+		
+		for (int run = 0; run < 3; run++) {
+			// Small segments, so there are many segments and compactions
+			try (AccountJournal journal = new AccountJournal(directory, 1024, 4, 2, true)) {
+				assertThat(byName(journal.recover())).isEqualTo(byName(expected.values()));
+				if (run == 0) {
+					for (int i = 0; i < ACCOUNTS; i++) {
+						Account account = new Account("journal" + i, 1000);
+						journal.append(Arrays.asList(account));
+						expected.put(account.getName(), account);
+					}
+				}
+				for (int i = 0; i < 1000; i++) {
+					Account from = expected.get("journal" + random.nextInt(ACCOUNTS)).copy();
+					Account to = expected.get("journal" + random.nextInt(ACCOUNTS)).copy();
+					if (from.getName().equals(to.getName())) {
+						continue;
+					}
+					from.withdraw(1);
+					to.deposit(1);
+					from.nextSequence();
+					to.nextSequence();
+					journal.append(Arrays.asList(from, to));
+					expected.put(from.getName(), from);
+					expected.put(to.getName(), to);
+				}
+				if (run == 1) {
+					journal.compact();
+				}
+			}
+		}
+		try (AccountJournal journal = new AccountJournal(directory, 1024, 4, 2, true)) {
+			journal.compact();
+			assertThat(byName(journal.recover())).isEqualTo(byName(expected.values()));
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			// The old segments were folded into the snapshots
+			assertThat(files.filter(file -> file.toString().endsWith(".log")).count()).isLessThanOrEqualTo(2);
+		}
+	}
+
+	@Test
+	public void partialRecordIsIgnored() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		Account one = new Account("partial1", 100);
+		Account two = new Account("partial2", 100);
+		try (AccountJournal journal = new AccountJournal(directory, 1 << 20, 4, 2, true)) {
+			journal.append(Arrays.asList(one));
+			journal.append(Arrays.asList(two));
+			one = one.copy();
+			two = two.copy();
+			one.withdraw(50);
+			two.deposit(50);
+			one.nextSequence();
+			two.nextSequence();
+			journal.append(Arrays.asList(one, two));
+		}
+		// Cut the last record of the transfer
+		try (RandomAccessFile segment = new RandomAccessFile(directory.resolve("segment-1.log").toFile(), "rw")) {
+			segment.setLength(segment.length() - 10);
+		}
+		try (AccountJournal journal = new AccountJournal(directory, 1 << 20, 4, 2, true)) {
+			Map<String, String> recovered = byName(journal.recover());
+			assertThat(recovered).containsEntry("partial1", "partial1 100 0").containsEntry("partial2", "partial2 100 0");
+		}
+	}
+
+	private static Map<String, String> byName(Collection<Account> accounts) {
+		return accounts.stream().collect(Collectors.toMap(Account::getName, 
+				account -> account.getName() + " " + account.getBalance() + " " + account.getSequence()));
+	}
+}
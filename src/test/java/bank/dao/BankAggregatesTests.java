@@ -0,0 +1,98 @@
+package bank.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bank.data.Account;
+
+/**
+ * Tests of the {@link BankAggregates} updated as the {@link AccountDAO} does, including the case where the 
+ * ranking of the largest balances must be built again from the store.
+ */
+public class BankAggregatesTests {
+	private static final int ACCOUNTS = 200;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private TieredAccountStore store;
+	private BankAggregates aggregates;
+
+	@Before
+	public void init() throws Exception {
+		store = new TieredAccountStore(32, new File(folder.getRoot(), "accounts.dat").toPath(), 16);
+		aggregates = new BankAggregates(5);
+		for (int i = 0; i < ACCOUNTS; i++) {
+			Account account = new Account("aggregate" + i, i);
+			store.putIfAbsent(account);
+			aggregates.created(account);
+		}
+	}
+
+	@After
+	public void close() throws Exception {
+		store.close();
+	}
+
+	@Test
+	public void aggregatesOfCreatedAccounts() {
+		BankStatistics statistics = aggregates.getStatistics(store);
+		assertThat(statistics.getAccounts()).isEqualTo(ACCOUNTS);
+		assertThat(statistics.getTotalBalance()).isEqualTo(ACCOUNTS * (ACCOUNTS - 1) / 2);
+		assertThat(statistics.isConserved()).isTrue();
+		assertThat(names(statistics)).containsExactly("aggregate199", "aggregate198", "aggregate197", 
+				"aggregate196", "aggregate195");
+		
+		// 0, 1, 2-3, 4-7, 8-15, 16-31, 32-63, 64-127, 128-255
+		assertThat(statistics.getBalanceRanges()).hasSize(9);
+		BankStatistics.BalanceRange last = statistics.getBalanceRanges().get(8);
+		assertThat(last.getFrom()).isEqualTo(128);
+		assertThat(last.getTo()).isEqualTo(255);
+		assertThat(last.getAccounts()).isEqualTo(ACCOUNTS - 128);
+		assertThat(statistics.getBalanceRanges().stream().mapToLong(BankStatistics.BalanceRange::getAccounts).sum())
+				.isEqualTo(ACCOUNTS);
+	}
+
+	@Test
+	public void rankingIsBuiltAgainWhenTheLargestBalancesDecrease() {
+		// Move the money of the largest half of the accounts to the account 0
+		long moved = 0;
+		for (int i = ACCOUNTS / 2; i < ACCOUNTS; i++) {
+			moved += transfer("aggregate" + i, "aggregate1", i);
+		}
+		transfer("aggregate1", "aggregate0", moved);
+		
+		BankStatistics statistics = aggregates.getStatistics(store);
+		assertThat(statistics.isConserved()).isTrue();
+		assertThat(names(statistics)).containsExactly("aggregate0", "aggregate99", "aggregate98", "aggregate97", 
+				"aggregate96");
+		assertThat(statistics.getLargestBalances().get(0).getBalance()).isEqualTo(moved);
+	}
+
+	private long transfer(String from, String to, long amount) {
+		Account[] current = { store.get(from), store.get(to) };
+		Account[] local = { current[0].copy(), current[1].copy() };
+		local[0].withdraw(amount);
+		local[1].deposit(amount);
+		for (int i = 0; i < 2; i++) {
+			local[i].nextSequence();
+			store.put(local[i]);
+			aggregates.updated(current[i], local[i]);
+		}
+		return amount;
+	}
+
+	private static List<String> names(BankStatistics statistics) {
+		return statistics.getLargestBalances().stream().map(BankStatistics.AccountBalance::getName)
+				.collect(Collectors.toList());
+	}
+}
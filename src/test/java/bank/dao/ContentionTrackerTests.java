@@ -0,0 +1,47 @@
+package bank.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Tests of the hot and cold decisions of the {@link ContentionTracker}.
+ */
+public class ContentionTrackerTests {
+
+	@Test
+	public void accountBecomesHotAtTheThreshold() {
+		ContentionTracker tracker = new ContentionTracker(4, 2);
+		assertThat(tracker.isHot("account")).isFalse();
+		for (int i = 0; i < 3; i++) {
+			tracker.recordConflict("account");
+		}
+		assertThat(tracker.isHot("account")).isFalse();
+		tracker.recordConflict("account");
+		assertThat(tracker.isHot("account")).isTrue();
+		assertThat(tracker.isHot("other")).isFalse();
+
+		ContentionStatistics statistics = tracker.getStatistics();
+		assertThat(statistics.getConflicts()).isEqualTo(4);
+		assertThat(statistics.getSwitchesToPessimistic()).isEqualTo(1);
+		assertThat(statistics.getHotAccounts()).containsExactly("account");
+	}
+
+	@Test
+	public void hotAccountBecomesColdWhenTheConflictsDecay() throws Exception {
+		ContentionTracker tracker = new ContentionTracker(4, 2);
+		for (int i = 0; i < 4; i++) {
+			tracker.recordConflict("account");
+		}
+		assertThat(tracker.isHot("account")).isTrue();
+		
+		// The count halves every second: 4, 2, 1
+		long deadline = System.currentTimeMillis() + 5000;
+		while (tracker.isHot("account") && System.currentTimeMillis() < deadline) {
+			Thread.sleep(100);
+		}
+		assertThat(tracker.isHot("account")).isFalse();
+		assertThat(tracker.getStatistics().getSwitchesToOptimistic()).isEqualTo(1);
+		assertThat(tracker.getStatistics().getHotAccounts()).isEmpty();
+	}
+}
@@ -0,0 +1,118 @@
+package bank.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bank.data.Account;
+
+/**
+ * Tests of the {@link JdbcAccountStore} with an in-memory H2 database.
+ */
+public class JdbcAccountStoreTests {
+	private static final int BUCKETS = 64;
+	private static final int ACCOUNTS = 2500;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private JdbcAccountStore store;
+
+	@Before
+	public void init() throws Exception {
+		store = new JdbcAccountStore("jdbc:h2:mem:JdbcAccountStoreTests", "bank_account", 2, BUCKETS);
+	}
+
+	@After
+	public void close() throws Exception {
+		store.close();
+	}
+
+	@Test
+	public void commitsAreConditionalOnTheSequence() {
+		Account one = new Account("jdbc1", 100);
+		Account two = new Account("jdbc2", 0);
+		store.write(new Account[2], new Account[] { one, two });
+
+		Account newOne = one.copy();
+		Account newTwo = two.copy();
+		newOne.withdraw(10);
+		newOne.nextSequence();
+		newTwo.deposit(10);
+		newTwo.nextSequence();
+		store.write(new Account[] { one, two }, new Account[] { newOne, newTwo });
+		assertThat(store.get("jdbc1").getBalance()).isEqualTo(90);
+		assertThat(store.get("jdbc2").getSequence()).isEqualTo(1);
+		assertThat(store.get("missing")).isNull();
+
+		// The first account is not in the sequence replaced, nothing of the commit is written
+		Account staleOne = newOne.copy();
+		Account staleTwo = newTwo.copy();
+		staleOne.withdraw(50);
+		staleOne.nextSequence();
+		staleTwo.deposit(50);
+		staleTwo.nextSequence();
+		assertThatThrownBy(() -> store.write(new Account[] { one, newTwo }, new Account[] { staleOne, staleTwo }))
+				.isInstanceOf(IllegalStateException.class);
+		assertThat(store.get("jdbc1").getBalance()).isEqualTo(90);
+		assertThat(store.get("jdbc2").getBalance()).isEqualTo(10);
+	}
+
+	/**
+	 * A write undone leaves the previous versions and removes the new accounts.
+	 */
+	@Test
+	public void writeUndone() {
+		Account one = new Account("jdbc3", 100);
+		store.write(new Account[1], new Account[] { one });
+		Account newOne = one.copy();
+		newOne.withdraw(10);
+		newOne.nextSequence();
+		Account two = new Account("jdbc4", 10);
+		store.write(new Account[] { one, null }, new Account[] { newOne, two });
+
+		store.undo(new Account[] { one, null }, new Account[] { newOne, two });
+		assertThat(store.get("jdbc3").getBalance()).isEqualTo(100);
+		assertThat(store.get("jdbc3").getSequence()).isEqualTo(0);
+		assertThat(store.get("jdbc4")).isNull();
+	}
+
+	/**
+	 * The partitions are the ones of the {@link TieredAccountStore} with the same buckets.
+	 */
+	@Test
+	public void partitionsMatchTheTieredStore() throws Exception {
+		List<Account> accounts = new ArrayList<>();
+		for (int i = 0; i < ACCOUNTS; i++) {
+			accounts.add(new Account("jdbc" + i, i));
+		}
+		store.load(accounts);
+		List<Account> all = new ArrayList<>();
+		store.forEach(all::add);
+		assertThat(all).hasSize(ACCOUNTS);
+
+		try (TieredAccountStore tiered = new TieredAccountStore(16, new File(folder.getRoot(), "accounts.dat").toPath(), 
+				BUCKETS)) {
+			tiered.load(accounts);
+			int partitions = 7;
+			int names = 0;
+			for (int partition = 0; partition < partitions; partition++) {
+				assertThat(store.names(partition, partitions)).isEqualTo(tiered.names(partition, partitions));
+				for (String name : store.names(partition, partitions)) {
+					assertThat(store.partition(name, partitions)).isEqualTo(partition);
+					names++;
+				}
+			}
+			assertThat(names).isEqualTo(ACCOUNTS);
+		}
+	}
+}
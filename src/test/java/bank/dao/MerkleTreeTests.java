@@ -0,0 +1,87 @@
+package bank.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import bank.data.Account;
+
+public class MerkleTreeTests {
+	private static final int LEAVES = 64;
+
+	/**
+	 * The tree updated commit by commit is the same as the tree built from the final accounts in other order.
+	 */
+	@Test
+	public void incrementalTreeEqualsRebuiltTree() {
+		Random random = new Random(42);
+		MerkleTree incremental = tree();
+		List<Account> accounts = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			Account account = new Account("merkle" + i, random.nextInt(1000));
+			accounts.add(account);
+			incremental.created(account);
+		}
+		for (int i = 0; i < 5000; i++) {
+			int index = random.nextInt(accounts.size());
+			Account previous = accounts.get(index);
+			Account account = previous.copy();
+			account.deposit(random.nextInt(100));
+			account.nextSequence();
+			accounts.set(index, account);
+			incremental.updated(previous, account);
+		}
+
+		MerkleTree rebuilt = tree();
+		Collections.shuffle(accounts, random);
+		for (Account account : accounts) {
+			rebuilt.created(account);
+		}
+		assertThat(incremental.getRootHash()).isEqualTo(rebuilt.getRootHash());
+		assertThat(incremental.getRootHash()).isNotEqualTo(tree().getRootHash());
+	}
+
+	/**
+	 * A different account is found descending only into the nodes that differ.
+	 */
+	@Test
+	public void divergentLeafFound() {
+		MerkleTree primary = tree();
+		MerkleTree replica = tree();
+		for (int i = 0; i < 200; i++) {
+			Account account = new Account("merkle" + i, 100);
+			primary.created(account);
+			replica.created(account);
+		}
+		assertThat(replica.getRootHash()).isEqualTo(primary.getRootHash());
+
+		// The same balance with other sequence is a different version of the account
+		Account previous = new Account("merkle77", 100);
+		Account account = new Account("merkle77", 100, 1, 0, 0);
+		replica.updated(previous, account);
+		assertThat(replica.getRootHash()).isNotEqualTo(primary.getRootHash());
+
+		int node = 0;
+		for (int level = 1; level <= primary.getDepth(); level++) {
+			int left = 2 * node;
+			int divergent = 0;
+			for (int child = left; child <= left + 1; child++) {
+				if (primary.getHash(level, child) != replica.getHash(level, child)) {
+					node = child;
+					divergent++;
+				}
+			}
+			assertThat(divergent).isEqualTo(1);
+		}
+		assertThat(node).isEqualTo(primary.leaf("merkle77"));
+	}
+
+	private static MerkleTree tree() {
+		return new MerkleTree(LEAVES, name -> (name.hashCode() & 0x7fffffff) % LEAVES);
+	}
+}
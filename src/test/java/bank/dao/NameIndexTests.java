@@ -0,0 +1,91 @@
+package bank.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class NameIndexTests {
+	private static final String[] PREFIXES = { "customer-", "customer-eu-", "merchant-", "ñandú-", "" };
+
+	/**
+	 * The index added name by name finds the same names as a sorted set, and so does the index loaded at once.
+	 */
+	@Test
+	public void indexFindsTheSameAsSortedSet() {
+		Random random = new Random(42);
+		NameIndex index = new NameIndex();
+		TreeSet<String> expected = new TreeSet<>();
+		for (int i = 0; i < 5000; i++) {
+			String name = PREFIXES[random.nextInt(PREFIXES.length)] + random.nextInt(100000);
+			assertThat(index.add(name)).isEqualTo(expected.add(name));
+		}
+		NameIndex loaded = new NameIndex();
+		loaded.load(expected);
+		assertThat(index.size()).isEqualTo(expected.size());
+		assertThat(loaded.size()).isEqualTo(expected.size());
+
+		for (int i = 0; i < 2000; i++) {
+			String name = PREFIXES[random.nextInt(PREFIXES.length)] + random.nextInt(100000);
+			assertThat(index.contains(name)).isEqualTo(expected.contains(name));
+			assertThat(loaded.contains(name)).isEqualTo(expected.contains(name));
+		}
+		assertThat(index.contains("customer")).isFalse();
+		assertThat(index.contains("")).isFalse();
+
+		for (String prefix : PREFIXES) {
+			List<String> withPrefix = new ArrayList<>();
+			for (String name : expected.tailSet(prefix)) {
+				if (!name.startsWith(prefix)) {
+					break;
+				}
+				withPrefix.add(name);
+			}
+			assertThat(index.search(prefix, "", null, Integer.MAX_VALUE)).isEqualTo(withPrefix);
+			assertThat(loaded.search(prefix, "", null, Integer.MAX_VALUE)).isEqualTo(withPrefix);
+		}
+		assertThat(index.search("", "customer-5", "customer-6", Integer.MAX_VALUE))
+				.isEqualTo(new ArrayList<>(expected.subSet("customer-5", "customer-6")));
+	}
+
+	/**
+	 * The pages of a search, each one from the name after the previous page, are all the names once.
+	 */
+	@Test
+	public void searchPaginated() {
+		NameIndex index = new NameIndex();
+		for (int i = 0; i < 1000; i++) {
+			index.add(String.format("customer-%06d", i * 7919 % 1000));
+			index.add(String.format("merchant-%06d", i));
+		}
+		List<String> all = new ArrayList<>();
+		String from = "";
+		while (from != null) {
+			List<String> page = index.search("customer-", from, null, 31);
+			all.addAll(page.subList(0, Math.min(30, page.size())));
+			from = page.size() > 30 ? page.get(30) : null;
+		}
+		assertThat(all).hasSize(1000);
+		assertThat(all).isSorted();
+		assertThat(all.get(0)).isEqualTo("customer-000000");
+		assertThat(all.get(999)).isEqualTo("customer-000999");
+	}
+
+	/**
+	 * The names that share prefixes take a few bytes each.
+	 */
+	@Test
+	public void sharedPrefixesCompressed() {
+		NameIndex index = new NameIndex();
+		for (int i = 0; i < 100000; i++) {
+			index.add(String.format("customer-%08d", i));
+		}
+		// 17 bytes each without the front coding
+		assertThat(index.getBytes()).isLessThan(100000L * 6);
+		assertThat(index.getBlocks()).isLessThan(100000 / (NameIndex.BLOCK_SIZE / 2) + 2);
+	}
+}
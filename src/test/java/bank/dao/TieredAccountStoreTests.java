@@ -0,0 +1,133 @@
+package bank.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bank.data.Account;
+
+/**
+ * Tests of the {@link TieredAccountStore} with a small memory and a file with few buckets, so most of the accounts 
+ * are in the file and the buckets have overflow pages.
+ */
+public class TieredAccountStoreTests {
+	private static final int CAPACITY = 16;
+	private static final int ACCOUNTS = 2000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private TieredAccountStore store;
+
+	@Before
+	public void init() throws Exception {
+		store = new TieredAccountStore(CAPACITY, new File(folder.getRoot(), "accounts.dat").toPath(), 4);
+	}
+
+	@After
+	public void close() throws Exception {
+		store.close();
+	}
+
+	@Test
+	public void accountsSurviveTheEviction() {
+		for (int i = 0; i < ACCOUNTS; i++) {
+			assertThat(store.putIfAbsent(new Account("tiered" + i, i))).isNull();
+		}
+		assertThat(store.size()).isLessThanOrEqualTo(CAPACITY);
+		assertThat(store.putIfAbsent(new Account("tiered7", 0)).getBalance()).isEqualTo(7);
+
+		// New versions of accounts in memory and in the file
+		for (int i = 0; i < ACCOUNTS; i += 3) {
+			Account account = store.get("tiered" + i).copy();
+			account.deposit(1000);
+			account.hold(10);
+			account.nextSequence();
+			store.put(account);
+		}
+		assertThat(store.size()).isLessThanOrEqualTo(CAPACITY);
+
+		for (int i = 0; i < ACCOUNTS; i++) {
+			Account account = store.get("tiered" + i);
+			boolean updated = i % 3 == 0;
+			assertThat(account.getBalance()).as("balance of %d", i).isEqualTo(updated ? i + 1000 : i);
+			assertThat(account.getHeld()).as("held of %d", i).isEqualTo(updated ? 10 : 0);
+			assertThat(account.getSequence()).as("sequence of %d", i).isEqualTo(updated ? 1 : 0);
+		}
+		assertThat(store.get("missing")).isNull();
+		assertThat(store.getEvictions()).isGreaterThan(0);
+	}
+
+	/**
+	 * A write undone leaves the previous versions and removes the new accounts, from the memory and the file.
+	 */
+	@Test
+	public void writeUndone() {
+		for (int i = 0; i < ACCOUNTS; i++) {
+			store.putIfAbsent(new Account("tiered" + i, i));
+		}
+		Account previous = store.get("tiered5");
+		Account updated = previous.copy();
+		updated.deposit(100);
+		updated.nextSequence();
+		Account created = new Account("tieredNew", 10);
+		store.write(new Account[] { previous, null }, new Account[] { updated, created });
+		// The new account leaves the memory
+		for (int i = 0; i < ACCOUNTS; i++) {
+			store.get("tiered" + i);
+		}
+
+		store.undo(new Account[] { previous, null }, new Account[] { updated, created });
+		assertThat(store.get("tiered5").getBalance()).isEqualTo(5);
+		assertThat(store.get("tieredNew")).isNull();
+		assertThat(store.names(0, 1)).hasSize(ACCOUNTS).doesNotContain("tieredNew");
+		for (int i = 0; i < ACCOUNTS; i++) {
+			assertThat(store.get("tiered" + i).getBalance()).as("balance of %d", i).isEqualTo(i);
+		}
+	}
+
+	@Test
+	public void frequentAccountsStayInMemory() {
+		for (int i = 0; i < ACCOUNTS; i++) {
+			store.putIfAbsent(new Account("tiered" + i, i));
+		}
+		// A working set smaller than the memory, read many times, while other accounts are read once
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < CAPACITY / 2; i++) {
+				store.get("tiered" + i);
+			}
+		}
+		for (int i = CAPACITY; i < ACCOUNTS; i++) {
+			store.get("tiered" + i);
+		}
+		long misses = store.getMisses();
+		for (int i = 0; i < CAPACITY / 2; i++) {
+			assertThat(store.get("tiered" + i).getBalance()).isEqualTo(i);
+		}
+		assertThat(store.getMisses()).isEqualTo(misses);
+	}
+
+	/**
+	 * The partition of an account is the one whose names have the account, also with more partitions than buckets.
+	 */
+	@Test
+	public void partitionOfTheAccountHasItsName() {
+		for (int i = 0; i < 100; i++) {
+			store.putIfAbsent(new Account("tiered" + i, i));
+		}
+		for (int partitions : new int[] { 1, 3, 4, 8 }) {
+			for (int i = 0; i < 100; i++) {
+				String name = "tiered" + i;
+				int partition = store.partition(name, partitions);
+				assertThat(partition).isBetween(0, partitions - 1);
+				assertThat(store.names(partition, partitions)).as("%s in %d partitions", name, partitions).contains(name);
+			}
+		}
+	}
+}
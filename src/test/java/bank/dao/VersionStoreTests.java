@@ -0,0 +1,126 @@
+package bank.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+import bank.data.Account;
+
+public class VersionStoreTests {
+	private final Map<String, Account> store = new ConcurrentHashMap<>();
+
+	/**
+	 * A snapshot and a read by time see the accounts as they were, whatever the commits done after.
+	 */
+	@Test
+	public void snapshotIsStable() throws Exception {
+		VersionStore versions = new VersionStore(store::get, 60000, 60000);
+		create(versions, new Account("version1", 100));
+		create(versions, new Account("version2", 0));
+		Thread.sleep(5);
+		long beforeTransfer = System.currentTimeMillis();
+		Thread.sleep(5);
+
+		try (AccountSnapshot snapshot = versions.open()) {
+			transfer(versions, "version1", "version2", 10);
+			create(versions, new Account("version3", 0));
+
+			assertThat(snapshot.getAccount("version1").getBalance()).isEqualTo(100);
+			assertThat(snapshot.getAccount("version2").getBalance()).isEqualTo(0);
+			assertThat(snapshot.getAccount("version3")).isNull();
+			try (AccountSnapshot latest = versions.open()) {
+				assertThat(latest.getAccount("version1").getBalance()).isEqualTo(90);
+				assertThat(latest.getAccount("version3")).isNotNull();
+			}
+		}
+		assertThat(versions.getAsOf("version1", beforeTransfer).getBalance()).isEqualTo(100);
+		assertThat(versions.getAsOf("version2", System.currentTimeMillis()).getBalance()).isEqualTo(10);
+		assertThat(versions.getAsOf("version3", beforeTransfer)).isNull();
+		assertThat(versions.getSnapshots()).isEqualTo(0);
+	}
+
+	/**
+	 * The collector keeps the versions of the open snapshots and removes them when they are closed or expire.
+	 */
+	@Test
+	public void collectorKeepsVersionsOfOpenSnapshots() throws Exception {
+		VersionStore versions = new VersionStore(store::get, 0, 100);
+		create(versions, new Account("version1", 100));
+		create(versions, new Account("version2", 0));
+		Thread.sleep(5);
+		versions.collect();
+		assertThat(versions.getVersions()).isEqualTo(0);
+
+		AccountSnapshot closed = versions.open();
+		AccountSnapshot forgotten = versions.open();
+		for (int i = 0; i < 10; i++) {
+			transfer(versions, "version1", "version2", 1);
+		}
+		versions.collect();
+		assertThat(closed.getAccount("version1").getBalance()).isEqualTo(100);
+		assertThat(versions.getVersions()).isGreaterThan(0);
+
+		closed.close();
+		Thread.sleep(150);
+		versions.collect();
+		assertThat(versions.getVersions()).isEqualTo(0);
+		assertThat(forgotten.isExpired()).isTrue();
+		assertThatThrownBy(() -> forgotten.getAccount("version1")).isInstanceOf(VersionNotAvailableException.class);
+		assertThatThrownBy(() -> versions.getAsOf("version1", 0)).isInstanceOf(VersionNotAvailableException.class);
+	}
+
+	/**
+	 * The versions of a commit the store refused are discarded, the next commit doesn't publish them.
+	 */
+	@Test
+	public void refusedCommitNotVisible() throws Exception {
+		VersionStore versions = new VersionStore(store::get, 60000, 60000);
+		create(versions, new Account("version4", 100));
+		create(versions, new Account("version5", 0));
+
+		Account refused = new Account("version6", 500);
+		long timestamp = versions.begin();
+		versions.created(refused, timestamp);
+		versions.discard(new Account[] { refused }, timestamp);
+		Account previous = store.get("version4");
+		Account updated = previous.copy();
+		updated.withdraw(50);
+		timestamp = versions.begin();
+		versions.updated(previous, updated, timestamp);
+		versions.discard(new Account[] { updated }, timestamp);
+
+		transfer(versions, "version5", "version4", 0);
+		try (AccountSnapshot snapshot = versions.open()) {
+			assertThat(snapshot.getAccount("version6")).isNull();
+			assertThat(snapshot.getAccount("version4").getBalance()).isEqualTo(100);
+		}
+		assertThat(versions.getAsOf("version6", System.currentTimeMillis())).isNull();
+		assertThat(versions.getAsOf("version4", System.currentTimeMillis()).getBalance()).isEqualTo(100);
+	}
+
+	private void create(VersionStore versions, Account account) {
+		long timestamp = versions.begin();
+		versions.created(account, timestamp);
+		store.put(account.getName(), account);
+		versions.publish(timestamp);
+	}
+
+	private void transfer(VersionStore versions, String from, String to, long value) {
+		long timestamp = versions.begin();
+		Account previousFrom = store.get(from);
+		Account previousTo = store.get(to);
+		Account accountFrom = previousFrom.copy();
+		Account accountTo = previousTo.copy();
+		accountFrom.withdraw(value);
+		accountTo.deposit(value);
+		versions.updated(previousFrom, accountFrom, timestamp);
+		store.put(from, accountFrom);
+		versions.updated(previousTo, accountTo, timestamp);
+		store.put(to, accountTo);
+		versions.publish(timestamp);
+	}
+}
@@ -0,0 +1,42 @@
+package bank.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import org.junit.Test;
+
+public class BalanceEventRingTests {
+
+	@Test
+	public void claimedEventsAreReadOncePublished() throws Exception {
+		BalanceEventRing ring = new BalanceEventRing(8);
+		long offset = ring.claim(2);
+		assertThat(ring.head()).isEqualTo(offset + 2);
+		assertThat(ring.get(offset)).isNull();
+
+		ring.publish(event(offset + 1));
+		assertThat(ring.get(offset)).isNull();
+		assertThat(ring.get(offset + 1).getOffset()).isEqualTo(offset + 1);
+		ring.publish(event(offset));
+		assertThat(ring.get(offset).getOffset()).isEqualTo(offset);
+	}
+
+	@Test
+	public void overwrittenEventsAreReported() throws Exception {
+		BalanceEventRing ring = new BalanceEventRing(4);
+		for (int i = 0; i < 6; i++) {
+			ring.publish(event(ring.claim(1)));
+		}
+		assertThat(ring.get(2).getOffset()).isEqualTo(2);
+		try {
+			ring.get(1);
+			fail("The event 1 was overwritten");
+		} catch (EventOverrunException e) {
+			assertThat(e.getOffset()).isEqualTo(1);
+		}
+	}
+
+	private static BalanceEvent event(long offset) {
+		return new BalanceEvent(offset, BalanceEvent.Type.CREATE, "account" + offset, null, 0, 0, 0, 0);
+	}
+}
@@ -0,0 +1,164 @@
+package bank.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import bank.data.OperationError;
+import bank.data.OperationStatus;
+import bank.services.BankBaseServices;
+
+/**
+ * Tests of the {@link BalanceEventStreamer} with emitters that record the events instead of sending them.
+ */
+public class BalanceEventStreamerTests {
+	private BalanceEventStreamer streamer;
+
+	@Before
+	public void init() {
+		streamer = new BalanceEventStreamer(0, 1);
+	}
+
+	@After
+	public void shutdown() {
+		streamer.stop();
+	}
+
+	/**
+	 * The subscriber receives the events of its accounts, and other subscriber is rejected until it leaves.
+	 */
+	@Test
+	public void eventsOfTheAccountsStreamed() throws Exception {
+		BankBaseServices service = new BankBaseServices();
+		assertThat(service.createAccount("streamAccount1", 100).isSuccess()).isTrue();
+		assertThat(service.createAccount("streamAccount2", 0).isSuccess()).isTrue();
+		assertThat(service.createAccount("streamAccount3", 0).isSuccess()).isTrue();
+
+		RecordingEmitter subscriber = new RecordingEmitter();
+		streamer.subscribe(subscriber, null, new HashSet<>(Arrays.asList("streamAccount1", "streamAccount2")), null);
+		assertThat(streamer.getSubscribers()).isEqualTo(1);
+		assertThat(service.transfer("streamAccount1", "streamAccount3", 10).isSuccess()).isTrue();
+		assertThat(service.transfer("streamAccount1", "streamAccount2", 30).isSuccess()).isTrue();
+		await(() -> subscriber.data.stream().filter(data -> data instanceof BalanceEvent).count() == 3);
+		List<BalanceEvent> events = subscriber.events();
+		assertThat(events).extracting(BalanceEvent::getAccount)
+				.containsExactly("streamAccount1", "streamAccount1", "streamAccount2");
+		assertThat(events).extracting(BalanceEvent::getBalance).containsExactly(90L, 60L, 30L);
+		assertThat(events.get(1).getOffset()).isGreaterThan(events.get(0).getOffset());
+		assertThat(subscriber.text()).contains("event:balance").contains("id:" + events.get(2).getOffset());
+
+		RecordingEmitter rejected = new RecordingEmitter();
+		streamer.subscribe(rejected, null, null, null);
+		assertThat(rejected.text()).contains("event:overloaded");
+		assertThat(rejected.data).extracting(data -> data instanceof OperationStatus
+				? ((OperationStatus) data).getErrorCode() : null).contains(OperationError.SERVICE_OVERLOADED);
+		assertThat(rejected.completed).isTrue();
+
+		// The subscriber leaves, its thread ends with the next event
+		subscriber.closed = true;
+		assertThat(service.transfer("streamAccount2", "streamAccount1", 5).isSuccess()).isTrue();
+		await(() -> streamer.getSubscribers() == 0);
+		RecordingEmitter next = new RecordingEmitter();
+		streamer.subscribe(next, null, null, null);
+		assertThat(next.completed).isFalse();
+		assertThat(streamer.getSubscribers()).isEqualTo(1);
+	}
+
+	/**
+	 * The stream of a tenant has only the events of the accounts of the tenant, and an unknown tenant is rejected.
+	 */
+	@Test
+	public void eventsOfTheTenantStreamed() throws Exception {
+		RecordingEmitter unknown = new RecordingEmitter();
+		streamer.subscribe(unknown, "unknown", null, null);
+		assertThat(unknown.text()).contains("event:rejected");
+		assertThat(unknown.data).extracting(data -> data instanceof OperationStatus
+				? ((OperationStatus) data).getErrorCode() : null).contains(OperationError.TENANT_DOESNT_EXIST);
+		assertThat(unknown.completed).isTrue();
+		assertThat(streamer.getSubscribers()).isEqualTo(0);
+
+		BankBaseServices service = new BankBaseServices();
+		BankBaseServices tenantService = new BankBaseServices("corporate");
+		for (BankBaseServices each : new BankBaseServices[] { service, tenantService }) {
+			assertThat(each.createAccount("streamTenantAccount1", 100).isSuccess()).isTrue();
+			assertThat(each.createAccount("streamTenantAccount2", 0).isSuccess()).isTrue();
+		}
+
+		RecordingEmitter subscriber = new RecordingEmitter();
+		streamer.subscribe(subscriber, "corporate", 
+				new HashSet<>(Arrays.asList("streamTenantAccount1", "streamTenantAccount2")), null);
+		assertThat(service.transfer("streamTenantAccount1", "streamTenantAccount2", 10).isSuccess()).isTrue();
+		assertThat(tenantService.transfer("streamTenantAccount1", "streamTenantAccount2", 30).isSuccess()).isTrue();
+		await(() -> subscriber.events().size() == 2);
+		assertThat(subscriber.events()).extracting(BalanceEvent::getBalance).containsExactly(70L, 30L);
+
+		subscriber.closed = true;
+		assertThat(tenantService.transfer("streamTenantAccount2", "streamTenantAccount1", 5).isSuccess()).isTrue();
+		await(() -> streamer.getSubscribers() == 0);
+		assertThat(subscriber.events()).hasSize(2);
+	}
+
+	private interface Condition {
+		boolean met();
+	}
+
+	private static void await(Condition condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!condition.met()) {
+			assertThat(System.currentTimeMillis()).isLessThan(deadline);
+			TimeUnit.MILLISECONDS.sleep(5);
+		}
+	}
+
+	private static class RecordingEmitter extends SseEmitter {
+		private final List<Object> data = new CopyOnWriteArrayList<>();
+		private volatile boolean closed;
+		private volatile boolean completed;
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			if (closed) {
+				throw new IOException("Closed by the subscriber");
+			}
+			for (DataWithMediaType part : builder.build()) {
+				data.add(part.getData());
+			}
+		}
+
+		@Override
+		public synchronized void complete() {
+			completed = true;
+		}
+
+		List<BalanceEvent> events() {
+			List<BalanceEvent> events = new CopyOnWriteArrayList<>();
+			for (Object part : data) {
+				if (part instanceof BalanceEvent) {
+					events.add((BalanceEvent) part);
+				}
+			}
+			return events;
+		}
+
+		String text() {
+			StringBuilder text = new StringBuilder();
+			for (Object part : data) {
+				if (part instanceof String) {
+					text.append(part);
+				}
+			}
+			return text.toString();
+		}
+	}
+}
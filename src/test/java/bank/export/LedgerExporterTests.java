@@ -0,0 +1,136 @@
+package bank.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bank.dao.AccountDAO;
+import bank.data.ExportStatus;
+import bank.data.OperationError;
+import bank.services.BankBaseServices;
+
+/**
+ * Tests of the {@link LedgerExporter} on the accounts of a tenant of the {@link AccountDAO}. The export has also the
+ * accounts of other tests, so the tests only verify their own accounts.
+ */
+public class LedgerExporterTests {
+	private static final String TENANT = "corporate";
+	private static final int ACCOUNTS = 300;
+	private static final long BALANCE = 1000;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * The export during transfers sees all the accounts as they were at one commit, so their total is the same.
+	 */
+	@Test
+	public void exportConsistentDuringTransfers() throws Exception {
+		BankBaseServices service = new BankBaseServices(TENANT);
+		String[] names = new String[ACCOUNTS];
+		for (int i = 0; i < ACCOUNTS; i++) {
+			names[i] = "exportAccount" + i;
+			assertThat(service.createAccount(names[i], BALANCE).isSuccess()).isTrue();
+		}
+		LedgerExporter exporter = new LedgerExporter(folder.getRoot().getPath(), 2, 8);
+		exporter.start();
+
+		AtomicBoolean running = new AtomicBoolean(true);
+		Thread transfers = new Thread(() -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			while (running.get()) {
+				service.transfer(names[random.nextInt(ACCOUNTS)], names[random.nextInt(ACCOUNTS)],
+						1 + random.nextInt(10));
+			}
+		});
+		transfers.start();
+		ExportStatus status;
+		try {
+			status = exporter.export(TENANT, true);
+		} finally {
+			running.set(false);
+			transfers.join();
+		}
+		assertThat(exporter.export("unknown", false).getErrorCode()).isEqualTo(OperationError.TENANT_DOESNT_EXIST);
+		exporter.stop();
+
+		assertThat(status.isSuccess()).isTrue();
+		assertThat(status.getFiles()).isEqualTo(9);
+		Path directory = Paths.get(status.getDirectory());
+		assertThat(directory.resolve(LedgerExporter.MANIFEST)).exists();
+		Map<String, Long> balances = new HashMap<>();
+		long rows = 0;
+		for (int partition = 0; partition < 8; partition++) {
+			ColumnFile file = ColumnFile.read(directory.resolve(String.format("accounts-%04d.col", partition)));
+			String[] name = file.getStrings("name");
+			long[] balance = file.getLongs("balance");
+			assertThat(name).isSorted();
+			for (int i = 0; i < file.getRows(); i++) {
+				balances.put(name[i], balance[i]);
+			}
+			rows += file.getRows();
+		}
+		assertThat(rows).isEqualTo(status.getAccounts());
+		long total = 0;
+		for (String name : names) {
+			assertThat(balances).containsKey(name);
+			total += balances.get(name);
+		}
+		assertThat(total).isEqualTo(ACCOUNTS * BALANCE);
+
+		// The history ends at the commit of the snapshot, with the creation of the accounts if they are still kept
+		ColumnFile events = ColumnFile.read(directory.resolve(LedgerExporter.EVENTS));
+		assertThat((long) events.getRows()).isEqualTo(status.getEvents()).isGreaterThan(0);
+		long[] offsets = events.getLongs("offset");
+		for (int i = 1; i < offsets.length; i++) {
+			assertThat(offsets[i]).isEqualTo(offsets[i - 1] + 1);
+		}
+		assertThat(events.getStrings("type")).contains("CREATE");
+		assertThat(events.getStrings("account")).contains(names[ACCOUNTS - 1]);
+	}
+
+	/**
+	 * The values of every coding are read as they were written, and a damaged column is detected.
+	 */
+	@Test
+	public void columnsReadAsWritten() throws IOException {
+		String[] names = { "customer-0001", "customer-0002", "customer-0100", "ñandú" };
+		String[] counterparts = { null, "merchant", "customer-0001", "merchant" };
+		long[] balances = { 0, -5, Long.MAX_VALUE, Long.MIN_VALUE };
+		long[] times = { 1_500_000_000_000L, 1_500_000_000_001L, 1_500_000_000_001L, 1_499_999_999_000L };
+		Path path = folder.getRoot().toPath().resolve("test.col");
+		long bytes = new ColumnFileWriter(4).frontCoded("name", names).dictionary("counterpart", counterparts)
+				.zigzag("balance", balances).delta("time", times).write(path);
+		assertThat(Files.size(path)).isEqualTo(bytes);
+
+		ColumnFile file = ColumnFile.read(path);
+		assertThat(file.getRows()).isEqualTo(4);
+		assertThat(file.getColumns()).containsExactly("name", "counterpart", "balance", "time");
+		assertThat(file.getStrings("name")).containsExactly(names);
+		assertThat(file.getStrings("counterpart")).containsExactly(counterparts);
+		assertThat(file.getLongs("balance")).containsExactly(balances);
+		assertThat(file.getLongs("time")).containsExactly(times);
+		assertThatThrownBy(() -> file.getLongs("name")).isInstanceOf(IllegalArgumentException.class);
+
+		try (RandomAccessFile damaged = new RandomAccessFile(path.toFile(), "rw")) {
+			damaged.seek(bytes - 1);
+			int last = damaged.read();
+			damaged.seek(bytes - 1);
+			damaged.write(last ^ 0xff);
+		}
+		assertThatThrownBy(() -> ColumnFile.read(path)).isInstanceOf(IOException.class);
+	}
+}
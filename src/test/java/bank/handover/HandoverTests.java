@@ -0,0 +1,259 @@
+package bank.handover;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import bank.bulk.BulkOperationRunner;
+import bank.dao.AccountDAO;
+import bank.data.Account;
+import bank.data.Hold;
+import bank.data.OperationError;
+import bank.data.OperationStatus;
+import bank.priority.RequestClass;
+import bank.priority.RequestScheduler;
+import bank.scheduler.ScheduledTransfer;
+import bank.scheduler.TransferScheduler;
+import bank.services.BankBaseServices;
+
+/**
+ * Tests of the {@link HandoverServer} with the test as the new process, and of the loading of the accounts on the
+ * ledger of the warm up, because the ledgers of the tenants of the tests already have accounts.
+ */
+public class HandoverTests {
+	private static final String TENANT = "corporate";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecutorService executor;
+
+	@Before
+	public void init() {
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * The commits and the scheduled transfers wait while the accounts are handed over, they go on if the new
+	 * process fails, and the port is released when the new process loads the accounts.
+	 */
+	@Test
+	public void commitsGoOnUntilHandedOver() throws Exception {
+		BankBaseServices service = new BankBaseServices(TENANT);
+		assertThat(service.createAccount("handoverAccount1", 1000).isSuccess()).isTrue();
+		assertThat(service.createAccount("handoverAccount2", 0).isSuccess()).isTrue();
+		assertThat(service.createAccount("handoverAccount3", 10).isSuccess()).isTrue();
+		assertThat(service.createAccount("handoverAccount4", 0).isSuccess()).isTrue();
+		long holdId = service.authorize("handoverAccount1", 300, 60000).getHoldId();
+
+		RequestScheduler scheduler = new RequestScheduler(2, 4, 100, 1000, 1, 50, 5000);
+		TransferScheduler transfers = new TransferScheduler(10, "", "");
+		BulkOperationRunner bulk = new BulkOperationRunner(1, 16, 0, "", "");
+		transfers.init();
+		bulk.init();
+		AtomicInteger released = new AtomicInteger();
+		CountDownLatch exited = new CountDownLatch(1);
+		HandoverServer server = new HandoverServer(scheduler, transfers, bulk, null, 0, 1000, 10000) {
+			@Override
+			void releasePort() {
+				released.incrementAndGet();
+			}
+
+			@Override
+			void exit() {
+				unseal();
+				exited.countDown();
+			}
+		};
+		server.start();
+		try {
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream out = request(socket);
+				assertThat(in.readByte()).isEqualTo(HandoverState.STATE);
+				HandoverState state = HandoverState.read(in);
+				Account account = find(state, "handoverAccount1");
+				assertThat(account.getBalance()).isEqualTo(1000);
+				assertThat(account.getHeld()).isEqualTo(300);
+				assertThat(state.getHolds()).extracting(Hold::getId).contains(holdId);
+
+				assertThat(scheduler.execute(RequestClass.INTERACTIVE, () -> new OperationStatus(true),
+						error -> new OperationStatus(false, error)).getErrorCode())
+						.isEqualTo(OperationError.SERVICE_OVERLOADED);
+				Future<OperationStatus> transfer = executor.submit(() -> service.transfer("handoverAccount1",
+						"handoverAccount2", 100));
+				assertThatThrownBy(() -> transfer.get(200, TimeUnit.MILLISECONDS))
+						.isInstanceOf(TimeoutException.class);
+				assertThat(service.getBalance("handoverAccount1").getBalance()).isEqualTo(1000);
+				long scheduled = transfers.schedule(TENANT, "handoverAccount3", "handoverAccount4", 10,
+						System.currentTimeMillis(), 0).getId();
+				TimeUnit.MILLISECONDS.sleep(100);
+				assertThat(transfers.list(TENANT)).extracting(ScheduledTransfer::getId).contains(scheduled);
+
+				out.writeByte(HandoverState.FAILED);
+				out.flush();
+				assertThat(transfer.get(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+			}
+			awaitAdmitted(scheduler);
+			awaitBalance(service, "handoverAccount4", 10);
+			assertThat(released.get()).isEqualTo(0);
+
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+				DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				DataOutputStream out = request(socket);
+				assertThat(in.readByte()).isEqualTo(HandoverState.STATE);
+				HandoverState state = HandoverState.read(in);
+				assertThat(find(state, "handoverAccount1").getBalance()).isEqualTo(900);
+				assertThat(find(state, "handoverAccount2").getBalance()).isEqualTo(100);
+				out.writeByte(HandoverState.LOADED);
+				out.flush();
+				assertThat(in.readByte()).isEqualTo(HandoverState.RELEASED);
+			}
+			assertThat(exited.await(10, TimeUnit.SECONDS)).isTrue();
+			assertThat(released.get()).isEqualTo(1);
+		} finally {
+			server.stop();
+			scheduler.resume();
+			transfers.stop();
+			bulk.stop();
+		}
+	}
+
+	/**
+	 * The journal of the scheduled transfers is loaded by the new process only when the running one suspended its
+	 * scheduler, and the running one continues from it if the handover fails.
+	 */
+	@Test
+	public void journalsOwnedByOneProcessAtATime() throws Exception {
+		BankBaseServices service = new BankBaseServices(TENANT);
+		assertThat(service.createAccount("handoverAccount5", 10).isSuccess()).isTrue();
+		assertThat(service.createAccount("handoverAccount6", 0).isSuccess()).isTrue();
+		String journal = new File(folder.getRoot(), "scheduler.journal").getPath();
+		TransferScheduler running = new TransferScheduler(10, journal, "");
+		running.init();
+		long id = running.schedule(TENANT, "handoverAccount5", "handoverAccount6", 10,
+				System.currentTimeMillis() + 3600000, 0).getId();
+
+		TransferScheduler successor = new TransferScheduler(10, journal, "9090");
+		successor.init();
+		try {
+			assertThat(successor.list(TENANT)).isEmpty();
+			running.suspend();
+			running.resume();
+			assertThat(running.list(TENANT)).extracting(ScheduledTransfer::getId).containsExactly(id);
+
+			running.suspend();
+			successor.start();
+			assertThat(successor.list(TENANT)).extracting(ScheduledTransfer::getId).containsExactly(id);
+		} finally {
+			running.stop();
+			successor.stop();
+		}
+	}
+
+	/**
+	 * The accounts handed over are loaded with the amounts of their holds, once, and the warm up runs on its own
+	 * ledger.
+	 */
+	@Test
+	public void accountsLoadedAsHandedOver() throws Exception {
+		long now = System.currentTimeMillis();
+		Map<String, List<Account>> accounts = Collections.singletonMap(AccountDAO.WARMUP_TENANT, Arrays.asList(
+				new Account("loadedAccount1", 500, 7, 999, 3), new Account("loadedAccount2", 20, 1, 0, 0)));
+		List<Hold> holds = Arrays.asList(new Hold(1, AccountDAO.WARMUP_TENANT, "loadedAccount1", 200, now, now + 60000),
+				new Hold(2, AccountDAO.WARMUP_TENANT, "loadedAccount1", 50, now, now + 60000));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new HandoverState(now, accounts, holds).write(new DataOutputStream(bytes));
+		HandoverState state = HandoverState.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertThat(state.getDrainTime()).isEqualTo(now);
+		assertThat(state.getAccountCount()).isEqualTo(2);
+		assertThat(state.getHolds()).hasSize(2);
+
+		assertThatThrownBy(() -> HandoverClient.load(state)).isInstanceOf(IllegalStateException.class);
+		AccountDAO.openWarmup();
+		try {
+			AccountDAO dao = new AccountDAO(AccountDAO.WARMUP_TENANT);
+			dao.load(state.getAccounts().get(AccountDAO.WARMUP_TENANT));
+			Account account = dao.getAccount("loadedAccount1");
+			assertThat(account.getBalance()).isEqualTo(500);
+			assertThat(account.getSequence()).isEqualTo(7);
+			assertThat(account.getHeld()).isEqualTo(250);
+			assertThat(account.getLastBulkOperation()).isEqualTo(3);
+			assertThat(dao.searchAccountNames("loaded", "", null, 10))
+					.containsExactly("loadedAccount1", "loadedAccount2");
+			assertThat(new BankBaseServices(AccountDAO.WARMUP_TENANT).transfer("loadedAccount2", "loadedAccount1", 20)
+					.isSuccess()).isTrue();
+			assertThatThrownBy(() -> dao.load(state.getAccounts().get(AccountDAO.WARMUP_TENANT)))
+					.isInstanceOf(IllegalStateException.class);
+		} finally {
+			AccountDAO.closeWarmup();
+		}
+
+		RequestScheduler scheduler = new RequestScheduler(2, 4, 100, 1000, 1, 50, 5000);
+		new Warmup(scheduler, new ObjectMapper()).run(null, 1000);
+		assertThat(scheduler.getStatistics().get(RequestClass.INTERACTIVE.ordinal()).getAdmitted()).isEqualTo(1000);
+		assertThatThrownBy(() -> new AccountDAO(AccountDAO.WARMUP_TENANT)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static DataOutputStream request(Socket socket) throws Exception {
+		DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+		out.writeInt(HandoverState.MAGIC);
+		out.writeByte(HandoverState.REQUEST);
+		out.flush();
+		return out;
+	}
+
+	private static Account find(HandoverState state, String name) {
+		return state.getAccounts().get(TENANT).stream().filter(account -> account.getName().equals(name))
+				.findFirst().get();
+	}
+
+	private static void awaitBalance(BankBaseServices service, String name, long balance) throws Exception {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (service.getBalance(name).getBalance() != balance) {
+			assertThat(System.currentTimeMillis()).isLessThan(deadline);
+			TimeUnit.MILLISECONDS.sleep(5);
+		}
+	}
+
+	private static void awaitAdmitted(RequestScheduler scheduler) throws Exception {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!scheduler.execute(RequestClass.INTERACTIVE, () -> new OperationStatus(true),
+				error -> new OperationStatus(false, error)).isSuccess()) {
+			assertThat(System.currentTimeMillis()).isLessThan(deadline);
+			TimeUnit.MILLISECONDS.sleep(5);
+		}
+	}
+}
@@ -1,10 +1,14 @@
 package bank.interfaces.rest;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,8 +16,14 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.jayway.jsonpath.JsonPath;
 
+import bank.dao.AccountDAO;
 import bank.data.OperationError;
+import bank.priority.RequestClass;
+import bank.services.BankBaseServices;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
@@ -25,6 +35,22 @@ public class BankRestServiceTests {
     
     private static final String CREATE_ACCOUNT_URI = "/bank/rest/createAccount";
     private static final String TRANSFER_URI = "/bank/rest/transfer";
+    private static final String MULTI_TRANSFER_URI = "/bank/rest/multiTransfer";
+    private static final String AUTHORIZE_URI = "/bank/rest/authorize";
+    private static final String CAPTURE_URI = "/bank/rest/capture";
+    private static final String RELEASE_URI = "/bank/rest/release";
+    private static final String BALANCE_URI = "/bank/rest/balance";
+    private static final String SCHEDULE_TRANSFER_URI = "/bank/rest/scheduleTransfer";
+    private static final String CANCEL_SCHEDULED_TRANSFER_URI = "/bank/rest/cancelScheduledTransfer";
+    private static final String STATISTICS_URI = "/bank/rest/statistics";
+    private static final String REQUEST_CLASSES_URI = "/bank/rest/requestClasses";
+    private static final String RECORDING_URI = "/bank/rest/recording";
+    private static final String FINGERPRINT_URI = "/bank/rest/fingerprint";
+    private static final String TENANTS_URI = "/bank/rest/tenants";
+    private static final String SEARCH_ACCOUNTS_URI = "/bank/rest/searchAccounts";
+    private static final String RETAIL_URI = "/bank/rest/tenants/retail";
+    private static final String CORPORATE_URI = "/bank/rest/tenants/corporate";
+    private static final String EVENTS_URI = "/bank/rest/events";
 
     @Test
     public void createAccountAlreadyCreated() throws Exception {
@@ -83,4 +109,433 @@ public class BankRestServiceTests {
     				.andExpect(jsonPath("$.errorCode").value(OperationError.ACCOUNT_NOT_ENOUGH_FUNDS.getCode()));
  
     }
+
+    @Test
+    public void scheduledTransferExecuted() throws Exception {
+        String accountName1 = "randomNameAccount30"; 
+        String accountName2 = "randomNameAccount31"; 
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName1).param("balance", "20"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName2).param("balance", "0"))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        this.mockMvc.perform(get(SCHEDULE_TRANSFER_URI).param("from", accountName1).param("to", accountName2)
+        				.param("value", "15").param("time", String.valueOf(System.currentTimeMillis())))
+        			.andDo(print())
+        			.andExpect(status().isOk())
+        			.andExpect(jsonPath("$.success").value(true));
+
+        // The scheduler executes the transfer in the next tick
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline && new BankBaseServices().getBalance(accountName2).getBalance() == 0) {
+        		Thread.sleep(10);
+        }
+        this.mockMvc.perform(get(BALANCE_URI).param("name", accountName2))
+        			.andDo(print())
+        			.andExpect(status().isOk())
+        			.andExpect(jsonPath("$.balance").value(15));
+    }
+
+    @Test
+    public void cancelScheduledTransferNotPending() throws Exception {
+        this.mockMvc.perform(get(CANCEL_SCHEDULED_TRANSFER_URI).param("id", "-1"))
+        			.andDo(print())
+        			.andExpect(status().isOk())
+        			.andExpect(jsonPath("$.success").value(false))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.SCHEDULED_TRANSFER_DOESNT_EXIST.getCode()));
+    }
+
+    @Test
+    public void scheduledTransferOfTenant() throws Exception {
+        String accountName1 = "tenantScheduleAccount1"; 
+        String accountName2 = "tenantScheduleAccount2"; 
+        this.mockMvc.perform(get(CORPORATE_URI + "/createAccount").param("name", accountName1).param("balance", "20"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(CORPORATE_URI + "/createAccount").param("name", accountName2).param("balance", "0"))
+        			.andExpect(jsonPath("$.success").value(true));
+        // The accounts are not the ones of the default tenant
+        this.mockMvc.perform(get(SCHEDULE_TRANSFER_URI).param("from", accountName1).param("to", accountName2)
+        				.param("value", "15").param("time", String.valueOf(System.currentTimeMillis() + 3600000)))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.ACCOUNT_DOESNT_EXIST.getCode()));
+
+        String response = this.mockMvc.perform(get(CORPORATE_URI + "/scheduleTransfer").param("from", accountName1)
+        				.param("to", accountName2).param("value", "15")
+        				.param("time", String.valueOf(System.currentTimeMillis() + 3600000)))
+        			.andDo(print())
+        			.andExpect(jsonPath("$.success").value(true))
+        			.andReturn().getResponse().getContentAsString();
+        String id = String.valueOf(JsonPath.<Number>read(response, "$.id"));
+        this.mockMvc.perform(get(CORPORATE_URI + "/scheduledTransfers"))
+        			.andDo(print())
+        			.andExpect(jsonPath("$[?(@.id == " + id + ")].tenant").value("corporate"));
+        this.mockMvc.perform(get("/bank/rest/scheduledTransfers"))
+        			.andExpect(jsonPath("$[?(@.id == " + id + ")]").isEmpty());
+        this.mockMvc.perform(get(CANCEL_SCHEDULED_TRANSFER_URI).param("id", id))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.SCHEDULED_TRANSFER_DOESNT_EXIST.getCode()));
+        this.mockMvc.perform(get(CORPORATE_URI + "/cancelScheduledTransfer").param("id", id))
+        			.andExpect(jsonPath("$.success").value(true));
+    }
+
+    @Test
+    public void statisticsOfTenant() throws Exception {
+        this.mockMvc.perform(get(CORPORATE_URI + "/createAccount").param("name", "tenantStatisticsAccount1")
+        				.param("balance", "1000000000001"))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        this.mockMvc.perform(get(CORPORATE_URI + "/statistics"))
+        			.andDo(print())
+        			.andExpect(status().isOk())
+        			.andExpect(jsonPath("$.conserved").value(true))
+        			.andExpect(jsonPath("$.largestBalances[0].name").value("tenantStatisticsAccount1"));
+        this.mockMvc.perform(get(CORPORATE_URI + "/fingerprint"))
+        			.andExpect(status().isOk())
+        			.andExpect(jsonPath("$.hashes.length()").value(1));
+        this.mockMvc.perform(get("/bank/rest/tenants/unknown/statistics"))
+        			.andDo(print())
+        			.andExpect(status().isNotFound())
+        			.andExpect(jsonPath("$.success").value(false))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.TENANT_DOESNT_EXIST.getCode()));
+        this.mockMvc.perform(get("/bank/rest/tenants/unknown/bulkOperations"))
+        			.andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void multiTransferSuccess() throws Exception {
+        String[] accountNames = { "randomNameAccount40", "randomNameAccount41", "randomNameAccount42" }; 
+        for (String accountName : accountNames) {
+            this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName).param("balance", "30"))
+            			.andExpect(jsonPath("$.success").value(true));
+        }
+
+        this.mockMvc.perform(get(MULTI_TRANSFER_URI)
+        				.param("account", accountNames[0]).param("amount", "-30")
+        				.param("account", accountNames[1]).param("amount", "10")
+        				.param("account", accountNames[2]).param("amount", "20"))
+        			.andDo(print())
+        			.andExpect(status().isOk())
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(BALANCE_URI).param("name", accountNames[2]))
+        			.andExpect(jsonPath("$.balance").value(50));
+
+        // The legs must be balanced
+        this.mockMvc.perform(get(MULTI_TRANSFER_URI)
+        				.param("account", accountNames[1]).param("amount", "-10")
+        				.param("account", accountNames[2]).param("amount", "20"))
+        			.andDo(print())
+        			.andExpect(jsonPath("$.success").value(false))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.LEGS_NOT_BALANCED.getCode()));
+    }
+
+    @Test
+    public void holdCapturedAndReleased() throws Exception {
+        String accountName1 = "randomNameAccount50"; 
+        String accountName2 = "randomNameAccount51"; 
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName1).param("balance", "100"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName2).param("balance", "0"))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        String response = this.mockMvc.perform(get(AUTHORIZE_URI).param("account", accountName1).param("amount", "80"))
+        			.andDo(print())
+        			.andExpect(status().isOk())
+        			.andExpect(jsonPath("$.success").value(true))
+        			.andReturn().getResponse().getContentAsString();
+        String holdId = String.valueOf(JsonPath.<Number>read(response, "$.holdId"));
+
+        // The reserved funds are not available
+        this.mockMvc.perform(get(TRANSFER_URI).param("from", accountName1).param("to", accountName2).param("value", "30"))
+        			.andExpect(jsonPath("$.success").value(false))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.ACCOUNT_NOT_ENOUGH_FUNDS.getCode()));
+
+        // Capture part of the hold, the rest is released
+        this.mockMvc.perform(get(CAPTURE_URI).param("hold", holdId).param("to", accountName2).param("amount", "50"))
+        			.andDo(print())
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(BALANCE_URI).param("name", accountName2))
+        			.andExpect(jsonPath("$.balance").value(50));
+        this.mockMvc.perform(get(TRANSFER_URI).param("from", accountName1).param("to", accountName2).param("value", "50"))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        // The hold ended
+        this.mockMvc.perform(get(RELEASE_URI).param("hold", holdId))
+        			.andExpect(jsonPath("$.success").value(false))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.HOLD_DOESNT_EXIST.getCode()));
+    }
+
+    @Test
+    public void statisticsWithTheLargestBalance() throws Exception {
+        String accountName = "randomNameAccount60"; 
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName).param("balance", "1000000000000"))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        this.mockMvc.perform(get(STATISTICS_URI))
+        			.andDo(print())
+        			.andExpect(status().isOk())
+        			.andExpect(jsonPath("$.conserved").value(true))
+        			.andExpect(jsonPath("$.largestBalances[0].name").value(accountName))
+        			.andExpect(jsonPath("$.largestBalances[0].balance").value(1000000000000L));
+    }
+
+    @Test
+    public void transferOfTheSettlementClass() throws Exception {
+        String accountName1 = "randomNameAccount70"; 
+        String accountName2 = "randomNameAccount71"; 
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName1).param("balance", "100")
+        			.header(RequestClass.HEADER, "SETTLEMENT"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName2).param("balance", "0"))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        this.mockMvc.perform(get(TRANSFER_URI).param("from", accountName1).param("to", accountName2).param("value", "40")
+        			.header(RequestClass.HEADER, "SETTLEMENT"))
+        			.andDo(print())
+        			.andExpect(status().isOk())
+        			.andExpect(jsonPath("$.success").value(true));
+
+        this.mockMvc.perform(get(REQUEST_CLASSES_URI))
+        			.andDo(print())
+        			.andExpect(status().isOk())
+        			.andExpect(jsonPath("$[0].requestClass").value("INTERACTIVE"))
+        			.andExpect(jsonPath("$[1].requestClass").value("SETTLEMENT"))
+        			.andExpect(jsonPath("$[1].admitted").value(2));
+    }
+
+    @Test
+    public void recordingDumped() throws Exception {
+        byte[] recording = this.mockMvc.perform(get(RECORDING_URI))
+        			.andExpect(status().isOk())
+        			.andReturn().getResponse().getContentAsByteArray();
+
+        // The files of the Flight Recorder start with the magic FLR
+        assertThat(recording.length).isGreaterThan(4);
+        assertThat(new String(recording, 0, 3, "US-ASCII")).isEqualTo("FLR");
+    }
+
+    @Test
+    public void fingerprintChangedByTransfer() throws Exception {
+        String accountName1 = "randomNameAccount80"; 
+        String accountName2 = "randomNameAccount81"; 
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName1).param("balance", "100"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName2).param("balance", "0"))
+        			.andExpect(jsonPath("$.success").value(true));
+        String before = this.mockMvc.perform(get(FINGERPRINT_URI))
+        			.andDo(print())
+        			.andExpect(status().isOk())
+        			.andExpect(jsonPath("$.level").value(0))
+        			.andExpect(jsonPath("$.hashes.length()").value(1))
+        			.andReturn().getResponse().getContentAsString();
+
+        this.mockMvc.perform(get(TRANSFER_URI).param("from", accountName1).param("to", accountName2).param("value", "10"))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        String after = this.mockMvc.perform(get(FINGERPRINT_URI))
+        			.andReturn().getResponse().getContentAsString();
+        assertThat(JsonPath.<String>read(after, "$.hashes[0]")).isNotEqualTo(JsonPath.<String>read(before, "$.hashes[0]"));
+        this.mockMvc.perform(get(FINGERPRINT_URI).param("level", "2").param("from", "1").param("count", "2"))
+        			.andExpect(jsonPath("$.from").value(1))
+        			.andExpect(jsonPath("$.hashes.length()").value(2));
+    }
+
+    @Test
+    public void balanceAsOf() throws Exception {
+        String accountName1 = "randomNameAccount90"; 
+        String accountName2 = "randomNameAccount91"; 
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName1).param("balance", "100"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName2).param("balance", "0"))
+        			.andExpect(jsonPath("$.success").value(true));
+        Thread.sleep(10);
+        long beforeTransfer = System.currentTimeMillis();
+        Thread.sleep(10);
+        this.mockMvc.perform(get(TRANSFER_URI).param("from", accountName1).param("to", accountName2).param("value", "10"))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        this.mockMvc.perform(get(BALANCE_URI).param("name", accountName1).param("asOf", String.valueOf(beforeTransfer)))
+        			.andDo(print())
+        			.andExpect(jsonPath("$.success").value(true))
+        			.andExpect(jsonPath("$.balance").value(100));
+        this.mockMvc.perform(get(BALANCE_URI).param("name", accountName1))
+        			.andExpect(jsonPath("$.balance").value(90));
+        this.mockMvc.perform(get(BALANCE_URI).param("name", accountName1).param("asOf", "0"))
+        			.andExpect(jsonPath("$.success").value(false))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.VERSION_NOT_AVAILABLE.getCode()));
+    }
+
+    @Test
+    public void accountsOfTenantsAreIsolated() throws Exception {
+        String accountName1 = "randomNameAccount100"; 
+        String accountName2 = "randomNameAccount101"; 
+        // The same name in two tenants
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName1).param("balance", "100"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(RETAIL_URI + "/createAccount").param("name", accountName1).param("balance", "50"))
+        			.andDo(print())
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(RETAIL_URI + "/createAccount").param("name", accountName2).param("balance", "0"))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        this.mockMvc.perform(get(RETAIL_URI + "/transfer").param("from", accountName1).param("to", accountName2).param("value", "20"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(RETAIL_URI + "/balance").param("name", accountName1))
+        			.andExpect(jsonPath("$.balance").value(30));
+        this.mockMvc.perform(get(BALANCE_URI).param("name", accountName1))
+        			.andExpect(jsonPath("$.balance").value(100));
+        this.mockMvc.perform(get(BALANCE_URI).param("name", accountName2))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.ACCOUNT_DOESNT_EXIST.getCode()));
+
+        // A hold is only visible in its tenant
+        String response = this.mockMvc.perform(get(RETAIL_URI + "/authorize").param("account", accountName1).param("amount", "10"))
+        			.andExpect(jsonPath("$.success").value(true))
+        			.andReturn().getResponse().getContentAsString();
+        String holdId = String.valueOf(JsonPath.<Number>read(response, "$.holdId"));
+        this.mockMvc.perform(get(RELEASE_URI).param("hold", holdId))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.HOLD_DOESNT_EXIST.getCode()));
+        this.mockMvc.perform(get(RETAIL_URI + "/release").param("hold", holdId))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        this.mockMvc.perform(get("/bank/rest/tenants/unknown/balance").param("name", accountName1))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.TENANT_DOESNT_EXIST.getCode()));
+        this.mockMvc.perform(get(TENANTS_URI))
+        			.andDo(print())
+        			.andExpect(jsonPath("$.length()").value(3))
+        			.andExpect(jsonPath("$[1].tenant").value("retail"))
+        			.andExpect(jsonPath("$[1].accounts").value(2))
+        			.andExpect(jsonPath("$[1].totalBalance").value(50))
+        			.andExpect(jsonPath("$[1].requestClasses.length()").value(2));
+    }
+
+    @Test
+    public void transferOverTheVelocityLimit() throws Exception {
+        // The accounts velocity-* have at most 3 transfers a minute (see the surefire configuration)
+        String accountName1 = "velocity-randomNameAccount110"; 
+        String accountName2 = "randomNameAccount111"; 
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName1).param("balance", "100"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName2).param("balance", "100"))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        for (int i = 0; i < 3; i++) {
+            this.mockMvc.perform(get(TRANSFER_URI).param("from", accountName1).param("to", accountName2).param("value", "10"))
+            			.andExpect(jsonPath("$.success").value(true));
+        }
+        this.mockMvc.perform(get(TRANSFER_URI).param("from", accountName1).param("to", accountName2).param("value", "10"))
+        			.andDo(print())
+        			.andExpect(jsonPath("$.success").value(false))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.VELOCITY_LIMIT_EXCEEDED.getCode()));
+        // The limits are of the source account
+        this.mockMvc.perform(get(TRANSFER_URI).param("from", accountName2).param("to", accountName1).param("value", "10"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(BALANCE_URI).param("name", accountName1))
+        			.andExpect(jsonPath("$.balance").value(80));
+    }
+
+    @Test
+    public void holdOverTheVelocityLimit() throws Exception {
+        // The holds are counted when they are authorized, so the limit could not be passed by capturing them
+        String accountName1 = "velocity-holdAccount1";
+        String accountName2 = "holdAccount2";
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName1).param("balance", "100"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName2).param("balance", "0"))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        String holdId1 = authorize(accountName1, "10");
+        String holdId2 = authorize(accountName1, "10");
+        this.mockMvc.perform(get(TRANSFER_URI).param("from", accountName1).param("to", accountName2).param("value", "10"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(AUTHORIZE_URI).param("account", accountName1).param("amount", "10"))
+        			.andDo(print())
+        			.andExpect(jsonPath("$.success").value(false))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.VELOCITY_LIMIT_EXCEEDED.getCode()));
+
+        // A released hold is not counted
+        this.mockMvc.perform(get(RELEASE_URI).param("hold", holdId1))
+        			.andExpect(jsonPath("$.success").value(true));
+        authorize(accountName1, "10");
+
+        // A captured hold is still counted
+        this.mockMvc.perform(get(CAPTURE_URI).param("hold", holdId2).param("to", accountName2).param("amount", "5"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(TRANSFER_URI).param("from", accountName1).param("to", accountName2).param("value", "10"))
+        			.andExpect(jsonPath("$.success").value(false))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.VELOCITY_LIMIT_EXCEEDED.getCode()));
+        this.mockMvc.perform(get(BALANCE_URI).param("name", accountName2))
+        			.andExpect(jsonPath("$.balance").value(15));
+    }
+
+    private String authorize(String accountName, String amount) throws Exception {
+        String response = this.mockMvc.perform(get(AUTHORIZE_URI).param("account", accountName).param("amount", amount))
+        			.andExpect(jsonPath("$.success").value(true))
+        			.andReturn().getResponse().getContentAsString();
+        return String.valueOf(JsonPath.<Number>read(response, "$.holdId"));
+    }
+
+    @Test
+    public void searchAccountsPaginated() throws Exception {
+        String[] accountNames = { "searchAccount120", "searchAccount121", "searchAccount130" }; 
+        for (String accountName : accountNames) {
+            this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName).param("balance", "0"))
+            			.andExpect(jsonPath("$.success").value(true));
+        }
+
+        this.mockMvc.perform(get(SEARCH_ACCOUNTS_URI).param("prefix", "searchAccount12").param("limit", "1"))
+        			.andDo(print())
+        			.andExpect(jsonPath("$.success").value(true))
+        			.andExpect(jsonPath("$.names.length()").value(1))
+        			.andExpect(jsonPath("$.names[0]").value(accountNames[0]))
+        			.andExpect(jsonPath("$.next").value(accountNames[1]));
+        this.mockMvc.perform(get(SEARCH_ACCOUNTS_URI).param("prefix", "searchAccount12").param("from", accountNames[1]))
+        			.andExpect(jsonPath("$.names.length()").value(1))
+        			.andExpect(jsonPath("$.names[0]").value(accountNames[1]))
+        			.andExpect(jsonPath("$.next").doesNotExist());
+        this.mockMvc.perform(get(SEARCH_ACCOUNTS_URI).param("from", "searchAccount121").param("to", "searchAccount2"))
+        			.andExpect(jsonPath("$.names.length()").value(2))
+        			.andExpect(jsonPath("$.names[1]").value(accountNames[2]));
+        this.mockMvc.perform(get(RETAIL_URI + "/searchAccounts").param("prefix", "searchAccount"))
+        			.andExpect(jsonPath("$.names.length()").value(0));
+        this.mockMvc.perform(get(SEARCH_ACCOUNTS_URI).param("limit", "0"))
+        			.andExpect(jsonPath("$.success").value(false))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.INVALID_VALUE.getCode()));
+    }
+
+    @Test
+    public void eventsStreamed() throws Exception {
+        String accountName1 = "eventsAccount1"; 
+        String accountName2 = "eventsAccount2"; 
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName1).param("balance", "100"))
+        			.andExpect(jsonPath("$.success").value(true));
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", accountName2).param("balance", "0"))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        MvcResult stream = this.mockMvc.perform(get(EVENTS_URI).param("accounts", accountName2))
+        			.andExpect(request().asyncStarted())
+        			.andReturn();
+        this.mockMvc.perform(get(TRANSFER_URI).param("from", accountName1).param("to", accountName2).param("value", "40"))
+        			.andExpect(jsonPath("$.success").value(true));
+
+        // The events are written to the response while the stream is open
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!stream.getResponse().getContentAsString().contains("\"balance\":40")) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        String events = stream.getResponse().getContentAsString();
+        assertThat(events).contains("event:balance").contains("\"account\":\"" + accountName2 + "\"")
+        			.doesNotContain("\"account\":\"" + accountName1 + "\"");
+    }
+
+    @Test
+    public void createAccountNameTooLong() throws Exception {
+        StringBuilder name = new StringBuilder("longNameAccount");
+        while (name.length() <= AccountDAO.MAX_NAME_LENGTH) {
+            name.append('x');
+        }
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", name.toString()).param("balance", "0"))
+        			.andExpect(status().isOk())
+        			.andExpect(jsonPath("$.success").value(false))
+        			.andExpect(jsonPath("$.errorCode").value(OperationError.INVALID_VALUE.getCode()));
+        this.mockMvc.perform(get(CREATE_ACCOUNT_URI).param("name", name.substring(1)).param("balance", "0"))
+        			.andExpect(jsonPath("$.success").value(true));
+    }
 }
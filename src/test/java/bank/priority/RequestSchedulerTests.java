@@ -0,0 +1,162 @@
+package bank.priority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import bank.data.OperationError;
+import bank.data.OperationStatus;
+
+public class RequestSchedulerTests {
+	private ExecutorService executor;
+
+	@Before
+	public void init() {
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * With one worker busy, a full queue rejects at once and a request that waits too long expires.
+	 */
+	@Test
+	public void overloadedRequestsAreRejected() throws Exception {
+		RequestScheduler scheduler = new RequestScheduler(1, 4, 100, 50, 1, 1, 60000);
+		CountDownLatch busy = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		Future<OperationStatus> running = submit(scheduler, RequestClass.SETTLEMENT, () -> {
+			busy.countDown();
+			done.await();
+		});
+		busy.await();
+		Future<OperationStatus> queued = submit(scheduler, RequestClass.SETTLEMENT, () -> { });
+		awaitDepth(scheduler, RequestClass.SETTLEMENT, 1);
+
+		OperationStatus rejected = execute(scheduler, RequestClass.SETTLEMENT);
+		assertThat(rejected.isSuccess()).isFalse();
+		assertThat(rejected.getErrorCode()).isEqualTo(OperationError.SERVICE_OVERLOADED);
+		OperationStatus expired = execute(scheduler, RequestClass.INTERACTIVE);
+		assertThat(expired.getErrorCode()).isEqualTo(OperationError.SERVICE_OVERLOADED);
+
+		done.countDown();
+		assertThat(running.get().isSuccess()).isTrue();
+		assertThat(queued.get().isSuccess()).isTrue();
+		RequestClassStatistics interactive = scheduler.getStatistics().get(RequestClass.INTERACTIVE.ordinal());
+		RequestClassStatistics settlement = scheduler.getStatistics().get(RequestClass.SETTLEMENT.ordinal());
+		assertThat(interactive.getExpired()).isEqualTo(1);
+		assertThat(interactive.getAdmitted()).isEqualTo(0);
+		assertThat(settlement.getRejected()).isEqualTo(1);
+		assertThat(settlement.getAdmitted()).isEqualTo(2);
+		assertThat(settlement.getDepth()).isEqualTo(0);
+		assertThat(settlement.getMaxWaitMicros()).isGreaterThan(0);
+	}
+
+	/**
+	 * With both queues full, the worker is shared by the weights and not by the order of arrival.
+	 */
+	@Test
+	public void workersSharedByWeight() throws Exception {
+		RequestScheduler scheduler = new RequestScheduler(1, 3, 100, 60000, 1, 100, 60000);
+		CountDownLatch busy = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		submit(scheduler, RequestClass.INTERACTIVE, () -> {
+			busy.countDown();
+			done.await();
+		});
+		busy.await();
+
+		List<RequestClass> order = new ArrayList<>();
+		List<Future<OperationStatus>> requests = new ArrayList<>();
+		// The settlement burst arrives first
+		for (RequestClass requestClass : new RequestClass[] { RequestClass.SETTLEMENT, RequestClass.INTERACTIVE }) {
+			for (int i = 0; i < 8; i++) {
+				requests.add(submit(scheduler, requestClass, () -> order.add(requestClass)));
+			}
+			awaitDepth(scheduler, requestClass, 8);
+		}
+		done.countDown();
+		for (Future<OperationStatus> request : requests) {
+			assertThat(request.get().isSuccess()).isTrue();
+		}
+
+		// The only worker runs one request at a time, so the order is safe to read
+		assertThat(order).hasSize(16);
+		assertThat(order.subList(0, 8).stream().filter(c -> c == RequestClass.INTERACTIVE).count()).isEqualTo(6);
+		assertThat(order.subList(0, 4)).containsExactly(RequestClass.INTERACTIVE, RequestClass.INTERACTIVE,
+				RequestClass.SETTLEMENT, RequestClass.INTERACTIVE);
+	}
+
+	/**
+	 * The drain rejects the new requests and the waiting ones, waits for the running one and ends with the resume.
+	 */
+	@Test
+	public void drainWaitsForRunningRequests() throws Exception {
+		RequestScheduler scheduler = new RequestScheduler(1, 4, 100, 60000, 1, 50, 60000);
+		CountDownLatch busy = new CountDownLatch(1);
+		CountDownLatch done = new CountDownLatch(1);
+		Future<OperationStatus> running = submit(scheduler, RequestClass.SETTLEMENT, () -> {
+			busy.countDown();
+			done.await();
+		});
+		busy.await();
+		Future<OperationStatus> queued = submit(scheduler, RequestClass.INTERACTIVE, () -> { });
+		awaitDepth(scheduler, RequestClass.INTERACTIVE, 1);
+
+		assertThat(scheduler.drain(50)).isFalse();
+		assertThat(queued.get().getErrorCode()).isEqualTo(OperationError.SERVICE_OVERLOADED);
+		assertThat(execute(scheduler, RequestClass.SETTLEMENT).getErrorCode())
+				.isEqualTo(OperationError.SERVICE_OVERLOADED);
+		Future<Boolean> drained = executor.submit(() -> scheduler.drain(10000));
+		done.countDown();
+		assertThat(drained.get()).isTrue();
+		assertThat(running.get().isSuccess()).isTrue();
+		assertThat(execute(scheduler, RequestClass.INTERACTIVE).getErrorCode())
+				.isEqualTo(OperationError.SERVICE_OVERLOADED);
+
+		scheduler.resume();
+		assertThat(execute(scheduler, RequestClass.INTERACTIVE).isSuccess()).isTrue();
+		assertThat(scheduler.getStatistics().get(RequestClass.INTERACTIVE.ordinal()).getRejected()).isEqualTo(2);
+	}
+
+	private interface Body {
+		void run() throws Exception;
+	}
+
+	private Future<OperationStatus> submit(RequestScheduler scheduler, RequestClass requestClass, Body body) {
+		return executor.submit(() -> scheduler.execute(requestClass, () -> {
+			try {
+				body.run();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			return new OperationStatus(true);
+		}, error -> new OperationStatus(false, error)));
+	}
+
+	private OperationStatus execute(RequestScheduler scheduler, RequestClass requestClass) {
+		return scheduler.execute(requestClass, () -> new OperationStatus(true),
+				error -> new OperationStatus(false, error));
+	}
+
+	private void awaitDepth(RequestScheduler scheduler, RequestClass requestClass, int depth) throws Exception {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (scheduler.getStatistics().get(requestClass.ordinal()).getDepth() < depth) {
+			assertThat(System.currentTimeMillis()).isLessThan(deadline);
+			TimeUnit.MILLISECONDS.sleep(5);
+		}
+	}
+}
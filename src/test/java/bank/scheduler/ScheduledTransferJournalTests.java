@@ -0,0 +1,113 @@
+package bank.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import bank.dao.AccountDAO;
+
+public class ScheduledTransferJournalTests {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * A transfer whose execution started without its result is not executed again: a transfer executed once is 
+	 * removed and a recurring one goes to its next execution.
+	 */
+	@Test
+	public void executionsInDoubtNotRepeated() throws Exception {
+		File file = new File(folder.getRoot(), "scheduler.journal");
+		ScheduledTransferJournal journal = new ScheduledTransferJournal(file);
+		journal.load();
+		ScheduledTransfer once = new ScheduledTransfer(1, "corporate", "a", "b", 10, 1000, 0);
+		ScheduledTransfer recurring = new ScheduledTransfer(2, "corporate", "a", "b", 10, 1000, 500);
+		ScheduledTransfer executed = new ScheduledTransfer(3, "corporate", "a", "b", 10, 1000, 0);
+		ScheduledTransfer waiting = new ScheduledTransfer(4, "corporate", "a", "b", 10, 9000, 0);
+		for (ScheduledTransfer transfer : new ScheduledTransfer[] { once, recurring, executed, waiting }) {
+			journal.scheduled(transfer);
+		}
+		journal.executing(once);
+		journal.executing(recurring);
+		journal.executing(executed);
+		journal.removed(executed.getId());
+		journal.close();
+
+		journal = new ScheduledTransferJournal(file);
+		Map<Long, ScheduledTransfer> transfers = journal.load();
+		journal.close();
+		assertThat(journal.getInDoubt()).isEqualTo(2);
+		assertThat(transfers.keySet()).containsExactly(2L, 4L);
+		assertThat(transfers.get(2L).getExecutionTime()).isEqualTo(1500);
+		assertThat(transfers.get(4L).getExecutionTime()).isEqualTo(9000);
+		assertThat(transfers.get(4L).getTenant()).isEqualTo("corporate");
+	}
+
+	/**
+	 * The transfers of a journal written before the transfers had a tenant are transfers of the default tenant.
+	 */
+	@Test
+	public void transfersWithoutTenantLoadedInTheDefaultTenant() throws Exception {
+		File file = new File(folder.getRoot(), "scheduler.journal");
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+			out.writeByte('S');
+			out.writeLong(1);
+			out.writeUTF("a");
+			out.writeUTF("b");
+			out.writeLong(10);
+			out.writeLong(1000);
+			out.writeLong(0);
+		}
+
+		ScheduledTransferJournal journal = new ScheduledTransferJournal(file);
+		Map<Long, ScheduledTransfer> transfers = journal.load();
+		journal.close();
+		assertThat(transfers.get(1L).getTenant()).isEqualTo(AccountDAO.DEFAULT_TENANT);
+		assertThat(transfers.get(1L).getFrom()).isEqualTo("a");
+
+		// The file is rewritten with the tenant
+		journal = new ScheduledTransferJournal(file);
+		transfers = journal.load();
+		journal.close();
+		assertThat(transfers.get(1L).getTenant()).isEqualTo(AccountDAO.DEFAULT_TENANT);
+		assertThat(transfers.get(1L).getValue()).isEqualTo(10);
+	}
+
+	/**
+	 * The journal is compacted to the pending transfers when it has too many records.
+	 */
+	@Test
+	public void journalCompacted() throws Exception {
+		File file = new File(folder.getRoot(), "scheduler.journal");
+		ScheduledTransferJournal journal = new ScheduledTransferJournal(file);
+		journal.load();
+		ScheduledTransfer recurring = new ScheduledTransfer(1, "corporate", "a", "b", 10, 0, 100);
+		List<ScheduledTransfer> pending = new ArrayList<>();
+		pending.add(recurring);
+		journal.scheduled(recurring);
+		while (!journal.isCompactionDue(pending.size())) {
+			journal.executing(recurring);
+			recurring.setExecutionTime(recurring.getExecutionTime() + 100);
+			journal.scheduled(recurring);
+		}
+		long size = file.length();
+		journal.compact(pending);
+		assertThat(file.length()).isLessThan(size / 100);
+		assertThat(journal.isCompactionDue(pending.size())).isFalse();
+		journal.close();
+
+		journal = new ScheduledTransferJournal(file);
+		Map<Long, ScheduledTransfer> transfers = journal.load();
+		journal.close();
+		assertThat(transfers.get(1L).getExecutionTime()).isEqualTo(recurring.getExecutionTime());
+		assertThat(journal.getInDoubt()).isEqualTo(0);
+	}
+}
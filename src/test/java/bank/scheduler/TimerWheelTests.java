@@ -0,0 +1,60 @@
+package bank.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TimerWheelTests {
+
+	@Test
+	public void valuesExpireAtTheirTick() {
+		TimerWheel<Long> wheel = new TimerWheel<>(10, 0);
+		// Deadlines in all the levels of the wheel
+		long[] times = { 10, 15, 630, 640, 650, 41_000, 2_621_440, 170_000_000 };
+		for (long time : times) {
+			wheel.schedule(time, time);
+		}
+		assertThat(wheel.size()).isEqualTo(times.length);
+
+		List<Long> expired = new ArrayList<>();
+		for (long now = 0; now <= 170_000_000; now += 10) {
+			final long tick = now;
+			wheel.advance(now, time -> {
+				assertThat(time).isLessThanOrEqualTo(tick).isGreaterThan(tick - 10);
+				expired.add(time);
+			});
+		}
+		assertThat(expired).containsExactly(10L, 15L, 630L, 640L, 650L, 41_000L, 2_621_440L, 170_000_000L);
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	public void cancelledValuesDontExpire() {
+		TimerWheel<String> wheel = new TimerWheel<>(10, 0);
+		TimerWheel.Timeout<String> cancelled = wheel.schedule("cancelled", 100_000);
+		wheel.schedule("expired", 100_000);
+		assertThat(wheel.cancel(cancelled)).isTrue();
+		assertThat(wheel.cancel(cancelled)).isFalse();
+
+		List<String> expired = new ArrayList<>();
+		wheel.advance(200_000, expired::add);
+		assertThat(expired).containsExactly("expired");
+		assertThat(cancelled.isPending()).isFalse();
+	}
+
+	@Test
+	public void pastValuesExpireInTheNextTick() {
+		TimerWheel<String> wheel = new TimerWheel<>(10, 1000);
+		wheel.advance(2000, value -> { });
+		wheel.schedule("late", 0);
+
+		List<String> expired = new ArrayList<>();
+		wheel.advance(2009, expired::add);
+		assertThat(expired).isEmpty();
+		wheel.advance(2010, expired::add);
+		assertThat(expired).containsExactly("late");
+	}
+}
@@ -0,0 +1,76 @@
+package bank.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import bank.dao.AccountDAO;
+import bank.dao.HoldDAO;
+import bank.data.Hold;
+
+public class HoldSweeperTests {
+
+	/**
+	 * The expired holds release their amount, even when the release of other hold fails.
+	 */
+	@Test
+	public void expiredHoldReleasesItsAmount() throws Exception {
+		BankBaseServices service = new BankBaseServices();
+		assertThat(service.createAccount("sweptAccount1", 100).isSuccess()).isTrue();
+		long holdId = service.authorize("sweptAccount1", 60, 1).getHoldId();
+		assertThat(new AccountDAO().getAccount("sweptAccount1").getHeld()).isEqualTo(60);
+		// A hold of a tenant that doesn't exist fails to release its funds
+		HoldDAO holds = new HoldDAO();
+		Hold failing = holds.createHold("sweptTenant", "sweptAccount1", 10, System.currentTimeMillis(),
+				System.currentTimeMillis());
+
+		HoldSweeper sweeper = new HoldSweeper(10);
+		sweeper.start();
+		try {
+			long deadline = System.currentTimeMillis() + 10000;
+			while (new AccountDAO().getAccount("sweptAccount1").getHeld() > 0) {
+				assertThat(System.currentTimeMillis()).isLessThan(deadline);
+				TimeUnit.MILLISECONDS.sleep(5);
+			}
+			assertThat(holds.getHold(holdId)).isNull();
+			assertThat(service.getBalance("sweptAccount1").getBalance()).isEqualTo(100);
+			// The failing hold is kept for the next sweeps, which go on
+			TimeUnit.MILLISECONDS.sleep(50);
+			assertThat(holds.getHold(failing.getId())).isNotNull();
+		} finally {
+			sweeper.stop();
+			holds.removeHold(failing.getId());
+		}
+	}
+
+	/**
+	 * A hold whose capture or release fails is kept, it could be captured, released or expire again.
+	 */
+	@Test
+	public void failedHoldIsKept() throws Exception {
+		BankBaseServices service = new BankBaseServices();
+		assertThat(service.createAccount("keptAccount1", 100).isSuccess()).isTrue();
+		HoldDAO holds = new HoldDAO();
+		// The account of the hold doesn't exist, so its capture fails
+		Hold captured = holds.createHold(AccountDAO.DEFAULT_TENANT, "keptAccount2", 10, System.currentTimeMillis(),
+				System.currentTimeMillis() + 60000);
+		// A hold of a tenant that doesn't exist fails to release its funds
+		Hold released = holds.createHold("keptTenant", "keptAccount1", 10, System.currentTimeMillis(),
+				System.currentTimeMillis() + 60000);
+		try {
+			assertThatThrownBy(() -> service.capture(captured.getId(), "keptAccount1", 10))
+					.isInstanceOf(RuntimeException.class);
+			assertThat(holds.getHold(captured.getId())).isNotNull();
+			assertThatThrownBy(() -> new BankBaseServices("keptTenant").release(released.getId()))
+					.isInstanceOf(IllegalArgumentException.class);
+			assertThat(holds.getHold(released.getId())).isNotNull();
+			assertThat(service.getBalance("keptAccount1").getBalance()).isEqualTo(100);
+		} finally {
+			holds.removeHold(captured.getId());
+			holds.removeHold(released.getId());
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package bank.tools.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+
+public class LoadOptionsTests {
+
+	@Test
+	public void optionsParsed() {
+		LoadOptions options = LoadOptions.parse(new String[] { "--interface=rest", "--threads=2", "--rate=500",
+				"--distribution=zipf", "--report-interval=1" });
+		assertThat(options.bankInterface).isEqualTo("rest");
+		assertThat(options.threads).isEqualTo(2);
+		assertThat(options.isOpenLoop()).isTrue();
+		assertThat(options.distribution).isEqualTo("zipf");
+		assertThat(options.reportInterval).isEqualTo(1);
+		assertThat(options.duration).isEqualTo(60);
+	}
+
+	/**
+	 * A report interval that is not positive would never end the reports of the load.
+	 */
+	@Test
+	public void invalidOptionsRejected() {
+		assertThatThrownBy(() -> LoadOptions.parse(new String[] { "--report-interval=0" }))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("report-interval");
+		assertThatThrownBy(() -> LoadOptions.parse(new String[] { "--report-interval=-5" }))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> LoadOptions.parse(new String[] { "--threads=0" }))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> LoadOptions.parse(new String[] { "--rate=-1" }))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> LoadOptions.parse(new String[] { "--threads" }))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> LoadOptions.parse(new String[] { "--unknown=1" }))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,120 @@
+package bank.trace;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import bank.data.OperationError;
+import bank.data.OperationStatus;
+import bank.priority.RequestClass;
+import bank.priority.RequestScheduler;
+import bank.services.BankBaseServices;
+import bank.trace.TransferTrace.Stage;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class TransferTraceTests {
+	private final RequestScheduler scheduler = new RequestScheduler(1, 4, 100, 1000, 1, 50, 5000);
+	private final BankBaseServices service = new BankBaseServices();
+
+	/**
+	 * The transfers of a traced request are recorded with their stages and outcome, the other requests are not.
+	 */
+	@Test
+	public void transfersRecordedWithStages() throws Exception {
+		assertThat(service.createAccount("traceFrom", 100).isSuccess()).isTrue();
+		assertThat(service.createAccount("traceTo", 0).isSuccess()).isTrue();
+
+		List<RecordedEvent> events;
+		TransferTrace success;
+		TransferTrace failure;
+		Path file = Files.createTempFile("trace", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(TransferEvent.NAME).withThreshold(Duration.ZERO);
+			recording.start();
+			success = trace(RequestClass.INTERACTIVE, () -> service.transfer("traceFrom", "traceTo", 60));
+			failure = trace(RequestClass.SETTLEMENT, () -> service.transfer("traceFrom", "traceTo", 60));
+			assertThat(trace(RequestClass.INTERACTIVE, () -> service.getBalance("traceTo"))).isNull();
+			recording.stop();
+			recording.dump(file);
+			events = RecordingFile.readAllEvents(file).stream()
+					.filter(event -> event.getEventType().getName().equals(TransferEvent.NAME))
+					.filter(event -> event.getString("accounts").equals("traceFrom,traceTo"))
+					.collect(Collectors.toList());
+		} finally {
+			Files.delete(file);
+		}
+
+		assertThat(success.getOutcome()).isEqualTo(OperationError.NO_ERROR);
+		assertThat(success.getNanos(Stage.COMMIT)).isGreaterThan(0);
+		long stages = 0;
+		for (Stage stage : Stage.values()) {
+			stages += success.getNanos(stage);
+		}
+		assertThat(stages).isEqualTo(success.getTotalNanos());
+		assertThat(failure.getOutcome()).isEqualTo(OperationError.ACCOUNT_NOT_ENOUGH_FUNDS);
+		assertThat(failure.getNanos(Stage.COMMIT)).isEqualTo(0);
+
+		assertThat(events).hasSize(2);
+		assertThat(events.get(0).getString("channel")).isEqualTo("TEST");
+		assertThat(events.get(0).getLong("amount")).isEqualTo(60);
+		assertThat(events.get(0).getString("requestClass")).isEqualTo("INTERACTIVE");
+		assertThat(events.get(0).getString("outcome")).isEqualTo("NO_ERROR");
+		assertThat(events.get(0).getDuration("commit").toNanos()).isEqualTo(success.getNanos(Stage.COMMIT));
+		assertThat(events.get(1).getString("requestClass")).isEqualTo("SETTLEMENT");
+		assertThat(events.get(1).getString("outcome")).isEqualTo("ACCOUNT_NOT_ENOUGH_FUNDS");
+	}
+
+	/**
+	 * The time between the commit and the return of the service is part of the commit, not of the validation.
+	 */
+	@Test
+	public void timeAfterTheCommitIsCommit() throws Exception {
+		TransferTrace.begin("TEST");
+		scheduler.execute(RequestClass.INTERACTIVE, () -> {
+			TransferTrace.transfer(Arrays.asList("traceFrom", "traceTo"), 1);
+			TransferTrace.mark(Stage.VALIDATION);
+			TransferTrace.mark(Stage.LOCK);
+			TransferTrace.mark(Stage.COMMIT);
+			sleep(20);
+			return new OperationStatus(true);
+		}, error -> new OperationStatus(false, error));
+		TransferTrace committed = TransferTrace.end();
+		assertThat(committed.getNanos(Stage.COMMIT)).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+		assertThat(committed.getNanos(Stage.VALIDATION)).isLessThan(TimeUnit.MILLISECONDS.toNanos(20));
+
+		TransferTrace.begin("TEST");
+		scheduler.execute(RequestClass.INTERACTIVE, () -> {
+			TransferTrace.transfer(Arrays.asList("traceFrom", "traceTo"), 1);
+			sleep(20);
+			return new OperationStatus(false, OperationError.ACCOUNT_NOT_ENOUGH_FUNDS);
+		}, error -> new OperationStatus(false, error));
+		TransferTrace rejected = TransferTrace.end();
+		assertThat(rejected.getNanos(Stage.VALIDATION)).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+		assertThat(rejected.getNanos(Stage.COMMIT)).isEqualTo(0);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			TimeUnit.MILLISECONDS.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private TransferTrace trace(RequestClass requestClass, Supplier<OperationStatus> operation) {
+		TransferTrace.begin("TEST");
+		scheduler.execute(requestClass, operation, error -> new OperationStatus(false, error));
+		return TransferTrace.end();
+	}
+}
@@ -0,0 +1,140 @@
+package bank.velocity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class VelocityRulesTests {
+	/**
+	 * The start of a bucket of every window
+	 */
+	private static final long START = 1_000_000_000_000L;
+	private static final long MINUTE = 60000;
+
+	/**
+	 * The transfers of the window are counted until the window slides past them.
+	 */
+	@Test
+	public void windowSlides() {
+		VelocityRules rules = rules(new VelocityLimit("minute", MINUTE, 12, 3, 0));
+		assertThat(rules.acquire("velocity1", 10, START)).isTrue();
+		assertThat(rules.acquire("velocity1", 10, START + 20000)).isTrue();
+		assertThat(rules.acquire("velocity1", 10, START + 40000)).isTrue();
+		assertThat(rules.acquire("velocity1", 10, START + 50000)).isFalse();
+		assertThat(rules.getCounts("velocity1", START + 50000)).containsEntry("minute", 3L);
+		// Other account has its own counters and the accounts of other class have no limits
+		assertThat(rules.acquire("velocity2", 10, START + 50000)).isTrue();
+		assertThat(rules.acquire("other", 10, START + 50000)).isTrue();
+		assertThat(rules.getAccounts()).isEqualTo(2);
+
+		// The window covers at least a minute, the first transfer leaves it a bucket later
+		assertThat(rules.acquire("velocity1", 10, START + MINUTE)).isFalse();
+		assertThat(rules.acquire("velocity1", 10, START + MINUTE + 5000)).isTrue();
+		assertThat(rules.getRejected()).isEqualTo(2);
+	}
+
+	/**
+	 * The amount is limited in every window of the class and a transfer released is not counted.
+	 */
+	@Test
+	public void amountLimitedAndReleased() {
+		VelocityRules rules = rules(new VelocityLimit("minute", MINUTE, 12, 0, 100),
+				new VelocityLimit("day", 24 * 60 * MINUTE, 24, 0, 150));
+		assertThat(rules.acquire("velocity1", 60, START)).isTrue();
+		assertThat(rules.acquire("velocity1", 60, START + 1000)).isFalse();
+		assertThat(rules.acquire("velocity1", 40, START + 1000)).isTrue();
+		rules.release("velocity1", 40, START + 1000);
+		assertThat(rules.acquire("velocity1", 40, START + 2000)).isTrue();
+
+		// The minute slid but the day didn't
+		assertThat(rules.acquire("velocity1", 60, START + 2 * MINUTE)).isFalse();
+		assertThat(rules.acquire("velocity1", 50, START + 2 * MINUTE)).isTrue();
+	}
+
+	/**
+	 * A transfer released after its bucket left the window is not subtracted again.
+	 */
+	@Test
+	public void lateReleaseNotSubtracted() {
+		VelocityRules rules = rules(new VelocityLimit("minute", MINUTE, 12, 3, 0));
+		assertThat(rules.acquire("velocity1", 10, START)).isTrue();
+		assertThat(rules.acquire("velocity1", 10, START + 2 * MINUTE)).isTrue();
+		rules.release("velocity1", 10, START);
+		assertThat(rules.getCounts("velocity1", START + 2 * MINUTE)).containsEntry("minute", 1L);
+		assertThat(rules.acquire("velocity1", 10, START + 2 * MINUTE + 1000)).isTrue();
+		assertThat(rules.acquire("velocity1", 10, START + 2 * MINUTE + 2000)).isTrue();
+		assertThat(rules.acquire("velocity1", 10, START + 2 * MINUTE + 3000)).isFalse();
+	}
+
+	/**
+	 * The amount released of a transfer is not counted, the transfer still is.
+	 */
+	@Test
+	public void amountOfATransferReleased() {
+		VelocityRules rules = rules(new VelocityLimit("minute", MINUTE, 12, 2, 100));
+		assertThat(rules.acquire("velocity1", 80, START)).isTrue();
+		rules.releaseAmount("velocity1", 50, START);
+		assertThat(rules.getCounts("velocity1", START + 1000)).containsEntry("minute", 1L);
+		assertThat(rules.acquire("velocity1", 70, START + 1000)).isTrue();
+		assertThat(rules.acquire("velocity1", 1, START + 2000)).isFalse();
+	}
+
+	/**
+	 * The counters of the accounts without transfers in the window are removed, the next transfer starts new ones.
+	 */
+	@Test
+	public void dormantAccountsSwept() {
+		VelocityRules rules = rules(new VelocityLimit("minute", MINUTE, 12, 1, 0));
+		long now = System.currentTimeMillis();
+		assertThat(rules.acquire("velocity1", 10, now)).isTrue();
+		assertThat(rules.acquire("velocity2", 10, now + MINUTE)).isTrue();
+		assertThat(rules.sweep(now + MINUTE)).isEqualTo(0);
+		assertThat(rules.sweep(now + 2 * MINUTE)).isEqualTo(1);
+		assertThat(rules.getAccounts()).isEqualTo(1);
+		assertThat(rules.acquire("velocity1", 10, now + 2 * MINUTE)).isTrue();
+		assertThat(rules.acquire("velocity2", 10, now + 2 * MINUTE)).isFalse();
+	}
+
+	/**
+	 * The concurrent transfers of an account are never accepted over the limit.
+	 */
+	@Test
+	public void concurrentTransfersWithinLimit() throws Exception {
+		VelocityRules rules = rules(new VelocityLimit("minute", MINUTE, 12, 1000, 0));
+		AtomicInteger accepted = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int j = 0; j < 500; j++) {
+					if (rules.acquire("velocity1", 1, START + j)) {
+						accepted.incrementAndGet();
+					}
+				}
+			});
+			threads[i].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertThat(accepted.get()).isLessThanOrEqualTo(1000);
+		assertThat(rules.getCounts("velocity1", START + 500)).containsEntry("minute", (long) accepted.get());
+	}
+
+	private static VelocityRules rules(VelocityLimit... limits) {
+		List<VelocityLimit> list = Arrays.asList(limits);
+		return new VelocityRules(Collections.singletonMap("velocity", list), Collections.emptyList());
+	}
+}